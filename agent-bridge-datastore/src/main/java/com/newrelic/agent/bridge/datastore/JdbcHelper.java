@@ -44,11 +44,19 @@ public class JdbcHelper {
     private static final Map<Class<?>, DatabaseVendor> classToVendorLookup = AgentBridge.collectionFactory.createConcurrentWeakKeyedMap();
     private static final Map<String, ConnectionFactory> urlToFactory = new ConcurrentHashMap<>(5);
     private static final Map<String, String> urlToDatabaseName = new ConcurrentHashMap<>(5);
+    /**
+     * Fallback for statements whose sql is captured by a different weave package than the one that reads it. Where a
+     * single weave package both captures and reads the sql it keeps it in a field on the statement instead.
+     */
     private static final Map<Statement, String> statementToSql = AgentBridge.collectionFactory.createConcurrentWeakKeyedMap();
-    private static final Map<Connection, String> connectionToIdentifier = AgentBridge.collectionFactory.createConcurrentWeakKeyedMap();
-    private static final Map<Connection, String> connectionToURL = AgentBridge.collectionFactory.createConcurrentWeakKeyedMap();
+    private static final Map<Connection, ConnectionInfo> connectionToInfo = AgentBridge.collectionFactory.createConcurrentWeakKeyedMap();
     public static final String UNKNOWN = "unknown";
 
+    /**
+     * Set by the agent, see {@link #shouldCaptureParameters()}. Parameters are captured until the agent says otherwise.
+     */
+    private static volatile boolean captureParameters = true;
+
     public static void putVendor(Class<?> driverOrDatastoreClass, DatabaseVendor databaseVendor) {
         classToVendorLookup.put(driverOrDatastoreClass, databaseVendor);
         AgentBridge.getAgent().getLogger().log(Level.FINEST, "Storing class: {0}, vendor: {1}", driverOrDatastoreClass, databaseVendor);
@@ -143,7 +151,10 @@ public class JdbcHelper {
 
     public static void putSql(Statement statement, String sql) {
         AgentBridge.getAgent().getLogger().log(Level.FINEST, "Storing sql for statement: {0}", statement);
-        statementToSql.put(statement, sql);
+        // drivers and pools that cache statements prepare the same statement over and over, a read is cheaper than a write
+        if (sql == null || !sql.equals(statementToSql.get(statement))) {
+            statementToSql.put(statement, sql);
+        }
     }
 
     public static String getSql(Statement statement) {
@@ -151,6 +162,18 @@ public class JdbcHelper {
         return statementToSql.get(statement);
     }
 
+    /**
+     * Whether the values bound to prepared statements are used by the agent, which is only the case when raw SQL is
+     * recorded or explain plans are enabled. Instrumentation should not capture the values when this returns false.
+     */
+    public static boolean shouldCaptureParameters() {
+        return captureParameters;
+    }
+
+    public static void setCaptureParameters(boolean capture) {
+        captureParameters = capture;
+    }
+
     public static Object[] growParameterArray(Object[] params, int missingIndex) {
         int length = Math.max(10, (int) (missingIndex * 1.2));
         Object[] newParams = new Object[length];
@@ -165,10 +188,10 @@ public class JdbcHelper {
     public static String getConnectionURL(Connection connection) {
         if (connection != null) {
 
-            final String cachedURL = connectionToURL.get(connection);
+            final ConnectionInfo info = connectionToInfo.get(connection);
+            final String cachedURL = info == null ? null : info.url;
             AgentBridge.getAgent().getLogger().log(Level.FINEST, "Cached url: {0} for connection: {1}", cachedURL, connection);
 
-            // connectionToURL map does not support null values
             // We use UNKNOWN to remember null connection URL strings
             if (UNKNOWN.equals(cachedURL)) {
                 return null;
@@ -177,7 +200,7 @@ public class JdbcHelper {
             Boolean metadataEnabled = AgentBridge.getAgent().getConfig().getValue("datastore_tracer.database_connection_metadata.enabled", true);
             if (!metadataEnabled) {
                 AgentBridge.getAgent().getLogger().log(Level.FINE, "Unable to get connection url: connection_metadata config is disabled.");
-                connectionToURL.put(connection, UNKNOWN);
+                getConnectionInfo(connection).url = UNKNOWN;
                 return null;
             }
 
@@ -193,14 +216,14 @@ public class JdbcHelper {
                     if (metaData != null) {
                         String url = metaData.getURL();
                         AgentBridge.getAgent().getLogger().log(Level.FINEST, "Getting url: {0} from connection metadata for connection: {1}", url, connection);
-                        connectionToURL.put(connection, url == null ? UNKNOWN : url);
+                        getConnectionInfo(connection).url = url == null ? UNKNOWN : url;
                         return url;
                     }
                 }
             } catch (Throwable e) {
                 // If any error occurs we'll return null
                 AgentBridge.getAgent().getLogger().log(Level.FINER, e, "Unable to get connection url for: {0}", connection);
-                connectionToURL.put(connection, UNKNOWN);
+                getConnectionInfo(connection).url = UNKNOWN;
             } finally {
                 connectionLookup.set(Boolean.FALSE);
             }
@@ -261,7 +284,7 @@ public class JdbcHelper {
         }
         String identifier = parseInMemoryIdentifier(getConnectionURL(connection));
         identifier = identifier == null ? UNKNOWN : identifier;
-        connectionToIdentifier.put(connection, identifier);
+        getConnectionInfo(connection).identifier = identifier;
         return identifier;
     }
 
@@ -272,12 +295,25 @@ public class JdbcHelper {
         if (connection == null) {
             return null;
         } else {
-            String identifier = connectionToIdentifier.get(connection);
+            ConnectionInfo info = connectionToInfo.get(connection);
+            String identifier = info == null ? null : info.identifier;
             AgentBridge.getAgent().getLogger().log(Level.FINEST, "Identifier for connection: {0} is: {1}", connection, identifier);
             return identifier;
         }
     }
 
+    private static ConnectionInfo getConnectionInfo(Connection connection) {
+        ConnectionInfo info = connectionToInfo.get(connection);
+        if (info == null) {
+            ConnectionInfo newInfo = new ConnectionInfo();
+            info = connectionToInfo.putIfAbsent(connection, newInfo);
+            if (info == null) {
+                info = newInfo;
+            }
+        }
+        return info;
+    }
+
     public static String getDatabaseName(Connection connection) {
         try {
             if (connection == null) {
@@ -297,4 +333,16 @@ public class JdbcHelper {
             return UNKNOWN;
         }
     }
+
+    /**
+     * Everything cached about a connection, so that a connection only needs one entry in a weak keyed map no matter
+     * how much is known about it.
+     */
+    private static final class ConnectionInfo {
+        // null until looked up, UNKNOWN if the connection doesn't have a url
+        volatile String url;
+        // null until parsed
+        volatile String identifier;
+    }
+
 }
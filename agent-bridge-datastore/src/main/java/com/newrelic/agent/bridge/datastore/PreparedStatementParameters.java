@@ -0,0 +1,172 @@
+/*
+ *
+ *  * Copyright 2020 New Relic Corporation. All rights reserved.
+ *  * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+
+package com.newrelic.agent.bridge.datastore;
+
+import com.newrelic.agent.bridge.AgentBridge;
+
+import java.util.Arrays;
+import java.util.logging.Level;
+
+/**
+ * The values bound to a prepared statement. Primitive values are kept in primitive slots and only boxed when
+ * {@link #toArray()} is called, so that binding parameters to a statement that is executed without a need for them
+ * doesn't create garbage. Parameter indexes start at 1, like they do in JDBC.
+ *
+ * Instrumentation should only bind parameters when {@link JdbcHelper#shouldCaptureParameters()} returns true.
+ *
+ * This class is not thread safe, just like the statements it belongs to.
+ */
+public final class PreparedStatementParameters {
+
+    private static final byte UNSET = 0;
+    private static final byte OBJECT = 1;
+    private static final byte BOOLEAN = 2;
+    private static final byte BYTE = 3;
+    private static final byte SHORT = 4;
+    private static final byte INT = 5;
+    private static final byte LONG = 6;
+    private static final byte FLOAT = 7;
+    private static final byte DOUBLE = 8;
+
+    private static final int INITIAL_CAPACITY = 10;
+
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private long[] primitives = new long[INITIAL_CAPACITY];
+    // only allocated once a non-primitive value is bound
+    private Object[] objects;
+    // one past the highest index that has been bound since the last clear
+    private int size;
+
+    public void setBoolean(int parameterIndex, boolean value) {
+        setPrimitive(parameterIndex, BOOLEAN, value ? 1 : 0);
+    }
+
+    public void setByte(int parameterIndex, byte value) {
+        setPrimitive(parameterIndex, BYTE, value);
+    }
+
+    public void setShort(int parameterIndex, short value) {
+        setPrimitive(parameterIndex, SHORT, value);
+    }
+
+    public void setInt(int parameterIndex, int value) {
+        setPrimitive(parameterIndex, INT, value);
+    }
+
+    public void setLong(int parameterIndex, long value) {
+        setPrimitive(parameterIndex, LONG, value);
+    }
+
+    public void setFloat(int parameterIndex, float value) {
+        setPrimitive(parameterIndex, FLOAT, Float.floatToRawIntBits(value));
+    }
+
+    public void setDouble(int parameterIndex, double value) {
+        setPrimitive(parameterIndex, DOUBLE, Double.doubleToRawLongBits(value));
+    }
+
+    public void setObject(int parameterIndex, Object value) {
+        int index = toIndex(parameterIndex);
+        if (index < 0) {
+            return;
+        }
+        if (objects == null) {
+            objects = new Object[types.length];
+        }
+        types[index] = OBJECT;
+        objects[index] = value;
+    }
+
+    /**
+     * Forget all values, keeping the storage for the next ones.
+     */
+    public void clear() {
+        Arrays.fill(types, 0, size, UNSET);
+        if (objects != null) {
+            Arrays.fill(objects, 0, size, null);
+        }
+        size = 0;
+    }
+
+    /**
+     * The bound values in parameter order, primitives boxed, with <code>null</code> for parameters that haven't been
+     * bound. Returns <code>null</code> if no parameter has been bound.
+     */
+    public Object[] toArray() {
+        if (size == 0) {
+            return null;
+        }
+        Object[] values = new Object[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = getValue(i);
+        }
+        return values;
+    }
+
+    private Object getValue(int index) {
+        long primitive = primitives[index];
+        switch (types[index]) {
+            case OBJECT:
+                return objects[index];
+            case BOOLEAN:
+                return primitive != 0;
+            case BYTE:
+                return (byte) primitive;
+            case SHORT:
+                return (short) primitive;
+            case INT:
+                return (int) primitive;
+            case LONG:
+                return primitive;
+            case FLOAT:
+                return Float.intBitsToFloat((int) primitive);
+            case DOUBLE:
+                return Double.longBitsToDouble(primitive);
+            default:
+                return null;
+        }
+    }
+
+    private void setPrimitive(int parameterIndex, byte type, long value) {
+        int index = toIndex(parameterIndex);
+        if (index < 0) {
+            return;
+        }
+        types[index] = type;
+        primitives[index] = value;
+        if (objects != null) {
+            objects[index] = null;
+        }
+    }
+
+    /**
+     * Converts the JDBC parameter index to an index into the slots, growing them if needed. Returns -1 for an invalid
+     * parameter index.
+     */
+    private int toIndex(int parameterIndex) {
+        int index = parameterIndex - 1;
+        if (index < 0) {
+            AgentBridge.getAgent().getLogger().log(Level.FINER,
+                    "Unable to store a prepared statement parameter because the index < 0");
+            return -1;
+        }
+        if (index >= types.length) {
+            int length = Math.max(INITIAL_CAPACITY, (int) (index * 1.2) + 1);
+            types = Arrays.copyOf(types, length);
+            primitives = Arrays.copyOf(primitives, length);
+            if (objects != null) {
+                objects = Arrays.copyOf(objects, length);
+            }
+        }
+        if (index >= size) {
+            size = index + 1;
+        }
+        return index;
+    }
+
+}
@@ -14,6 +14,7 @@ import org.mockito.Mockito;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
+import java.sql.Statement;
 
 import static org.junit.Assert.assertEquals;
 
@@ -132,4 +133,31 @@ public class JdbcHelperTest {
         Assert.assertEquals("connectionString", JdbcHelper.getConnectionURL(connection));
     }
 
+    @Test
+    public void testCacheConnectionIdentifier() throws SQLException {
+        final Connection connection = Mockito.mock(Connection.class);
+        final DatabaseMetaData metaData = Mockito.mock(DatabaseMetaData.class);
+        Mockito.when(connection.getMetaData()).thenReturn(metaData);
+        Mockito.when(metaData.getURL()).thenReturn("jdbc:h2:mem:test");
+
+        Assert.assertNull(JdbcHelper.getCachedIdentifierForConnection(connection));
+        Assert.assertEquals("test", JdbcHelper.parseAndCacheInMemoryIdentifier(connection));
+        Assert.assertEquals("test", JdbcHelper.getCachedIdentifierForConnection(connection));
+        Assert.assertEquals("jdbc:h2:mem:test", JdbcHelper.getConnectionURL(connection));
+        Mockito.verify(metaData, Mockito.times(1)).getURL();
+    }
+
+    @Test
+    public void testPutSql() {
+        final Statement statement = Mockito.mock(Statement.class);
+        Assert.assertNull(JdbcHelper.getSql(statement));
+
+        JdbcHelper.putSql(statement, "select 1");
+        JdbcHelper.putSql(statement, "select 1");
+        Assert.assertEquals("select 1", JdbcHelper.getSql(statement));
+
+        JdbcHelper.putSql(statement, "select 2");
+        Assert.assertEquals("select 2", JdbcHelper.getSql(statement));
+    }
+
 }
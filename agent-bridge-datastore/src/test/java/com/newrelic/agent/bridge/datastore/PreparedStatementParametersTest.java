@@ -0,0 +1,65 @@
+/*
+ *
+ *  * Copyright 2020 New Relic Corporation. All rights reserved.
+ *  * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+
+package com.newrelic.agent.bridge.datastore;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+
+public class PreparedStatementParametersTest {
+
+    @Test
+    public void testValuesAreBoxedToTheirOwnTypes() {
+        PreparedStatementParameters params = new PreparedStatementParameters();
+        params.setBoolean(1, true);
+        params.setByte(2, (byte) -1);
+        params.setShort(3, (short) 300);
+        params.setInt(4, -5);
+        params.setLong(5, Long.MAX_VALUE);
+        params.setFloat(6, 1.5f);
+        params.setDouble(7, -2.25);
+        params.setObject(8, "text");
+        params.setObject(9, new BigDecimal("1.10"));
+
+        assertArrayEquals(new Object[] { true, (byte) -1, (short) 300, -5, Long.MAX_VALUE, 1.5f, -2.25, "text", new BigDecimal("1.10") },
+                params.toArray());
+    }
+
+    @Test
+    public void testUnboundParametersAreNull() {
+        PreparedStatementParameters params = new PreparedStatementParameters();
+        assertNull(params.toArray());
+
+        params.setInt(25, 7);
+        params.setObject(3, "three");
+        params.setInt(3, 3);
+        params.setInt(0, 0);
+
+        Object[] values = params.toArray();
+        Object[] expected = new Object[25];
+        expected[2] = 3;
+        expected[24] = 7;
+        assertArrayEquals(expected, values);
+    }
+
+    @Test
+    public void testClear() {
+        PreparedStatementParameters params = new PreparedStatementParameters();
+        params.setObject(1, "one");
+        params.setLong(2, 2L);
+        params.clear();
+        assertNull(params.toArray());
+
+        params.setLong(2, 4L);
+        assertArrayEquals(new Object[] { null, 4L }, params.toArray());
+    }
+
+}
@@ -95,4 +95,14 @@ public interface Agent extends com.newrelic.api.agent.Agent {
      */
     Logs getLogSender();
 
+    /**
+     * Returns a handle to a configuration value that is kept up to date when the configuration changes. Unlike
+     * {@link com.newrelic.api.agent.Config#getValue(String, Object)}, reading the handle doesn't look up the value.
+     *
+     * @param key the configuration key, for example "scala.callbackrunnable.enabled"
+     * @param defaultValue the value to use if the key isn't set
+     * @return a handle to the configuration value
+     */
+    <T> ConfigHandle<T> getConfigHandle(String key, T defaultValue);
+
 }
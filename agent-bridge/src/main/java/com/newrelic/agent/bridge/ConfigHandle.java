@@ -0,0 +1,26 @@
+/*
+ *
+ *  * Copyright 2020 New Relic Corporation. All rights reserved.
+ *  * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+
+package com.newrelic.agent.bridge;
+
+/**
+ * A configuration value that is resolved once and then kept up to date by the agent when its configuration changes,
+ * whether from the config file or from the server. Reading it doesn't look the value up again, so instrumentation can
+ * read it on hot paths. Handles should be created once and kept, for example in a static field.
+ *
+ * @param <T> the type of the value
+ */
+public interface ConfigHandle<T> {
+
+    /**
+     * Returns the current value of the setting, or the default value if it isn't set.
+     *
+     * @return the current value
+     */
+    T get();
+
+}
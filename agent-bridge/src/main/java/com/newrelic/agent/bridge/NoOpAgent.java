@@ -69,6 +69,11 @@ class NoOpAgent implements Agent {
         return NoOpLogs.INSTANCE;
     }
 
+    @Override
+    public <T> ConfigHandle<T> getConfigHandle(String key, T defaultValue) {
+        return new NoOpConfigHandle<>(defaultValue);
+    }
+
     @Override
     public boolean startAsyncActivity(Object activityContext) {
         return false;
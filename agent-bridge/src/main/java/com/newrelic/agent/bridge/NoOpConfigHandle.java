@@ -0,0 +1,23 @@
+/*
+ *
+ *  * Copyright 2020 New Relic Corporation. All rights reserved.
+ *  * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+
+package com.newrelic.agent.bridge;
+
+class NoOpConfigHandle<T> implements ConfigHandle<T> {
+
+    private final T defaultValue;
+
+    NoOpConfigHandle(T defaultValue) {
+        this.defaultValue = defaultValue;
+    }
+
+    @Override
+    public T get() {
+        return defaultValue;
+    }
+
+}
@@ -18,6 +18,14 @@ public interface SamplingPriorityQueue<E extends PriorityAware> {
 
     float getMinPriority();
 
+    /**
+     * A lock-free read of the priority below which {@link #add(Object)} rejects elements, so callers can skip building
+     * elements that would be rejected anyway. Call {@link #incrementNumberOfTries()} for each skipped element.
+     *
+     * @return the admission threshold, or {@link Float#NEGATIVE_INFINITY} while all elements are admitted
+     */
+    float getAdmissionThreshold();
+
     int getNumberOfTries();
 
     void incrementNumberOfTries();
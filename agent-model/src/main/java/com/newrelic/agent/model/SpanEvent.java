@@ -14,6 +14,7 @@ import java.io.IOException;
 import java.io.Writer;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
@@ -53,6 +54,14 @@ public class SpanEvent extends AnalyticsEvent implements JSONStreamAware {
         return agentAttributes;
     }
 
+    /**
+     * @return a read-only view of the user attributes, for callers that only iterate them once and don't need the
+     * copy made by {@link #getUserAttributesCopy()}
+     */
+    public Map<String, ?> getUserAttributes() {
+        return Collections.unmodifiableMap(getMutableUserAttributes());
+    }
+
     @Override
     public boolean decider() {
         return decider;
@@ -8,6 +8,7 @@
 package com.newrelic.agent.extension;
 
 import com.newrelic.agent.bridge.Agent;
+import com.newrelic.agent.bridge.ConfigHandle;
 import com.newrelic.agent.bridge.TracedMethod;
 import com.newrelic.agent.bridge.Transaction;
 import com.newrelic.api.agent.Config;
@@ -65,4 +66,9 @@ public class FakeExtensionAgent implements Agent {
     public Logs getLogSender() {
         throw new RuntimeException();
     }
+
+    @Override
+    public <T> ConfigHandle<T> getConfigHandle(String key, T defaultValue) {
+        throw new RuntimeException();
+    }
 }
@@ -30,6 +30,7 @@ class ChannelManager {
     @GuardedBy("lock") private ManagedChannel managedChannel;
     @GuardedBy("lock") private boolean recreateSpanObserver = true;
     @GuardedBy("lock") private ClientCallStreamObserver<V1.Span> spanObserver;
+    @GuardedBy("lock") private ClientCallStreamObserver<V1.SpanBatch> spanBatchObserver;
     @GuardedBy("lock") private String agentRunToken;
     @GuardedBy("lock") private Map<String, String> requestMetadata;
 
@@ -63,6 +64,57 @@ class ChannelManager {
      * @return a span observer
      */
     ClientCallStreamObserver<V1.Span> getSpanObserver() {
+        awaitBackoff();
+
+        // Obtain the lock, and possibly recreate the channel or the span observer
+        synchronized (lock) {
+            ManagedChannel channel = getOrBuildChannel();
+            if (recreateSpanObserver) {
+                if (spanObserver != null) {
+                    logger.log(Level.FINE, "Cancelling and recreating gRPC span observer.");
+                    spanObserver.cancel("CLOSING_CONNECTION", new ChannelClosingException());
+                }
+                IngestServiceStub ingestServiceStub = buildStub(channel);
+                ResponseObserver responseObserver = buildResponseObserver();
+                spanObserver = (ClientCallStreamObserver<V1.Span>) ingestServiceStub.recordSpan(responseObserver);
+                aggregator.incrementCounter("Supportability/InfiniteTracing/Connect");
+                recreateSpanObserver = false;
+            }
+            return spanObserver;
+        }
+    }
+
+    /**
+     * Obtain a span batch observer, which writes to the batch stream of the Trace Observer. Behaves like
+     * {@link #getSpanObserver()} otherwise.
+     *
+     * @return a span batch observer
+     */
+    ClientCallStreamObserver<V1.SpanBatch> getSpanBatchObserver() {
+        awaitBackoff();
+
+        // Obtain the lock, and possibly recreate the channel or the span batch observer
+        synchronized (lock) {
+            ManagedChannel channel = getOrBuildChannel();
+            if (recreateSpanObserver) {
+                if (spanBatchObserver != null) {
+                    logger.log(Level.FINE, "Cancelling and recreating gRPC span batch observer.");
+                    spanBatchObserver.cancel("CLOSING_CONNECTION", new ChannelClosingException());
+                }
+                IngestServiceStub ingestServiceStub = buildStub(channel);
+                ResponseObserver responseObserver = buildResponseObserver();
+                spanBatchObserver = (ClientCallStreamObserver<V1.SpanBatch>) ingestServiceStub.recordSpanBatch(responseObserver);
+                aggregator.incrementCounter("Supportability/InfiniteTracing/Connect");
+                recreateSpanObserver = false;
+            }
+            return spanBatchObserver;
+        }
+    }
+
+    /**
+     * Await the backoff if one is in progress.
+     */
+    private void awaitBackoff() {
         // Obtain the lock, and await the backoff if in progress
         CountDownLatch latch;
         synchronized (lock) {
@@ -77,29 +129,18 @@ class ChannelManager {
                 throw new RuntimeException("Thread interrupted while awaiting backoff.");
             }
         }
+    }
 
-        // Obtain the lock, and possibly recreate the channel or the span observer
-        synchronized (lock) {
-            if (isShutdownForever) {
-                throw new RuntimeException("No longer accepting connections to gRPC.");
-            }
-            if (managedChannel == null) {
-                logger.log(Level.FINE, "Creating gRPC channel.");
-                managedChannel = buildChannel();
-            }
-            if (recreateSpanObserver) {
-                if (spanObserver != null) {
-                    logger.log(Level.FINE, "Cancelling and recreating gRPC span observer.");
-                    spanObserver.cancel("CLOSING_CONNECTION", new ChannelClosingException());
-                }
-                IngestServiceStub ingestServiceStub = buildStub(managedChannel);
-                ResponseObserver responseObserver = buildResponseObserver();
-                spanObserver = (ClientCallStreamObserver<V1.Span>) ingestServiceStub.recordSpan(responseObserver);
-                aggregator.incrementCounter("Supportability/InfiniteTracing/Connect");
-                recreateSpanObserver = false;
-            }
-            return spanObserver;
+    @GuardedBy("lock")
+    private ManagedChannel getOrBuildChannel() {
+        if (isShutdownForever) {
+            throw new RuntimeException("No longer accepting connections to gRPC.");
+        }
+        if (managedChannel == null) {
+            logger.log(Level.FINE, "Creating gRPC channel.");
+            managedChannel = buildChannel();
         }
+        return managedChannel;
     }
 
     @VisibleForTesting
@@ -7,6 +7,9 @@ import com.newrelic.api.agent.Logger;
 import com.newrelic.api.agent.MetricAggregator;
 
 import javax.annotation.concurrent.GuardedBy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
@@ -14,6 +17,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
@@ -23,20 +27,29 @@ public class InfiniteTracing implements Consumer<SpanEvent> {
     private final InfiniteTracingConfig config;
     private final MetricAggregator aggregator;
     private final ExecutorService executorService;
-    private final BlockingQueue<SpanEvent> queue;
+    // one queue per stream, each stream has its own channel and sender
+    private final List<BlockingQueue<SpanEvent>> queues;
+    // null unless configured
+    private final OffHeapSpanBuffer overflowBuffer;
 
     private final Object lock = new Object();
-    @GuardedBy("lock") private Future<?> spanEventSenderFuture;
-    @GuardedBy("lock") private SpanEventSender spanEventSender;
-    @GuardedBy("lock") private ChannelManager channelManager;
+    @GuardedBy("lock") private final List<Future<?>> spanEventSenderFutures = new ArrayList<>();
+    @GuardedBy("lock") private final List<ChannelManager> channelManagers = new ArrayList<>();
 
     @VisibleForTesting
     InfiniteTracing(InfiniteTracingConfig config, MetricAggregator aggregator, ExecutorService executorService, BlockingQueue<SpanEvent> queue) {
+        this(config, aggregator, executorService, Collections.singletonList(queue), null);
+    }
+
+    @VisibleForTesting
+    InfiniteTracing(InfiniteTracingConfig config, MetricAggregator aggregator, ExecutorService executorService, List<BlockingQueue<SpanEvent>> queues,
+            OffHeapSpanBuffer overflowBuffer) {
         this.logger = config.getLogger();
         this.config = config;
         this.aggregator = aggregator;
         this.executorService = executorService;
-        this.queue = queue;
+        this.queues = queues;
+        this.overflowBuffer = overflowBuffer;
     }
 
     /**
@@ -48,26 +61,34 @@ public class InfiniteTracing implements Consumer<SpanEvent> {
      */
     public void start(String agentRunToken, Map<String, String> requestMetadata) {
         synchronized (lock) {
-            if (spanEventSenderFuture != null) {
-                channelManager.updateMetadata(agentRunToken, requestMetadata);
-                channelManager.shutdownChannelAndBackoff(0);
+            if (!spanEventSenderFutures.isEmpty()) {
+                for (ChannelManager channelManager : channelManagers) {
+                    channelManager.updateMetadata(agentRunToken, requestMetadata);
+                    channelManager.shutdownChannelAndBackoff(0);
+                }
                 return;
             }
             logger.log(Level.INFO, "Starting Infinite Tracing.");
-            channelManager = buildChannelManager(agentRunToken, requestMetadata);
-            spanEventSender = buildSpanEventSender();
-            spanEventSenderFuture = executorService.submit(spanEventSender);
+            for (int stream = 0; stream < queues.size(); stream++) {
+                ChannelManager channelManager = buildChannelManager(stream, agentRunToken, requestMetadata);
+                channelManagers.add(channelManager);
+                spanEventSenderFutures.add(executorService.submit(buildSpanEventSender(stream, channelManager)));
+            }
         }
     }
 
     @VisibleForTesting
-    ChannelManager buildChannelManager(String agentRunToken, Map<String, String> requestMetadata) {
-        return new ChannelManager(config, aggregator, agentRunToken, requestMetadata);
+    ChannelManager buildChannelManager(int stream, String agentRunToken, Map<String, String> requestMetadata) {
+        return new ChannelManager(config, getStreamAggregator(stream), agentRunToken, requestMetadata);
     }
 
     @VisibleForTesting
-    SpanEventSender buildSpanEventSender() {
-        return new SpanEventSender(config, queue, aggregator, channelManager);
+    SpanEventSender buildSpanEventSender(int stream, ChannelManager channelManager) {
+        return new SpanEventSender(config, queues.get(stream), overflowBuffer, getStreamAggregator(stream), channelManager);
+    }
+
+    private MetricAggregator getStreamAggregator(int stream) {
+        return queues.size() == 1 ? aggregator : new StreamMetricAggregator(aggregator, stream);
     }
 
     /**
@@ -76,30 +97,56 @@ public class InfiniteTracing implements Consumer<SpanEvent> {
      */
     public void stop() {
         synchronized (lock) {
-            if (spanEventSenderFuture == null) {
+            if (spanEventSenderFutures.isEmpty()) {
                 return;
             }
             logger.log(Level.INFO, "Stopping Infinite Tracing.");
-            spanEventSenderFuture.cancel(true);
-            channelManager.shutdownChannelForever();
-            spanEventSenderFuture = null;
-            spanEventSender = null;
-            channelManager = null;
+            for (Future<?> spanEventSenderFuture : spanEventSenderFutures) {
+                spanEventSenderFuture.cancel(true);
+            }
+            for (ChannelManager channelManager : channelManagers) {
+                channelManager.shutdownChannelForever();
+            }
+            spanEventSenderFutures.clear();
+            channelManagers.clear();
         }
     }
 
     /**
-     * Offer the span event to the queue to be written to the Infinite Trace Observer. If the queue
-     * is at capacity, the span event is ignored.
+     * Offer the span event to a queue to be written to the Infinite Trace Observer. If the queues
+     * are at capacity, the span event is serialized into the overflow buffer if there is one and
+     * it has room, and ignored otherwise. The room is checked before the span event is converted,
+     * so a full overflow buffer costs the application thread no conversion.
      *
      * @param spanEvent the span event
      */
     @Override
     public void accept(SpanEvent spanEvent) {
         aggregator.incrementCounter("Supportability/InfiniteTracing/Span/Seen");
-        if (!queue.offer(spanEvent)) {
-            logger.log(Level.FINEST, "Span event not accepted. The queue was full.");
+        if (offerToQueue(spanEvent)) {
+            return;
         }
+        if (overflowBuffer != null && overflowBuffer.hasRoomForSpan() && overflowBuffer.offer(SpanConverter.convert(spanEvent))) {
+            aggregator.incrementCounter("Supportability/InfiniteTracing/Span/Overflow");
+            return;
+        }
+        logger.log(Level.FINEST, "Span event not accepted. The queue was full.");
+    }
+
+    private boolean offerToQueue(SpanEvent spanEvent) {
+        int streams = queues.size();
+        if (streams == 1) {
+            return queues.get(0).offer(spanEvent);
+        }
+        // start at a random stream so that application threads spread their spans without contending on a counter,
+        // and try the others before giving up so that a stalled stream doesn't cause spans to be dropped
+        int first = ThreadLocalRandom.current().nextInt(streams);
+        for (int i = 0; i < streams; i++) {
+            if (queues.get((first + i) % streams).offer(spanEvent)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -111,8 +158,16 @@ public class InfiniteTracing implements Consumer<SpanEvent> {
      * @return the instance
      */
     public static InfiniteTracing initialize(InfiniteTracingConfig config, MetricAggregator aggregator) {
-        ExecutorService executorService = Executors.newSingleThreadExecutor(new DaemonThreadFactory("Infinite Tracing"));
-        return new InfiniteTracing(config, aggregator, executorService, new LinkedBlockingDeque<SpanEvent>(config.getMaxQueueSize()));
+        int streams = Math.max(config.getStreams(), 1);
+        ExecutorService executorService = Executors.newFixedThreadPool(streams, new DaemonThreadFactory("Infinite Tracing"));
+        // the queue size is shared by the streams
+        int queueSize = streams == 1 ? config.getMaxQueueSize() : Math.max((config.getMaxQueueSize() + streams - 1) / streams, 1);
+        List<BlockingQueue<SpanEvent>> queues = new ArrayList<>(streams);
+        for (int stream = 0; stream < streams; stream++) {
+            queues.add(new LinkedBlockingDeque<SpanEvent>(queueSize));
+        }
+        OffHeapSpanBuffer overflowBuffer = config.getOverflowBufferBytes() > 0 ? new OffHeapSpanBuffer(config.getOverflowBufferBytes(), config.getLogger(), aggregator) : null;
+        return new InfiniteTracing(config, aggregator, executorService, queues, overflowBuffer);
     }
 
     private static class DaemonThreadFactory implements ThreadFactory {
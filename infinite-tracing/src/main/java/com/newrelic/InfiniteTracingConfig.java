@@ -13,6 +13,11 @@ public class InfiniteTracingConfig {
     private final Double flakyPercentage;
     private final Long flakyCode;
     private final boolean usePlaintext;
+    private final boolean useBatching;
+    private final int batchSize;
+    private final long lingerMs;
+    private final int overflowBufferBytes;
+    private final int streams;
 
     public InfiniteTracingConfig(Builder builder) {
         this.licenseKey = builder.licenseKey;
@@ -23,6 +28,11 @@ public class InfiniteTracingConfig {
         this.flakyPercentage = builder.flakyPercentage;
         this.flakyCode = builder.flakyCode;
         this.usePlaintext = builder.usePlaintext;
+        this.useBatching = builder.useBatching;
+        this.batchSize = builder.batchSize;
+        this.lingerMs = builder.lingerMs;
+        this.overflowBufferBytes = builder.overflowBufferBytes;
+        this.streams = builder.streams;
     }
 
     public static Builder builder() {
@@ -61,6 +71,26 @@ public class InfiniteTracingConfig {
         return usePlaintext;
     }
 
+    public boolean getUseBatching() {
+        return useBatching;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public long getLingerMs() {
+        return lingerMs;
+    }
+
+    public int getOverflowBufferBytes() {
+        return overflowBufferBytes;
+    }
+
+    public int getStreams() {
+        return streams;
+    }
+
     public static class Builder {
         public int maxQueueSize;
         public Logger logger;
@@ -70,6 +100,11 @@ public class InfiniteTracingConfig {
         private Double flakyPercentage;
         private Long flakyCode;
         private boolean usePlaintext;
+        private boolean useBatching;
+        private int batchSize = 100;
+        private long lingerMs = 5;
+        private int overflowBufferBytes;
+        private int streams = 1;
 
         /**
          * The New Relic APM license key configured for the application.
@@ -144,6 +179,52 @@ public class InfiniteTracingConfig {
             return this;
         }
 
+        /**
+         * The optional boolean to send spans in batches over the span batch stream of the Trace Observer
+         * instead of one message per span.
+         *
+         * @param useBatching true to send spans in batches
+         */
+        public Builder useBatching(boolean useBatching) {
+            this.useBatching = useBatching;
+            return this;
+        }
+
+        /**
+         * The maximum number of spans sent in one batch when {@link #useBatching(boolean)} is enabled.
+         */
+        public Builder batchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * The maximum number of milliseconds to wait for a batch to fill once its first span has been
+         * dequeued, when {@link #useBatching(boolean)} is enabled.
+         */
+        public Builder lingerMs(long lingerMs) {
+            this.lingerMs = lingerMs;
+            return this;
+        }
+
+        /**
+         * The number of bytes of direct memory in which spans that don't fit in the queue are kept, serialized,
+         * until they can be sent. Zero, the default, drops those spans instead.
+         */
+        public Builder overflowBufferBytes(int overflowBufferBytes) {
+            this.overflowBufferBytes = overflowBufferBytes;
+            return this;
+        }
+
+        /**
+         * The number of span streams to the Trace Observer. Each stream has its own channel, sending thread
+         * and share of the queue, and backs off on its own.
+         */
+        public Builder streams(int streams) {
+            this.streams = streams;
+            return this;
+        }
+
         public InfiniteTracingConfig build() {
             return new InfiniteTracingConfig(this);
         }
@@ -0,0 +1,239 @@
+package com.newrelic;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.newrelic.api.agent.Logger;
+import com.newrelic.api.agent.MetricAggregator;
+import com.newrelic.trace.v1.V1;
+
+import javax.annotation.concurrent.GuardedBy;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.logging.Level;
+
+/**
+ * A ring buffer of serialized spans in direct memory, bounded by a number of bytes rather than a number of spans. Spans
+ * that don't fit in the span event queue are kept here instead of being dropped, so that a burst of spans or a short
+ * outage of the Trace Observer doesn't put pressure on the heap.
+ *
+ * Each span is stored as its length followed by its protobuf encoding. A record that can't be read back is dropped and
+ * counted rather than stopping the sender. This class is thread safe.
+ */
+class OffHeapSpanBuffer {
+
+    static final String CORRUPT_SPAN_METRIC = "Supportability/InfiniteTracing/Span/OverflowCorrupt";
+
+    private static final int LENGTH_BYTES = 4;
+
+    private final int capacity;
+    private final Logger logger;
+    private final MetricAggregator aggregator;
+
+    @GuardedBy("this") private final ByteBuffer buffer;
+    @GuardedBy("this") private int readPosition;
+    @GuardedBy("this") private int size;
+    // written under the lock, read without it by the checks that run before a span is converted and serialized
+    private volatile int usedBytes;
+    // the bytes taken by the last span buffered, used to guess whether the next span fits before converting it
+    private volatile int lastSpanBytes = LENGTH_BYTES;
+
+    /**
+     * @param capacity the number of bytes of direct memory to allocate
+     */
+    OffHeapSpanBuffer(int capacity, Logger logger, MetricAggregator aggregator) {
+        this.capacity = capacity;
+        this.logger = logger;
+        this.aggregator = aggregator;
+        this.buffer = ByteBuffer.allocateDirect(capacity);
+    }
+
+    /**
+     * A cheap check, without locking, for whether a span the size of the last one buffered would fit. Call it before
+     * converting a span so that a full buffer doesn't cost a conversion on the application thread. {@link #offer} still
+     * has the final say.
+     */
+    boolean hasRoomForSpan() {
+        return lastSpanBytes <= capacity - usedBytes;
+    }
+
+    /**
+     * Add the span to the buffer.
+     *
+     * @return false if there isn't enough room left for the span
+     */
+    boolean offer(V1.Span span) {
+        // the serialized size is computed without serializing, so a span that doesn't fit allocates nothing
+        if (LENGTH_BYTES + span.getSerializedSize() > capacity - usedBytes) {
+            return false;
+        }
+        // serialize before taking the lock
+        return offer(span.toByteArray());
+    }
+
+    @VisibleForTesting
+    boolean offer(byte[] bytes) {
+        int length = LENGTH_BYTES + bytes.length;
+        synchronized (this) {
+            if (length > capacity - usedBytes) {
+                return false;
+            }
+            int writePosition = (readPosition + usedBytes) % capacity;
+            writePosition = write(writePosition, intToBytes(bytes.length));
+            write(writePosition, bytes);
+            usedBytes += length;
+            size++;
+            lastSpanBytes = length;
+            return true;
+        }
+    }
+
+    /**
+     * Remove and return the oldest span, or return null if the buffer is empty.
+     */
+    V1.Span poll() {
+        while (true) {
+            byte[] bytes;
+            synchronized (this) {
+                if (size == 0) {
+                    return null;
+                }
+                bytes = take();
+            }
+            V1.Span span = parse(bytes);
+            if (span != null) {
+                return span;
+            }
+        }
+    }
+
+    /**
+     * Remove up to {@code maxSpans} of the oldest spans and add them to {@code spans}.
+     *
+     * @return the number of spans added
+     */
+    int drainTo(List<V1.Span> spans, int maxSpans) {
+        byte[][] taken;
+        synchronized (this) {
+            int count = Math.min(size, maxSpans);
+            if (count <= 0) {
+                return 0;
+            }
+            taken = new byte[count][];
+            for (int i = 0; i < count && size > 0; i++) {
+                taken[i] = take();
+            }
+        }
+        int added = 0;
+        for (byte[] bytes : taken) {
+            V1.Span span = parse(bytes);
+            if (span != null) {
+                spans.add(span);
+                added++;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * The number of spans in the buffer.
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * The number of bytes used by the spans in the buffer.
+     */
+    synchronized int usedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Remove the oldest record.
+     *
+     * @return its bytes, or null if its length is invalid, in which case the whole buffer has been dropped
+     */
+    @GuardedBy("this")
+    private byte[] take() {
+        byte[] lengthBytes = new byte[LENGTH_BYTES];
+        int position = read(readPosition, lengthBytes);
+        int length = bytesToInt(lengthBytes);
+        if (length < 0 || LENGTH_BYTES + length > usedBytes) {
+            // the records after this one can't be located either, so start over with an empty buffer
+            logger.log(Level.WARNING, "Dropping {0} span(s) from the overflow buffer, found a record of invalid length {1}.", size, length);
+            aggregator.incrementCounter(CORRUPT_SPAN_METRIC, size);
+            readPosition = 0;
+            usedBytes = 0;
+            size = 0;
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        readPosition = read(position, bytes);
+        usedBytes -= LENGTH_BYTES + bytes.length;
+        size--;
+        if (size == 0) {
+            // start over at the beginning so that small spans don't wrap around needlessly
+            readPosition = 0;
+        }
+        return bytes;
+    }
+
+    /**
+     * Copy the bytes into the ring starting at the position, wrapping around the end.
+     *
+     * @return the position after the last byte written
+     */
+    @GuardedBy("this")
+    private int write(int position, byte[] bytes) {
+        int firstPart = Math.min(bytes.length, capacity - position);
+        buffer.position(position);
+        buffer.put(bytes, 0, firstPart);
+        if (firstPart < bytes.length) {
+            buffer.position(0);
+            buffer.put(bytes, firstPart, bytes.length - firstPart);
+        }
+        return (position + bytes.length) % capacity;
+    }
+
+    /**
+     * Fill the bytes from the ring starting at the position, wrapping around the end.
+     *
+     * @return the position after the last byte read
+     */
+    @GuardedBy("this")
+    private int read(int position, byte[] bytes) {
+        int firstPart = Math.min(bytes.length, capacity - position);
+        buffer.position(position);
+        buffer.get(bytes, 0, firstPart);
+        if (firstPart < bytes.length) {
+            buffer.position(0);
+            buffer.get(bytes, firstPart, bytes.length - firstPart);
+        }
+        return (position + bytes.length) % capacity;
+    }
+
+    /**
+     * @return the span, or null if the bytes are null or not a span, which is only possible if the buffer was corrupted
+     */
+    private V1.Span parse(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        try {
+            return V1.Span.parseFrom(bytes);
+        } catch (InvalidProtocolBufferException e) {
+            logger.log(Level.FINE, e, "Dropping a span from the overflow buffer that could not be read.");
+            aggregator.incrementCounter(CORRUPT_SPAN_METRIC);
+            return null;
+        }
+    }
+
+    private static byte[] intToBytes(int value) {
+        return new byte[] { (byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value };
+    }
+
+    private static int bytesToInt(byte[] bytes) {
+        return (bytes[0] & 0xff) << 24 | (bytes[1] & 0xff) << 16 | (bytes[2] & 0xff) << 8 | (bytes[3] & 0xff);
+    }
+
+}
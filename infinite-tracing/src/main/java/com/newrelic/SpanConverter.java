@@ -1,13 +1,30 @@
 package com.newrelic;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.newrelic.agent.model.SpanEvent;
 import com.newrelic.trace.v1.V1;
 
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 class SpanConverter {
 
+    /**
+     * Attributes whose string values have a low cardinality. Their {@link V1.AttributeValue}s are cached and shared
+     * across spans instead of being built for every span.
+     */
+    private static final Set<String> CACHED_ATTRIBUTES = new HashSet<>(Arrays.asList(
+            "type", "category", "component", "span.kind", "nr.entryPoint", "parentId.type"));
+    @VisibleForTesting
+    static final int MAX_CACHED_VALUES = 1000;
+
+    private static final ConcurrentHashMap<String, V1.AttributeValue> CACHED_STRING_VALUES = new ConcurrentHashMap<>();
+    private static final V1.AttributeValue TRUE_VALUE = V1.AttributeValue.newBuilder().setBoolValue(true).build();
+    private static final V1.AttributeValue FALSE_VALUE = V1.AttributeValue.newBuilder().setBoolValue(false).build();
+
     private SpanConverter() {
     }
 
@@ -18,39 +35,75 @@ class SpanConverter {
      * @return the gRPC span
      */
     static V1.Span convert(SpanEvent spanEvent) {
-        Map<String, V1.AttributeValue> intrinsicAttributes = copyAttributes(spanEvent.getIntrinsics());
-        Map<String, V1.AttributeValue> userAttributes = copyAttributes(spanEvent.getUserAttributesCopy());
-        Map<String, V1.AttributeValue> agentAttributes = copyAttributes(spanEvent.getAgentAttributes());
-
-        intrinsicAttributes.put("appName", V1.AttributeValue.newBuilder().setStringValue(spanEvent.getAppName()).build());
-
-        return V1.Span.newBuilder()
-                .setTraceId(spanEvent.getTraceId())
-                .putAllIntrinsics(intrinsicAttributes)
-                .putAllAgentAttributes(agentAttributes)
-                .putAllUserAttributes(userAttributes)
-                .build();
+        V1.Span.Builder span = V1.Span.newBuilder().setTraceId(spanEvent.getTraceId());
+
+        Map<String, Object> intrinsics = spanEvent.getIntrinsics();
+        if (intrinsics != null) {
+            for (Map.Entry<String, Object> entry : intrinsics.entrySet()) {
+                V1.AttributeValue value = toAttributeValue(entry.getKey(), entry.getValue());
+                if (value != null) {
+                    span.putIntrinsics(entry.getKey(), value);
+                }
+            }
+        }
+        span.putIntrinsics("appName", V1.AttributeValue.newBuilder().setStringValue(spanEvent.getAppName()).build());
+
+        Map<String, ?> agentAttributes = spanEvent.getAgentAttributes();
+        if (agentAttributes != null) {
+            for (Map.Entry<String, ?> entry : agentAttributes.entrySet()) {
+                V1.AttributeValue value = toAttributeValue(entry.getKey(), entry.getValue());
+                if (value != null) {
+                    span.putAgentAttributes(entry.getKey(), value);
+                }
+            }
+        }
+
+        Map<String, ?> userAttributes = spanEvent.getUserAttributes();
+        if (userAttributes != null) {
+            for (Map.Entry<String, ?> entry : userAttributes.entrySet()) {
+                V1.AttributeValue value = toAttributeValue(entry.getKey(), entry.getValue());
+                if (value != null) {
+                    span.putUserAttributes(entry.getKey(), value);
+                }
+            }
+        }
+
+        return span.build();
     }
 
-    private static Map<String, V1.AttributeValue> copyAttributes(Map<String, Object> original) {
-        Map<String, V1.AttributeValue> copy = new HashMap<>();
-        if (original == null) {
-            return copy;
+    /**
+     * @return the attribute value, or null if the value has a type that can't be sent
+     */
+    @VisibleForTesting
+    static V1.AttributeValue toAttributeValue(String key, Object value) {
+        if (value instanceof String) {
+            if (CACHED_ATTRIBUTES.contains(key)) {
+                return getCachedStringValue((String) value);
+            }
+            return V1.AttributeValue.newBuilder().setStringValue((String) value).build();
+        } else if (value instanceof Long || value instanceof Integer) {
+            return V1.AttributeValue.newBuilder().setIntValue(((Number) value).longValue()).build();
+        } else if (value instanceof Float || value instanceof Double) {
+            return V1.AttributeValue.newBuilder().setDoubleValue(((Number) value).doubleValue()).build();
+        } else if (value instanceof Boolean) {
+            return (Boolean) value ? TRUE_VALUE : FALSE_VALUE;
         }
+        return null;
+    }
 
-        for (Map.Entry<String, Object> entry : original.entrySet()) {
-            Object value = entry.getValue();
-            if (value instanceof String) {
-                copy.put(entry.getKey(), V1.AttributeValue.newBuilder().setStringValue((String) value).build());
-            } else if (value instanceof Long || value instanceof Integer) {
-                copy.put(entry.getKey(), V1.AttributeValue.newBuilder().setIntValue(((Number) value).longValue()).build());
-            } else if (value instanceof Float || value instanceof Double) {
-                copy.put(entry.getKey(), V1.AttributeValue.newBuilder().setDoubleValue(((Number) value).doubleValue()).build());
-            } else if (value instanceof Boolean) {
-                copy.put(entry.getKey(), V1.AttributeValue.newBuilder().setBoolValue((Boolean) value).build());
+    private static V1.AttributeValue getCachedStringValue(String value) {
+        V1.AttributeValue attributeValue = CACHED_STRING_VALUES.get(value);
+        if (attributeValue == null) {
+            attributeValue = V1.AttributeValue.newBuilder().setStringValue(value).build();
+            // stop caching if an attribute turns out not to be low cardinality after all
+            if (CACHED_STRING_VALUES.size() < MAX_CACHED_VALUES) {
+                V1.AttributeValue existing = CACHED_STRING_VALUES.putIfAbsent(value, attributeValue);
+                if (existing != null) {
+                    attributeValue = existing;
+                }
             }
         }
-        return copy;
+        return attributeValue;
     }
 
-}
\ No newline at end of file
+}
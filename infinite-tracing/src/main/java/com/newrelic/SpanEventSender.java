@@ -7,6 +7,8 @@ import com.newrelic.api.agent.MetricAggregator;
 import com.newrelic.trace.v1.V1;
 import io.grpc.stub.ClientCallStreamObserver;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
@@ -15,16 +17,34 @@ class SpanEventSender implements Runnable {
 
     private final Logger logger;
     private final BlockingQueue<SpanEvent> queue;
+    // spans that didn't fit in the queue, already converted, or null
+    private final OffHeapSpanBuffer overflowBuffer;
     private final MetricAggregator aggregator;
     private final ChannelManager channelManager;
+    private final boolean useBatching;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final List<SpanEvent> batch;
+    private final List<V1.Span> overflowBatch;
     // Destination for agent data
     private static final String INFINITE_TRACING = "InfiniteTracing";
 
     SpanEventSender(InfiniteTracingConfig config, BlockingQueue<SpanEvent> queue, MetricAggregator aggregator, ChannelManager channelManager) {
+        this(config, queue, null, aggregator, channelManager);
+    }
+
+    SpanEventSender(InfiniteTracingConfig config, BlockingQueue<SpanEvent> queue, OffHeapSpanBuffer overflowBuffer, MetricAggregator aggregator,
+            ChannelManager channelManager) {
         this.logger = config.getLogger();
         this.queue = queue;
+        this.overflowBuffer = overflowBuffer;
         this.aggregator = aggregator;
         this.channelManager = channelManager;
+        this.useBatching = config.getUseBatching();
+        this.batchSize = Math.max(config.getBatchSize(), 1);
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(config.getLingerMs(), 0));
+        this.batch = useBatching ? new ArrayList<SpanEvent>(batchSize) : null;
+        this.overflowBatch = useBatching && overflowBuffer != null ? new ArrayList<V1.Span>(batchSize) : null;
     }
 
     /**
@@ -46,6 +66,11 @@ class SpanEventSender implements Runnable {
 
     @VisibleForTesting
     void pollAndWrite() {
+        if (useBatching) {
+            pollAndWriteBatch();
+            return;
+        }
+
         // Get stream observer
         ClientCallStreamObserver<V1.Span> observer = channelManager.getSpanObserver();
 
@@ -54,6 +79,13 @@ class SpanEventSender implements Runnable {
             return;
         }
 
+        // Spans that overflowed the queue go first, they were converted when they were buffered
+        V1.Span overflowSpan = overflowBuffer == null ? null : overflowBuffer.poll();
+        if (overflowSpan != null) {
+            writeToObserver(observer, overflowSpan);
+            return;
+        }
+
         // Poll queue for span
         SpanEvent span = pollSafely();
         if (span == null) {
@@ -65,8 +97,90 @@ class SpanEventSender implements Runnable {
         writeToObserver(observer, convertedSpan);
     }
 
+    /**
+     * Poll the {@link #queue} for up to {@link #batchSize} span events and write them to the Infinite
+     * Trace Observer as a single message. Once the first span event is dequeued, waits at most
+     * {@link #lingerNanos} for the batch to fill so that a quiet application doesn't delay its spans.
+     */
     @VisibleForTesting
-    boolean awaitReadyObserver(ClientCallStreamObserver<V1.Span> observer) {
+    void pollAndWriteBatch() {
+        // Get stream observer
+        ClientCallStreamObserver<V1.SpanBatch> observer = channelManager.getSpanBatchObserver();
+
+        // Confirm the observer is ready
+        if (!awaitReadyObserver(observer)) {
+            return;
+        }
+
+        // Take spans that overflowed the queue first, then poll queue for spans
+        if (overflowBatch != null && overflowBuffer.drainTo(overflowBatch, batchSize) > 0) {
+            // the queue was full not long ago, so top up the batch without lingering
+            queue.drainTo(batch, batchSize - overflowBatch.size());
+            aggregator.recordMetric("Supportability/InfiniteTracing/Span/BatchSize", overflowBatch.size() + batch.size());
+        } else if (!pollBatchSafely()) {
+            return;
+        }
+
+        // Convert spans and write to observer
+        V1.SpanBatch.Builder spanBatch = V1.SpanBatch.newBuilder();
+        if (overflowBatch != null) {
+            spanBatch.addAllSpans(overflowBatch);
+        }
+        for (SpanEvent span : batch) {
+            spanBatch.addSpans(SpanConverter.convert(span));
+        }
+        int spanCount = spanBatch.getSpansCount();
+        batch.clear();
+        if (overflowBatch != null) {
+            overflowBatch.clear();
+        }
+        writeToObserver(observer, spanBatch.build(), spanCount);
+    }
+
+    /**
+     * Fill {@link #batch} with span events from the {@link #queue}.
+     *
+     * @return false if no span event was available
+     */
+    @VisibleForTesting
+    boolean pollBatchSafely() {
+        SpanEvent first = pollSafely();
+        if (first == null) {
+            return false;
+        }
+        batch.add(first);
+        queue.drainTo(batch, batchSize - 1);
+
+        long start = System.nanoTime();
+        long deadline = start + lingerNanos;
+        try {
+            while (batch.size() < batchSize) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                SpanEvent span = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                if (span == null) {
+                    break;
+                }
+                batch.add(span);
+                queue.drainTo(batch, batchSize - batch.size());
+            }
+        } catch (InterruptedException e) {
+            batch.clear();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Thread interrupted while polling for spans.");
+        }
+
+        aggregator.recordMetric("Supportability/InfiniteTracing/Span/BatchSize", batch.size());
+        aggregator.recordMetric("Supportability/InfiniteTracing/Span/QueueSize", queue.size());
+        aggregator.recordResponseTimeMetric("Supportability/InfiniteTracing/Span/BatchLinger",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return true;
+    }
+
+    @VisibleForTesting
+    boolean awaitReadyObserver(ClientCallStreamObserver<?> observer) {
         if (observer.isReady()) {
             return true;
         }
@@ -102,4 +216,15 @@ class SpanEventSender implements Runnable {
         aggregator.incrementCounter("Supportability/InfiniteTracing/Span/Sent");
     }
 
+    @VisibleForTesting
+    void writeToObserver(ClientCallStreamObserver<V1.SpanBatch> observer, V1.SpanBatch spanBatch, int spanCount) {
+        try {
+            observer.onNext(spanBatch);
+        } catch (Throwable t) {
+            logger.log(Level.SEVERE, t, "Unable to send span batch.");
+            throw t;
+        }
+        aggregator.incrementCounter("Supportability/InfiniteTracing/Span/Sent", spanCount);
+    }
+
 }
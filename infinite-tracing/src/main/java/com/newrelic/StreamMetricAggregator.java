@@ -0,0 +1,66 @@
+package com.newrelic;
+
+import com.newrelic.api.agent.MetricAggregator;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the metrics of one of several span streams twice: under their own name, so that they add up across all
+ * streams, and under the name of the stream. For example, {@code Supportability/InfiniteTracing/Span/Sent} is also
+ * recorded as {@code Supportability/InfiniteTracing/Stream/2/Span/Sent} for stream 2.
+ */
+class StreamMetricAggregator implements MetricAggregator {
+
+    private static final String PREFIX = "Supportability/InfiniteTracing/";
+
+    private final MetricAggregator delegate;
+    private final String streamPrefix;
+    // there are only a handful of metric names, so the stream names are built once
+    private final ConcurrentHashMap<String, String> streamNames = new ConcurrentHashMap<>();
+
+    StreamMetricAggregator(MetricAggregator delegate, int stream) {
+        this.delegate = delegate;
+        this.streamPrefix = PREFIX + "Stream/" + stream + "/";
+    }
+
+    @Override
+    public void recordResponseTimeMetric(String name, long totalTime, long exclusiveTime, TimeUnit timeUnit) {
+        delegate.recordResponseTimeMetric(name, totalTime, exclusiveTime, timeUnit);
+        delegate.recordResponseTimeMetric(streamName(name), totalTime, exclusiveTime, timeUnit);
+    }
+
+    @Override
+    public void recordMetric(String name, float value) {
+        delegate.recordMetric(name, value);
+        delegate.recordMetric(streamName(name), value);
+    }
+
+    @Override
+    public void recordResponseTimeMetric(String name, long millis) {
+        delegate.recordResponseTimeMetric(name, millis);
+        delegate.recordResponseTimeMetric(streamName(name), millis);
+    }
+
+    @Override
+    public void incrementCounter(String name) {
+        delegate.incrementCounter(name);
+        delegate.incrementCounter(streamName(name));
+    }
+
+    @Override
+    public void incrementCounter(String name, int count) {
+        delegate.incrementCounter(name, count);
+        delegate.incrementCounter(streamName(name), count);
+    }
+
+    String streamName(String name) {
+        String streamName = streamNames.get(name);
+        if (streamName == null) {
+            streamName = streamPrefix + (name.startsWith(PREFIX) ? name.substring(PREFIX.length()) : name);
+            streamNames.put(name, streamName);
+        }
+        return streamName;
+    }
+
+}
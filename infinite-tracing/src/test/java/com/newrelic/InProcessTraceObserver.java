@@ -0,0 +1,89 @@
+package com.newrelic;
+
+import com.newrelic.trace.v1.IngestServiceGrpc;
+import com.newrelic.trace.v1.V1;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A Trace Observer that runs in the same JVM and counts what it receives, for tests that need to push spans through
+ * real gRPC streams, e.g. to measure throughput.
+ */
+class InProcessTraceObserver implements AutoCloseable {
+
+    private final String name = "trace-observer-" + UUID.randomUUID();
+    private final AtomicLong spansReceived = new AtomicLong();
+    private final AtomicInteger streamsOpened = new AtomicInteger();
+    private final Server server;
+
+    InProcessTraceObserver() throws IOException {
+        server = InProcessServerBuilder.forName(name)
+                .directExecutor()
+                .addService(new IngestServiceGrpc.IngestServiceImplBase() {
+                    @Override
+                    public StreamObserver<V1.Span> recordSpan(StreamObserver<V1.RecordStatus> responseObserver) {
+                        streamsOpened.incrementAndGet();
+                        return new CountingObserver<V1.Span>() {
+                            @Override
+                            public void onNext(V1.Span span) {
+                                spansReceived.incrementAndGet();
+                            }
+                        };
+                    }
+
+                    @Override
+                    public StreamObserver<V1.SpanBatch> recordSpanBatch(StreamObserver<V1.RecordStatus> responseObserver) {
+                        streamsOpened.incrementAndGet();
+                        return new CountingObserver<V1.SpanBatch>() {
+                            @Override
+                            public void onNext(V1.SpanBatch spanBatch) {
+                                spansReceived.addAndGet(spanBatch.getSpansCount());
+                            }
+                        };
+                    }
+                })
+                .build()
+                .start();
+    }
+
+    /**
+     * A new channel to this observer.
+     */
+    ManagedChannel newChannel() {
+        return InProcessChannelBuilder.forName(name).directExecutor().build();
+    }
+
+    long getSpansReceived() {
+        return spansReceived.get();
+    }
+
+    int getStreamsOpened() {
+        return streamsOpened.get();
+    }
+
+    @Override
+    public void close() {
+        server.shutdownNow();
+    }
+
+    private abstract static class CountingObserver<T> implements StreamObserver<T> {
+
+        @Override
+        public void onError(Throwable t) {
+            // the agent cancels its streams when it stops
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+    }
+
+}
@@ -0,0 +1,104 @@
+package com.newrelic;
+
+import com.google.common.collect.ImmutableMap;
+import com.newrelic.agent.model.SpanEvent;
+import com.newrelic.api.agent.Logger;
+import com.newrelic.api.agent.MetricAggregator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+class InfiniteTracingStreamsTest {
+
+    private static final int STREAMS = 4;
+    private static final int SPANS = 20000;
+
+    @Mock
+    private Logger logger;
+    @Mock
+    private MetricAggregator aggregator;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @Test
+    void streamMetricAggregator_RecordsTotalAndStreamMetrics() {
+        StreamMetricAggregator target = new StreamMetricAggregator(aggregator, 2);
+
+        target.incrementCounter("Supportability/InfiniteTracing/Span/Sent", 5);
+
+        verify(aggregator).incrementCounter("Supportability/InfiniteTracing/Span/Sent", 5);
+        verify(aggregator).incrementCounter("Supportability/InfiniteTracing/Stream/2/Span/Sent", 5);
+    }
+
+    @Test
+    @Timeout(30)
+    void spansAreSentOverAllStreams() throws Exception {
+        final InfiniteTracingConfig config = InfiniteTracingConfig.builder()
+                .logger(logger)
+                .maxQueueSize(SPANS)
+                .streams(STREAMS)
+                .useBatching(true)
+                .build();
+        List<BlockingQueue<SpanEvent>> queues = new ArrayList<>();
+        for (int i = 0; i < STREAMS; i++) {
+            queues.add(new LinkedBlockingDeque<SpanEvent>(SPANS));
+        }
+        ExecutorService executorService = Executors.newFixedThreadPool(STREAMS);
+
+        try (final InProcessTraceObserver observer = new InProcessTraceObserver()) {
+            InfiniteTracing target = new InfiniteTracing(config, aggregator, executorService, queues, null) {
+                @Override
+                ChannelManager buildChannelManager(int stream, String agentRunToken, Map<String, String> requestMetadata) {
+                    ChannelManager channelManager = spy(super.buildChannelManager(stream, agentRunToken, requestMetadata));
+                    doAnswer(new Answer<Object>() {
+                        @Override
+                        public Object answer(InvocationOnMock invocation) {
+                            return observer.newChannel();
+                        }
+                    }).when(channelManager).buildChannel();
+                    return channelManager;
+                }
+            };
+            target.start("token", ImmutableMap.<String, String>of());
+
+            SpanEvent spanEvent = SpanConverterTest.buildSpanEvent();
+            for (int i = 0; i < SPANS; i++) {
+                target.accept(spanEvent);
+            }
+            while (observer.getSpansReceived() < SPANS) {
+                Thread.sleep(10);
+            }
+            target.stop();
+
+            assertEquals(SPANS, observer.getSpansReceived());
+            assertEquals(STREAMS, observer.getStreamsOpened());
+            for (int stream = 0; stream < STREAMS; stream++) {
+                verify(aggregator, atLeastOnce()).incrementCounter("Supportability/InfiniteTracing/Stream/" + stream + "/Connect");
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+}
@@ -16,6 +16,8 @@ import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingDeque;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
@@ -47,8 +49,8 @@ class InfiniteTracingTest {
         when(config.getLogger()).thenReturn(logger);
         queue = new LinkedBlockingDeque<>(1);
         target = spy(new InfiniteTracing(config, aggregator, executorService, queue));
-        doReturn(channelManager).when(target).buildChannelManager(anyString(), ArgumentMatchers.<String, String>anyMap());
-        doReturn(spanEventSender).when(target).buildSpanEventSender();
+        doReturn(channelManager).when(target).buildChannelManager(anyInt(), anyString(), ArgumentMatchers.<String, String>anyMap());
+        doReturn(spanEventSender).when(target).buildSpanEventSender(anyInt(), any(ChannelManager.class));
     }
 
     @Test
@@ -59,8 +61,8 @@ class InfiniteTracingTest {
         target.start("token1", ImmutableMap.of("key1", "value1"));
         target.start("token2", ImmutableMap.of("key2", "value2"));
 
-        verify(target).buildChannelManager("token1", ImmutableMap.of("key1", "value1"));
-        verify(target).buildSpanEventSender();
+        verify(target).buildChannelManager(0, "token1", ImmutableMap.of("key1", "value1"));
+        verify(target).buildSpanEventSender(0, channelManager);
         verify(executorService).submit(spanEventSender);
         verify(channelManager).updateMetadata("token2", ImmutableMap.of("key2", "value2"));
         verify(channelManager).shutdownChannelAndBackoff(0);
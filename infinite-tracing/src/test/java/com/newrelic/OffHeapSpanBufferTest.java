@@ -0,0 +1,133 @@
+package com.newrelic;
+
+import com.newrelic.api.agent.Logger;
+import com.newrelic.api.agent.MetricAggregator;
+import com.newrelic.trace.v1.V1;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class OffHeapSpanBufferTest {
+
+    private final MetricAggregator aggregator = mock(MetricAggregator.class);
+
+    @Test
+    void offerAndPoll_InOrder() {
+        OffHeapSpanBuffer target = new OffHeapSpanBuffer(1024, mock(Logger.class), aggregator);
+        assertTrue(target.offer(span("a")));
+        assertTrue(target.offer(span("b")));
+        assertEquals(2, target.size());
+
+        assertEquals("a", target.poll().getTraceId());
+        assertEquals("b", target.poll().getTraceId());
+        assertNull(target.poll());
+        assertEquals(0, target.usedBytes());
+    }
+
+    @Test
+    void offer_RejectsSpansBeyondCapacity() {
+        V1.Span span = span("abc");
+        int spanBytes = 4 + span.getSerializedSize();
+        OffHeapSpanBuffer target = new OffHeapSpanBuffer(spanBytes * 2 + 1, mock(Logger.class), aggregator);
+
+        assertTrue(target.offer(span));
+        assertTrue(target.offer(span));
+        assertFalse(target.offer(span));
+        assertEquals(2, target.size());
+
+        target.poll();
+        assertTrue(target.offer(span));
+    }
+
+    @Test
+    void offerAndPoll_WrapsAroundTheEnd() {
+        V1.Span span = span("wrapping");
+        int spanBytes = 4 + span.getSerializedSize();
+        // a capacity that isn't a multiple of the span size makes the spans straddle the end of the buffer
+        OffHeapSpanBuffer target = new OffHeapSpanBuffer(spanBytes * 3 + spanBytes / 2, mock(Logger.class), aggregator);
+
+        // keep a span in the buffer so that the read position never starts over at the beginning
+        assertTrue(target.offer(span));
+        for (int i = 0; i < 100; i++) {
+            assertTrue(target.offer(span("wrapping")));
+            assertEquals(span, target.poll());
+            assertEquals(1, target.size());
+        }
+        assertEquals(spanBytes, target.usedBytes());
+    }
+
+    @Test
+    void drainTo_TakesAtMostMaxSpans() {
+        OffHeapSpanBuffer target = new OffHeapSpanBuffer(1024, mock(Logger.class), aggregator);
+        for (int i = 0; i < 5; i++) {
+            target.offer(span(String.valueOf(i)));
+        }
+
+        List<V1.Span> spans = new ArrayList<>();
+        assertEquals(3, target.drainTo(spans, 3));
+        assertEquals(3, spans.size());
+        assertEquals("0", spans.get(0).getTraceId());
+        assertEquals("2", spans.get(2).getTraceId());
+        assertEquals(2, target.drainTo(spans, 3));
+        assertEquals("4", spans.get(4).getTraceId());
+        assertEquals(0, target.drainTo(spans, 3));
+    }
+
+    @Test
+    void hasRoomForSpan_GuessesFromTheLastSpan() {
+        V1.Span span = span("abc");
+        int spanBytes = 4 + span.getSerializedSize();
+        OffHeapSpanBuffer target = new OffHeapSpanBuffer(spanBytes * 2 + 1, mock(Logger.class), aggregator);
+
+        assertTrue(target.hasRoomForSpan());
+        assertTrue(target.offer(span));
+        assertTrue(target.hasRoomForSpan());
+        assertTrue(target.offer(span));
+        assertFalse(target.hasRoomForSpan());
+
+        target.poll();
+        assertTrue(target.hasRoomForSpan());
+    }
+
+    @Test
+    void pollAndDrainTo_DropCorruptRecords() {
+        OffHeapSpanBuffer target = new OffHeapSpanBuffer(1024, mock(Logger.class), aggregator);
+        byte[] corrupt = { (byte) 0xff, (byte) 0xff, (byte) 0xff };
+        assertTrue(target.offer(span("a")));
+        assertTrue(target.offer(corrupt));
+        assertTrue(target.offer(span("b")));
+        assertTrue(target.offer(corrupt));
+        assertTrue(target.offer(span("c")));
+
+        assertEquals("a", target.poll().getTraceId());
+        assertEquals("b", target.poll().getTraceId());
+
+        List<V1.Span> spans = new ArrayList<>();
+        assertEquals(1, target.drainTo(spans, 5));
+        assertEquals("c", spans.get(0).getTraceId());
+        assertNull(target.poll());
+        assertEquals(0, target.usedBytes());
+        verify(aggregator, times(2)).incrementCounter(OffHeapSpanBuffer.CORRUPT_SPAN_METRIC);
+
+        // the buffer keeps working after the corrupt records
+        assertTrue(target.offer(span("d")));
+        assertEquals("d", target.poll().getTraceId());
+    }
+
+    private static V1.Span span(String traceId) {
+        return V1.Span.newBuilder()
+                .setTraceId(traceId)
+                .putIntrinsics("name", V1.AttributeValue.newBuilder().setStringValue("span " + traceId).build())
+                .build();
+    }
+
+}
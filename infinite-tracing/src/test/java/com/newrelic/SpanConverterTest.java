@@ -6,9 +6,13 @@ import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Collections;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class SpanConverterTest {
@@ -32,6 +36,45 @@ class SpanConverterTest {
         assertFalse(deserialized.containsIntrinsics("intrOther"));
     }
 
+    @Test
+    void convert_AgentAndUserAttributes() {
+        SpanEvent spanEvent = SpanEvent.builder()
+                .appName("my app")
+                .putIntrinsic("traceId", "abc123")
+                .putIntrinsic("category", "http")
+                .putAgentAttribute("http.url", "https://example.com")
+                .putAllAgentAttributes(Collections.singletonMap("nullAttr", null))
+                .putAllUserAttributes(Collections.singletonMap("userInt", 42))
+                .build();
+
+        V1.Span result = SpanConverter.convert(spanEvent);
+
+        assertEquals("http", result.getIntrinsicsOrThrow("category").getStringValue());
+        assertEquals("https://example.com", result.getAgentAttributesOrThrow("http.url").getStringValue());
+        assertFalse(result.containsAgentAttributes("nullAttr"));
+        assertEquals(42, result.getUserAttributesOrThrow("userInt").getIntValue());
+        assertEquals(1, result.getUserAttributesCount());
+    }
+
+    @Test
+    void toAttributeValue_CachesLowCardinalityValues() {
+        assertSame(SpanConverter.toAttributeValue("category", "datastore"), SpanConverter.toAttributeValue("category", "datastore"));
+        assertSame(SpanConverter.toAttributeValue("span.kind", "client"), SpanConverter.toAttributeValue("span.kind", "client"));
+        assertSame(SpanConverter.toAttributeValue("intrBool", true), SpanConverter.toAttributeValue("other", true));
+        assertNotSame(SpanConverter.toAttributeValue("name", "Custom/foo"), SpanConverter.toAttributeValue("name", "Custom/foo"));
+        assertNull(SpanConverter.toAttributeValue("intrOther", TestEnum.ONE));
+    }
+
+    @Test
+    void toAttributeValue_CacheIsBounded() {
+        for (int i = 0; i < SpanConverter.MAX_CACHED_VALUES + 10; i++) {
+            String value = "component" + i;
+            assertEquals(value, SpanConverter.toAttributeValue("component", value).getStringValue());
+        }
+        String uncached = "component" + (SpanConverter.MAX_CACHED_VALUES + 100);
+        assertNotSame(SpanConverter.toAttributeValue("component", uncached), SpanConverter.toAttributeValue("component", uncached));
+    }
+
     static SpanEvent buildSpanEvent() {
         return SpanEvent.builder()
                 .appName("my app")
@@ -14,6 +14,7 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import static com.newrelic.SpanConverterTest.buildSpanEvent;
@@ -46,6 +47,8 @@ class SpanEventSenderTest {
     private ChannelManager channelManager;
     @Mock
     private ClientCallStreamObserver<V1.Span> observer;
+    @Mock
+    private ClientCallStreamObserver<V1.SpanBatch> batchObserver;
 
     private SpanEventSender target;
 
@@ -158,4 +161,79 @@ class SpanEventSenderTest {
         verify(aggregator).incrementCounter("Supportability/InfiniteTracing/Span/Sent");
     }
 
-}
\ No newline at end of file
+    @Test
+    void pollAndWrite_BatchingWritesFullBatches() {
+        BlockingQueue<SpanEvent> spanQueue = new LinkedBlockingQueue<>();
+        SpanEventSender batchingTarget = createBatchingTarget(spanQueue, 3, 0);
+        for (int i = 0; i < 5; i++) {
+            spanQueue.add(buildSpanEvent());
+        }
+
+        batchingTarget.pollAndWrite();
+        batchingTarget.pollAndWrite();
+
+        verify(batchObserver, times(2)).onNext(ArgumentMatchers.<V1.SpanBatch>any());
+        verify(observer, never()).onNext(ArgumentMatchers.<V1.Span>any());
+        verify(aggregator).incrementCounter("Supportability/InfiniteTracing/Span/Sent", 3);
+        verify(aggregator).incrementCounter("Supportability/InfiniteTracing/Span/Sent", 2);
+        verify(aggregator).recordMetric("Supportability/InfiniteTracing/Span/BatchSize", 3);
+        verify(aggregator).recordMetric("Supportability/InfiniteTracing/Span/BatchSize", 2);
+        assertTrue(spanQueue.isEmpty());
+    }
+
+    @Test
+    void pollAndWrite_BatchingLingersForMoreSpans() throws InterruptedException {
+        final BlockingQueue<SpanEvent> spanQueue = new LinkedBlockingQueue<>();
+        SpanEventSender batchingTarget = createBatchingTarget(spanQueue, 2, 5000);
+        spanQueue.add(buildSpanEvent());
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException ignored) {
+                }
+                spanQueue.add(buildSpanEvent());
+            }
+        });
+        producer.start();
+
+        batchingTarget.pollAndWrite();
+        producer.join();
+
+        verify(batchObserver).onNext(V1.SpanBatch.newBuilder()
+                .addSpans(SpanConverter.convert(buildSpanEvent()))
+                .addSpans(SpanConverter.convert(buildSpanEvent()))
+                .build());
+        verify(aggregator).incrementCounter("Supportability/InfiniteTracing/Span/Sent", 2);
+    }
+
+    @Test
+    void pollAndWrite_BatchingEmptyQueueDoesNotWrite() {
+        SpanEventSender batchingTarget = createBatchingTarget(new LinkedBlockingQueue<SpanEvent>(), 10, 0);
+
+        batchingTarget.pollAndWrite();
+
+        verify(batchObserver, never()).onNext(ArgumentMatchers.<V1.SpanBatch>any());
+    }
+
+    @Test
+    void writeToObserver_BatchIncrementsCounterBySpanCount() {
+        target.writeToObserver(batchObserver, V1.SpanBatch.newBuilder().build(), 7);
+
+        verify(aggregator).incrementCounter("Supportability/InfiniteTracing/Span/Sent", 7);
+    }
+
+    private SpanEventSender createBatchingTarget(BlockingQueue<SpanEvent> spanQueue, int batchSize, long lingerMs) {
+        InfiniteTracingConfig batchingConfig = InfiniteTracingConfig.builder()
+                .logger(logger)
+                .useBatching(true)
+                .batchSize(batchSize)
+                .lingerMs(lingerMs)
+                .build();
+        when(batchObserver.isReady()).thenReturn(true);
+        when(channelManager.getSpanBatchObserver()).thenReturn(batchObserver);
+        return new SpanEventSender(batchingConfig, spanQueue, aggregator, channelManager);
+    }
+
+}
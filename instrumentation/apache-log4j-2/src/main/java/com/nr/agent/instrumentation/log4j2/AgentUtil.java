@@ -8,6 +8,7 @@
 package com.nr.agent.instrumentation.log4j2;
 
 import com.newrelic.agent.bridge.AgentBridge;
+import com.newrelic.agent.bridge.ConfigHandle;
 import com.newrelic.api.agent.NewRelic;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.core.LogEvent;
@@ -47,6 +48,11 @@ public class AgentUtil {
     private static final boolean APP_LOGGING_METRICS_DEFAULT_ENABLED = true;
     private static final boolean APP_LOGGING_FORWARDING_DEFAULT_ENABLED = true;
     private static final boolean APP_LOGGING_LOCAL_DECORATING_DEFAULT_ENABLED = false;
+    // Checked for every log event, so they are handles rather than config lookups
+    private static final ConfigHandle<Boolean> APP_LOGGING_ENABLED = AgentBridge.getAgent().getConfigHandle("application_logging.enabled", APP_LOGGING_DEFAULT_ENABLED);
+    private static final ConfigHandle<Boolean> APP_LOGGING_METRICS_ENABLED = AgentBridge.getAgent().getConfigHandle("application_logging.metrics.enabled", APP_LOGGING_METRICS_DEFAULT_ENABLED);
+    private static final ConfigHandle<Boolean> APP_LOGGING_FORWARDING_ENABLED = AgentBridge.getAgent().getConfigHandle("application_logging.forwarding.enabled", APP_LOGGING_FORWARDING_DEFAULT_ENABLED);
+    private static final ConfigHandle<Boolean> APP_LOGGING_LOCAL_DECORATING_ENABLED = AgentBridge.getAgent().getConfigHandle("application_logging.local_decorating.enabled", APP_LOGGING_LOCAL_DECORATING_DEFAULT_ENABLED);
 
     /**
      * Record a LogEvent to be sent to New Relic.
@@ -179,7 +185,7 @@ public class AgentUtil {
      * @return true if enabled, else false
      */
     public static boolean isApplicationLoggingEnabled() {
-        return NewRelic.getAgent().getConfig().getValue("application_logging.enabled", APP_LOGGING_DEFAULT_ENABLED);
+        return APP_LOGGING_ENABLED.get();
     }
 
     /**
@@ -188,7 +194,7 @@ public class AgentUtil {
      * @return true if enabled, else false
      */
     public static boolean isApplicationLoggingMetricsEnabled() {
-        return NewRelic.getAgent().getConfig().getValue("application_logging.metrics.enabled", APP_LOGGING_METRICS_DEFAULT_ENABLED);
+        return APP_LOGGING_METRICS_ENABLED.get();
     }
 
     /**
@@ -197,7 +203,7 @@ public class AgentUtil {
      * @return true if enabled, else false
      */
     public static boolean isApplicationLoggingForwardingEnabled() {
-        return NewRelic.getAgent().getConfig().getValue("application_logging.forwarding.enabled", APP_LOGGING_FORWARDING_DEFAULT_ENABLED);
+        return APP_LOGGING_FORWARDING_ENABLED.get();
     }
 
     /**
@@ -206,6 +212,6 @@ public class AgentUtil {
      * @return true if enabled, else false
      */
     public static boolean isApplicationLoggingLocalDecoratingEnabled() {
-        return NewRelic.getAgent().getConfig().getValue("application_logging.local_decorating.enabled", APP_LOGGING_LOCAL_DECORATING_DEFAULT_ENABLED);
+        return APP_LOGGING_LOCAL_DECORATING_ENABLED.get();
     }
 }
@@ -7,6 +7,8 @@
 
 package com.nr.instrumentation.jul;
 
+import com.newrelic.agent.bridge.AgentBridge;
+import com.newrelic.agent.bridge.ConfigHandle;
 import com.newrelic.api.agent.NewRelic;
 
 import java.io.UnsupportedEncodingException;
@@ -35,6 +37,11 @@ public class AgentUtil {
     private static final boolean APP_LOGGING_METRICS_DEFAULT_ENABLED = true;
     private static final boolean APP_LOGGING_FORWARDING_DEFAULT_ENABLED = true;
     private static final boolean APP_LOGGING_LOCAL_DECORATING_DEFAULT_ENABLED = false;
+    // Checked for every log event, so they are handles rather than config lookups
+    private static final ConfigHandle<Boolean> APP_LOGGING_ENABLED = AgentBridge.getAgent().getConfigHandle("application_logging.enabled", APP_LOGGING_DEFAULT_ENABLED);
+    private static final ConfigHandle<Boolean> APP_LOGGING_METRICS_ENABLED = AgentBridge.getAgent().getConfigHandle("application_logging.metrics.enabled", APP_LOGGING_METRICS_DEFAULT_ENABLED);
+    private static final ConfigHandle<Boolean> APP_LOGGING_FORWARDING_ENABLED = AgentBridge.getAgent().getConfigHandle("application_logging.forwarding.enabled", APP_LOGGING_FORWARDING_DEFAULT_ENABLED);
+    private static final ConfigHandle<Boolean> APP_LOGGING_LOCAL_DECORATING_ENABLED = AgentBridge.getAgent().getConfigHandle("application_logging.local_decorating.enabled", APP_LOGGING_LOCAL_DECORATING_DEFAULT_ENABLED);
 
     /**
      * Gets a String representing the agent linking metadata in blob format:
@@ -87,7 +94,7 @@ public class AgentUtil {
      * @return true if enabled, else false
      */
     public static boolean isApplicationLoggingEnabled() {
-        return NewRelic.getAgent().getConfig().getValue("application_logging.enabled", APP_LOGGING_DEFAULT_ENABLED);
+        return APP_LOGGING_ENABLED.get();
     }
 
     /**
@@ -96,7 +103,7 @@ public class AgentUtil {
      * @return true if enabled, else false
      */
     public static boolean isApplicationLoggingMetricsEnabled() {
-        return NewRelic.getAgent().getConfig().getValue("application_logging.metrics.enabled", APP_LOGGING_METRICS_DEFAULT_ENABLED);
+        return APP_LOGGING_METRICS_ENABLED.get();
     }
 
     /**
@@ -105,7 +112,7 @@ public class AgentUtil {
      * @return true if enabled, else false
      */
     public static boolean isApplicationLoggingForwardingEnabled() {
-        return NewRelic.getAgent().getConfig().getValue("application_logging.forwarding.enabled", APP_LOGGING_FORWARDING_DEFAULT_ENABLED);
+        return APP_LOGGING_FORWARDING_ENABLED.get();
     }
 
     /**
@@ -114,6 +121,6 @@ public class AgentUtil {
      * @return true if enabled, else false
      */
     public static boolean isApplicationLoggingLocalDecoratingEnabled() {
-        return NewRelic.getAgent().getConfig().getValue("application_logging.local_decorating.enabled", APP_LOGGING_LOCAL_DECORATING_DEFAULT_ENABLED);
+        return APP_LOGGING_LOCAL_DECORATING_ENABLED.get();
     }
 }
@@ -7,9 +7,9 @@
 
 package java.sql;
 
-import com.newrelic.agent.bridge.AgentBridge;
 import com.newrelic.agent.bridge.datastore.DatastoreMetrics;
 import com.newrelic.agent.bridge.datastore.JdbcHelper;
+import com.newrelic.agent.bridge.datastore.PreparedStatementParameters;
 import com.newrelic.api.agent.Trace;
 import com.newrelic.api.agent.weaver.MatchType;
 import com.newrelic.api.agent.weaver.NewField;
@@ -17,13 +17,12 @@ import com.newrelic.api.agent.weaver.Weave;
 import com.newrelic.api.agent.weaver.Weaver;
 
 import java.math.BigDecimal;
-import java.util.logging.Level;
 
 @Weave(originalName = "java.sql.PreparedStatement", type = MatchType.Interface)
 public abstract class PreparedStatement_Weaved {
 
     @NewField
-    private Object[] params;
+    private PreparedStatementParameters params;
 
     @NewField
     String preparedSql;
@@ -33,7 +32,7 @@ public abstract class PreparedStatement_Weaved {
         if (preparedSql == null) {
             preparedSql = JdbcHelper.getSql((Statement) this);
         }
-        DatastoreMetrics.noticeSql(getConnection(), preparedSql, params);
+        DatastoreMetrics.noticeSql(getConnection(), preparedSql, capturedParamValues());
         return Weaver.callOriginal();
     }
 
@@ -42,7 +41,7 @@ public abstract class PreparedStatement_Weaved {
         if (preparedSql == null) {
             preparedSql = JdbcHelper.getSql((Statement) this);
         }
-        DatastoreMetrics.noticeSql(getConnection(), preparedSql, params);
+        DatastoreMetrics.noticeSql(getConnection(), preparedSql, capturedParamValues());
         return Weaver.callOriginal();
     }
 
@@ -51,97 +50,123 @@ public abstract class PreparedStatement_Weaved {
         if (preparedSql == null) {
             preparedSql = JdbcHelper.getSql((Statement) this);
         }
-        DatastoreMetrics.noticeSql(getConnection(), preparedSql, params);
+        DatastoreMetrics.noticeSql(getConnection(), preparedSql, capturedParamValues());
         return Weaver.callOriginal();
     }
 
     public void setNull(int parameterIndex, int sqlType) throws SQLException {
-        setParamValue(parameterIndex, "null");
+        if (JdbcHelper.shouldCaptureParameters()) {
+            capturedParams().setObject(parameterIndex, "null");
+        }
         Weaver.callOriginal();
     }
 
     public void setBoolean(int parameterIndex, boolean x) throws SQLException {
-        setParamValue(parameterIndex, x);
+        if (JdbcHelper.shouldCaptureParameters()) {
+            capturedParams().setBoolean(parameterIndex, x);
+        }
         Weaver.callOriginal();
     }
 
     public void setByte(int parameterIndex, byte x) throws SQLException {
-        setParamValue(parameterIndex, x);
+        if (JdbcHelper.shouldCaptureParameters()) {
+            capturedParams().setByte(parameterIndex, x);
+        }
         Weaver.callOriginal();
     }
 
     public void setShort(int parameterIndex, short x) throws SQLException {
-        setParamValue(parameterIndex, x);
+        if (JdbcHelper.shouldCaptureParameters()) {
+            capturedParams().setShort(parameterIndex, x);
+        }
         Weaver.callOriginal();
     }
 
     public void setInt(int parameterIndex, int x) throws SQLException {
-        setParamValue(parameterIndex, x);
+        if (JdbcHelper.shouldCaptureParameters()) {
+            capturedParams().setInt(parameterIndex, x);
+        }
         Weaver.callOriginal();
     }
 
     public void setLong(int parameterIndex, long x) throws SQLException {
-        setParamValue(parameterIndex, x);
+        if (JdbcHelper.shouldCaptureParameters()) {
+            capturedParams().setLong(parameterIndex, x);
+        }
         Weaver.callOriginal();
     }
 
     public void setFloat(int parameterIndex, float x) throws SQLException {
-        setParamValue(parameterIndex, x);
+        if (JdbcHelper.shouldCaptureParameters()) {
+            capturedParams().setFloat(parameterIndex, x);
+        }
         Weaver.callOriginal();
     }
 
     public void setDouble(int parameterIndex, double x) throws SQLException {
-        setParamValue(parameterIndex, x);
+        if (JdbcHelper.shouldCaptureParameters()) {
+            capturedParams().setDouble(parameterIndex, x);
+        }
         Weaver.callOriginal();
     }
 
     public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
-        setParamValue(parameterIndex, x);
+        if (JdbcHelper.shouldCaptureParameters()) {
+            capturedParams().setObject(parameterIndex, x);
+        }
         Weaver.callOriginal();
     }
 
     public void setString(int parameterIndex, String x) throws SQLException {
-        setParamValue(parameterIndex, x);
+        if (JdbcHelper.shouldCaptureParameters()) {
+            capturedParams().setObject(parameterIndex, x);
+        }
         Weaver.callOriginal();
     }
 
     public void setDate(int parameterIndex, Date x) throws SQLException {
-        setParamValue(parameterIndex, x);
+        if (JdbcHelper.shouldCaptureParameters()) {
+            capturedParams().setObject(parameterIndex, x);
+        }
         Weaver.callOriginal();
     }
 
     public void setTime(int parameterIndex, Time x) throws SQLException {
-        setParamValue(parameterIndex, x);
+        if (JdbcHelper.shouldCaptureParameters()) {
+            capturedParams().setObject(parameterIndex, x);
+        }
         Weaver.callOriginal();
     }
 
     public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
-        setParamValue(parameterIndex, x);
+        if (JdbcHelper.shouldCaptureParameters()) {
+            capturedParams().setObject(parameterIndex, x);
+        }
         Weaver.callOriginal();
     }
 
     public void clearParameters() throws SQLException {
-        params = new Object[0];
+        if (params != null) {
+            params.clear();
+        }
 
         Weaver.callOriginal();
     }
 
     public abstract Connection getConnection() throws SQLException;
 
-    private void setParamValue(int index, Object value) {
+    private PreparedStatementParameters capturedParams() {
         if (params == null) {
-            params = new Object[1];
+            params = new PreparedStatementParameters();
         }
+        return params;
+    }
 
-        index--;
-        if (index < 0) {
-            AgentBridge.getAgent().getLogger().log(Level.FINER,
-                    "Unable to store a prepared statement parameter because the index < 0");
-            return;
-        } else if (index >= params.length) {
-            params = JdbcHelper.growParameterArray(params, index);
+    private Object[] capturedParamValues() {
+        if (params == null || !JdbcHelper.shouldCaptureParameters()) {
+            return null;
         }
-        params[index] = value;
+        return params.toArray();
     }
 
 }
@@ -8,6 +8,7 @@
 package net.sourceforge.jtds.jdbc;
 
 import com.newrelic.agent.bridge.datastore.DatastoreMetrics;
+import com.newrelic.agent.bridge.datastore.JdbcHelper;
 import com.newrelic.api.agent.Trace;
 import com.newrelic.api.agent.weaver.MatchType;
 import com.newrelic.api.agent.weaver.Weave;
@@ -44,6 +45,9 @@ public abstract class JtdsPreparedStatement_Instrumentation {
     public abstract Connection getConnection();
 
     private Object[] getParameterValues() {
+        if (!JdbcHelper.shouldCaptureParameters()) {
+            return null;
+        }
         Object[] params = new Object[parameters.length];
 
         for (int i = 0; i < params.length; i++) {
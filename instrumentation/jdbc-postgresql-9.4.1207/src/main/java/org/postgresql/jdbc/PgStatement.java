@@ -16,11 +16,10 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Time;
 import java.sql.Timestamp;
-import java.util.logging.Level;
 
-import com.newrelic.agent.bridge.AgentBridge;
 import com.newrelic.agent.bridge.datastore.DatastoreMetrics;
 import com.newrelic.agent.bridge.datastore.JdbcHelper;
+import com.newrelic.agent.bridge.datastore.PreparedStatementParameters;
 import com.newrelic.api.agent.Trace;
 import com.newrelic.api.agent.weaver.MatchType;
 import com.newrelic.api.agent.weaver.NewField;
@@ -31,7 +30,7 @@ import com.newrelic.api.agent.weaver.Weaver;
 public abstract class PgStatement {
 
     @NewField
-    private Object[] params;
+    private PreparedStatementParameters params;
 
     @NewField
     private String sql;
@@ -42,127 +41,153 @@ public abstract class PgStatement {
 
     @Trace(leaf = true)
     public ResultSet executeQuery() throws SQLException {
-        DatastoreMetrics.noticeSql(getConnection(), sql, params);
+        DatastoreMetrics.noticeSql(getConnection(), sql, capturedParamValues());
         return Weaver.callOriginal();
     }
 
     @Trace(leaf = true)
     public ResultSet executeQuery(String sql) throws SQLException {
-        DatastoreMetrics.noticeSql(getConnection(), sql, params);
+        DatastoreMetrics.noticeSql(getConnection(), sql, capturedParamValues());
         return Weaver.callOriginal();
     }
 
     @Trace(leaf = true)
     public int executeUpdate() throws SQLException {
-        DatastoreMetrics.noticeSql(getConnection(), sql, params);
+        DatastoreMetrics.noticeSql(getConnection(), sql, capturedParamValues());
         return Weaver.callOriginal();
     }
 
     @Trace(leaf = true)
     public int executeUpdate(String sql) throws SQLException {
-        DatastoreMetrics.noticeSql(getConnection(), sql, params);
+        DatastoreMetrics.noticeSql(getConnection(), sql, capturedParamValues());
         return Weaver.callOriginal();
     }
 
     @Trace(leaf = true)
     public boolean execute() throws SQLException {
-        DatastoreMetrics.noticeSql(getConnection(), sql, params);
+        DatastoreMetrics.noticeSql(getConnection(), sql, capturedParamValues());
         return Weaver.callOriginal();
     }
 
     @Trace(leaf = true)
     public boolean execute(String sql) throws SQLException {
-        DatastoreMetrics.noticeSql(getConnection(), sql, params);
+        DatastoreMetrics.noticeSql(getConnection(), sql, capturedParamValues());
         return Weaver.callOriginal();
     }
 
     public void clearParameters() throws SQLException {
-        params = new Object[0];
+        if (params != null) {
+            params.clear();
+        }
 
         Weaver.callOriginal();
     }
 
     public void setNull(int parameterIndex, int sqlType) throws SQLException {
-        setParamValue(parameterIndex, "null");
+        if (JdbcHelper.shouldCaptureParameters()) {
+            capturedParams().setObject(parameterIndex, "null");
+        }
         Weaver.callOriginal();
     }
 
     public void setBoolean(int parameterIndex, boolean x) throws SQLException {
-        setParamValue(parameterIndex, x);
+        if (JdbcHelper.shouldCaptureParameters()) {
+            capturedParams().setBoolean(parameterIndex, x);
+        }
         Weaver.callOriginal();
     }
 
     public void setByte(int parameterIndex, byte x) throws SQLException {
-        setParamValue(parameterIndex, x);
+        if (JdbcHelper.shouldCaptureParameters()) {
+            capturedParams().setByte(parameterIndex, x);
+        }
         Weaver.callOriginal();
     }
 
     public void setShort(int parameterIndex, short x) throws SQLException {
-        setParamValue(parameterIndex, x);
+        if (JdbcHelper.shouldCaptureParameters()) {
+            capturedParams().setShort(parameterIndex, x);
+        }
         Weaver.callOriginal();
     }
 
     public void setInt(int parameterIndex, int x) throws SQLException {
-        setParamValue(parameterIndex, x);
+        if (JdbcHelper.shouldCaptureParameters()) {
+            capturedParams().setInt(parameterIndex, x);
+        }
         Weaver.callOriginal();
     }
 
     public void setLong(int parameterIndex, long x) throws SQLException {
-        setParamValue(parameterIndex, x);
+        if (JdbcHelper.shouldCaptureParameters()) {
+            capturedParams().setLong(parameterIndex, x);
+        }
         Weaver.callOriginal();
     }
 
     public void setFloat(int parameterIndex, float x) throws SQLException {
-        setParamValue(parameterIndex, x);
+        if (JdbcHelper.shouldCaptureParameters()) {
+            capturedParams().setFloat(parameterIndex, x);
+        }
         Weaver.callOriginal();
     }
 
     public void setDouble(int parameterIndex, double x) throws SQLException {
-        setParamValue(parameterIndex, x);
+        if (JdbcHelper.shouldCaptureParameters()) {
+            capturedParams().setDouble(parameterIndex, x);
+        }
         Weaver.callOriginal();
     }
 
     public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
-        setParamValue(parameterIndex, x);
+        if (JdbcHelper.shouldCaptureParameters()) {
+            capturedParams().setObject(parameterIndex, x);
+        }
         Weaver.callOriginal();
     }
 
     public void setString(int parameterIndex, String x) throws SQLException {
-        setParamValue(parameterIndex, x);
+        if (JdbcHelper.shouldCaptureParameters()) {
+            capturedParams().setObject(parameterIndex, x);
+        }
         Weaver.callOriginal();
     }
 
     public void setDate(int parameterIndex, Date x) throws SQLException {
-        setParamValue(parameterIndex, x);
+        if (JdbcHelper.shouldCaptureParameters()) {
+            capturedParams().setObject(parameterIndex, x);
+        }
         Weaver.callOriginal();
     }
 
     public void setTime(int parameterIndex, Time x) throws SQLException {
-        setParamValue(parameterIndex, x);
+        if (JdbcHelper.shouldCaptureParameters()) {
+            capturedParams().setObject(parameterIndex, x);
+        }
         Weaver.callOriginal();
     }
 
     public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
-        setParamValue(parameterIndex, x);
+        if (JdbcHelper.shouldCaptureParameters()) {
+            capturedParams().setObject(parameterIndex, x);
+        }
         Weaver.callOriginal();
     }
 
     public abstract Connection getConnection() throws SQLException;
 
-    private void setParamValue(int index, Object value) {
+    private PreparedStatementParameters capturedParams() {
         if (params == null) {
-            params = new Object[1];
+            params = new PreparedStatementParameters();
         }
+        return params;
+    }
 
-        index--;
-        if (index < 0) {
-            AgentBridge.getAgent().getLogger().log(Level.FINER,
-                    "Unable to store a prepared statement parameter because the index < 0");
-            return;
-        } else if (index >= params.length) {
-            params = JdbcHelper.growParameterArray(params, index);
+    private Object[] capturedParamValues() {
+        if (params == null || !JdbcHelper.shouldCaptureParameters()) {
+            return null;
         }
-        params[index] = value;
+        return params.toArray();
     }
 
 }
@@ -9,6 +9,7 @@ package com.nr.agent.instrumentation.logbackclassic12;
 
 import ch.qos.logback.classic.Level;
 import com.newrelic.agent.bridge.AgentBridge;
+import com.newrelic.agent.bridge.ConfigHandle;
 import com.newrelic.api.agent.NewRelic;
 
 import java.io.UnsupportedEncodingException;
@@ -45,6 +46,11 @@ public class AgentUtil {
     private static final boolean APP_LOGGING_METRICS_DEFAULT_ENABLED = true;
     private static final boolean APP_LOGGING_FORWARDING_DEFAULT_ENABLED = true;
     private static final boolean APP_LOGGING_LOCAL_DECORATING_DEFAULT_ENABLED = false;
+    // Checked for every log event, so they are handles rather than config lookups
+    private static final ConfigHandle<Boolean> APP_LOGGING_ENABLED = AgentBridge.getAgent().getConfigHandle("application_logging.enabled", APP_LOGGING_DEFAULT_ENABLED);
+    private static final ConfigHandle<Boolean> APP_LOGGING_METRICS_ENABLED = AgentBridge.getAgent().getConfigHandle("application_logging.metrics.enabled", APP_LOGGING_METRICS_DEFAULT_ENABLED);
+    private static final ConfigHandle<Boolean> APP_LOGGING_FORWARDING_ENABLED = AgentBridge.getAgent().getConfigHandle("application_logging.forwarding.enabled", APP_LOGGING_FORWARDING_DEFAULT_ENABLED);
+    private static final ConfigHandle<Boolean> APP_LOGGING_LOCAL_DECORATING_ENABLED = AgentBridge.getAgent().getConfigHandle("application_logging.local_decorating.enabled", APP_LOGGING_LOCAL_DECORATING_DEFAULT_ENABLED);
 
     /**
      * Record a LogEvent to be sent to New Relic.
@@ -168,7 +174,7 @@ public class AgentUtil {
      * @return true if enabled, else false
      */
     public static boolean isApplicationLoggingEnabled() {
-        return NewRelic.getAgent().getConfig().getValue("application_logging.enabled", APP_LOGGING_DEFAULT_ENABLED);
+        return APP_LOGGING_ENABLED.get();
     }
 
     /**
@@ -177,7 +183,7 @@ public class AgentUtil {
      * @return true if enabled, else false
      */
     public static boolean isApplicationLoggingMetricsEnabled() {
-        return NewRelic.getAgent().getConfig().getValue("application_logging.metrics.enabled", APP_LOGGING_METRICS_DEFAULT_ENABLED);
+        return APP_LOGGING_METRICS_ENABLED.get();
     }
 
     /**
@@ -186,7 +192,7 @@ public class AgentUtil {
      * @return true if enabled, else false
      */
     public static boolean isApplicationLoggingForwardingEnabled() {
-        return NewRelic.getAgent().getConfig().getValue("application_logging.forwarding.enabled", APP_LOGGING_FORWARDING_DEFAULT_ENABLED);
+        return APP_LOGGING_FORWARDING_ENABLED.get();
     }
 
     /**
@@ -195,6 +201,6 @@ public class AgentUtil {
      * @return true if enabled, else false
      */
     public static boolean isApplicationLoggingLocalDecoratingEnabled() {
-        return NewRelic.getAgent().getConfig().getValue("application_logging.local_decorating.enabled", APP_LOGGING_LOCAL_DECORATING_DEFAULT_ENABLED);
+        return APP_LOGGING_LOCAL_DECORATING_ENABLED.get();
     }
 }
@@ -8,6 +8,7 @@
 package com.nr.agent.instrumentation.scala;
 
 import com.newrelic.agent.bridge.AgentBridge;
+import com.newrelic.agent.bridge.ConfigHandle;
 
 import java.util.regex.Pattern;
 
@@ -15,6 +16,11 @@ public class ScalaUtils {
 
     public static final boolean scalaFuturesAsSegments = AgentBridge.getAgent().getConfig().getValue("scala_futures_as_segments.enabled", false);
 
+    /**
+     * Read for every callback, so it's a handle rather than a config lookup.
+     */
+    public static final ConfigHandle<Boolean> callbackRunnableEnabled = AgentBridge.getAgent().getConfigHandle("scala.callbackrunnable.enabled", false);
+
     /**
      * Strip out compiler generated names:
      * <ul>
@@ -7,11 +7,13 @@
 
 package com.newrelic.agent;
 
+import com.newrelic.agent.bridge.ConfigHandle;
 import com.newrelic.agent.bridge.NoOpMetricAggregator;
 import com.newrelic.agent.bridge.NoOpTracedMethod;
 import com.newrelic.agent.bridge.NoOpTransaction;
 import com.newrelic.agent.bridge.TracedMethod;
 import com.newrelic.agent.bridge.Transaction;
+import com.newrelic.agent.config.ConfigHandles;
 import com.newrelic.agent.service.ServiceFactory;
 import com.newrelic.agent.tracers.Tracer;
 import com.newrelic.api.agent.Insights;
@@ -26,6 +28,7 @@ import java.util.logging.Level;
 public class AgentImpl implements com.newrelic.agent.bridge.Agent {
 
     private final Logger logger;
+    private volatile ConfigHandles configHandles;
 
     public AgentImpl(Logger logger) {
         this.logger = logger;
@@ -134,6 +137,21 @@ public class AgentImpl implements com.newrelic.agent.bridge.Agent {
         return ServiceFactory.getServiceManager().getLogSenderService();
     }
 
+    @Override
+    public <T> ConfigHandle<T> getConfigHandle(String key, T defaultValue) {
+        ConfigHandles handles = configHandles;
+        if (handles == null) {
+            synchronized (this) {
+                handles = configHandles;
+                if (handles == null) {
+                    handles = new ConfigHandles(ServiceFactory.getConfigService());
+                    configHandles = handles;
+                }
+            }
+        }
+        return handles.getConfigHandle(key, defaultValue);
+    }
+
     @Override
     public boolean startAsyncActivity(Object activityContext) {
         return ServiceFactory.getAsyncTxService().startAsyncActivity(activityContext);
@@ -864,6 +864,11 @@ public class DummyTransaction extends Transaction {
             return statsMap;
         }
 
+        @Override
+        public boolean containsMetric(String metricName) {
+            return false;
+        }
+
         @Override
         public Stats getStats(String metricName) {
             return stat;
@@ -874,6 +879,10 @@ public class DummyTransaction extends Transaction {
             return responseTimeStat;
         }
 
+        @Override
+        public void recordResponseTimeInNanos(String metricName, long responseTime, long exclusiveTime) {
+        }
+
         @Override
         public void recordEmptyStats(String metricName) {
         }
@@ -9,15 +9,29 @@ package com.newrelic.agent;
 
 import com.newrelic.agent.service.AbstractService;
 import com.newrelic.agent.util.DefaultThreadFactory;
+import com.newrelic.agent.util.TimingWheel;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 public class ExpirationService extends AbstractService {
 
+    /**
+     * Resolution of the token timing wheel. Tokens time out at most this late.
+     */
+    private static final long TOKEN_TIMER_TICK_MILLIS = 10;
+
+    // a single thread, so that the time out and expiry callbacks of a transaction's tokens never run concurrently
     private final ExecutorService tokenExpirationExecutor = Executors.newSingleThreadExecutor(new DefaultThreadFactory("New Relic Token Expiration Handler", true));
 
+    /**
+     * Times out the async tokens of all transactions and the keys of the legacy async API.
+     */
+    private final TimingWheel tokenTimer = new TimingWheel(TOKEN_TIMER_TICK_MILLIS, TimeUnit.MILLISECONDS,
+            new DefaultThreadFactory("New Relic Token Expiration Timer", true), tokenExpirationExecutor);
+
     private final ExecutorService segmentExpirationExecutor = Executors.newFixedThreadPool(2, new DefaultThreadFactory("New Relic Segment Expiration Handler", true));
 
     public ExpirationService() {
@@ -30,6 +44,7 @@ public class ExpirationService extends AbstractService {
 
     @Override
     protected void doStop() throws Exception {
+        tokenTimer.stop();
         tokenExpirationExecutor.shutdownNow();
         segmentExpirationExecutor.shutdownNow();
     }
@@ -50,4 +65,12 @@ public class ExpirationService extends AbstractService {
     public Future<?> expireToken(Runnable runnable) {
         return tokenExpirationExecutor.submit(runnable);
     }
+
+    /**
+     * Run the task on a token expiration thread once the timeout has elapsed, unless the timeout is cancelled or
+     * refreshed first.
+     */
+    public TimingWheel.Timeout scheduleTokenTimeout(Runnable task, long timeout, TimeUnit unit) {
+        return tokenTimer.schedule(task, timeout, unit);
+    }
 }
@@ -10,6 +10,7 @@ package com.newrelic.agent;
 import com.google.common.annotations.VisibleForTesting;
 import com.newrelic.agent.config.AgentConfig;
 import com.newrelic.agent.config.AgentConfigFactory;
+import com.newrelic.agent.config.AgentConfigImpl;
 import com.newrelic.agent.metric.MetricIdRegistry;
 import com.newrelic.agent.service.AbstractService;
 import com.newrelic.agent.service.ServiceFactory;
@@ -54,7 +55,9 @@ public class HarvestServiceImpl extends AbstractService implements HarvestServic
     private static final String REPORT_PERIOD_MS = "report_period_ms";
 
     /**
-     * The main harvest task and all harvestables (faster event harvests) are scheduled on separate threads.
+     * The main harvest task and all harvestables (faster event harvests) are scheduled on separate threads. The
+     * harvestables share one thread per upload connection, so with more than one connection different event types are
+     * sent in parallel. A harvestable's task never runs concurrently with itself, so its payloads are sent in order.
      */
     private final ScheduledExecutorService scheduledHarvestExecutor;
     private final ScheduledExecutorService scheduledFasterHarvestExecutor;
@@ -64,9 +67,17 @@ public class HarvestServiceImpl extends AbstractService implements HarvestServic
     private long overrideInitialDelay = -1;
 
     public HarvestServiceImpl() {
+        this(AgentConfigImpl.DEFAULT_UPLOAD_CONNECTIONS);
+    }
+
+    /**
+     * @param uploadConnections the number of connections the agent may open to the collector
+     */
+    public HarvestServiceImpl(int uploadConnections) {
         super(HarvestService.class.getSimpleName());
         scheduledHarvestExecutor = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory(HARVEST_THREAD_NAME, true));
-        scheduledFasterHarvestExecutor = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory(FASTER_HARVEST_THREAD_NAME, true));
+        scheduledFasterHarvestExecutor = Executors.newScheduledThreadPool(Math.max(1, uploadConnections),
+                new DefaultThreadFactory(FASTER_HARVEST_THREAD_NAME, true));
         ServiceFactory.getRPMServiceManager().addConnectionListener(new ConnectionListenerImpl());
     }
 
@@ -247,6 +247,9 @@ public class MetricNames {
     public static final String SUPPORTABILITY_METRIC_HARVEST_INTERVAL = "Supportability/MetricHarvest/interval";
     public static final String SUPPORTABILITY_METRIC_HARVEST_TRANSMIT = "Supportability/MetricHarvest/transmit";
     public static final String SUPPORTABILITY_METRIC_HARVEST_COUNT = "Supportability/MetricHarvest/count";
+    public static final String SUPPORTABILITY_METRIC_ID_REGISTRY_SIZE = "Supportability/MetricHarvest/MetricIdRegistry/size";
+    public static final String SUPPORTABILITY_METRIC_ID_REGISTRY_EVICTIONS = "Supportability/MetricHarvest/MetricIdRegistry/evictions";
+    public static final String SUPPORTABILITY_METRIC_DROPPED_RESPONSE_TIMES = "Supportability/MetricHarvest/DroppedResponseTimes";
     public static final String AGENT_METRICS_COUNT = "Agent/Metrics/Count";
 
     public static final String SUPPORTABILITY_ERROR_SERVICE_EVENT_HARVEST_INTERVAL = "Supportability/EventHarvest/TransactionError/interval";
@@ -305,6 +308,7 @@ public class MetricNames {
     public static final String SUPPORTABILITY_LOADED_CLASSES_SOURCE_VERSION = "Supportability/LoadedClasses/{0}/{1}/count";
     public static final String SUPPORTABILITY_SOURCE_LANGUAGE_VERSION = "Supportability/SourceLanguage/{0}/{1}";
     public static final String SUPPORTABILITY_JVM_VENDOR = "Supportability/Jvm/Vendor/{0}";
+    public static final String SUPPORTABILITY_JMX_SAMPLING = "Supportability/Jmx/Sampling/{0}"; // {framework}
 
     public static final String SUPPORTABILITY_POINTCUT_LOADED = "Supportability/PointCutInstrumentation/Loaded/{0}";
 
@@ -22,6 +22,8 @@ import com.newrelic.agent.environment.EnvironmentChangeListener;
 import com.newrelic.agent.errors.ErrorService;
 import com.newrelic.agent.errors.ErrorServiceImpl;
 import com.newrelic.agent.errors.TracedError;
+import com.newrelic.agent.metric.MetricIdRegistry;
+import com.newrelic.agent.metric.MetricName;
 import com.newrelic.agent.model.AnalyticsEvent;
 import com.newrelic.agent.model.CustomInsightsEvent;
 import com.newrelic.agent.model.ErrorEvent;
@@ -45,6 +47,7 @@ import com.newrelic.agent.transport.HostConnectException;
 import com.newrelic.agent.transport.HttpError;
 import com.newrelic.agent.transport.HttpResponseCode;
 import com.newrelic.agent.utilization.UtilizationData;
+import org.json.simple.JSONObject;
 import org.json.simple.JSONStreamAware;
 
 import java.lang.management.ManagementFactory;
@@ -88,9 +91,12 @@ public class RPMService extends AbstractService implements IRPMService, Environm
     private volatile boolean hasEverConnected = false;
     private volatile String entityGuid = "";
     private final DataSender dataSender;
-    private long connectionTimestamp = 0;
+    private volatile long connectionTimestamp = 0;
     private final AtomicInteger last503Error = new AtomicInteger(0);
     private final AtomicInteger retryCount = new AtomicInteger(0);
+    // ids are assigned per agent run and are only sent in place of metric names when send_metric_ids is enabled
+    private final MetricIdRegistry metricIdRegistry = new MetricIdRegistry();
+    private final boolean sendMetricIds;
 
     private String rpmLink;
     private long lastReportTime;
@@ -114,6 +120,7 @@ public class RPMService extends AbstractService implements IRPMService, Environm
         host = config.getHost();
         port = config.getPort();
         isMainApp = appName.equals(config.getApplicationName());
+        sendMetricIds = config.isSendMetricIds();
         this.agentConnectionEstablishedListeners = new ArrayList<>(agentConnectionEstablishedListeners);
     }
 
@@ -267,6 +274,7 @@ public class RPMService extends AbstractService implements IRPMService, Environm
             config = connectionConfigListener.connected(this, data);
         }
 
+        metricIdRegistry.clear();
         connectionTimestamp = System.nanoTime();
         connected = true;
         hasEverConnected = true;
@@ -348,7 +356,18 @@ public class RPMService extends AbstractService implements IRPMService, Environm
                 + " data reporting. If this message continues, please contact support via https://support.newrelic.com/.", e.toString());
     }
 
-    private void reconnectSync() throws Exception {
+    /**
+     * Reconnect after a ForceRestartException unless another thread has already done so. Harvestables upload on
+     * several threads when upload_connections is greater than one, and each of them sees the same ForceRestartException;
+     * only the first one to get here should start a new run.
+     *
+     * @param observedConnection the connection timestamp read before the request that was rejected
+     */
+    private synchronized void reconnectSync(long observedConnection) throws Exception {
+        if (isConnected() && connectionTimestamp != observedConnection) {
+            Agent.LOG.log(Level.FINE, "{0} already reconnected, retrying with the new run", getApplicationName());
+            return;
+        }
         disconnect();
         launch();
     }
@@ -443,11 +462,12 @@ public class RPMService extends AbstractService implements IRPMService, Environm
     }
 
     private List<Long> sendProfileDataSyncRestart(List<ProfileData> profiles) throws Exception {
+        long connection = connectionTimestamp;
         try {
             return dataSender.sendProfileData(profiles);
         } catch (ForceRestartException e) {
             logForceRestartException(e);
-            reconnectSync();
+            reconnectSync(connection);
             return dataSender.sendProfileData(profiles);
         }
     }
@@ -469,11 +489,12 @@ public class RPMService extends AbstractService implements IRPMService, Environm
     }
 
     private void sendModulesSyncRestart(final List<JarData> jarDataList) throws Exception {
+        long connection = connectionTimestamp;
         try {
             dataSender.sendModules(jarDataList);
         } catch (ForceRestartException e) {
             logForceRestartException(e);
-            reconnectSync();
+            reconnectSync(connection);
             dataSender.sendModules(jarDataList);
         }
     }
@@ -501,11 +522,12 @@ public class RPMService extends AbstractService implements IRPMService, Environm
 
     private <T extends AnalyticsEvent & JSONStreamAware> void sendAnalyticsEventsSyncRestart(int reservoirSize, int eventsSeen, final Collection<T> events)
             throws Exception {
+        long connection = connectionTimestamp;
         try {
             dataSender.sendAnalyticsEvents(reservoirSize, eventsSeen, events);
         } catch (ForceRestartException e) {
             logForceRestartException(e);
-            reconnectSync();
+            reconnectSync(connection);
             dataSender.sendAnalyticsEvents(reservoirSize, eventsSeen, events);
         }
     }
@@ -553,11 +575,12 @@ public class RPMService extends AbstractService implements IRPMService, Environm
     }
 
     private void sendSpanEventsSyncRestart(int reservoirSize, int eventsSeen, final Collection<SpanEvent> events) throws Exception {
+        long connection = connectionTimestamp;
         try {
             dataSender.sendSpanEvents(reservoirSize, eventsSeen, events);
         } catch (ForceRestartException e) {
             logForceRestartException(e);
-            reconnectSync();
+            reconnectSync(connection);
             dataSender.sendSpanEvents(reservoirSize, eventsSeen, events);
         }
     }
@@ -585,22 +608,24 @@ public class RPMService extends AbstractService implements IRPMService, Environm
 
     private void sendCustomAnalyticsEventsSyncRestart(int reservoirSize, int eventsSeen, final Collection<? extends CustomInsightsEvent> events)
             throws Exception {
+        long connection = connectionTimestamp;
         try {
             dataSender.sendCustomAnalyticsEvents(reservoirSize, eventsSeen, events);
         } catch (ForceRestartException e) {
             logForceRestartException(e);
-            reconnectSync();
+            reconnectSync(connection);
             dataSender.sendCustomAnalyticsEvents(reservoirSize, eventsSeen, events);
         }
     }
 
     private void sendLogEventsSyncRestart(final Collection<? extends LogEvent> events)
             throws Exception {
+        long connection = connectionTimestamp;
         try {
             dataSender.sendLogEvents(events);
         } catch (ForceRestartException e) {
             logForceRestartException(e);
-            reconnectSync();
+            reconnectSync(connection);
             dataSender.sendLogEvents(events);
         }
     }
@@ -627,11 +652,12 @@ public class RPMService extends AbstractService implements IRPMService, Environm
     }
 
     private void sendErrorEventsSyncRestart(int reservoirSize, int eventsSeen, final Collection<ErrorEvent> events) throws Exception {
+        long connection = connectionTimestamp;
         try {
             dataSender.sendErrorEvents(reservoirSize, eventsSeen, events);
         } catch (ForceRestartException e) {
             logForceRestartException(e);
-            reconnectSync();
+            reconnectSync(connection);
             dataSender.sendErrorEvents(reservoirSize, eventsSeen, events);
         }
     }
@@ -653,11 +679,12 @@ public class RPMService extends AbstractService implements IRPMService, Environm
     }
 
     private void sendSqlTraceDataSyncRestart(List<SqlTrace> sqlTraces) throws Exception {
+        long connection = connectionTimestamp;
         try {
             dataSender.sendSqlTraceData(sqlTraces);
         } catch (ForceRestartException e) {
             logForceRestartException(e);
-            reconnectSync();
+            reconnectSync(connection);
             dataSender.sendSqlTraceData(sqlTraces);
         }
     }
@@ -679,11 +706,12 @@ public class RPMService extends AbstractService implements IRPMService, Environm
     }
 
     private void sendTransactionTraceDataSyncRestart(List<TransactionTrace> traces) throws Exception {
+        long connection = connectionTimestamp;
         try {
             dataSender.sendTransactionTraceData(traces);
         } catch (ForceRestartException e) {
             logForceRestartException(e);
-            reconnectSync();
+            reconnectSync(connection);
             dataSender.sendTransactionTraceData(traces);
         }
     }
@@ -778,11 +806,12 @@ public class RPMService extends AbstractService implements IRPMService, Environm
     }
 
     private List<List<?>> getAgentCommandsSyncRestart() throws Exception {
+        long connection = connectionTimestamp;
         try {
             return dataSender.getAgentCommands();
         } catch (ForceRestartException e) {
             logForceRestartException(e);
-            reconnectSync();
+            reconnectSync(connection);
             return dataSender.getAgentCommands();
         }
     }
@@ -803,11 +832,12 @@ public class RPMService extends AbstractService implements IRPMService, Environm
     }
 
     private void sendCommandResultsSyncRestart(Map<Long, Object> commandResults) throws Exception {
+        long connection = connectionTimestamp;
         try {
             dataSender.sendCommandResults(commandResults);
         } catch (ForceRestartException e) {
             logForceRestartException(e);
-            reconnectSync();
+            reconnectSync(connection);
             dataSender.sendCommandResults(commandResults);
         }
     }
@@ -867,6 +897,7 @@ public class RPMService extends AbstractService implements IRPMService, Environm
             } catch (MetricDataException e) {
                 Agent.LOG.log(Level.SEVERE, "An invalid response was received while sending metric data. This data will not be resent.");
                 Agent.LOG.log(Level.FINEST, e, e.toString());
+                metricIdRegistry.clear();
             } catch (HttpError e) {
                 // HttpError handled here
                 retry = e.isRetryableError();
@@ -903,6 +934,8 @@ public class RPMService extends AbstractService implements IRPMService, Environm
                     // (web transaction maybe?). clear out the metrics
                     if (message.contains("json") && message.contains("parse")) {
                         retry = false;
+                        // the metric ids may no longer be valid, send full metric names from now on
+                        metricIdRegistry.clear();
                     }
                 }
             }
@@ -925,15 +958,71 @@ public class RPMService extends AbstractService implements IRPMService, Environm
         statsEngine.getResponseTimeStats(MetricNames.SUPPORTABILITY_METRIC_HARVEST_TRANSMIT)
                 .recordResponseTime(duration, TimeUnit.NANOSECONDS);
         statsEngine.getStats(MetricNames.SUPPORTABILITY_METRIC_HARVEST_COUNT).incrementCallCount(dataSize);
+        statsEngine.getStats(MetricNames.SUPPORTABILITY_METRIC_ID_REGISTRY_SIZE).recordDataPoint(metricIdRegistry.getSize());
+        long evictions = metricIdRegistry.getAndResetEvictionCount();
+        if (evictions > 0) {
+            statsEngine.getStats(MetricNames.SUPPORTABILITY_METRIC_ID_REGISTRY_EVICTIONS).incrementCallCount((int) evictions);
+        }
     }
 
     private void sendMetricDataSyncRestart(long beginTimeMillis, long endTimeMillis, List<MetricData> metricData) throws Exception {
+        long connection = connectionTimestamp;
         try {
-            dataSender.sendMetricData(beginTimeMillis, endTimeMillis, metricData);
+            sendMetricDataWithIds(beginTimeMillis, endTimeMillis, metricData);
         } catch (ForceRestartException e) {
             logForceRestartException(e);
-            reconnectSync();
-            dataSender.sendMetricData(beginTimeMillis, endTimeMillis, metricData);
+            reconnectSync(connection);
+            // the reconnect dropped the ids of the previous run, so the retry sends the names again
+            sendMetricDataWithIds(beginTimeMillis, endTimeMillis, metricData);
+        }
+    }
+
+    private void sendMetricDataWithIds(long beginTimeMillis, long endTimeMillis, List<MetricData> metricData) throws Exception {
+        long connection = connectionTimestamp;
+        List<List<?>> metricIds = dataSender.sendMetricData(beginTimeMillis, endTimeMillis, applyMetricIds(metricData));
+        synchronized (this) {
+            // ids belong to the run that assigned them, so they are dropped if we have reconnected since
+            if (sendMetricIds && connection == connectionTimestamp) {
+                registerMetricIds(metricIds);
+            }
+        }
+    }
+
+    /**
+     * Replace the names of metrics that New Relic has assigned an id to with that id.
+     */
+    private List<MetricData> applyMetricIds(List<MetricData> data) {
+        if (metricIdRegistry.getSize() == 0) {
+            return data;
+        }
+        List<MetricData> result = new ArrayList<>(data.size());
+        for (MetricData metricData : data) {
+            Integer metricId = metricIdRegistry.getMetricId(metricData.getMetricName());
+            if (metricId == null) {
+                result.add(metricData);
+            } else {
+                result.add(MetricData.create(metricData.getMetricName(), metricId, metricData.getStats()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Register the ids in a metric data response. Each entry is a list of the JSON metric name and the id.
+     */
+    private void registerMetricIds(List<List<?>> metricIds) {
+        if (metricIds == null) {
+            return;
+        }
+        for (List<?> entry : metricIds) {
+            if (entry == null || entry.size() != 2 || !(entry.get(0) instanceof JSONObject) || !(entry.get(1) instanceof Number)) {
+                Agent.LOG.log(Level.FINEST, "Ignoring invalid metric id: {0}", entry);
+                continue;
+            }
+            MetricName metricName = MetricName.parseJSON((JSONObject) entry.get(0));
+            if (metricName != null) {
+                metricIdRegistry.setMetricId(metricName, ((Number) entry.get(1)).intValue());
+            }
         }
     }
 
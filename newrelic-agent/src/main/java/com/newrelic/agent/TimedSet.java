@@ -39,13 +39,6 @@ interface TimedSet<K> {
      */
     void removeAll();
 
-    /**
-     * A utility method that some implementations may require, in order to force the collection to time out and remove
-     * entries. For example, caffeine caches do not use a thread to monitor entries to time them out, but does incremental
-     * clean up work during normal operation. This may synchronize on entire the collection.
-     */
-    void cleanUp();
-
     /**
      * Refresh the last access time of a token.
      */
@@ -7,78 +7,81 @@
 
 package com.newrelic.agent;
 
-import com.github.benmanes.caffeine.cache.Caffeine;
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.RemovalCause;
-import com.github.benmanes.caffeine.cache.RemovalListener;
 import com.newrelic.agent.model.TimeoutCause;
 import com.newrelic.agent.util.TimeConversion;
+import com.newrelic.agent.util.TimingWheel;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
 /**
- * This implementation relies on a caffeine cache, which is like a map ( it is built on top of ConcurrentHashMap). There is no set implementation which is why the
- * map stores the token reference as both the key and value.
+ * Tracks the active tokens of a transaction. Each token has a timeout on the agent-wide token timing wheel of the
+ * {@link ExpirationService} that is refreshed whenever the token is used, so a token times out after it hasn't been
+ * accessed for the time out period.
  *
  * Note, changes to token behavior here should be made consistent with the old async api in AsyncTransactionService.
  */
 public class TimedTokenSet implements TimedSet<TokenImpl> {
 
     private final AtomicInteger timedOutTokens;
-    private final Cache<TokenImpl, TokenImpl> activeTokens;
+    private final ConcurrentMap<TokenImpl, TimingWheel.Timeout> activeTokens;
+    private final long timeOutMilli;
+    private final ExpirationService expirationService;
 
     public TimedTokenSet(int timeOut, TimeUnit unit, final ExpirationService expirationService) {
         timedOutTokens = new AtomicInteger(0);
+        activeTokens = new ConcurrentHashMap<>(8);
+        this.expirationService = expirationService;
 
         // async timeout is given in seconds, but passing in 0 causes strange behavior, especially in tests, because
-        // onRemoval happens immediately after put, so we can hit onRemoval logic before getToken() even finishes
-        long timeOutMilli = TimeConversion.convertToMilliWithLowerBound(timeOut, unit, 250L);
-
-        activeTokens = Caffeine.newBuilder()
-                .initialCapacity(8)
-                .expireAfterAccess(timeOutMilli, TimeUnit.MILLISECONDS)
-                .executor(Runnable::run)
-                .removalListener(new RemovalListener<TokenImpl, TokenImpl>() {
-                    @Override
-                    public void onRemoval(TokenImpl token, TokenImpl value, RemovalCause cause) {
-                        Transaction tx = token.getTransaction().getTransactionIfExists();
-
-                        try {
-                            if (cause == RemovalCause.EXPIRED) { // time out case
-                                Agent.LOG.log(Level.FINEST, "Timing out token {0} on transaction {1}", token, tx);
-                                timedOutTokens.incrementAndGet();
-                                token.setTruncated();
-
-                                if (tx != null) {
-                                    tx.setTimeoutCause(TimeoutCause.TOKEN);
-                                }
-                            } else if (cause == RemovalCause.EXPLICIT) { // remove and removeAll case
-                                Agent.LOG.log(Level.FINEST, "Expiring token {0} on transaction {1}", token, tx);
-                            } else { // should never happen
-                                Agent.LOG.log(Level.FINEST, "Token {0} on transaction {1} removed due to cause {2}", token, tx, cause);
-                            }
-                        } catch (Exception e) {
-                            Agent.LOG.log(Level.FINEST, "Token {0} on transaction {1} threw exception: {2}", token, tx, e);
-                        } finally {
-                            // The expire all tokens code path doesn't iterate over, and call expire on, all the tokens
-                            // because that would make it look like the user explicitly did it. However, the on removal
-                            // cause for expiring one is the same as for expiring all (EXPLICIT). So markExpire needs to be
-                            // called in either case, since it doesn't hurt to null out the tracer again, and it still needs
-                            // to happen in the expire all case.
-                            expirationService.expireToken(new Runnable() {
-                                @Override
-                                public void run() {
-                                    // In the case of a token being expired we *must* spin off the work on to a
-                                    // second thread in order to prevent a possible deadlock between the expire code
-                                    // and other tx usages.
-                                    token.markExpired();
-                                }
-                            });
-                        }
-                    }
-                }).build();
+        // the token would time out immediately after put, before getToken() even finishes
+        timeOutMilli = TimeConversion.convertToMilliWithLowerBound(timeOut, unit, 250L);
+    }
+
+    /**
+     * Runs on a token expiration thread when the token hasn't been accessed for the time out period.
+     */
+    private void timeOut(TokenTimeout tokenTimeout) {
+        TokenImpl token = tokenTimeout.token;
+        if (!activeTokens.remove(token, tokenTimeout.timeout)) {
+            return; // removed explicitly or put again in the meantime
+        }
+        Transaction tx = token.getTransaction().getTransactionIfExists();
+        try {
+            Agent.LOG.log(Level.FINEST, "Timing out token {0} on transaction {1}", token, tx);
+            timedOutTokens.incrementAndGet();
+            token.setTruncated();
+
+            if (tx != null) {
+                tx.setTimeoutCause(TimeoutCause.TOKEN);
+            }
+        } catch (Exception e) {
+            Agent.LOG.log(Level.FINEST, "Token {0} on transaction {1} threw exception: {2}", token, tx, e);
+        } finally {
+            // already on a token expiration thread, so there is no risk of deadlocking with the caller
+            token.markExpired();
+        }
+    }
+
+    private void removed(final TokenImpl token, TimingWheel.Timeout timeout) {
+        timeout.cancel();
+        Agent.LOG.log(Level.FINEST, "Expiring token {0} on transaction {1}", token, token.getTransaction().getTransactionIfExists());
+        // The expire all tokens code path doesn't iterate over, and call expire on, all the tokens because that would
+        // make it look like the user explicitly did it. So markExpire needs to be called in either case, since it
+        // doesn't hurt to null out the tracer again, and it still needs to happen in the expire all case.
+        expirationService.expireToken(new Runnable() {
+            @Override
+            public void run() {
+                // In the case of a token being expired we *must* spin off the work on to a
+                // second thread in order to prevent a possible deadlock between the expire code
+                // and other tx usages.
+                token.markExpired();
+            }
+        });
     }
 
     /**
@@ -90,34 +93,65 @@ public class TimedTokenSet implements TimedSet<TokenImpl> {
     }
 
     /**
-     * Removes one entry from the set, the removal cause should be RemovalCause.EXPLICIT.
+     * Removes one entry from the set. This does not count as a time out.
      */
     @Override
     public boolean remove(TokenImpl token) {
-        return activeTokens.asMap().remove(token) != null;
+        TimingWheel.Timeout timeout = activeTokens.remove(token);
+        if (timeout == null) {
+            return false;
+        }
+        removed(token, timeout);
+        return true;
     }
 
     /**
-     * Removes any and all entries from the set, the removal cause for each should be RemovalCause.EXPLICIT.
+     * Removes any and all entries from the set. This does not count as a time out.
      */
     @Override
     public void removeAll() {
-        activeTokens.invalidateAll();
+        for (Map.Entry<TokenImpl, TimingWheel.Timeout> entry : activeTokens.entrySet()) {
+            if (activeTokens.remove(entry.getKey(), entry.getValue())) {
+                removed(entry.getKey(), entry.getValue());
+            }
+        }
     }
 
+    /**
+     * Add the token. A token that is already in the set gets a new time out, and its previous one is cancelled.
+     */
     @Override
-    public void put(TokenImpl token) {
-        activeTokens.put(token, token);
+    public void put(final TokenImpl token) {
+        TokenTimeout tokenTimeout = new TokenTimeout(token);
+        // the time out is at least 250ms away, so it is assigned long before the task can run
+        tokenTimeout.timeout = expirationService.scheduleTokenTimeout(tokenTimeout, timeOutMilli, TimeUnit.MILLISECONDS);
+        TimingWheel.Timeout previous = activeTokens.put(token, tokenTimeout.timeout);
+        if (previous != null) {
+            previous.cancel();
+        }
     }
 
     @Override
-    public void cleanUp() {
-        activeTokens.cleanUp();
+    public void refresh(TokenImpl token) {
+        TimingWheel.Timeout timeout = activeTokens.get(token);
+        if (timeout != null) {
+            timeout.refresh();
+        }
     }
 
-    @Override
-    public void refresh(TokenImpl token) {
-        activeTokens.getIfPresent(token);
+    private final class TokenTimeout implements Runnable {
+
+        private final TokenImpl token;
+        private volatile TimingWheel.Timeout timeout;
+
+        private TokenTimeout(TokenImpl token) {
+            this.token = token;
+        }
+
+        @Override
+        public void run() {
+            timeOut(this);
+        }
     }
 
 }
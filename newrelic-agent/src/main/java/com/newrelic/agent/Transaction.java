@@ -1225,15 +1225,11 @@ public class Transaction {
     }
 
     /**
-     * Utility method that TransactionService can use to tell a transaction to process its cache, and possibly do any
-     * maintenance work, like timing out expired entries.
+     * Utility method that TransactionService can use to tell a transaction to do any maintenance work. Tokens are timed
+     * out by the {@link ExpirationService}, so there is nothing to do for them here.
      */
     void cleanUp() {
         checkExpireTracedActivities();
-        TimedSet<TokenImpl> tokenCache = activeTokensCache.get();
-        if (tokenCache != null) {
-            tokenCache.cleanUp();
-        }
     }
 
     public boolean isTransactionTraceEnabled() {
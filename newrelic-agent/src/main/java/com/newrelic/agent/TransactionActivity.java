@@ -9,6 +9,7 @@ package com.newrelic.agent;
 
 import com.newrelic.agent.bridge.TracedMethod;
 import com.newrelic.agent.service.ServiceFactory;
+import com.newrelic.agent.service.analytics.TracerToSpanEvent;
 import com.newrelic.agent.stats.SimpleStatsEngine;
 import com.newrelic.agent.stats.TransactionStats;
 import com.newrelic.agent.trace.TransactionTraceService;
@@ -23,7 +24,9 @@ import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 
 /**
@@ -99,6 +102,10 @@ public class TransactionActivity {
     // Used to determine if the work for this transaction activity has completed.
     private volatile boolean isDone = false;
 
+    // span events built as their tracers finished, see span_events.build_on_tracer_finish. Only written by the thread
+    // running this activity and read once the transaction has finished.
+    private Map<Tracer, TracerToSpanEvent.TracerSpan> finishedSpans;
+
     private static final ThreadLocal<TransactionActivity> activityHolder = new ThreadLocal<TransactionActivity>() {
         @Override
         public TransactionActivity get() {
@@ -363,7 +370,25 @@ public class TransactionActivity {
             finished(rootTracer, opcode);
         } else {
             lastTracer = tracer.getParentTracer();
+            if (tracer.isTransactionSegment() && transaction != null
+                    && transaction.getAgentConfig().getSpanEventsConfig().isBuildOnTracerFinish()) {
+                ServiceFactory.getSpanEventService().tracerFinished(this, tracer);
+            }
+        }
+    }
+
+    public void addFinishedSpan(Tracer tracer, TracerToSpanEvent.TracerSpan span) {
+        if (finishedSpans == null) {
+            finishedSpans = new IdentityHashMap<>();
         }
+        finishedSpans.put(tracer, span);
+    }
+
+    /**
+     * @return the span event built when the tracer finished, or null
+     */
+    public TracerToSpanEvent.TracerSpan getFinishedSpan(Tracer tracer) {
+        return finishedSpans == null ? null : finishedSpans.get(tracer);
     }
 
     /**
@@ -599,7 +624,7 @@ public class TransactionActivity {
                     return;
                 }
 
-                transactionStats.getScopedStats().getOrCreateResponseTimeStats(metricName).recordResponseTimeInNanos(duration);
+                transactionStats.getScopedStats().recordResponseTimeInNanos(metricName, duration, duration);
                 if (Agent.isDebugEnabled()) {
                     Agent.LOG.log(Level.FINEST, "Finished flyweight tracer {0} ({1}.{2}{3})", metricName, className,
                             methodName, methodDesc);
@@ -608,7 +633,7 @@ public class TransactionActivity {
                 if (rollupMetricNames != null) {
                     SimpleStatsEngine unscopedStats = transactionStats.getUnscopedStats();
                     for (String name : rollupMetricNames) {
-                        unscopedStats.getOrCreateResponseTimeStats(name).recordResponseTimeInNanos(duration);
+                        unscopedStats.recordResponseTimeInNanos(name, duration, duration);
                     }
                 }
 
@@ -250,6 +250,14 @@ public interface AgentConfig extends com.newrelic.api.agent.Config, DataSenderCo
      */
     boolean isLogDaily();
 
+    /**
+     * Writes the log file on a separate thread if set to true. Log messages are dropped rather than waited on when
+     * they are logged faster than they can be written.
+     *
+     * @return True if the log file should be written asynchronously.
+     */
+    boolean isLogAsync();
+
     /**
      * If true send data to the server on exit.
      */
@@ -270,6 +278,11 @@ public interface AgentConfig extends com.newrelic.api.agent.Config, DataSenderCo
      */
     boolean isSendJvmProps();
 
+    /**
+     * True if the metric ids returned by New Relic are sent in place of metric names for the rest of the agent run.
+     */
+    boolean isSendMetricIds();
+
     boolean isTrimStats();
 
     boolean isPlatformInformationEnabled();
@@ -318,6 +331,8 @@ public interface AgentConfig extends com.newrelic.api.agent.Config, DataSenderCo
 
     ExternalTracerConfig getExternalTracerConfig();
 
+    StatsServiceConfig getStatsServiceConfig();
+
     boolean liteMode();
 
     int getSegmentTimeoutInSec();
@@ -64,6 +64,7 @@ public class AgentConfigImpl extends BaseConfig implements AgentConfig {
     public static final String LANGUAGE = "language";
     public static final String LICENSE_KEY = "license_key";
     public static final String LITE_MODE = "lite_mode";
+    public static final String LOG_ASYNC = "log_async";
     public static final String LOG_DAILY = "log_daily";
     public static final String LOG_FILE_COUNT = "log_file_count";
     public static final String LOG_FILE_NAME = "log_file_name";
@@ -88,6 +89,7 @@ public class AgentConfigImpl extends BaseConfig implements AgentConfig {
     public static final String SEND_DATA_ON_EXIT_THRESHOLD = "send_data_on_exit_threshold";
     public static final String SEND_ENVIRONMENT_INFO = "send_environment_info";
     public static final String SEND_JVM_PROPS = "send_jvm_props";
+    public static final String SEND_METRIC_IDS = "send_metric_ids";
     public static final String SIMPLE_COMPRESSION_PROPERTY = "simple_compression";
     private static final String REQUEST_TIMEOUT_IN_SECONDS_PROPERTY = "timeout";
     public static final String STARTUP_LOG_LEVEL = "startup_log_level";
@@ -99,6 +101,7 @@ public class AgentConfigImpl extends BaseConfig implements AgentConfig {
     public static final String TRANSACTION_NAMING_SCHEME = "transaction_naming_scheme";
     public static final String TRANSACTION_SIZE_LIMIT = "transaction_size_limit";
     public static final String TRIM_STATS = "trim_stats";
+    public static final String UPLOAD_CONNECTIONS = "upload_connections";
     public static final String USE_PRIVATE_SSL = "use_private_ssl";
     public static final String WAIT_FOR_RPM_CONNECT = "wait_for_rpm_connect";
     public static final String WAIT_FOR_TRANSACTIONS = "wait_for_transactions";
@@ -154,6 +157,7 @@ public class AgentConfigImpl extends BaseConfig implements AgentConfig {
     public static final String GENERIC_JDBC_SUPPORT = "generic";
     public static final String DEFAULT_JDBC_SUPPORT = GENERIC_JDBC_SUPPORT;
     public static final String DEFAULT_LANGUAGE = "java";
+    public static final boolean DEFAULT_LOG_ASYNC = false;
     public static final boolean DEFAULT_LOG_DAILY = false;
     public static final int DEFAULT_LOG_FILE_COUNT = 1;
     public static final String DEFAULT_LOG_FILE_NAME = "newrelic_agent.log";
@@ -174,6 +178,7 @@ public class AgentConfigImpl extends BaseConfig implements AgentConfig {
     public static final boolean DEFAULT_SEND_DATA_ON_EXIT = false;
     public static final int DEFAULT_SEND_DATA_ON_EXIT_THRESHOLD = 60;
     public static final boolean DEFAULT_SEND_ENVIRONMENT_INFO = true;
+    public static final boolean DEFAULT_SEND_METRIC_IDS = false;
     public static final boolean DEFAULT_SIMPLE_COMPRESSION_ENABLED = false;
     public static final int DEFAULT_SSL_PORT = 443;
     public static final boolean DEFAULT_STARTUP_TIMING = true;
@@ -181,6 +186,7 @@ public class AgentConfigImpl extends BaseConfig implements AgentConfig {
     public static final boolean DEFAULT_TRACE_DATA_CALLS = false;
     public static final int DEFAULT_TRANSACTION_SIZE_LIMIT = 2000;
     public static final boolean DEFAULT_TRIM_STATS = true;
+    public static final int DEFAULT_UPLOAD_CONNECTIONS = 1;
     public static final boolean DEFAULT_WAIT_FOR_RPM_CONNECT = true;
     public static final int DEFAULT_WAIT_FOR_TRANSACTIONS = 0;
     private static final int DEFAULT_REQUEST_TIMEOUT_IN_SECONDS = 120;
@@ -215,6 +221,7 @@ public class AgentConfigImpl extends BaseConfig implements AgentConfig {
     private final HashSet<String> jdbcSupport;
     private final String licenseKey;
     private final boolean litemode;
+    private final boolean logAsync;
     private final boolean logDaily;
     private final String logLevel;
     private final int maxStackTraceLines;
@@ -231,6 +238,7 @@ public class AgentConfigImpl extends BaseConfig implements AgentConfig {
     private final int segmentTimeoutInSec;
     private final String securityPoliciesToken;
     private final boolean sendJvmProps;
+    private final boolean sendMetricIds;
     private final boolean simpleCompression;
     private final boolean startupTimingEnabled;
     private final int tokenTimeoutInSec;
@@ -240,6 +248,7 @@ public class AgentConfigImpl extends BaseConfig implements AgentConfig {
     private final boolean waitForRPMConnect;
     private final int waitForTransactionsInMillis;
     private final int requestTimeoutInMillis;
+    private final int uploadConnections;
 
     // nested configs (alphabetized)
     private final AttributesConfig attributesConfig;
@@ -254,6 +263,7 @@ public class AgentConfigImpl extends BaseConfig implements AgentConfig {
     private final ErrorCollectorConfig errorCollectorConfig;
     private final ExtensionsConfig extensionsConfig;
     private final ExternalTracerConfig externalTracerConfig;
+    private final StatsServiceConfig statsServiceConfig;
     private final InfiniteTracingConfig infiniteTracingConfig;
     private final InsightsConfig insightsConfig;
     private final ApplicationLoggingConfig applicationLoggingConfig;
@@ -309,6 +319,7 @@ public class AgentConfigImpl extends BaseConfig implements AgentConfig {
         insertApiKey = getProperty(INSERT_API_KEY, DEFAULT_INSERT_API_KEY);
         logLevel = initLogLevel();
         logDaily = getProperty(LOG_DAILY, DEFAULT_LOG_DAILY);
+        logAsync = getProperty(LOG_ASYNC, DEFAULT_LOG_ASYNC);
         port = getIntProperty(PORT, DEFAULT_SSL_PORT);
         proxyHost = getProperty(PROXY_HOST, DEFAULT_PROXY_HOST);
         proxyPort = getIntProperty(PROXY_PORT, DEFAULT_PROXY_PORT);
@@ -324,6 +335,7 @@ public class AgentConfigImpl extends BaseConfig implements AgentConfig {
         waitForRPMConnect = getProperty(WAIT_FOR_RPM_CONNECT, DEFAULT_WAIT_FOR_RPM_CONNECT);
         startupTimingEnabled = getProperty(STARTUP_TIMING, DEFAULT_STARTUP_TIMING);
         sendJvmProps = getProperty(SEND_JVM_PROPS, true);
+        sendMetricIds = getProperty(SEND_METRIC_IDS, DEFAULT_SEND_METRIC_IDS);
         litemode = getProperty(LITE_MODE, false);
         caBundlePath = initSSLConfig();
         trimStats = getProperty(TRIM_STATS, DEFAULT_TRIM_STATS);
@@ -335,6 +347,7 @@ public class AgentConfigImpl extends BaseConfig implements AgentConfig {
         this.jdbcSupport = new HashSet<>(Arrays.asList(jdbcSupport));
         genericJdbcSupportEnabled = this.jdbcSupport.contains(GENERIC_JDBC_SUPPORT);
         requestTimeoutInMillis = getProperty(REQUEST_TIMEOUT_IN_SECONDS_PROPERTY, DEFAULT_REQUEST_TIMEOUT_IN_SECONDS) * 1000;
+        uploadConnections = Math.max(1, getIntProperty(UPLOAD_CONNECTIONS, DEFAULT_UPLOAD_CONNECTIONS));
         instrumentationConfig = new BaseConfig(nestedProps(INSTRUMENTATION), SYSTEM_PROPERTY_ROOT + INSTRUMENTATION);
         transactionTracerConfig = initTransactionTracerConfig(apdexTInMillis, highSecurity);
         requestTransactionTracerConfig = transactionTracerConfig.createRequestTransactionTracerConfig(apdexTInMillis, highSecurity);
@@ -353,6 +366,7 @@ public class AgentConfigImpl extends BaseConfig implements AgentConfig {
         utilizationConfig = initUtilizationConfig();
         datastoreConfig = initDatastoreConfig();
         externalTracerConfig = initExternalTracerConfig();
+        statsServiceConfig = initStatsServiceConfig();
         jfrConfig = initJfrConfig();
         jmxConfig = initJmxConfig();
         jarCollectorConfig = initJarCollectorConfig();
@@ -809,6 +823,11 @@ public class AgentConfigImpl extends BaseConfig implements AgentConfig {
         return new ExternalTracerConfigImpl(props);
     }
 
+    private StatsServiceConfig initStatsServiceConfig() {
+        Map<String, Object> props = nestedProps(StatsServiceConfigImpl.PROPERTY_NAME);
+        return new StatsServiceConfigImpl(props);
+    }
+
     private InfiniteTracingConfig initInfiniteTracingConfig(boolean autoAppNamingEnabled) {
         Map<String, Object> props = nestedProps(InfiniteTracingConfigImpl.ROOT);
         return new InfiniteTracingConfigImpl(props, autoAppNamingEnabled);
@@ -866,6 +885,11 @@ public class AgentConfigImpl extends BaseConfig implements AgentConfig {
         return requestTimeoutInMillis;
     }
 
+    @Override
+    public int getUploadConnections() {
+        return uploadConnections;
+    }
+
     @Override
     public String getHost() {
         return host;
@@ -1248,6 +1272,11 @@ public class AgentConfigImpl extends BaseConfig implements AgentConfig {
         return sendJvmProps;
     }
 
+    @Override
+    public boolean isSendMetricIds() {
+        return sendMetricIds;
+    }
+
     @Override
     public String getCaBundlePath() {
         return caBundlePath;
@@ -1258,6 +1287,11 @@ public class AgentConfigImpl extends BaseConfig implements AgentConfig {
         return logDaily;
     }
 
+    @Override
+    public boolean isLogAsync() {
+        return logAsync;
+    }
+
     @Override
     public boolean isTrimStats() {
         return trimStats;
@@ -1368,6 +1402,11 @@ public class AgentConfigImpl extends BaseConfig implements AgentConfig {
         return externalTracerConfig;
     }
 
+    @Override
+    public StatsServiceConfig getStatsServiceConfig() {
+        return statsServiceConfig;
+    }
+
     @Override
     public boolean openTracingEnabled() {
         return openTracingConfig.isEnabled();
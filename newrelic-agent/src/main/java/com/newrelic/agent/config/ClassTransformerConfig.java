@@ -84,6 +84,15 @@ public interface ClassTransformerConfig extends Config {
      */
     boolean preMatchWeaveMethods();
 
+    /**
+     * Returns the directory in which weave packages that failed to validate against a classloader are remembered, so
+     * that they aren't loaded and validated again when the application is restarted with the same jars. Disabled when
+     * not set.
+     *
+     * @return the weave cache directory, or null if the cache is disabled
+     */
+    String getWeaveCacheDirectory();
+
     /**
      * True means the agent should instrument {@link ClassLoader#checkPackageAccess} to bypass the call to
      * {@link SecurityManager#checkPackageAccess} for weaved classes.
@@ -40,6 +40,7 @@ final class ClassTransformerConfigImpl extends BaseConfig implements ClassTransf
     public static final String MAX_PREVALIDATED_CLASSLOADERS = "max_prevalidated_classloaders";
     public static final String PREVALIDATE_WEAVE_PACKAGES = "prevalidate_weave_packages";
     public static final String PREMATCH_WEAVE_METHODS = "prematch_weave_methods";
+    public static final String WEAVE_CACHE_DIR = "weave_cache_dir";
     public static final String DEFAULT_INSTRUMENTATION = "instrumentation_default";
     public static final String BUILTIN_EXTENSIONS = "builtin_extensions";
     public static final String COMPUTE_FRAMES = "compute_frames";
@@ -90,6 +91,7 @@ final class ClassTransformerConfigImpl extends BaseConfig implements ClassTransf
     private final int maxPreValidatedClassLoaders;
     private final boolean preValidateWeavePackages;
     private final boolean preMatchWeaveMethods;
+    private final String weaveCacheDirectory;
 
     private final AnnotationMatcher ignoreTransactionAnnotationMatcher;
     private final AnnotationMatcher ignoreApdexAnnotationMatcher;
@@ -116,6 +118,7 @@ final class ClassTransformerConfigImpl extends BaseConfig implements ClassTransf
         maxPreValidatedClassLoaders = getProperty(MAX_PREVALIDATED_CLASSLOADERS, DEFAULT_MAX_PREVALIDATED_CLASSLOADERS);
         preValidateWeavePackages = getProperty(PREVALIDATE_WEAVE_PACKAGES, DEFAULT_PREVALIDATE_WEAVE_PACKAGES);
         preMatchWeaveMethods = getProperty(PREMATCH_WEAVE_METHODS, DEFAULT_PREMATCH_WEAVE_METHODS);
+        weaveCacheDirectory = getProperty(WEAVE_CACHE_DIR);
         defaultMethodTracingEnabled = getProperty("default_method_tracing_enabled", true);
 
         this.traceAnnotationMatcher = customTracingEnabled ? initializeTraceAnnotationMatcher(props) : new NoMatchAnnotationMatcher();
@@ -304,6 +307,11 @@ final class ClassTransformerConfigImpl extends BaseConfig implements ClassTransf
         return preMatchWeaveMethods;
     }
 
+    @Override
+    public String getWeaveCacheDirectory() {
+        return weaveCacheDirectory;
+    }
+
     public static final String JDBC_STATEMENTS_PROPERTY = "jdbc_statements";
 
     @Override
@@ -0,0 +1,82 @@
+/*
+ *
+ *  * Copyright 2020 New Relic Corporation. All rights reserved.
+ *  * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+
+package com.newrelic.agent.config;
+
+import com.newrelic.agent.bridge.ConfigHandle;
+import com.newrelic.api.agent.Config;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Creates {@link ConfigHandle}s for values of the default agent config and refreshes them when the config changes.
+ * There is one handle per key and default value, so asking for the same handle again returns the existing one.
+ */
+public class ConfigHandles implements AgentConfigListener {
+
+    private final ConfigService configService;
+    private final ConcurrentMap<List<Object>, Handle<?>> handles = new ConcurrentHashMap<>();
+
+    public ConfigHandles(ConfigService configService) {
+        this.configService = configService;
+        configService.addIAgentConfigListener(this);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> ConfigHandle<T> getConfigHandle(String key, T defaultValue) {
+        List<Object> handleKey = Arrays.asList(key, defaultValue);
+        Handle<T> handle = (Handle<T>) handles.get(handleKey);
+        if (handle != null) {
+            return handle;
+        }
+
+        handle = new Handle<>(key, defaultValue);
+        handle.refresh(configService.getDefaultAgentConfig());
+        Handle<T> existing = (Handle<T>) handles.putIfAbsent(handleKey, handle);
+        if (existing != null) {
+            return existing;
+        }
+        // the config may have changed before the handle could be refreshed by the listener
+        handle.refresh(configService.getDefaultAgentConfig());
+        return handle;
+    }
+
+    @Override
+    public void configChanged(String appName, AgentConfig agentConfig) {
+        // handles follow the default config, which is the one that changed when the default app's config changes
+        AgentConfig defaultAgentConfig = configService.getDefaultAgentConfig();
+        for (Handle<?> handle : handles.values()) {
+            handle.refresh(defaultAgentConfig);
+        }
+    }
+
+    private static final class Handle<T> implements ConfigHandle<T> {
+
+        private final String key;
+        private final T defaultValue;
+        private volatile T value;
+
+        Handle(String key, T defaultValue) {
+            this.key = key;
+            this.defaultValue = defaultValue;
+            this.value = defaultValue;
+        }
+
+        void refresh(Config config) {
+            value = config.getValue(key, defaultValue);
+        }
+
+        @Override
+        public T get() {
+            return value;
+        }
+    }
+
+}
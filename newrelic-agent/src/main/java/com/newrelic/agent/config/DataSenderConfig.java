@@ -65,4 +65,10 @@ public interface DataSenderConfig {
     String getLicenseKey();
 
     int getTimeoutInMilliseconds();
+
+    /**
+     * The number of connections the agent may open to the collector. Each endpoint still sends one request at a time,
+     * so additional connections only let different endpoints upload in parallel.
+     */
+    int getUploadConnections();
 }
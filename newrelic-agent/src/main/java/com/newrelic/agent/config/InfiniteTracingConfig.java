@@ -14,12 +14,22 @@ public interface InfiniteTracingConfig {
 
     int getSpanEventsQueueSize();
 
+    int getSpanEventsBatchSize();
+
+    long getSpanEventsLingerMs();
+
+    int getSpanEventsOverflowBufferBytes();
+
+    int getSpanEventsStreams();
+
     Double getFlakyPercentage();
 
     Long getFlakyCode();
 
     boolean getUsePlaintext();
 
+    boolean getUseBatching();
+
     boolean isEnabled();
 
 }
@@ -22,6 +22,8 @@ public class InfiniteTracingConfigImpl extends BaseConfig implements InfiniteTra
     public static final String FLAKY_CODE = "_flakyCode";
     public static final String USE_PLAINTEXT = "plaintext";
     public static final boolean DEFAULT_USE_PLAINTEXT = false;
+    public static final String USE_BATCHING = "batching";
+    public static final boolean DEFAULT_USE_BATCHING = false;
 
     static final String SYSTEM_PROPERTY_ROOT = AgentConfigImpl.SYSTEM_PROPERTY_ROOT + ROOT + ".";
 
@@ -68,6 +70,26 @@ public class InfiniteTracingConfigImpl extends BaseConfig implements InfiniteTra
         return spanEventsConfig.getQueueSize();
     }
 
+    @Override
+    public int getSpanEventsBatchSize() {
+        return spanEventsConfig.getBatchSize();
+    }
+
+    @Override
+    public long getSpanEventsLingerMs() {
+        return spanEventsConfig.getLingerMs();
+    }
+
+    @Override
+    public int getSpanEventsOverflowBufferBytes() {
+        return spanEventsConfig.getOverflowBufferBytes();
+    }
+
+    @Override
+    public int getSpanEventsStreams() {
+        return spanEventsConfig.getStreams();
+    }
+
     @Override
     public Double getFlakyPercentage() {
         return getProperty(FLAKY_PERCENTAGE);
@@ -83,6 +105,11 @@ public class InfiniteTracingConfigImpl extends BaseConfig implements InfiniteTra
         return getProperty(USE_PLAINTEXT, DEFAULT_USE_PLAINTEXT);
     }
 
+    @Override
+    public boolean getUseBatching() {
+        return getProperty(USE_BATCHING, DEFAULT_USE_BATCHING);
+    }
+
     @Override
     public boolean isEnabled() {
         if (!getTraceObserverHost().isEmpty() && autoAppNamingEnabled) {
@@ -13,17 +13,49 @@ public class InfiniteTracingSpanEventsConfig extends BaseConfig {
 
     public static final String ROOT = "span_events";
     public static final String QUEUE_SIZE = "queue_size";
+    public static final String BATCH_SIZE = "batch_size";
+    public static final String LINGER_MS = "linger_ms";
+    public static final String OVERFLOW_BUFFER_BYTES = "overflow_buffer_bytes";
+    public static final String STREAMS = "streams";
 
     public static final int DEFAULT_SPAN_EVENTS_QUEUE_SIZE = 100000;
+    public static final int DEFAULT_SPAN_EVENTS_BATCH_SIZE = 100;
+    public static final int DEFAULT_SPAN_EVENTS_LINGER_MS = 5;
+    public static final int DEFAULT_SPAN_EVENTS_OVERFLOW_BUFFER_BYTES = 0;
+    public static final int DEFAULT_SPAN_EVENTS_STREAMS = 1;
 
     private final int queue_size;
+    private final int batch_size;
+    private final int linger_ms;
+    private final int overflow_buffer_bytes;
+    private final int streams;
 
     public InfiniteTracingSpanEventsConfig(Map<String, Object> props, String parentRoot) {
         super(props, parentRoot + ROOT + ".");
         queue_size = getIntProperty(QUEUE_SIZE, DEFAULT_SPAN_EVENTS_QUEUE_SIZE);
+        batch_size = getIntProperty(BATCH_SIZE, DEFAULT_SPAN_EVENTS_BATCH_SIZE);
+        linger_ms = getIntProperty(LINGER_MS, DEFAULT_SPAN_EVENTS_LINGER_MS);
+        overflow_buffer_bytes = getIntProperty(OVERFLOW_BUFFER_BYTES, DEFAULT_SPAN_EVENTS_OVERFLOW_BUFFER_BYTES);
+        streams = getIntProperty(STREAMS, DEFAULT_SPAN_EVENTS_STREAMS);
     }
 
     public int getQueueSize() {
         return queue_size;
     }
+
+    public int getBatchSize() {
+        return batch_size;
+    }
+
+    public int getLingerMs() {
+        return linger_ms;
+    }
+
+    public int getOverflowBufferBytes() {
+        return overflow_buffer_bytes;
+    }
+
+    public int getStreams() {
+        return streams;
+    }
 }
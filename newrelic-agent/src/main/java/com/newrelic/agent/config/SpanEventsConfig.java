@@ -14,6 +14,7 @@ public class SpanEventsConfig extends BaseConfig {
     public static final int DEFAULT_MAX_SPAN_EVENTS_PER_HARVEST = 2000;
     public static final int DEFAULT_TARGET_SAMPLES_STORED = 10;
     public static final boolean DEFAULT_CROSS_PROCESS_ONLY = false;
+    public static final boolean DEFAULT_BUILD_ON_TRACER_FINISH = false;
 
     public static final String COLLECT_SPAN_EVENTS = "collect_span_events";
     public static final String ENABLED = "enabled";
@@ -25,6 +26,7 @@ public class SpanEventsConfig extends BaseConfig {
     public static final String SYSTEM_PROPERTY_ROOT = ROOT + SPAN_EVENTS;
     private static final String TARGET_SAMPLES_STORED = "target_samples_stored";
     private static final String CROSS_PROCESS_ONLY = "cross_process_only";
+    private static final String BUILD_ON_TRACER_FINISH = "build_on_tracer_finish";
     private static final boolean DEFAULT_COLLECT_SPANS = false;
 
     private final boolean dtEnabled;
@@ -32,6 +34,7 @@ public class SpanEventsConfig extends BaseConfig {
     private final boolean enabled;
     private final int targetSamplesStored;
     private final boolean crossProcessOnly;
+    private final boolean buildOnTracerFinish;
 
     public SpanEventsConfig(Map<String, Object> props, boolean dtEnabled) {
         super(props, SYSTEM_PROPERTY_ROOT);
@@ -40,6 +43,7 @@ public class SpanEventsConfig extends BaseConfig {
         this.enabled = initEnabled(maxSamplesStored);
         this.targetSamplesStored = getProperty(TARGET_SAMPLES_STORED, DEFAULT_TARGET_SAMPLES_STORED);
         this.crossProcessOnly = getProperty(CROSS_PROCESS_ONLY, DEFAULT_CROSS_PROCESS_ONLY);
+        this.buildOnTracerFinish = getProperty(BUILD_ON_TRACER_FINISH, DEFAULT_BUILD_ON_TRACER_FINISH);
     }
 
     private boolean initEnabled(int maxSamplesStored) {
@@ -68,4 +72,12 @@ public class SpanEventsConfig extends BaseConfig {
         return crossProcessOnly;
     }
 
+    /**
+     * Whether the span events of sampled transactions are built as their tracers finish rather than all at once when
+     * the transaction finishes. Only the transaction-level fields are filled in when the transaction finishes.
+     */
+    public boolean isBuildOnTracerFinish() {
+        return buildOnTracerFinish;
+    }
+
 }
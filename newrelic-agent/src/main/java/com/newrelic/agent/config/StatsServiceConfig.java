@@ -0,0 +1,17 @@
+/*
+ *
+ *  * Copyright 2020 New Relic Corporation. All rights reserved.
+ *  * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+
+package com.newrelic.agent.config;
+
+public interface StatsServiceConfig {
+
+    /**
+     * @return true if stats_service.striped_aggregation.enabled is true
+     */
+    boolean isStripedAggregationEnabled();
+
+}
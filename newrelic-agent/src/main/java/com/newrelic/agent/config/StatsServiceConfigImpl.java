@@ -0,0 +1,34 @@
+/*
+ *
+ *  * Copyright 2020 New Relic Corporation. All rights reserved.
+ *  * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+
+package com.newrelic.agent.config;
+
+import java.util.Map;
+
+public class StatsServiceConfigImpl extends BaseConfig implements StatsServiceConfig {
+
+    public static final String PROPERTY_NAME = "stats_service";
+    public static final String PROPERTY_ROOT = "newrelic.config." + PROPERTY_NAME + ".";
+    public static final String DOT = ".";
+
+    public static final String STRIPED_AGGREGATION = "striped_aggregation";
+    public static final String ENABLED = "enabled";
+    public static final boolean DEFAULT_STRIPED_AGGREGATION_ENABLED = false;
+
+    private final boolean isStripedAggregationEnabled;
+
+    public StatsServiceConfigImpl(Map<String, Object> props) {
+        super(props, PROPERTY_ROOT);
+        BaseConfig stripedAggregationConfig = new BaseConfig(nestedProps(STRIPED_AGGREGATION), PROPERTY_ROOT + STRIPED_AGGREGATION + DOT);
+        isStripedAggregationEnabled = stripedAggregationConfig.getProperty(ENABLED, DEFAULT_STRIPED_AGGREGATION_ENABLED);
+    }
+
+    @Override
+    public boolean isStripedAggregationEnabled() {
+        return isStripedAggregationEnabled;
+    }
+}
@@ -14,4 +14,10 @@ public interface ThreadProfilerConfig {
      */
     boolean isEnabled();
 
+    /**
+     * @return true if thread profiles should be built from JFR execution samples when the JVM supports JFR event
+     * streaming, instead of sampling every thread's stack trace.
+     */
+    boolean isJfrSamplingEnabled();
+
 }
@@ -14,13 +14,17 @@ final class ThreadProfilerConfigImpl extends BaseConfig implements ThreadProfile
 
     public static final String ENABLED = "enabled";
     public static final boolean DEFAULT_ENABLED = true;
+    public static final String JFR_SAMPLING = "jfr_sampling";
+    public static final boolean DEFAULT_JFR_SAMPLING = false;
     public static final String SYSTEM_PROPERTY_ROOT = "newrelic.config.thread_profiler.";
 
     private final boolean isEnabled;
+    private final boolean isJfrSamplingEnabled;
 
     private ThreadProfilerConfigImpl(Map<String, Object> props) {
         super(props, SYSTEM_PROPERTY_ROOT);
         isEnabled = getProperty(ENABLED, DEFAULT_ENABLED);
+        isJfrSamplingEnabled = getProperty(JFR_SAMPLING, DEFAULT_JFR_SAMPLING);
     }
 
     @Override
@@ -28,6 +32,11 @@ final class ThreadProfilerConfigImpl extends BaseConfig implements ThreadProfile
         return isEnabled;
     }
 
+    @Override
+    public boolean isJfrSamplingEnabled() {
+        return isJfrSamplingEnabled;
+    }
+
     static ThreadProfilerConfig createThreadProfilerConfig(Map<String, Object> settings) {
         if (settings == null) {
             settings = Collections.emptyMap();
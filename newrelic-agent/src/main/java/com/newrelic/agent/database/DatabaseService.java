@@ -10,6 +10,7 @@ package com.newrelic.agent.database;
 import com.newrelic.agent.Agent;
 import com.newrelic.agent.bridge.datastore.ConnectionFactory;
 import com.newrelic.agent.bridge.datastore.DatabaseVendor;
+import com.newrelic.agent.bridge.datastore.JdbcHelper;
 import com.newrelic.agent.config.AgentConfig;
 import com.newrelic.agent.config.AgentConfigListener;
 import com.newrelic.agent.config.TransactionTracerConfig;
@@ -30,6 +31,10 @@ public class DatabaseService extends AbstractService implements AgentConfigListe
 
     private final ConcurrentMap<String, SqlObfuscator> sqlObfuscators = new ConcurrentHashMap<>();
     private final AtomicReference<SqlObfuscator> defaultSqlObfuscator = new AtomicReference<>();
+    /**
+     * application name -> whether the application uses prepared statement parameters, see {@link JdbcHelper#shouldCaptureParameters()}
+     */
+    private final ConcurrentMap<String, Boolean> parameterCapture = new ConcurrentHashMap<>();
     private final String defaultAppName;
     private final DatabaseStatementParser databaseStatementParser;
 
@@ -43,6 +48,7 @@ public class DatabaseService extends AbstractService implements AgentConfigListe
     @Override
     protected void doStart() {
         ServiceFactory.getConfigService().addIAgentConfigListener(this);
+        updateParameterCapture(defaultAppName, ServiceFactory.getConfigService().getTransactionTracerConfig(defaultAppName));
     }
 
     @Override
@@ -139,6 +145,17 @@ public class DatabaseService extends AbstractService implements AgentConfigListe
         } else {
             sqlObfuscators.remove(appName);
         }
+        updateParameterCapture(appName == null ? defaultAppName : appName, agentConfig.getTransactionTracerConfig());
+    }
+
+    /**
+     * Prepared statement parameters are only used to record raw SQL and to run explain plans. Instrumentation stops
+     * capturing them when no application does either.
+     */
+    private synchronized void updateParameterCapture(String appName, TransactionTracerConfig ttConfig) {
+        boolean usesParameters = SqlObfuscator.RAW_SETTING.equals(ttConfig.getRecordSql()) || ttConfig.isExplainEnabled();
+        parameterCapture.put(appName, usesParameters);
+        JdbcHelper.setCaptureParameters(parameterCapture.containsValue(Boolean.TRUE));
     }
 
     public void runExplainPlan(SqlTracer sqlTracer) {
@@ -329,8 +329,14 @@ public class ErrorServiceImpl extends AbstractService implements ErrorService, H
         // Siphon off errors to send up as error events
         DistributedSamplingPriorityQueue<ErrorEvent> eventList = getReservoir(appName);
 
-        ErrorEvent errorEvent = createErrorEvent(appName, error, transactionData, transactionStats);
-        eventList.add(errorEvent);
+        float priority = transactionData != null ? transactionData.getPriority() : DistributedTraceServiceImpl.nextTruncatedFloat();
+        if (priority < eventList.getAdmissionThreshold()) {
+            // The reservoir is full and this event wouldn't make it in, so lets prevent some object allocations
+            eventList.incrementNumberOfTries();
+        } else {
+            ErrorEvent errorEvent = createErrorEvent(appName, error, transactionData, transactionStats, priority);
+            eventList.add(errorEvent);
+        }
 
         if (errorCount.get() >= ERROR_LIMIT_PER_REPORTING_PERIOD) {
             Agent.LOG.finer(MessageFormat.format("Error limit exceeded for {0}: {1}", appName, error));
@@ -348,11 +354,20 @@ public class ErrorServiceImpl extends AbstractService implements ErrorService, H
     @VisibleForTesting // Introspector subclasses this class
     protected static ErrorEvent createErrorEvent(final String theAppName, TracedError error,
             TransactionData transactionData, TransactionStats transactionStats) {
+        return createErrorEvent(theAppName, error, transactionData, transactionStats, DistributedTraceServiceImpl.nextTruncatedFloat());
+    }
+
+    /**
+     * @param priority the priority of an error outside of a transaction. Errors in a transaction take the priority of
+     * the transaction.
+     */
+    private static ErrorEvent createErrorEvent(final String theAppName, TracedError error,
+            TransactionData transactionData, TransactionStats transactionStats, float priority) {
         ErrorEvent errorEvent;
         if (transactionData != null) {
             errorEvent = ErrorEventFactory.create(theAppName, error, transactionData, transactionStats);
         } else {
-            errorEvent = ErrorEventFactory.create(theAppName, error, DistributedTraceServiceImpl.nextTruncatedFloat());
+            errorEvent = ErrorEventFactory.create(theAppName, error, priority);
         }
         return errorEvent;
     }
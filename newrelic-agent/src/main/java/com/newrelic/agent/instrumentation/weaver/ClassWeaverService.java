@@ -45,6 +45,7 @@ import com.newrelic.weave.weavepackage.PackageWeaveResult;
 import com.newrelic.weave.weavepackage.WeavePackage;
 import com.newrelic.weave.weavepackage.WeavePackageConfig;
 import com.newrelic.weave.weavepackage.WeavePackageManager;
+import com.newrelic.weave.weavepackage.WeaveValidationCache;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.Opcodes;
@@ -124,7 +125,19 @@ public class ClassWeaverService implements ClassMatchVisitorFactory, ContextClas
         AgentConfig agentConfig = ServiceFactory.getConfigService().getDefaultAgentConfig();
         ClassTransformerConfig config = agentConfig.getClassTransformerConfig();
         this.weavePackageManager = new WeavePackageManager(listener, instrumentation,
-                config.getMaxPreValidatedClassLoaders(), config.preValidateWeavePackages(), config.preMatchWeaveMethods());
+                config.getMaxPreValidatedClassLoaders(), config.preValidateWeavePackages(), config.preMatchWeaveMethods(),
+                createValidationCache(config));
+    }
+
+    private static WeaveValidationCache createValidationCache(ClassTransformerConfig config) {
+        String directory = config.getWeaveCacheDirectory();
+        if (directory == null || directory.isEmpty()) {
+            return null;
+        }
+        // the build date tells apart snapshot builds that share a version
+        String namespace = Agent.getVersion() + '-' + AgentJarHelper.getBuildDate();
+        LOG.log(Level.INFO, "Caching failed weave package validations in {0}", directory);
+        return new WeaveValidationCache(new File(directory), namespace);
     }
 
     /**
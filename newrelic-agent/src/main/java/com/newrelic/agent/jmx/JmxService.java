@@ -10,6 +10,7 @@ package com.newrelic.agent.jmx;
 import com.google.common.annotations.VisibleForTesting;
 import com.newrelic.agent.Agent;
 import com.newrelic.agent.HarvestListener;
+import com.newrelic.agent.MetricNames;
 import com.newrelic.agent.config.JmxConfig;
 import com.newrelic.agent.extension.Extension;
 import com.newrelic.agent.jmx.create.JmxGet;
@@ -21,6 +22,7 @@ import com.newrelic.agent.service.ServiceFactory;
 import com.newrelic.agent.stats.StatsEngine;
 
 import javax.management.Attribute;
+import javax.management.AttributeList;
 import javax.management.AttributeNotFoundException;
 import javax.management.MBeanServer;
 import javax.management.MBeanServerFactory;
@@ -32,6 +34,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -40,6 +43,7 @@ import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 public class JmxService extends AbstractService implements HarvestListener {
@@ -72,6 +76,10 @@ public class JmxService extends AbstractService implements HarvestListener {
      * Remove MBeanServers who class name is contained here.
      */
     private final Set<MBeanServer> toRemoveMBeanServers = new CopyOnWriteArraySet<>();
+    /**
+     * The MBeans matching our object names on each server. This is only used by the harvest thread.
+     */
+    private final Map<MBeanServer, MBeanQueryCache> queryCaches = new IdentityHashMap<>();
     private final JmxConfig jmxConfig;
 
     public JmxService(JmxConfig jmxConfig) {
@@ -123,6 +131,10 @@ public class JmxService extends AbstractService implements HarvestListener {
         jmxGets.clear();
         jmxInvokes.clear();
         jmxAttributeProcessors.clear();
+        for (MBeanQueryCache queryCache : queryCaches.values()) {
+            queryCache.close();
+        }
+        queryCaches.clear();
     }
 
     @Override
@@ -174,9 +186,10 @@ public class JmxService extends AbstractService implements HarvestListener {
 
         for (MBeanServer server : srvrList) {
             try {
-                Set<ObjectInstance> queryMBeans = server.queryMBeans(name, null);
+                Set<ObjectInstance> queryMBeans = getQueryCache(server).queryMBeans(name);
                 getLogger().finer(MessageFormat.format("JMX Service : MBeans query {0}, matches {1}", name, queryMBeans.size()));
                 Map<ObjectName, Map<String, Float>> mbeanToAttValues = new HashMap<>();
+                String[] attributeNames = getAttributeNames(config.getAttributes());
                 for (ObjectInstance instance : queryMBeans) {
                     ObjectName actualName = instance.getObjectName();
                     String rootMetricName = config.getRootMetricName(actualName, server);
@@ -184,10 +197,10 @@ public class JmxService extends AbstractService implements HarvestListener {
                     Collection<String> attributes = config.getAttributes();
                     Map<String, Float> values = new HashMap<>();
 
+                    getLogger().finest(MessageFormat.format("Fetching attributes for mbean {0}", actualName));
+                    Map<String, Object> attributeValues = getAttributes(server, actualName, attributeNames);
                     for (String attr : attributes) {
-                        getLogger().finest(MessageFormat.format("Fetching attributes for mbean {0}", actualName));
-                        getAttAndRecord(attr, name, server, instance, statsEngine, rootMetricName, values);
-
+                        getAttAndRecord(attr, name, server, instance, statsEngine, rootMetricName, values, attributeValues);
                     }
                     if (!values.isEmpty()) {
                         // assuming two beans do not have the same objectName for a server
@@ -202,10 +215,69 @@ public class JmxService extends AbstractService implements HarvestListener {
         }
     }
 
+    private MBeanQueryCache getQueryCache(MBeanServer server) {
+        MBeanQueryCache queryCache = queryCaches.get(server);
+        if (queryCache == null) {
+            queryCache = new MBeanQueryCache(server);
+            queryCaches.put(server, queryCache);
+        }
+        return queryCache;
+    }
+
+    /**
+     * Stop listening to servers we no longer query.
+     */
+    private void removeQueryCaches(Collection<MBeanServer> srvrList) {
+        Set<MBeanServer> servers = Collections.newSetFromMap(new IdentityHashMap<MBeanServer, Boolean>());
+        servers.addAll(srvrList);
+        for (Iterator<Map.Entry<MBeanServer, MBeanQueryCache>> iterator = queryCaches.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<MBeanServer, MBeanQueryCache> entry = iterator.next();
+            if (!servers.contains(entry.getKey())) {
+                entry.getValue().close();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * The attributes to read from each MBean. An attribute with a dot may be the field of a composite attribute, so
+     * the composite attribute is read too.
+     */
+    private static String[] getAttributeNames(Collection<String> attributes) {
+        Set<String> attributeNames = new HashSet<>(attributes);
+        for (String attr : attributes) {
+            int dot = attr.indexOf('.');
+            if (dot > 0) {
+                attributeNames.add(attr.substring(0, dot));
+            }
+        }
+        return attributeNames.toArray(new String[0]);
+    }
+
+    /**
+     * Reads the attributes of an MBean in one call. The values are mapped by attribute name, and attributes that
+     * couldn't be read are left out. Returns null if the server couldn't read them all at once.
+     */
+    private Map<String, Object> getAttributes(MBeanServer server, ObjectName actualName, String[] attributeNames) {
+        try {
+            AttributeList attributeList = server.getAttributes(actualName, attributeNames);
+            Map<String, Object> attributeValues = new HashMap<>();
+            for (Attribute attribute : attributeList.asList()) {
+                attributeValues.put(attribute.getName(), attribute.getValue());
+            }
+            return attributeValues;
+        } catch (Exception e) {
+            getLogger().fine(MessageFormat.format("An error occurred fetching JMX attributes for mbean {0}", actualName));
+            getLogger().log(Level.FINEST, "JMX error", e);
+            return null;
+        }
+    }
+
     private void getAttAndRecord(String attr, ObjectName name, MBeanServer server, ObjectInstance instance, StatsEngine statsEngine, String rootMetricName,
-            Map<String, Float> values) {
+            Map<String, Float> values, Map<String, Object> attributeValues) {
         String[] compNames = attr.split("\\.");
-        Object attrObj = getAttribute(name, server, instance, attr, compNames);
+        Object attrObj = attributeValues == null ? getAttribute(name, server, instance, attr, compNames)
+                : getAttribute(name, attributeValues, attr, compNames);
         if (attrObj == null) {
             return;
         }
@@ -227,6 +299,17 @@ public class JmxService extends AbstractService implements HarvestListener {
         }
     }
 
+    private Object getAttribute(ObjectName name, Map<String, Object> attributeValues, String attr, String[] compNames) {
+        if (attributeValues.containsKey(attr)) {
+            return attributeValues.get(attr);
+        }
+        if (attributeValues.containsKey(compNames[0])) {
+            return attributeValues.get(compNames[0]);
+        }
+        getLogger().fine(MessageFormat.format("Attribute {0} for metric {1} was not found", attr, name));
+        return null;
+    }
+
     private Object getAttribute(ObjectName name, MBeanServer server, ObjectInstance instance, String attr, String[] compNames) {
         try {
             return server.getAttribute(instance.getObjectName(), attr);
@@ -362,11 +445,22 @@ public class JmxService extends AbstractService implements HarvestListener {
 
     private void process(StatsEngine statsEngine) {
         Collection<MBeanServer> srvrList = getServers();
+        removeQueryCaches(srvrList);
         addNewFrameworks();
         runThroughAndRemoveInvokes(srvrList);
 
+        Map<String, Long> samplingTimes = new HashMap<>();
         for (JmxGet object : jmxGets) {
+            long startTime = System.nanoTime();
             process(statsEngine, srvrList, object);
+            long samplingTime = System.nanoTime() - startTime;
+
+            Long frameworkTime = samplingTimes.get(object.getFrameworkName());
+            samplingTimes.put(object.getFrameworkName(), frameworkTime == null ? samplingTime : frameworkTime + samplingTime);
+        }
+        for (Map.Entry<String, Long> samplingTime : samplingTimes.entrySet()) {
+            statsEngine.getResponseTimeStats(MessageFormat.format(MetricNames.SUPPORTABILITY_JMX_SAMPLING, samplingTime.getKey()))
+                    .recordResponseTime(samplingTime.getValue(), TimeUnit.NANOSECONDS);
         }
     }
 
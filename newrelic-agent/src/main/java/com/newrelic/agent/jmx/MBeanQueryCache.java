@@ -0,0 +1,109 @@
+/*
+ *
+ *  * Copyright 2020 New Relic Corporation. All rights reserved.
+ *  * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+
+package com.newrelic.agent.jmx;
+
+import com.newrelic.agent.Agent;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerDelegate;
+import javax.management.MBeanServerNotification;
+import javax.management.Notification;
+import javax.management.NotificationListener;
+import javax.management.ObjectInstance;
+import javax.management.ObjectName;
+import javax.management.relation.MBeanServerNotificationFilter;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * Remembers the MBeans matching the object names queried on an MBean server. The server's delegate notifies us when
+ * MBeans are registered or unregistered, and the queries the MBean matches are run again the next time they're asked
+ * for. If the server won't send notifications, every query goes to the server.
+ *
+ * Queries are made from the harvest thread while notifications can arrive on any thread.
+ */
+class MBeanQueryCache implements NotificationListener {
+
+    private final MBeanServer server;
+    private final ConcurrentMap<ObjectName, Set<ObjectInstance>> queries = new ConcurrentHashMap<>();
+    private final AtomicLong changes = new AtomicLong();
+    private final boolean listening;
+
+    MBeanQueryCache(MBeanServer server) {
+        this.server = server;
+        this.listening = addListener();
+    }
+
+    private boolean addListener() {
+        try {
+            MBeanServerNotificationFilter filter = new MBeanServerNotificationFilter();
+            filter.enableAllObjectNames();
+            server.addNotificationListener(MBeanServerDelegate.DELEGATE_NAME, this, filter, null);
+            return true;
+        } catch (Exception e) {
+            Agent.LOG.log(Level.FINE, "JMX Service : unable to listen for MBean registrations on {0}, MBean queries will not be cached",
+                    server.getClass().getName());
+            Agent.LOG.log(Level.FINEST, "JMX error", e);
+            return false;
+        }
+    }
+
+    Set<ObjectInstance> queryMBeans(ObjectName name) {
+        if (!listening) {
+            return server.queryMBeans(name, null);
+        }
+
+        Set<ObjectInstance> instances = queries.get(name);
+        if (instances != null) {
+            return instances;
+        }
+
+        long changesBeforeQuery = changes.get();
+        instances = server.queryMBeans(name, null);
+        queries.put(name, instances);
+        // an MBean may have been registered or unregistered while we were querying
+        if (changes.get() != changesBeforeQuery) {
+            queries.remove(name);
+        }
+        return instances;
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+        if (!(notification instanceof MBeanServerNotification)) {
+            return;
+        }
+        ObjectName mbeanName = ((MBeanServerNotification) notification).getMBeanName();
+        // count the change before forgetting the queries so that a query in progress doesn't get cached
+        changes.incrementAndGet();
+        for (Iterator<ObjectName> iterator = queries.keySet().iterator(); iterator.hasNext(); ) {
+            if (iterator.next().apply(mbeanName)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Stop listening to the server, which is called when the server is no longer queried.
+     */
+    void close() {
+        if (listening) {
+            try {
+                server.removeNotificationListener(MBeanServerDelegate.DELEGATE_NAME, this);
+            } catch (Exception e) {
+                Agent.LOG.log(Level.FINEST, "JMX error", e);
+            }
+        }
+        queries.clear();
+    }
+
+}
@@ -48,6 +48,7 @@ public abstract class JmxGet extends JmxObject {
     private final Extension origin;
     private final JmxAttributeFilter attributeFilter;
     private final JmxMetricModifier modifier;
+    private String frameworkName;
 
     /**
      * 
@@ -256,6 +257,20 @@ public abstract class JmxGet extends JmxObject {
         return origin;
     }
 
+    /**
+     * The framework or extension this came from, which the time spent sampling it is reported under.
+     */
+    public String getFrameworkName() {
+        if (frameworkName != null) {
+            return frameworkName;
+        }
+        return origin == null ? "Custom" : origin.getName();
+    }
+
+    void setFrameworkName(String frameworkName) {
+        this.frameworkName = frameworkName;
+    }
+
     protected JmxAttributeFilter getJmxAttributeFilter() {
         return attributeFilter;
     }
@@ -103,7 +103,7 @@ public class JmxObjectFactory {
 
     private void createLogAddJmxGet(JMXMetricType type, String pObjectName, String pRootMetricName,
             List<JmxMetric> pMetrics, JmxAttributeFilter attributeFilter, JmxMetricModifier modifier,
-            List<JmxGet> alreadyAdded) {
+            String frameworkName, List<JmxGet> alreadyAdded) {
         try {
             JmxGet toAdd;
             if (type == JMXMetricType.INCREMENT_COUNT_PER_BEAN) {
@@ -113,6 +113,7 @@ public class JmxObjectFactory {
                 toAdd = new JmxMultiMBeanGet(pObjectName, getSafeObjectName(pObjectName), pRootMetricName, pMetrics,
                         attributeFilter, modifier);
             }
+            toAdd.setFrameworkName(frameworkName);
 
             // add at the beginning in case user has same metric then our metric will be taken
             alreadyAdded.add(0, toAdd);
@@ -178,7 +179,8 @@ public class JmxObjectFactory {
         if (values != null) {
             for (BaseJmxValue value : values) {
                 createLogAddJmxGet(value.getType(), value.getObjectNameString(), value.getObjectMetricName(),
-                        value.getMetrics(), value.getAttributeFilter(), value.getModifier(), alreadyAdded);
+                        value.getMetrics(), value.getAttributeFilter(), value.getModifier(), framework.getPrefix(),
+                        alreadyAdded);
             }
         }
 
@@ -0,0 +1,226 @@
+/*
+ *
+ *  * Copyright 2020 New Relic Corporation. All rights reserved.
+ *  * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+
+package com.newrelic.agent.logging;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.apache.logging.log4j.core.appender.AbstractOutputStreamAppender;
+import org.apache.logging.log4j.core.appender.FileManager;
+import org.apache.logging.log4j.core.config.Property;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.SimpleMessage;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes the agent log file on a dedicated thread so that threads logging through the agent never wait for file I/O.
+ *
+ * Log events are handed to the writer thread through a bounded, lock free ring buffer. When the buffer is full the
+ * event is dropped rather than blocking the logging thread. The writer counts dropped events and writes how many it
+ * lost to the log. The writer flushes the file once per batch of events instead of once per event.
+ */
+class AsyncFileAppender extends AbstractAppender {
+
+    static final int DEFAULT_CAPACITY = 16384;
+    private static final int MAX_BATCH_SIZE = 512;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    private static final long STOP_TIMEOUT_MILLIS = 5000;
+
+    private final AbstractOutputStreamAppender<? extends FileManager> fileAppender;
+    private final RingBuffer<LogEvent> buffer;
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final Thread writer;
+
+    private volatile boolean running = true;
+    private volatile boolean writerWaiting;
+
+    /**
+     * @param fileAppender a started appender that doesn't flush after every event
+     * @param capacity the maximum number of events waiting to be written, rounded up to a power of two
+     */
+    AsyncFileAppender(String name, AbstractOutputStreamAppender<? extends FileManager> fileAppender, int capacity) {
+        super(name, null, null, true, Property.EMPTY_ARRAY);
+        this.fileAppender = fileAppender;
+        this.buffer = new RingBuffer<>(capacity);
+        this.writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeEvents();
+            }
+        }, "New Relic Agent Log Writer");
+        this.writer.setDaemon(true);
+    }
+
+    @Override
+    public void start() {
+        super.start();
+        writer.start();
+    }
+
+    @Override
+    public void append(LogEvent event) {
+        // copy the event, it may be reused by the logging thread, and format the message while its arguments are current
+        LogEvent copy = event.toImmutable();
+        copy.getMessage().getFormattedMessage();
+        if (!buffer.offer(copy)) {
+            droppedEvents.incrementAndGet();
+            return;
+        }
+        if (writerWaiting) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * The number of events that have been dropped because the buffer was full.
+     */
+    long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    @Override
+    public boolean stop(long timeout, TimeUnit timeUnit) {
+        setStopping();
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(STOP_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        fileAppender.stop(timeout, timeUnit);
+        setStopped();
+        return true;
+    }
+
+    private void writeEvents() {
+        long reportedDrops = 0;
+        while (true) {
+            int written = 0;
+            LogEvent event;
+            while (written < MAX_BATCH_SIZE && (event = buffer.poll()) != null) {
+                write(event);
+                written++;
+            }
+
+            long drops = droppedEvents.get();
+            if (drops != reportedDrops) {
+                write(Log4jLogEvent.newBuilder()
+                        .setLoggerName(getName())
+                        .setLevel(Level.WARN)
+                        .setMessage(new SimpleMessage("Dropped " + (drops - reportedDrops)
+                                + " agent log messages because they were logged faster than they could be written."))
+                        .setTimeMillis(System.currentTimeMillis())
+                        .build());
+                reportedDrops = drops;
+                written++;
+            }
+
+            if (written > 0) {
+                fileAppender.getManager().flush();
+            } else if (!running) {
+                return;
+            } else {
+                writerWaiting = true;
+                // check again after announcing that the writer is waiting, so that an event offered in between isn't missed
+                if (buffer.isEmpty() && running) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                writerWaiting = false;
+            }
+        }
+    }
+
+    private void write(LogEvent event) {
+        try {
+            fileAppender.append(event);
+        } catch (RuntimeException e) {
+            // the file appender reports its own errors, don't let one kill the writer
+        }
+    }
+
+    /**
+     * A bounded array queue for many producers and a single consumer. Each slot has a sequence number that tells
+     * producers whether it is free and the consumer whether it has been filled, so neither side takes a lock.
+     */
+    static final class RingBuffer<E> {
+
+        private final Object[] elements;
+        private final AtomicLongArray sequences;
+        private final int mask;
+        private final AtomicLong tail = new AtomicLong();
+        // only read and written by the consumer, volatile so that isEmpty can be called by others
+        private volatile long head;
+
+        RingBuffer(int capacity) {
+            int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+            elements = new Object[size];
+            sequences = new AtomicLongArray(size);
+            mask = size - 1;
+            for (int i = 0; i < size; i++) {
+                sequences.set(i, i);
+            }
+        }
+
+        /**
+         * @return false if the buffer is full
+         */
+        boolean offer(E element) {
+            long position = tail.get();
+            while (true) {
+                int index = (int) position & mask;
+                long difference = sequences.get(index) - position;
+                if (difference == 0) {
+                    if (tail.compareAndSet(position, position + 1)) {
+                        elements[index] = element;
+                        // publishes the element to the consumer. This must be a volatile write rather than a lazySet, so that
+                        // it can't be reordered with the writerWaiting read in append and miss a writer about to park
+                        sequences.set(index, position + 1);
+                        return true;
+                    }
+                    position = tail.get();
+                } else if (difference < 0) {
+                    // the consumer hasn't freed the slot a full lap ago
+                    return false;
+                } else {
+                    position = tail.get();
+                }
+            }
+        }
+
+        /**
+         * Must only be called by the consumer.
+         *
+         * @return the oldest element, or null if the buffer is empty
+         */
+        @SuppressWarnings("unchecked")
+        E poll() {
+            long position = head;
+            int index = (int) position & mask;
+            if (sequences.get(index) != position + 1) {
+                return null;
+            }
+            E element = (E) elements[index];
+            elements[index] = null;
+            // frees the slot for the producer one lap ahead
+            sequences.lazySet(index, position + elements.length);
+            head = position + 1;
+            return element;
+        }
+
+        boolean isEmpty() {
+            long position = head;
+            return sequences.get((int) position & mask) != position + 1;
+        }
+    }
+
+}
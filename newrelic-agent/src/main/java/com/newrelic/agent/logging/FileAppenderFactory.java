@@ -43,6 +43,7 @@ public class FileAppenderFactory {
     private final long logLimitBytes;
     private final String fileName;
     private final boolean isDaily;
+    private final boolean immediateFlush;
 
     /**
      * @param fileCount maximum number of log files
@@ -51,10 +52,22 @@ public class FileAppenderFactory {
      * @param isDaily if the logs are to be rolled over daily
      */
     public FileAppenderFactory(int fileCount, long logLimitBytes, String fileName, boolean isDaily) {
+        this(fileCount, logLimitBytes, fileName, isDaily, true);
+    }
+
+    /**
+     * @param fileCount maximum number of log files
+     * @param logLimitBytes maximum size of a given log file
+     * @param fileName prefix for log file names
+     * @param isDaily if the logs are to be rolled over daily
+     * @param immediateFlush if the file is flushed after every log message, false if the caller flushes it
+     */
+    public FileAppenderFactory(int fileCount, long logLimitBytes, String fileName, boolean isDaily, boolean immediateFlush) {
         this.fileCount = fileCount;
         this.logLimitBytes = logLimitBytes;
         this.fileName = fileName;
         this.isDaily = isDaily;
+        this.immediateFlush = immediateFlush;
     }
 
     /**
@@ -91,6 +104,7 @@ public class FileAppenderFactory {
         return ((FileAppender.Builder) FileAppender.newBuilder()
                 .withFileName(fileName)
                 .withAppend(APPEND_TO_FILE)
+                .withImmediateFlush(immediateFlush)
                 .setName(FILE_APPENDER_NAME)
                 .setLayout(PatternLayout.newBuilder().withPattern(CONVERSION_PATTERN).build()))
                 .build();
@@ -124,6 +138,7 @@ public class FileAppenderFactory {
         return (RollingFileAppender.Builder) RollingFileAppender.newBuilder()
                 .withFileName(fileName)
                 .withAppend(APPEND_TO_FILE)
+                .withImmediateFlush(immediateFlush)
                 .setName(FILE_APPENDER_NAME)
                 .setLayout(PatternLayout.newBuilder().withPattern(CONVERSION_PATTERN).build());
     }
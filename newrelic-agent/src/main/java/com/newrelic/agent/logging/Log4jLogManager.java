@@ -242,8 +242,9 @@ class Log4jLogManager implements IAgentLogManager {
         int limit = agentConfig.getLogLimit() * 1024;
         int fileCount = Math.max(1, agentConfig.getLogFileCount());
         boolean isDaily = agentConfig.isLogDaily();
+        boolean isAsync = agentConfig.isLogAsync();
 
-        rootLogger.addFileAppender(logFileName, limit, fileCount, isDaily);
+        rootLogger.addFileAppender(logFileName, limit, fileCount, isDaily, isAsync);
         logFilePath = logFileName;
         String msg = MessageFormat.format("Writing to New Relic log file: {0}", logFileName);
         rootLogger.info(msg);
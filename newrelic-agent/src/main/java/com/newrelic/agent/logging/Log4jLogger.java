@@ -257,8 +257,10 @@ class Log4jLogger implements IAgentLogger {
      * @param fileName Name of the appender.
      * @param logLimitBytes Log limit
      * @param fileCount The number of files.
+     * @param isDaily True to roll the file over daily.
+     * @param isAsync True to write the file on a separate thread.
      */
-    public void addFileAppender(String fileName, long logLimitBytes, int fileCount, boolean isDaily) {
+    public void addFileAppender(String fileName, long logLimitBytes, int fileCount, boolean isDaily, boolean isAsync) {
         LoggerContext ctx = (LoggerContext) LogManager.getContext(false);
         Configuration config = ctx.getConfiguration();
         LoggerConfig loggerConfig = config.getLoggerConfig(logger.getName());
@@ -267,14 +269,21 @@ class Log4jLogger implements IAgentLogger {
             return;
         }
 
-        FileAppenderFactory fileAppenderFactory = new FileAppenderFactory(fileCount, logLimitBytes, fileName, isDaily);
+        // the async appender flushes once per batch of messages instead of once per message
+        FileAppenderFactory fileAppenderFactory = new FileAppenderFactory(fileCount, logLimitBytes, fileName, isDaily, !isAsync);
         AbstractOutputStreamAppender<? extends FileManager> fileAppender = fileAppenderFactory.build();
         if (fileAppender == null) {
             return;
         }
 
         fileAppender.start();
-        loggerConfig.addAppender(fileAppender, null, FineFilter.getFineFilter());
+        if (isAsync) {
+            AsyncFileAppender asyncAppender = new AsyncFileAppender(FILE_APPENDER_NAME, fileAppender, AsyncFileAppender.DEFAULT_CAPACITY);
+            asyncAppender.start();
+            loggerConfig.addAppender(asyncAppender, null, FineFilter.getFineFilter());
+        } else {
+            loggerConfig.addAppender(fileAppender, null, FineFilter.getFineFilter());
+        }
         ctx.updateLoggers();
     }
 
@@ -7,43 +7,74 @@
 
 package com.newrelic.agent.metric;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A class to map {@link MetricName} to ids.
- * 
- * This class is not thread-safe.
+ *
+ * The registry holds at most {@link #METRIC_LIMIT} ids. When it is full, registering a new id evicts the id of the
+ * least recently used metric name, so only that name is sent in full again.
+ *
+ * This class is thread-safe.
  */
 public class MetricIdRegistry {
 
     public static final int METRIC_LIMIT;
     private static final int INITIAL_CAPACITY = 1000;
+    private static final float LOAD_FACTOR = 0.75f;
 
     static {
         String property = System.getProperty("newrelic.metric_registry_limit");
         METRIC_LIMIT = ((null != property) ? Integer.parseInt(property) : 15000);
     }
 
-    private final Map<MetricName, Integer> metricIds = new HashMap<>(INITIAL_CAPACITY);
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final int limit;
+
+    // guarded by this
+    private final Map<MetricName, Integer> metricIds;
+
+    public MetricIdRegistry() {
+        this(METRIC_LIMIT);
+    }
 
-    public Integer getMetricId(MetricName metricName) {
+    MetricIdRegistry(final int limit) {
+        this.limit = limit;
+        this.metricIds = new LinkedHashMap<MetricName, Integer>(Math.min(INITIAL_CAPACITY, limit), LOAD_FACTOR, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<MetricName, Integer> eldest) {
+                if (size() > MetricIdRegistry.this.limit) {
+                    evictionCount.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public synchronized Integer getMetricId(MetricName metricName) {
         return metricIds.get(metricName);
     }
 
-    public void setMetricId(MetricName metricName, Integer metricId) {
-        if (metricIds.size() == METRIC_LIMIT) {
-            metricIds.clear();
-        }
+    public synchronized void setMetricId(MetricName metricName, Integer metricId) {
         metricIds.put(metricName, metricId);
     }
 
-    public void clear() {
+    public synchronized void clear() {
         metricIds.clear();
     }
 
-    public int getSize() {
+    public synchronized int getSize() {
         return metricIds.size();
     }
 
+    /**
+     * @return the number of ids evicted since the last call
+     */
+    public long getAndResetEvictionCount() {
+        return evictionCount.getAndSet(0);
+    }
+
 }
@@ -0,0 +1,61 @@
+/*
+ *
+ *  * Copyright 2020 New Relic Corporation. All rights reserved.
+ *  * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+
+package com.newrelic.agent.normalization;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.List;
+
+/**
+ * A normalizer that remembers the names another normalizer returned. The same few names are normalized over and over,
+ * so most of them skip the rules altogether.
+ *
+ * The cache belongs to the normalizer, so it is thrown away with it when the rules change.
+ */
+class CachingNormalizer implements Normalizer {
+
+    static final int MAX_CACHED_NAMES = 20000;
+
+    // the cache can't hold nulls, and an unchanged name is returned as the same instance it was passed in as
+    private static final Object IGNORED = new Object();
+    private static final Object UNCHANGED = new Object();
+
+    private final Normalizer normalizer;
+    private final Cache<String, Object> normalizedNames;
+
+    CachingNormalizer(Normalizer normalizer) {
+        this.normalizer = normalizer;
+        this.normalizedNames = Caffeine.newBuilder().maximumSize(MAX_CACHED_NAMES).executor(Runnable::run).build();
+    }
+
+    @Override
+    public String normalize(String name) {
+        if (name == null) {
+            return null;
+        }
+
+        Object normalizedName = normalizedNames.getIfPresent(name);
+        if (normalizedName == null) {
+            String result = normalizer.normalize(name);
+            normalizedName = result == null ? IGNORED : result.equals(name) ? UNCHANGED : result;
+            normalizedNames.put(name, normalizedName);
+        }
+
+        if (normalizedName == IGNORED) {
+            return null;
+        }
+        return normalizedName == UNCHANGED ? name : (String) normalizedName;
+    }
+
+    @Override
+    public List<NormalizationRule> getRules() {
+        return normalizer.getRules();
+    }
+
+}
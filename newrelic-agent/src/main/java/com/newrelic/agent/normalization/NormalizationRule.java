@@ -24,6 +24,8 @@ public class NormalizationRule {
     private static final Pattern SEGMENT_SEPARATOR_PATTERN = Pattern.compile(MetricNames.SEGMENT_DELIMITER_STRING);
     private static final Pattern BACKREFERENCE_PATTERN = Pattern.compile("\\\\(\\d)"); // search for \1, \2 etc.
     private static final String BACKREFERENCE_REPLACEMENT = "\\$$1"; // replace \1 with $1, \2 with $2 etc.
+    private static final String LITERAL_PUNCTUATION = "/_-:;,@%&=!<>~'\" ";
+    private static final String QUANTIFIERS = "?*+{";
 
     private final Pattern pattern;
     private final boolean ignore;
@@ -33,6 +35,7 @@ public class NormalizationRule {
     private final boolean replaceAll;
     private final String replaceRegex;
     private final ReplacementFormatter formatter;
+    private final String requiredPrefix;
 
     public NormalizationRule(String matchExp, String replacement, boolean ignore, int order, boolean terminateChain,
             boolean eachSegment, boolean replaceAll) throws PatternSyntaxException {
@@ -42,6 +45,7 @@ public class NormalizationRule {
         this.eachSegment = eachSegment;
         this.replaceAll = replaceAll;
         this.pattern = Pattern.compile(matchExp, Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+        this.requiredPrefix = eachSegment ? null : getRequiredPrefix(matchExp);
 
         // replace back references (\1 etc) in the replacement pattern with Java-style
         // back references ($1 etc).
@@ -67,6 +71,38 @@ public class NormalizationRule {
         return formatter.getRuleResult(name);
     }
 
+    /**
+     * Returns false if the rule can't match the name, which is known without running the regex for rules that are
+     * anchored to the start of the name and begin with a literal.
+     */
+    boolean mightMatch(String name) {
+        // regionMatches ignores case for at least the characters the regex does
+        return requiredPrefix == null || name.regionMatches(true, 0, requiredPrefix, 0, requiredPrefix.length());
+    }
+
+    /**
+     * Returns the literal that names matched by the expression must start with, or null if there isn't one. Only simple
+     * expressions are considered: ones that start with ^ followed by plain ASCII characters and that don't alternate.
+     */
+    static String getRequiredPrefix(String matchExp) {
+        if (!matchExp.startsWith("^") || matchExp.indexOf('|') >= 0) {
+            return null;
+        }
+        int end = 1;
+        while (end < matchExp.length() && isLiteral(matchExp.charAt(end))) {
+            end++;
+        }
+        if (end < matchExp.length() && QUANTIFIERS.indexOf(matchExp.charAt(end)) >= 0) {
+            // the last literal is optional or repeated
+            end--;
+        }
+        return end > 1 ? matchExp.substring(1, end) : null;
+    }
+
+    private static boolean isLiteral(char c) {
+        return c < 128 && (Character.isLetterOrDigit(c) || LITERAL_PUNCTUATION.indexOf(c) >= 0);
+    }
+
     public boolean isIgnore() {
         return ignore;
     }
@@ -17,7 +17,7 @@ import com.newrelic.agent.MetricNames;
 public class NormalizerFactory {
 
     public static Normalizer createUrlNormalizer(String appName, List<NormalizationRule> urlRules) {
-        return new UrlNormalizer(new NormalizerImpl(appName, urlRules));
+        return new UrlNormalizer(cachingNormalizer(new NormalizerImpl(appName, urlRules)));
     }
 
     public static Normalizer createTransactionNormalizer(String appName, List<NormalizationRule> transactionNameRules,
@@ -31,7 +31,17 @@ public class NormalizerFactory {
             normalizer = compoundNormalizer(normalizer, createTransactionSegmentNormalizer(transactionSegmentTermRules));
         }
 
-        return normalizer;
+        if (transactionNameRules.isEmpty() && transactionSegmentTermRules.isEmpty()) {
+            return normalizer;
+        }
+        return new CachingNormalizer(normalizer);
+    }
+
+    /**
+     * There's nothing to cache if there are no rules.
+     */
+    private static Normalizer cachingNormalizer(Normalizer normalizer) {
+        return normalizer.getRules().isEmpty() ? normalizer : new CachingNormalizer(normalizer);
     }
 
     private static Normalizer compoundNormalizer(final Normalizer... normalizers) {
@@ -101,7 +111,7 @@ public class NormalizerFactory {
     }
 
     public static Normalizer createMetricNormalizer(String appName, List<NormalizationRule> metricNameRules) {
-        return new NormalizerImpl(appName, metricNameRules);
+        return cachingNormalizer(new NormalizerImpl(appName, metricNameRules));
     }
 
     private static class UrlNormalizer implements Normalizer {
@@ -11,22 +11,69 @@ import java.text.MessageFormat;
 import java.util.Collections;
 import java.util.List;
 import java.util.logging.Level;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import com.newrelic.agent.Agent;
 
 /**
  * A class for applying renaming rules.
+ *
+ * The rules that match against the entire name are also compiled into a single pattern that matches if any of them
+ * does. Most names don't match any rule, and for those the rules don't have to be tried one at a time.
  * 
  * This class is thread-safe.
  */
 public class NormalizerImpl implements Normalizer {
 
+    // back references, named groups and comments can't be combined with other expressions
+    private static final Pattern NOT_COMBINABLE = Pattern.compile("\\\\[1-9k]|\\(\\?<[a-zA-Z]|\\(\\?[a-zA-Z-]*x");
+
     private final List<NormalizationRule> rules;
     private final String appName;
+    private final Pattern anyEntireNameRule;
+    private final boolean hasEachSegmentRules;
 
     public NormalizerImpl(String appName, List<NormalizationRule> rules) {
         this.appName = appName;
         this.rules = Collections.unmodifiableList(rules);
+
+        boolean hasEachSegmentRules = false;
+        for (NormalizationRule rule : rules) {
+            hasEachSegmentRules |= rule.isEachSegment();
+        }
+        this.hasEachSegmentRules = hasEachSegmentRules;
+        this.anyEntireNameRule = combineEntireNameRules(rules);
+    }
+
+    /**
+     * Returns a pattern that matches wherever one of the rules that aren't applied to each segment matches, or null if
+     * the rules can't be combined or there aren't enough of them to make it worthwhile.
+     */
+    private static Pattern combineEntireNameRules(List<NormalizationRule> rules) {
+        StringBuilder combined = new StringBuilder();
+        int count = 0;
+        for (NormalizationRule rule : rules) {
+            if (rule.isEachSegment()) {
+                continue;
+            }
+            String matchExpression = rule.getMatchExpression();
+            if (NOT_COMBINABLE.matcher(matchExpression).find()) {
+                return null;
+            }
+            if (count++ > 0) {
+                combined.append('|');
+            }
+            combined.append("(?:").append(matchExpression).append(')');
+        }
+        if (count < 2) {
+            return null;
+        }
+        try {
+            return Pattern.compile(combined.toString(), Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+        } catch (PatternSyntaxException e) {
+            return null;
+        }
     }
 
     @Override
@@ -36,8 +83,23 @@ public class NormalizerImpl implements Normalizer {
             return null;
         }
 
+        // until a rule changes the name, only rules applied to each segment can match if the combined pattern doesn't
+        boolean skipEntireNameRules = false;
+        if (anyEntireNameRule != null && !anyEntireNameRule.matcher(name).find()) {
+            if (!hasEachSegmentRules) {
+                return name;
+            }
+            skipEntireNameRules = true;
+        }
+
         String normalizedName = name;
         for (NormalizationRule rule : rules) {
+            if (skipEntireNameRules && !rule.isEachSegment()) {
+                continue;
+            }
+            if (!rule.mightMatch(normalizedName)) {
+                continue;
+            }
             RuleResult result = rule.normalize(normalizedName);
             if (!result.isMatch()) {
                 continue;
@@ -58,6 +120,7 @@ public class NormalizerImpl implements Normalizer {
                     Agent.LOG.finer(msg);
                 }
                 normalizedName = replacement;
+                skipEntireNameRules = false;
             }
             if (rule.isTerminateChain()) {
                 break;
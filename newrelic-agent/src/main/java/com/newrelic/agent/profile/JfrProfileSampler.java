@@ -0,0 +1,76 @@
+/*
+ *
+ *  * Copyright 2020 New Relic Corporation. All rights reserved.
+ *  * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+
+package com.newrelic.agent.profile;
+
+import com.newrelic.agent.service.ServiceFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Samples stack traces with JFR instead of getting the stack trace of every thread. Each call to
+ * {@link #sampleStackTraces(List)} adds the samples JFR took since the last call. If the JFR stream couldn't be
+ * started, every thread is sampled like {@link ProfileSampler} does.
+ *
+ * This class is thread-safe but the profiles are not thread-safe.
+ */
+public class JfrProfileSampler extends ProfileSampler {
+
+    private final JfrStackTraceSampler jfrSampler;
+    private volatile boolean streaming;
+
+    public JfrProfileSampler() {
+        this(new JfrStackTraceSampler());
+    }
+
+    JfrProfileSampler(JfrStackTraceSampler jfrSampler) {
+        this.jfrSampler = jfrSampler;
+    }
+
+    @Override
+    public void start(ProfilerParameters profilerParameters) {
+        // threads in native methods aren't runnable
+        streaming = jfrSampler.start(profilerParameters.getSamplePeriodInMillis(), !profilerParameters.isRunnablesOnly());
+    }
+
+    @Override
+    public void stop() {
+        streaming = false;
+        jfrSampler.stop();
+    }
+
+    @Override
+    public void sampleStackTraces(List<IProfile> profiles) {
+        if (!streaming) {
+            super.sampleStackTraces(profiles);
+            return;
+        }
+        if (profiles.isEmpty()) {
+            return;
+        }
+
+        List<JfrStackTraceSampler.Sample> samples = new ArrayList<>();
+        for (JfrStackTraceSampler.Sample sample = jfrSampler.poll(); sample != null; sample = jfrSampler.poll()) {
+            samples.add(sample);
+        }
+        Set<Long> agentThreadIds = ServiceFactory.getThreadService().getAgentThreadIds();
+
+        for (IProfile profile : profiles) {
+            profile.beforeSampling();
+            for (JfrStackTraceSampler.Sample sample : samples) {
+                if (!sample.isRunnable() && profile.getProfilerParameters().isRunnablesOnly()) {
+                    continue;
+                }
+                ThreadType type = getThreadType(profile, agentThreadIds, sample.getThreadId(), sample.getStackTrace());
+                profile.addStackTrace(sample.getThreadId(), sample.isRunnable(), type, sample.getStackTrace());
+            }
+        }
+    }
+
+}
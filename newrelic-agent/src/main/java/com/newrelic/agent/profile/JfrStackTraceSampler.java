@@ -0,0 +1,315 @@
+/*
+ *
+ *  * Copyright 2020 New Relic Corporation. All rights reserved.
+ *  * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+
+package com.newrelic.agent.profile;
+
+import com.newrelic.agent.Agent;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Collects stack trace samples from a JFR event stream. JFR samples the threads running Java code
+ * (jdk.ExecutionSample) and the threads in native methods (jdk.NativeMethodSample) without bringing the JVM to a
+ * safepoint, which getting the stack trace of every thread does.
+ *
+ * JFR event streaming was added in Java 14 and the agent is compiled for Java 8, so the JFR API is used reflectively.
+ * The depth of the stack traces is limited by the stackdepth option of -XX:FlightRecorderOptions, which is 64 frames
+ * by default.
+ *
+ * JFR samples at most a few threads per period, and never samples threads that are blocked or waiting, so a profile
+ * built from these samples is not comparable to one built from the stack traces of every thread.
+ *
+ * Samples arrive on the stream's thread and are queued until the profiler polls for them.
+ */
+public class JfrStackTraceSampler {
+
+    private static final String EXECUTION_SAMPLE = "jdk.ExecutionSample";
+    private static final String NATIVE_METHOD_SAMPLE = "jdk.NativeMethodSample";
+    private static final String SAMPLED_THREAD = "sampledThread";
+
+    /**
+     * JFR takes at most this many jdk.ExecutionSample events per period, and one jdk.NativeMethodSample.
+     */
+    private static final int JAVA_SAMPLES_PER_PERIOD = 5;
+    private static final int NATIVE_SAMPLES_PER_PERIOD = 1;
+    /**
+     * How many seconds of samples are kept between polls. The stream delivers events about once a second.
+     */
+    private static final long QUEUED_SAMPLES_WINDOW_MILLIS = 10000;
+    static final int MIN_QUEUED_SAMPLES = 100;
+
+    private final Queue<Sample> samples = new ConcurrentLinkedQueue<>();
+    private volatile int maxQueuedSamples = MIN_QUEUED_SAMPLES;
+    private final AtomicInteger queuedSamples = new AtomicInteger();
+    private final AtomicLong droppedSamples = new AtomicLong();
+    private volatile AutoCloseable stream;
+
+    /**
+     * @return true if the JVM supports JFR event streaming
+     */
+    public static boolean isSupported() {
+        return Jfr.INSTANCE != null;
+    }
+
+    /**
+     * Start streaming samples.
+     *
+     * @param periodInMillis how often JFR samples threads
+     * @param nativeSamples true to also sample threads in native methods, which are not runnable
+     * @return true if the stream started
+     */
+    public boolean start(long periodInMillis, boolean nativeSamples) {
+        maxQueuedSamples = getMaxQueuedSamples(periodInMillis, nativeSamples, ManagementFactory.getThreadMXBean().getThreadCount());
+        return startStream(periodInMillis, nativeSamples);
+    }
+
+    /**
+     * The most samples kept between polls, enough for the samples JFR can take during
+     * {@link #QUEUED_SAMPLES_WINDOW_MILLIS}. Samples are dropped after that.
+     */
+    static int getMaxQueuedSamples(long periodInMillis, boolean nativeSamples, int threadCount) {
+        long perPeriod = Math.min(threadCount, JAVA_SAMPLES_PER_PERIOD);
+        if (nativeSamples) {
+            perPeriod += Math.min(threadCount, NATIVE_SAMPLES_PER_PERIOD);
+        }
+        long periods = QUEUED_SAMPLES_WINDOW_MILLIS / Math.max(1, periodInMillis) + 1;
+        return (int) Math.max(MIN_QUEUED_SAMPLES, Math.min(Integer.MAX_VALUE, perPeriod * periods));
+    }
+
+    boolean startStream(long periodInMillis, boolean nativeSamples) {
+        Jfr jfr = Jfr.INSTANCE;
+        if (jfr == null) {
+            return false;
+        }
+        try {
+            stream = jfr.startStream(Duration.ofMillis(periodInMillis), nativeSamples, this);
+            return true;
+        } catch (Throwable t) {
+            Agent.LOG.log(Level.INFO, "Unable to start the JFR stream for the thread profiler: {0}", t.toString());
+            Agent.LOG.log(Level.FINEST, t, "JFR stream error");
+            return false;
+        }
+    }
+
+    public void stop() {
+        AutoCloseable current = stream;
+        stream = null;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (Throwable t) {
+                Agent.LOG.log(Level.FINEST, t, "Error closing the JFR stream");
+            }
+        }
+        long dropped = droppedSamples.getAndSet(0);
+        if (dropped > 0) {
+            Agent.LOG.log(Level.FINE, "The thread profiler dropped {0} JFR samples", dropped);
+        }
+        samples.clear();
+        queuedSamples.set(0);
+    }
+
+    /**
+     * @return the oldest sample that hasn't been polled, or null if there isn't one
+     */
+    public Sample poll() {
+        Sample sample = samples.poll();
+        if (sample != null) {
+            queuedSamples.decrementAndGet();
+        }
+        return sample;
+    }
+
+    void addSample(Sample sample) {
+        if (queuedSamples.incrementAndGet() > maxQueuedSamples) {
+            queuedSamples.decrementAndGet();
+            droppedSamples.incrementAndGet();
+            return;
+        }
+        samples.add(sample);
+    }
+
+    /**
+     * The stack trace of a thread sampled by JFR. The stack trace starts with the leaf frame, like
+     * {@link Thread#getStackTrace()}.
+     */
+    public static final class Sample {
+
+        private final long threadId;
+        private final String threadName;
+        private final boolean runnable;
+        private final StackTraceElement[] stackTrace;
+
+        Sample(long threadId, String threadName, boolean runnable, StackTraceElement[] stackTrace) {
+            this.threadId = threadId;
+            this.threadName = threadName;
+            this.runnable = runnable;
+            this.stackTrace = stackTrace;
+        }
+
+        public long getThreadId() {
+            return threadId;
+        }
+
+        public String getThreadName() {
+            return threadName;
+        }
+
+        /**
+         * @return true for execution samples and false for threads sampled in native methods
+         */
+        public boolean isRunnable() {
+            return runnable;
+        }
+
+        public StackTraceElement[] getStackTrace() {
+            return stackTrace;
+        }
+    }
+
+    /**
+     * The reflective JFR API, or null if the JVM doesn't support event streaming.
+     */
+    private static final class Jfr {
+
+        static final Jfr INSTANCE = create();
+
+        private final Constructor<?> newRecordingStream;
+        private final Method enable;
+        private final Method withPeriod;
+        private final Method onEvent;
+        private final Method startAsync;
+        private final Method getThread;
+        private final Method getStackTrace;
+        private final Method getJavaThreadId;
+        private final Method getJavaName;
+        private final Method getFrames;
+        private final Method isJavaFrame;
+        private final Method getMethod;
+        private final Method getLineNumber;
+        private final Method getMethodName;
+        private final Method getType;
+        private final Method getClassName;
+
+        private Jfr() throws ReflectiveOperationException {
+            Class<?> recordingStream = Class.forName("jdk.jfr.consumer.RecordingStream");
+            Class<?> eventSettings = Class.forName("jdk.jfr.EventSettings");
+            Class<?> recordedEvent = Class.forName("jdk.jfr.consumer.RecordedEvent");
+            Class<?> recordedThread = Class.forName("jdk.jfr.consumer.RecordedThread");
+            Class<?> recordedStackTrace = Class.forName("jdk.jfr.consumer.RecordedStackTrace");
+            Class<?> recordedFrame = Class.forName("jdk.jfr.consumer.RecordedFrame");
+            Class<?> recordedMethod = Class.forName("jdk.jfr.consumer.RecordedMethod");
+            Class<?> recordedClass = Class.forName("jdk.jfr.consumer.RecordedClass");
+
+            newRecordingStream = recordingStream.getConstructor();
+            enable = recordingStream.getMethod("enable", String.class);
+            withPeriod = eventSettings.getMethod("withPeriod", Duration.class);
+            onEvent = recordingStream.getMethod("onEvent", String.class, Consumer.class);
+            startAsync = recordingStream.getMethod("startAsync");
+            getThread = recordedEvent.getMethod("getThread", String.class);
+            getStackTrace = recordedEvent.getMethod("getStackTrace");
+            getJavaThreadId = recordedThread.getMethod("getJavaThreadId");
+            getJavaName = recordedThread.getMethod("getJavaName");
+            getFrames = recordedStackTrace.getMethod("getFrames");
+            isJavaFrame = recordedFrame.getMethod("isJavaFrame");
+            getMethod = recordedFrame.getMethod("getMethod");
+            getLineNumber = recordedFrame.getMethod("getLineNumber");
+            getMethodName = recordedMethod.getMethod("getName");
+            getType = recordedMethod.getMethod("getType");
+            getClassName = recordedClass.getMethod("getName");
+        }
+
+        private static Jfr create() {
+            try {
+                return new Jfr();
+            } catch (Throwable t) {
+                return null;
+            }
+        }
+
+        AutoCloseable startStream(Duration period, boolean nativeSamples, JfrStackTraceSampler sampler)
+                throws ReflectiveOperationException {
+            AutoCloseable stream = (AutoCloseable) newRecordingStream.newInstance();
+            try {
+                subscribe(stream, EXECUTION_SAMPLE, period, true, sampler);
+                if (nativeSamples) {
+                    subscribe(stream, NATIVE_METHOD_SAMPLE, period, false, sampler);
+                }
+                startAsync.invoke(stream);
+                return stream;
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                try {
+                    stream.close();
+                } catch (Exception ignored) {
+                }
+                throw e;
+            }
+        }
+
+        private void subscribe(Object stream, String eventName, Duration period, final boolean runnable,
+                final JfrStackTraceSampler sampler) throws ReflectiveOperationException {
+            withPeriod.invoke(enable.invoke(stream, eventName), period);
+            onEvent.invoke(stream, eventName, new Consumer<Object>() {
+                @Override
+                public void accept(Object event) {
+                    try {
+                        Sample sample = toSample(event, runnable);
+                        if (sample != null) {
+                            sampler.addSample(sample);
+                        }
+                    } catch (Throwable t) {
+                        Agent.LOG.log(Level.FINEST, t, "Unable to read a JFR sample");
+                    }
+                }
+            });
+        }
+
+        private Sample toSample(Object event, boolean runnable) throws ReflectiveOperationException {
+            Object thread = getThread.invoke(event, SAMPLED_THREAD);
+            Object stackTrace = getStackTrace.invoke(event);
+            if (thread == null || stackTrace == null) {
+                return null;
+            }
+            long threadId = (Long) getJavaThreadId.invoke(thread);
+            if (threadId < 0) {
+                // not a Java thread
+                return null;
+            }
+
+            List<?> frames = (List<?>) getFrames.invoke(stackTrace);
+            StackTraceElement[] elements = new StackTraceElement[frames.size()];
+            int size = 0;
+            for (Object frame : frames) {
+                if (!(Boolean) isJavaFrame.invoke(frame)) {
+                    continue;
+                }
+                Object method = getMethod.invoke(frame);
+                String className = (String) getClassName.invoke(getType.invoke(method));
+                String methodName = (String) getMethodName.invoke(method);
+                int lineNumber = (Integer) getLineNumber.invoke(frame);
+                elements[size++] = new StackTraceElement(className, methodName, null, lineNumber);
+            }
+            if (size < elements.length) {
+                StackTraceElement[] javaFrames = new StackTraceElement[size];
+                System.arraycopy(elements, 0, javaFrames, 0, size);
+                elements = javaFrames;
+            }
+            return new Sample(threadId, (String) getJavaName.invoke(thread), runnable, elements);
+        }
+    }
+
+}
@@ -152,7 +152,7 @@ public class KeyTransactionProfile implements IProfile, ExtendedTransactionListe
 
     /**
      * This usually runs on the request thread, but for transactions that end because of a token timing out, it can be
-     * called from an arbitrary thread that happens to run the onRemoval listener in TimedTokenSet.
+     * called from one of the token expiration threads that time out tokens in TimedTokenSet.
      */
     @Override
     public void dispatcherTransactionFinished(TransactionData td, TransactionStats stats) {
@@ -32,6 +32,19 @@ public class ProfileSampler {
     public ProfileSampler() {
     }
 
+    /**
+     * Called before the first sample of a session with more than one sample. Subclasses that collect samples in the
+     * background start collecting here.
+     */
+    public void start(ProfilerParameters profilerParameters) {
+    }
+
+    /**
+     * Called when a session with more than one sample ends.
+     */
+    public void stop() {
+    }
+
     public void sampleStackTraces(List<IProfile> profiles) {
         if (profiles.isEmpty()) {
             return;
@@ -60,21 +73,24 @@ public class ProfileSampler {
                 continue;
             }
 
-            ThreadType type;
             long threadId = threadInfo.getThreadId();
-
-            if (agentThreadIds.contains(threadId)) {
-                type = ThreadType.BasicThreadType.AGENT;
-            } else if (profiler.getProfilerParameters().isProfileAgentThreads()
-                    && StackTraces.isInAgentInstrumentation(threadInfo.getStackTrace())) {
-                type = ThreadType.BasicThreadType.AGENT_INSTRUMENTATION;
-            } else {
-                type = ThreadType.BasicThreadType.OTHER;
-            }
+            ThreadType type = getThreadType(profiler, agentThreadIds, threadId, threadInfo.getStackTrace());
             profiler.addStackTrace(threadId, isRunnable, type, threadInfo.getStackTrace());
         }
     }
 
+    static ThreadType getThreadType(IProfile profiler, Set<Long> agentThreadIds, long threadId,
+            StackTraceElement[] stackTrace) {
+        if (agentThreadIds.contains(threadId)) {
+            return ThreadType.BasicThreadType.AGENT;
+        } else if (profiler.getProfilerParameters().isProfileAgentThreads()
+                && StackTraces.isInAgentInstrumentation(stackTrace)) {
+            return ThreadType.BasicThreadType.AGENT_INSTRUMENTATION;
+        } else {
+            return ThreadType.BasicThreadType.OTHER;
+        }
+    }
+
     private ThreadInfo[] getAllThreadInfos() {
         long[] threadIds = getAllThreadIds();
         if (threadIds == null || threadIds.length == 0) {
@@ -23,7 +23,7 @@ import java.util.logging.Level;
 
 public class ProfileSession {
 
-    private final ProfileSampler profileSampler = new ProfileSampler();
+    private final ProfileSampler profileSampler;
     private final IProfile profile;
     private final List<IProfile> profiles = new ArrayList<>();
     private final ProfilerService profilerService;
@@ -33,6 +33,7 @@ public class ProfileSession {
 
     public ProfileSession(ProfilerService profilerService, ProfilerParameters profilerParameters) {
         this.profilerService = profilerService;
+        profileSampler = createProfileSampler(profilerParameters);
         profile = createProfile(profilerParameters);
         profile.start();
         profiles.add(profile);
@@ -42,6 +43,18 @@ public class ProfileSession {
         return new Profile(profilerParameters);
     }
 
+    private ProfileSampler createProfileSampler(ProfilerParameters profilerParameters) {
+        // a single sample is taken right away, before JFR would have taken any
+        boolean singleSample = profilerParameters.getSamplePeriodInMillis().equals(profilerParameters.getDurationInMillis());
+        if (!singleSample && ServiceFactory.getConfigService().getDefaultAgentConfig().getThreadProfilerConfig().isJfrSamplingEnabled()) {
+            if (JfrStackTraceSampler.isSupported()) {
+                return new JfrProfileSampler();
+            }
+            getLogger().info("JFR sampling is enabled for the thread profiler, but this JVM does not support JFR event streaming");
+        }
+        return new ProfileSampler();
+    }
+
     void start() {
         long samplePeriodInMillis = profile.getProfilerParameters().getSamplePeriodInMillis();
         long durationInMillis = profile.getProfilerParameters().getDurationInMillis();
@@ -56,6 +69,7 @@ public class ProfileSession {
     }
 
     private void startMultiSample(long samplePeriodInMillis, long durationInMillis) {
+        profileSampler.start(profile.getProfilerParameters());
         ScheduledExecutorService scheduler = profilerService.getScheduledExecutorService();
         ScheduledFuture<?> handle = scheduler.scheduleWithFixedDelay(new Runnable() {
             @Override
@@ -78,6 +92,7 @@ public class ProfileSession {
             @Override
             public void run() {
                 profileHandle.get().cancel(false);
+                profileSampler.stop();
                 if (!done.getAndSet(true)) {
                     report();
                 }
@@ -158,6 +173,7 @@ public class ProfileSession {
         profilerService.getScheduledExecutorService().schedule(new Runnable() {
             @Override
             public void run() {
+                profileSampler.stop();
                 if (shouldReport) {
                     report();
                 }
@@ -13,6 +13,7 @@ import java.util.Set;
 import com.newrelic.agent.profile.ProfileData;
 import com.newrelic.agent.profile.ProfilerParameters;
 import com.newrelic.agent.profile.ThreadType;
+import com.newrelic.agent.threads.BasicThreadInfo;
 import com.newrelic.agent.util.StringMap;
 
 public interface IProfile extends ProfileData {
@@ -34,6 +35,8 @@ public interface IProfile extends ProfileData {
     
     void addStackTrace(ThreadInfo threadInfo, boolean isRunnable, ThreadType type);
 
+    void addStackTrace(BasicThreadInfo threadInfo, StackTraceElement[] stackTrace, boolean isRunnable, ThreadType type);
+
     ProfilerParameters getProfilerParameters();
 
     int getSampleCount();
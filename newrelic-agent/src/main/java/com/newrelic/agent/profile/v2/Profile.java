@@ -421,7 +421,8 @@ public class Profile implements IProfile {
         addStackTrace(new BasicThreadInfo(threadInfo), threadInfo.getStackTrace(),  runnable, type);
     }
 
-    void addStackTrace(BasicThreadInfo threadInfo, StackTraceElement[] stackTrace, boolean runnable, ThreadType type) {
+    @Override
+    public void addStackTrace(BasicThreadInfo threadInfo, StackTraceElement[] stackTrace, boolean runnable, ThreadType type) {
         if (stackTrace.length < 2) {
             return;
         }
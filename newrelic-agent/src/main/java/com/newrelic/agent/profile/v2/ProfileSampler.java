@@ -8,6 +8,7 @@
 package com.newrelic.agent.profile.v2;
 
 import com.newrelic.agent.Agent;
+import com.newrelic.agent.profile.ProfilerParameters;
 import com.newrelic.agent.profile.RunnableThreadRules;
 import com.newrelic.agent.profile.ThreadType;
 import com.newrelic.agent.service.ServiceFactory;
@@ -37,6 +38,19 @@ public class ProfileSampler {
     public ProfileSampler() {
     }
 
+    /**
+     * Called before the first sample of a session with more than one sample. Subclasses that collect samples in the
+     * background start collecting here.
+     */
+    public void start(ProfilerParameters profilerParameters) {
+    }
+
+    /**
+     * Called when a session with more than one sample ends.
+     */
+    public void stop() {
+    }
+
     public void sampleStackTraces(List<IProfile> profiles) {
         if (profiles.isEmpty()) {
             return;
@@ -57,22 +71,26 @@ public class ProfileSampler {
             if (null != threadInfo) {
                 boolean isRunnable = runnableThreadRules.isRunnable(threadInfo);
                 if (isRunnable || !profiler.getProfilerParameters().isRunnablesOnly()) {
-                    ThreadType type;
-                    long threadId = threadInfo.getThreadId();
-                    if (agentThreadIds.contains(threadId)) {
-                        type = ThreadType.BasicThreadType.AGENT;
-                    } else if (profiler.getProfilerParameters().isProfileAgentThreads()
-                            && StackTraces.isInAgentInstrumentation(threadInfo.getStackTrace())) {
-                        type = ThreadType.BasicThreadType.AGENT_INSTRUMENTATION;
-                    } else {
-                        type = ThreadType.BasicThreadType.OTHER;
-                    }
+                    ThreadType type = getThreadType(profiler, agentThreadIds, threadInfo.getThreadId(),
+                            threadInfo.getStackTrace());
                     profiler.addStackTrace(threadInfo, isRunnable, type);
                 }
             }
         }
     }
 
+    static ThreadType getThreadType(IProfile profiler, Set<Long> agentThreadIds, long threadId,
+            StackTraceElement[] stackTrace) {
+        if (agentThreadIds.contains(threadId)) {
+            return ThreadType.BasicThreadType.AGENT;
+        } else if (profiler.getProfilerParameters().isProfileAgentThreads()
+                && StackTraces.isInAgentInstrumentation(stackTrace)) {
+            return ThreadType.BasicThreadType.AGENT_INSTRUMENTATION;
+        } else {
+            return ThreadType.BasicThreadType.OTHER;
+        }
+    }
+
     private ThreadInfo[] getAllThreadInfos() {
         long[] threadIds = getAllThreadIds();
         if (threadIds == null || threadIds.length == 0) {
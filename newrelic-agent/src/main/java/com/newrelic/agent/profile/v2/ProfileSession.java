@@ -10,6 +10,7 @@ package com.newrelic.agent.profile.v2;
 import com.newrelic.agent.IgnoreSilentlyException;
 import com.newrelic.agent.TransactionData;
 import com.newrelic.agent.logging.IAgentLogger;
+import com.newrelic.agent.profile.JfrStackTraceSampler;
 import com.newrelic.agent.profile.ProfileData;
 import com.newrelic.agent.profile.ProfilerParameters;
 import com.newrelic.agent.service.ServiceFactory;
@@ -27,7 +28,7 @@ import java.util.logging.Level;
 
 public class ProfileSession {
 
-    private final ProfileSampler profileSampler = new ProfileSampler();
+    private final ProfileSampler profileSampler;
     private final IProfile profile;
     private final List<IProfile> profiles = new ArrayList<>();
     private final ProfilerService profilerService;
@@ -39,6 +40,7 @@ public class ProfileSession {
     public ProfileSession(ProfilerService profilerService, ProfilerParameters profilerParameters) {
         this.sessionId = TransactionGuidFactory.generate16CharGuid();
         this.profilerService = profilerService;
+        profileSampler = createProfileSampler(profilerParameters);
         profile = createProfile(profilerParameters);
         profile.start();
         profiles.add(profile);
@@ -48,6 +50,18 @@ public class ProfileSession {
         return new Profile(profilerParameters, sessionId, ServiceFactory.getThreadService().getThreadNameNormalizer());
     }
 
+    private ProfileSampler createProfileSampler(ProfilerParameters profilerParameters) {
+        // a single sample is taken right away, before JFR would have taken any
+        boolean singleSample = profilerParameters.getSamplePeriodInMillis().equals(profilerParameters.getDurationInMillis());
+        if (!singleSample && ServiceFactory.getConfigService().getDefaultAgentConfig().getThreadProfilerConfig().isJfrSamplingEnabled()) {
+            if (JfrStackTraceSampler.isSupported()) {
+                return new JfrProfileSampler();
+            }
+            getLogger().info("JFR sampling is enabled for the thread profiler, but this JVM does not support JFR event streaming");
+        }
+        return new ProfileSampler();
+    }
+
     void start() {
         long samplePeriodInMillis = profile.getProfilerParameters().getSamplePeriodInMillis();
         long durationInMillis = profile.getProfilerParameters().getDurationInMillis();
@@ -63,6 +77,7 @@ public class ProfileSession {
     }
 
     private void startMultiSample(long samplePeriodInMillis, long durationInMillis) {
+        profileSampler.start(profile.getProfilerParameters());
         ScheduledExecutorService scheduler = profilerService.getScheduledExecutorService();
         ScheduledFuture<?> handle = scheduler.scheduleWithFixedDelay(new Runnable() {
             @Override public void run() {
@@ -84,6 +99,7 @@ public class ProfileSession {
             @Override
             public void run() {
                 profileHandle.get().cancel(false);
+                profileSampler.stop();
                 if (!done.getAndSet(true)) {
                     report();
                 }
@@ -164,6 +180,7 @@ public class ProfileSession {
         profilerService.getScheduledExecutorService().schedule(new Runnable() {
             @Override
             public void run() {
+                profileSampler.stop();
                 if (shouldReport) {
                     report();
                 }
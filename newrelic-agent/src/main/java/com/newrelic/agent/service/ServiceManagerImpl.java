@@ -247,7 +247,7 @@ public class ServiceManagerImpl extends AbstractService implements ServiceManage
 
         rpmServiceManager = new RPMServiceManagerImpl(agentConnectionEstablishedListener, jarCollectorConnectionListener, jfrServiceConnectionListener);
         normalizationService = new NormalizationServiceImpl();
-        harvestService = new HarvestServiceImpl();
+        harvestService = new HarvestServiceImpl(config.getUploadConnections());
         gcService = realAgent ? new GCService() : new NoopService("GC Service");
         transactionTraceService = new TransactionTraceService();
         transactionEventsService = new TransactionEventsService(transactionDataToDistributedTraceIntrinsics);
@@ -332,6 +332,11 @@ public class ServiceManagerImpl extends AbstractService implements ServiceManage
                 .flakyPercentage(config.getFlakyPercentage())
                 .flakyCode(config.getFlakyCode())
                 .usePlaintext(config.getUsePlaintext())
+                .useBatching(config.getUseBatching())
+                .batchSize(config.getSpanEventsBatchSize())
+                .lingerMs(config.getSpanEventsLingerMs())
+                .overflowBufferBytes(config.getSpanEventsOverflowBufferBytes())
+                .streams(config.getSpanEventsStreams())
                 .build();
 
         return InfiniteTracing.initialize(infiniteTracingConfig, NewRelic.getAgent().getMetricAggregator());
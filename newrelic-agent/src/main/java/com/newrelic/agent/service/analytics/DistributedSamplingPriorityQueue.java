@@ -8,7 +8,6 @@
 package com.newrelic.agent.service.analytics;
 
 import com.google.common.collect.MinMaxPriorityQueue;
-import com.google.common.collect.Queues;
 import com.newrelic.agent.interfaces.SamplingPriorityQueue;
 import com.newrelic.agent.model.PriorityAware;
 import com.newrelic.agent.tracing.DistributedTraceUtil;
@@ -16,11 +15,33 @@ import com.newrelic.agent.tracing.DistributedTraceUtil;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * A reservoir that keeps the {@code reservoirSize} elements that sort first by the comparator, which must order by
+ * descending priority first.
+ *
+ * To keep producers from contending on a single lock, elements are first buffered in stripes, each with its own lock. A
+ * thread always adds to the same stripe. When a stripe fills up its elements are moved in one batch into a shared heap
+ * bounded to {@code reservoirSize}, which evicts everything but the top elements. The stripes together hold at most an
+ * eighth of the reservoir size, so the reservoir never holds much more than {@code reservoirSize} elements. Reads move
+ * the remaining buffered elements into the shared heap first.
+ *
+ * Once the shared heap is full, no element with a lower priority than the lowest one in it can be among the top
+ * elements of the reservoir. That priority is published as a threshold below which elements are rejected without
+ * taking a lock.
+ */
 public class DistributedSamplingPriorityQueue<E extends PriorityAware> implements SamplingPriorityQueue<E> {
 
+    private static final int MAX_STRIPES = 8;
+    private static final int STRIPE_FRACTION = 8;
+    private static final int NO_THRESHOLD = Float.floatToIntBits(Float.NEGATIVE_INFINITY);
+
     private final String appName;
     private final String serviceName;
-    private final Queue<E> data;
+    private final MinMaxPriorityQueue<E> reservoir;
+    private final List<E>[] stripes;
+    private final int stripeMask;
+    private final int stripeCapacity;
+    private final AtomicInteger threshold = new AtomicInteger(NO_THRESHOLD);
     private final AtomicInteger numberOfTries = new AtomicInteger();
     private final AtomicInteger recorded;
     // the number of times the decider was used on an event on this application. That meaning, the number of
@@ -61,7 +82,10 @@ public class DistributedSamplingPriorityQueue<E extends PriorityAware> implement
                 return Float.compare(right.getPriority(), left.getPriority());
             }
         } : comparator;
-        this.data = createQueue(reservoirSize, this.comparator);
+        this.reservoir = reservoirSize <= 0 ? null : MinMaxPriorityQueue.orderedBy(this.comparator).maximumSize(reservoirSize).create();
+        this.stripes = createStripes(reservoirSize);
+        this.stripeMask = stripes.length - 1;
+        this.stripeCapacity = stripes.length == 0 ? 0 : Math.max(1, reservoirSize / (STRIPE_FRACTION * stripes.length));
         this.recorded = new AtomicInteger(0);
         this.decidedLast = decidedLast;
         this.target = target;
@@ -69,23 +93,21 @@ public class DistributedSamplingPriorityQueue<E extends PriorityAware> implement
         this.maximumSize = reservoirSize;
     }
 
-    private Queue<E> createQueue(int reservoirSize, Comparator<E> comparator) {
+    @SuppressWarnings("unchecked")
+    private static <E> List<E>[] createStripes(int reservoirSize) {
         if (reservoirSize <= 0) {
-            return new NoOpQueue<>();
-        } else {
-            return Queues.synchronizedQueue(MinMaxPriorityQueue
-                    .orderedBy(comparator)
-                    .maximumSize(reservoirSize)
-                    .create());
+            return new List[0];
+        }
+        int stripeCount = Math.min(Integer.highestOneBit(Runtime.getRuntime().availableProcessors()), MAX_STRIPES);
+        List<E>[] stripes = new List[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ArrayList<>();
         }
+        return stripes;
     }
 
     public void retryAll(DistributedSamplingPriorityQueue<E> source) {
-        synchronized (source.data) {
-            for (E element : source.data) {
-                add(element);
-            }
-        }
+        retryAll((SamplingPriorityQueue<E>) source);
     }
 
     @Override
@@ -97,12 +119,19 @@ public class DistributedSamplingPriorityQueue<E extends PriorityAware> implement
 
     @Override
     public boolean isFull() {
-        return data.size() == maximumSize;
+        return threshold.get() != NO_THRESHOLD || size() == maximumSize;
     }
 
     @Override
     public float getMinPriority() {
-        return data.isEmpty() ? 0.0f : data.peek().getPriority();
+        // answered from the published threshold so that callers checking every element don't merge the stripes
+        int current = threshold.get();
+        return current == NO_THRESHOLD ? 0.0f : Float.intBitsToFloat(current);
+    }
+
+    @Override
+    public float getAdmissionThreshold() {
+        return maximumSize <= 0 ? Float.POSITIVE_INFINITY : Float.intBitsToFloat(threshold.get());
     }
 
     @Override
@@ -118,7 +147,27 @@ public class DistributedSamplingPriorityQueue<E extends PriorityAware> implement
     @Override
     public boolean add(E element) {
         incrementNumberOfTries();
-        boolean added = data.offer(element);
+        if (element.getPriority() < getAdmissionThreshold()) {
+            return false;
+        }
+
+        boolean added = true;
+        List<E> stripe = stripes[(int) Thread.currentThread().getId() & stripeMask];
+        synchronized (stripe) {
+            stripe.add(element);
+            if (stripe.size() >= stripeCapacity) {
+                synchronized (reservoir) {
+                    if (stripe.size() == 1) {
+                        added = reservoir.offer(element);
+                    } else {
+                        reservoir.addAll(stripe);
+                    }
+                    publishThreshold();
+                }
+                stripe.clear();
+            }
+        }
+
         if (added && element.decider()) {
             decided.incrementAndGet();
             if (DistributedTraceUtil.isSampledPriority(element.getPriority())) {
@@ -128,21 +177,71 @@ public class DistributedSamplingPriorityQueue<E extends PriorityAware> implement
         return added;
     }
 
+    // must hold the reservoir lock
+    private void publishThreshold() {
+        if (reservoir.size() == maximumSize) {
+            threshold.set(Float.floatToIntBits(reservoir.peekLast().getPriority()));
+        }
+    }
+
+    /**
+     * Moves the buffered elements of all stripes into the shared heap, which evicts everything but the top elements.
+     * Stripe locks are always taken before the reservoir lock.
+     *
+     * @return the shared heap, or null if this reservoir doesn't hold elements
+     */
+    private MinMaxPriorityQueue<E> mergeStripes() {
+        if (reservoir == null) {
+            return null;
+        }
+        for (List<E> stripe : stripes) {
+            synchronized (stripe) {
+                if (stripe.isEmpty()) {
+                    continue;
+                }
+                synchronized (reservoir) {
+                    reservoir.addAll(stripe);
+                    publishThreshold();
+                }
+                stripe.clear();
+            }
+        }
+        return reservoir;
+    }
+
     @Override
     public E peek() {
-        return data.peek();
+        MinMaxPriorityQueue<E> merged = mergeStripes();
+        if (merged == null) {
+            return null;
+        }
+        synchronized (merged) {
+            return merged.peek();
+        }
     }
 
     @Override
     public E poll() {
-        return data.poll();
+        MinMaxPriorityQueue<E> merged = mergeStripes();
+        if (merged == null) {
+            return null;
+        }
+        synchronized (merged) {
+            // the reservoir has room again, so the threshold no longer holds
+            threshold.set(NO_THRESHOLD);
+            return merged.poll();
+        }
     }
 
     @Override
     public List<E> asList() {
+        MinMaxPriorityQueue<E> merged = mergeStripes();
+        if (merged == null) {
+            return new ArrayList<>();
+        }
         List<E> elements;
-        synchronized (data) {
-            elements = new ArrayList<>(data);
+        synchronized (merged) {
+            elements = new ArrayList<>(merged);
         }
         Collections.sort(elements, this.comparator);
         return elements;
@@ -180,116 +279,34 @@ public class DistributedSamplingPriorityQueue<E extends PriorityAware> implement
 
     @Override
     public int size() {
-        return data.size();
-    }
-
-    @Override
-    public void clear() {
-        data.clear();
-    }
-
-    private static final class NoOpQueue<E extends PriorityAware> implements Queue<E> {
-        @Override
-        public boolean add(E e) {
-            return false;
-        }
-
-        @Override
-        public boolean offer(E e) {
-            return false;
-        }
-
-        @Override
-        public E remove() {
-            return null;
-        }
-
-        @Override
-        public E poll() {
-            return null;
-        }
-
-        @Override
-        public E element() {
-            return null;
-        }
-
-        @Override
-        public E peek() {
-            return null;
-        }
-
-        @Override
-        public int size() {
+        if (reservoir == null) {
             return 0;
         }
-
-        @Override
-        public boolean isEmpty() {
-            return true;
-        }
-
-        @Override
-        public boolean contains(Object o) {
-            return false;
-        }
-
-        @Override
-        public Iterator<E> iterator() {
-            return new Iterator<E>() {
-                @Override
-                public boolean hasNext() {
-                    return false;
-                }
-
-                @Override
-                public void remove() {
-                }
-
-                @Override
-                public E next() {
-                    return null;
-                }
-            };
-        }
-
-        @Override
-        public Object[] toArray() {
-            return new Object[0];
-        }
-
-        @Override
-        public <T> T[] toArray(T[] a) {
-            return null;
-        }
-
-        @Override
-        public boolean remove(Object o) {
-            return false;
-        }
-
-        @Override
-        public boolean containsAll(Collection<?> c) {
-            return false;
-        }
-
-        @Override
-        public boolean addAll(Collection<? extends E> c) {
-            return false;
+        int size = 0;
+        for (List<E> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
         }
-
-        @Override
-        public boolean removeAll(Collection<?> c) {
-            return false;
+        synchronized (reservoir) {
+            size += reservoir.size();
         }
+        return Math.min(size, maximumSize);
+    }
 
-        @Override
-        public boolean retainAll(Collection<?> c) {
-            return false;
+    @Override
+    public void clear() {
+        for (List<E> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
         }
-
-        @Override
-        public void clear() {
+        if (reservoir != null) {
+            synchronized (reservoir) {
+                reservoir.clear();
+            }
         }
+        threshold.set(NO_THRESHOLD);
     }
+
 }
@@ -79,7 +79,7 @@ public class ErrorEventFactory {
     }
 
     private static boolean metricExists(TransactionStats transactionStats, String metricName) {
-        return transactionStats.getUnscopedStats().getStatsMap().containsKey(metricName);
+        return transactionStats.getUnscopedStats().containsMetric(metricName);
     }
 
     private static ResponseTimeStats getMetric(TransactionStats transactionStats, String metricName) {
@@ -231,7 +231,13 @@ public class InsightsServiceImpl extends AbstractService implements InsightsServ
         }
 
         DistributedSamplingPriorityQueue<CustomInsightsEvent> eventList = getReservoir(appName);
-        eventList.add(createValidatedEvent(eventType, attributes));
+        float priority = DistributedTraceServiceImpl.nextTruncatedFloat();
+        if (priority < eventList.getAdmissionThreshold()) {
+            // The reservoir is full and this event wouldn't make it in, so lets prevent some object allocations
+            eventList.incrementNumberOfTries();
+            return;
+        }
+        eventList.add(createValidatedEvent(eventType, attributes, priority));
         Agent.LOG.finest(MessageFormat.format("Added Custom Event of type {0}", eventType));
     }
 
@@ -365,8 +371,12 @@ public class InsightsServiceImpl extends AbstractService implements InsightsServ
     }
 
     private static CustomInsightsEvent createValidatedEvent(String eventType, Map<String, ?> attributes) {
+        return createValidatedEvent(eventType, attributes, DistributedTraceServiceImpl.nextTruncatedFloat());
+    }
+
+    private static CustomInsightsEvent createValidatedEvent(String eventType, Map<String, ?> attributes, float priority) {
         Map<String, Object> userAttributes = new HashMap<>(attributes.size());
-        CustomInsightsEvent event = new CustomInsightsEvent(mapInternString(eventType), System.currentTimeMillis(), userAttributes, DistributedTraceServiceImpl.nextTruncatedFloat());
+        CustomInsightsEvent event = new CustomInsightsEvent(mapInternString(eventType), System.currentTimeMillis(), userAttributes, priority);
 
         // Now add the attributes from the argument map to the event using an AttributeSender.
         // An AttributeSender is the way to reuse all the existing attribute validations. We
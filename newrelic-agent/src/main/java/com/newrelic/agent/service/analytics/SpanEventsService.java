@@ -7,9 +7,11 @@
 
 package com.newrelic.agent.service.analytics;
 
+import com.newrelic.agent.TransactionActivity;
 import com.newrelic.agent.interfaces.SamplingPriorityQueue;
 import com.newrelic.agent.model.SpanEvent;
 import com.newrelic.agent.service.EventService;
+import com.newrelic.agent.tracers.Tracer;
 
 public interface SpanEventsService extends EventService {
 
@@ -18,4 +20,10 @@ public interface SpanEventsService extends EventService {
     void addHarvestableToService(String appName);
 
     SamplingPriorityQueue<SpanEvent> getOrCreateDistributedSamplingReservoir(String appName);
+
+    /**
+     * Called when a transaction segment tracer that is not the root of its activity finishes, if
+     * {@code span_events.build_on_tracer_finish} is set.
+     */
+    void tracerFinished(TransactionActivity activity, Tracer tracer);
 }
@@ -10,6 +10,8 @@ package com.newrelic.agent.service.analytics;
 import com.newrelic.agent.Agent;
 import com.newrelic.agent.Harvestable;
 import com.newrelic.agent.MetricNames;
+import com.newrelic.agent.Transaction;
+import com.newrelic.agent.TransactionActivity;
 import com.newrelic.agent.TransactionData;
 import com.newrelic.agent.TransactionListener;
 import com.newrelic.agent.config.AgentConfig;
@@ -69,43 +71,86 @@ public class SpanEventsServiceImpl extends AbstractService implements AgentConfi
         // If this transaction is sampled and span events are enabled we should generate all of the transaction segment events
         if (isSpanEventsEnabled() && spanEventCreationDecider.shouldCreateSpans(transactionData)) {
             // This is where all Transaction Segment Spans gets created. To only send specific types of Span Events, handle that here.
+            TracerToSpanEvent.TransactionSpanContext context;
+            try {
+                context = tracerToSpanEvent.createTransactionSpanContext(transactionData);
+            } catch (Throwable t) {
+                Agent.LOG.log(Level.FINER, t, "An error occurred creating span events for tx: {0}", transactionData);
+                return;
+            }
+            boolean crossProcessOnly = spanEventsConfig.isCrossProcessOnly();
+
             Tracer rootTracer = transactionData.getRootTracer();
-            storeSafely(transactionData, rootTracer, true, transactionStats);
+            storeSafely(transactionData, context, rootTracer, true, crossProcessOnly, transactionStats);
 
             Collection<Tracer> tracers = transactionData.getTracers();
             for (Tracer tracer : tracers) {
                 if (tracer.isTransactionSegment()) {
-                    storeSafely(transactionData, tracer, false, transactionStats);
+                    storeSafely(transactionData, context, tracer, false, crossProcessOnly, transactionStats);
                 }
             }
         }
     }
 
-    private void storeSafely(TransactionData transactionData, Tracer rootTracer, boolean isRoot, TransactionStats transactionStats) {
+    @Override
+    public void tracerFinished(TransactionActivity activity, Tracer tracer) {
+        if (!isSpanEventsEnabled() || !spanEventsConfig.isBuildOnTracerFinish()) {
+            return;
+        }
+        Transaction transaction = activity.getTransaction();
+        // the sampling decision can still change, the span event is created from scratch if the transaction is sampled later
+        if (transaction == null || !transaction.sampled()) {
+            return;
+        }
+        if (spanEventsConfig.isCrossProcessOnly() && !isCrossProcessTracer(tracer)) {
+            return;
+        }
+        try {
+            String appName = transaction.getApplicationName();
+            if (transaction.getPriority() < getOrCreateDistributedSamplingReservoir(appName).getAdmissionThreshold()) {
+                return;
+            }
+            activity.addFinishedSpan(tracer, tracerToSpanEvent.createTracerSpan(tracer, appName));
+        } catch (Throwable t) {
+            Agent.LOG.log(Level.FINER, t, "An error occurred creating span event for finished tracer: {0}", tracer);
+        }
+    }
+
+    private void storeSafely(TransactionData transactionData, TracerToSpanEvent.TransactionSpanContext context, Tracer tracer, boolean isRoot,
+            boolean crossProcessOnly, TransactionStats transactionStats) {
         try {
-            createAndStoreSpanEvent(rootTracer, transactionData, isRoot, transactionStats);
+            createAndStoreSpanEvent(tracer, transactionData, context, isRoot, crossProcessOnly, transactionStats);
         } catch (Throwable t) {
-            Agent.LOG.log(Level.FINER, t, "An error occurred creating span event for tracer: {0} in tx: {1}", rootTracer, transactionData);
+            Agent.LOG.log(Level.FINER, t, "An error occurred creating span event for tracer: {0} in tx: {1}", tracer, transactionData);
         }
     }
 
-    private void createAndStoreSpanEvent(Tracer tracer, TransactionData transactionData, boolean isRoot,
-            TransactionStats transactionStats) {
-        boolean crossProcessOnly = spanEventsConfig.isCrossProcessOnly();
+    private void createAndStoreSpanEvent(Tracer tracer, TransactionData transactionData, TracerToSpanEvent.TransactionSpanContext context,
+            boolean isRoot, boolean crossProcessOnly, TransactionStats transactionStats) {
         if (crossProcessOnly && !isCrossProcessTracer(tracer)) {
             // We are in "cross_process_only" mode and we have a non datastore/external tracer. Return before we create anything.
             return;
         }
 
-        String appName = transactionData.getApplicationName();
-        SamplingPriorityQueue<SpanEvent> reservoir = getOrCreateDistributedSamplingReservoir(appName);
-        if (reservoir.isFull() && reservoir.getMinPriority() >= transactionData.getPriority()) {
+        // the reservoir is looked up for every span because a harvest can replace it while the spans are created
+        SamplingPriorityQueue<SpanEvent> reservoir = getOrCreateDistributedSamplingReservoir(context.getAppName());
+        if (transactionData.getPriority() < reservoir.getAdmissionThreshold()) {
             // The reservoir is full and this event wouldn't make it in, so lets prevent some object allocations
             reservoir.incrementNumberOfTries();
             return;
         }
 
-        SpanEvent spanEvent = tracerToSpanEvent.createSpanEvent(tracer, transactionData, transactionStats, isRoot, crossProcessOnly);
+        SpanEvent spanEvent = null;
+        TracerToSpanEvent.TracerSpan span = null;
+        if (!isRoot && spanEventsConfig.isBuildOnTracerFinish() && tracer.getTransactionActivity() != null) {
+            span = tracer.getTransactionActivity().getFinishedSpan(tracer);
+        }
+        if (span != null) {
+            spanEvent = tracerToSpanEvent.createSpanEvent(span, transactionData, context, crossProcessOnly);
+        }
+        if (spanEvent == null) {
+            spanEvent = tracerToSpanEvent.createSpanEvent(tracer, transactionData, context, transactionStats, isRoot, crossProcessOnly);
+        }
         storeEvent(spanEvent);
     }
 
@@ -29,6 +29,7 @@ import com.newrelic.agent.util.TimeConversion;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 import static com.newrelic.agent.MetricNames.QUEUE_TIME;
@@ -48,6 +49,12 @@ public class TracerToSpanEvent {
             // Distributed Tracing intrinsics that we want on the transaction but not spans.
             "parentSpanId", "priority", "sampled", "guid", "traceId"
     ));
+    private static final Predicate<String> WANTED_SPAN_ATTRIBUTE = new Predicate<String>() {
+        @Override
+        public boolean apply(String key) {
+            return !UNWANTED_SPAN_ATTRIBUTES.contains(key);
+        }
+    };
     private final Map<String, SpanErrorBuilder> errorBuilderForApp;
     private final AttributeFilter filter;
     private final Supplier<Long> timestampSupplier;
@@ -79,35 +86,22 @@ public class TracerToSpanEvent {
 
     public SpanEvent createSpanEvent(Tracer tracer, TransactionData transactionData, TransactionStats transactionStats, boolean isRoot,
             boolean crossProcessOnly) {
-        SpanProxy spanProxy = transactionData.getSpanProxy();
-        DistributedTracePayloadImpl inboundPayload = spanProxy.getInboundDistributedTracePayload();
-
-        SpanEventFactory builder = new SpanEventFactory(transactionData.getApplicationName(), filter, timestampSupplier)
-                .setGuid(tracer.getGuid())
-                .setClmAttributes(tracer.getAgentAttributes())
-                .setTraceId(spanProxy.getOrCreateTraceId())
-                .setSampled(transactionData.sampled())
-                .setParentId(getParentId(tracer, transactionData, crossProcessOnly))
-                .setTransactionId(transactionData.getGuid())
-                .setDurationInSeconds((float) tracer.getDuration() / TimeConversion.NANOSECONDS_PER_SECOND)
-                .setName(tracer.getTransactionSegmentName())
-                .setTimestamp(tracer.getStartTimeInMillis())
-                .setPriority(transactionData.getPriority())
-                .setExternalParameterAttributes(tracer.getExternalParameters())
-                .setIsRootSpanEvent(isRoot)
-                .setDecider(inboundPayload == null || inboundPayload.priority == null);
+        return createSpanEvent(tracer, transactionData, createTransactionSpanContext(transactionData), transactionStats, isRoot,
+                crossProcessOnly);
+    }
 
-        builder = maybeSetError(tracer, transactionData, isRoot, builder);
-        builder = maybeSetGraphQLAttributes(tracer, builder);
+    /**
+     * Computes the parts of the span events of a transaction that are the same for every span. Create it once the
+     * transaction has finished and use it for all of its spans.
+     */
+    public TransactionSpanContext createTransactionSpanContext(TransactionData transactionData) {
+        return new TransactionSpanContext(transactionData, getSpanErrorBuilder(transactionData));
+    }
 
-        W3CTraceState traceState = spanProxy.getInitiatingW3CTraceState();
-        if (traceState != null) {
-            if (isRoot && traceState.getGuid() != null) {
-                builder.setTrustedParent(traceState.getGuid());
-            }
-            Set<String> vendorKeys = W3CTraceStateSupport.buildVendorKeys(traceState);
-            builder.setTracingVendors(vendorKeys);
-        }
+    public SpanEvent createSpanEvent(Tracer tracer, TransactionData transactionData, TransactionSpanContext context,
+            TransactionStats transactionStats, boolean isRoot, boolean crossProcessOnly) {
+        SpanEventFactory builder = createTracerPart(tracer, context.appName, isRoot);
+        builder = stampTransactionPart(builder, tracer, transactionData, context, getParentId(tracer, context, crossProcessOnly), isRoot);
 
         LimitedSizeHashMap<String, Object> spanUserAttributes = new LimitedSizeHashMap<>(MAX_USER_ATTRIBUTES);
 
@@ -124,6 +118,71 @@ public class TracerToSpanEvent {
         return builder.build();
     }
 
+    /**
+     * Builds the parts of the span event of a finished tracer that don't depend on the rest of the transaction. The span
+     * event is completed with {@link #createSpanEvent(TracerSpan, TransactionData, TransactionSpanContext, boolean)}
+     * once the transaction has finished. Not for the root span, which carries the transaction's attributes.
+     *
+     * @param appName the application name of the transaction when the tracer finished
+     */
+    public TracerSpan createTracerSpan(Tracer tracer, String appName) {
+        SpanEventFactory builder = createTracerPart(tracer, appName, false);
+        LimitedSizeHashMap<String, Object> spanUserAttributes = new LimitedSizeHashMap<>(MAX_USER_ATTRIBUTES);
+        spanUserAttributes.putAll(tracer.getCustomAttributes());
+        builder.putAllUserAttributes(spanUserAttributes);
+
+        Tracer parentSegment = AbstractTracer.getParentTracerWithSpan(tracer.getParentTracer());
+        return new TracerSpan(tracer, appName, builder, parentSegment == null ? null : parentSegment.getGuid());
+    }
+
+    /**
+     * Completes a span event started by {@link #createTracerSpan(Tracer, String)} with the fields of the finished
+     * transaction, or returns <code>null</code> if the transaction's application name changed since and the span event has
+     * to be created from scratch.
+     */
+    public SpanEvent createSpanEvent(TracerSpan span, TransactionData transactionData, TransactionSpanContext context,
+            boolean crossProcessOnly) {
+        if (!Objects.equals(span.appName, context.appName)) {
+            return null;
+        }
+        // same parent as getParentId, but with the parent tracer looked up when the tracer finished
+        String parentId = crossProcessOnly ? null : span.parentSpanId != null ? span.parentSpanId : context.inboundParentId;
+        return stampTransactionPart(span.builder, span.tracer, transactionData, context, parentId, false).build();
+    }
+
+    private SpanEventFactory createTracerPart(Tracer tracer, String appName, boolean isRoot) {
+        SpanEventFactory builder = new SpanEventFactory(appName, filter, timestampSupplier)
+                .setGuid(tracer.getGuid())
+                .setClmAttributes(tracer.getAgentAttributes())
+                .setDurationInSeconds((float) tracer.getDuration() / TimeConversion.NANOSECONDS_PER_SECOND)
+                .setName(tracer.getTransactionSegmentName())
+                .setTimestamp(tracer.getStartTimeInMillis())
+                .setExternalParameterAttributes(tracer.getExternalParameters())
+                .setIsRootSpanEvent(isRoot);
+        return maybeSetGraphQLAttributes(tracer, builder);
+    }
+
+    private SpanEventFactory stampTransactionPart(SpanEventFactory builder, Tracer tracer, TransactionData transactionData,
+            TransactionSpanContext context, String parentId, boolean isRoot) {
+        builder.setTraceId(context.traceId)
+                .setSampled(context.sampled)
+                .setParentId(parentId)
+                .setTransactionId(context.transactionId)
+                .setPriority(context.priority)
+                .setDecider(context.decider);
+
+        // errors depend on the transaction's status and throwable, which are only final once it has finished
+        builder = maybeSetError(tracer, transactionData, context.spanErrorBuilder, isRoot, builder);
+
+        if (context.tracingVendors != null) {
+            if (isRoot && context.trustedParentId != null) {
+                builder.setTrustedParent(context.trustedParentId);
+            }
+            builder.setTracingVendors(context.tracingVendors);
+        }
+        return builder;
+    }
+
     private SpanEventFactory maybeSetGraphQLAttributes(Tracer tracer, SpanEventFactory builder) {
         Map<String, Object> agentAttributes = tracer.getAgentAttributes();
         boolean containsGraphQLAttributes = agentAttributes.keySet().stream().anyMatch(key -> key.contains("graphql"));
@@ -135,10 +194,13 @@ public class TracerToSpanEvent {
         return builder;
     }
 
-    private SpanEventFactory maybeSetError(Tracer tracer, TransactionData transactionData, boolean isRoot, SpanEventFactory builder) {
+    private SpanErrorBuilder getSpanErrorBuilder(TransactionData transactionData) {
         SpanErrorBuilder spanErrorBuilder = errorBuilderForApp.get(transactionData.getApplicationName());
-        spanErrorBuilder = spanErrorBuilder == null ? defaultSpanErrorBuilder : spanErrorBuilder;
+        return spanErrorBuilder == null ? defaultSpanErrorBuilder : spanErrorBuilder;
+    }
 
+    private SpanEventFactory maybeSetError(Tracer tracer, TransactionData transactionData, SpanErrorBuilder spanErrorBuilder, boolean isRoot,
+            SpanEventFactory builder) {
         if (spanErrorBuilder.areErrorsEnabled()) {
             final SpanError spanError = spanErrorBuilder.buildSpanError(
                     tracer,
@@ -157,7 +219,7 @@ public class TracerToSpanEvent {
         builder.putIntrinsicAttribute("transaction.name", transactionData.getPriorityTransactionName().getName());
         Integer port = environmentService.getEnvironment().getAgentIdentity().getServerPort();
         builder.putAgentAttribute("port", port);
-        if (transactionStats.getUnscopedStats().getStatsMap().containsKey(QUEUE_TIME)) {
+        if (transactionStats.getUnscopedStats().containsMetric(QUEUE_TIME)) {
             builder.putAgentAttribute(QUEUE_DURATION, transactionStats.getUnscopedStats().getOrCreateResponseTimeStats(QUEUE_TIME).getTotal());
         }
 
@@ -199,15 +261,10 @@ public class TracerToSpanEvent {
     }
 
     private Map<String, ?> filterAttributes(Map<String, ?> intrinsicAttributes) {
-        return Maps.filterKeys(intrinsicAttributes, new Predicate<String>() {
-            @Override
-            public boolean apply(String key) {
-                return !UNWANTED_SPAN_ATTRIBUTES.contains(key);
-            }
-        });
+        return Maps.filterKeys(intrinsicAttributes, WANTED_SPAN_ATTRIBUTE);
     }
 
-    private String getParentId(Tracer tracer, TransactionData transactionData, boolean crossProcessOnly) {
+    private String getParentId(Tracer tracer, TransactionSpanContext context, boolean crossProcessOnly) {
         if (crossProcessOnly) {
             // Cross process only uses transactionId for parenting instead of the parentId attribute so we do not have a parentId here
             return null;
@@ -220,7 +277,10 @@ public class TracerToSpanEvent {
         if (parentSegment != null) {
             return parentSegment.getGuid();
         }
+        return context.inboundParentId;
+    }
 
+    private static String getInboundParentId(TransactionData transactionData) {
         DistributedTracePayloadImpl inboundPayload = transactionData.getInboundDistributedTracePayload();
         if (inboundPayload != null) {
             // If we have an inbound payload we can use the id from the payload since it should be the id of the span that initiated this trace
@@ -233,4 +293,61 @@ public class TracerToSpanEvent {
 
         return null;
     }
+
+    /**
+     * The part of a span event that was built when its tracer finished, waiting for the transaction to finish.
+     */
+    public static final class TracerSpan {
+        private final Tracer tracer;
+        private final String appName;
+        private final SpanEventFactory builder;
+        // null if the parent is the span that called this transaction
+        private final String parentSpanId;
+
+        private TracerSpan(Tracer tracer, String appName, SpanEventFactory builder, String parentSpanId) {
+            this.tracer = tracer;
+            this.appName = appName;
+            this.builder = builder;
+            this.parentSpanId = parentSpanId;
+        }
+    }
+
+    /**
+     * The parts of a span event that are the same for every span of a transaction.
+     */
+    public static final class TransactionSpanContext {
+        private final String appName;
+        private final String traceId;
+        private final String transactionId;
+        private final boolean sampled;
+        private final float priority;
+        private final boolean decider;
+        // the id of the span that called this transaction, the parent of spans that don't have a parent tracer
+        private final String inboundParentId;
+        // null if there is no initiating w3c trace state
+        private final Set<String> tracingVendors;
+        private final String trustedParentId;
+        private final SpanErrorBuilder spanErrorBuilder;
+
+        private TransactionSpanContext(TransactionData transactionData, SpanErrorBuilder spanErrorBuilder) {
+            SpanProxy spanProxy = transactionData.getSpanProxy();
+            DistributedTracePayloadImpl inboundPayload = spanProxy.getInboundDistributedTracePayload();
+            W3CTraceState traceState = spanProxy.getInitiatingW3CTraceState();
+
+            this.appName = transactionData.getApplicationName();
+            this.traceId = spanProxy.getOrCreateTraceId();
+            this.transactionId = transactionData.getGuid();
+            this.sampled = transactionData.sampled();
+            this.priority = transactionData.getPriority();
+            this.decider = inboundPayload == null || inboundPayload.priority == null;
+            this.inboundParentId = getInboundParentId(transactionData);
+            this.tracingVendors = traceState == null ? null : W3CTraceStateSupport.buildVendorKeys(traceState);
+            this.trustedParentId = traceState == null ? null : traceState.getGuid();
+            this.spanErrorBuilder = spanErrorBuilder;
+        }
+
+        public String getAppName() {
+            return appName;
+        }
+    }
 }
@@ -456,7 +456,7 @@ public class TransactionEventsService extends AbstractService implements EventSe
     }
 
     private static CountStats retrieveMetricIfExists(TransactionStats transactionStats, String metricName) {
-        if (!transactionStats.getUnscopedStats().getStatsMap().containsKey(metricName)) {
+        if (!transactionStats.getUnscopedStats().containsMetric(metricName)) {
             return NoCallCountStats.NO_STATS;
         }
         return transactionStats.getUnscopedStats().getOrCreateResponseTimeStats(metricName);
@@ -7,10 +7,6 @@
 
 package com.newrelic.agent.service.async;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
-import com.github.benmanes.caffeine.cache.RemovalCause;
-import com.github.benmanes.caffeine.cache.RemovalListener;
 import com.newrelic.agent.Agent;
 import com.newrelic.agent.HarvestListener;
 import com.newrelic.agent.Transaction;
@@ -19,17 +15,21 @@ import com.newrelic.agent.service.AbstractService;
 import com.newrelic.agent.service.ServiceFactory;
 import com.newrelic.agent.stats.StatsEngine;
 import com.newrelic.agent.util.TimeConversion;
+import com.newrelic.agent.util.TimingWheel;
 import com.newrelic.api.agent.Token;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 /**
  * Stores pending async transactions. Responsible for timing out old async keys.
  *
- * Most of this logic used to be in the Transaction. However, it was extracted to take advantage of the harvest thread
- * to timeout async transaction keys. Previously the timeout was occurring during extractIfPresent and putIfAbsent. This
- * caused a deadlock between the transaction lock and the pendingActivities lock.
+ * Most of this logic used to be in the Transaction. However, it was extracted so that async transaction keys are timed
+ * out on another thread. Previously the timeout was occurring during extractIfPresent and putIfAbsent. This caused a
+ * deadlock between the transaction lock and the pendingActivities lock. Keys are now timed out on the token timing
+ * wheel of the ExpirationService.
  *
  * This class supports the legacy register and start API. The register and start should no longer be used. Instead
  * please use getToken and link.
@@ -38,50 +38,59 @@ import java.util.logging.Level;
  */
 public class AsyncTransactionService extends AbstractService implements HarvestListener {
 
+    /*
+     * Async registrations JVM-wide are recorded here. References to this object must be locked by locking the object
+     * itself. This lock is "inner" to the instance lock, i.e. caller should always hold the instance lock before
+     * locking this collection.
+     */
+    private static final ConcurrentMap<Object, PendingActivity> PENDING_ACTIVITIES = new ConcurrentHashMap<>();
+
+    private final long timeOutMilli;
+
     public AsyncTransactionService() {
         super(AsyncTransactionService.class.getSimpleName());
-        PENDING_ACTIVITIES.invalidateAll(); // Clean up pending activities for tests
+        PENDING_ACTIVITIES.clear(); // Clean up pending activities for tests
+
+        // default set to 3 minutes (180), must match the behavior in TimedTokenSet with same timeout
+        long timeoutSec = ServiceFactory.getConfigService().getDefaultAgentConfig().getTokenTimeoutInSec();
+        timeOutMilli = TimeConversion.convertToMilliWithLowerBound(timeoutSec, TimeUnit.SECONDS, 250L);
     }
 
-    private static final RemovalListener<Object, Token> removalListener = new RemovalListener<Object, Token>() {
+    /**
+     * A registered async context key. The key times out on the token timing wheel of the ExpirationService.
+     */
+    private static final class PendingActivity implements Runnable {
+
+        private final Object key;
+        private final Token token;
+        private volatile TimingWheel.Timeout timeout;
+
+        PendingActivity(Object key, Token token) {
+            this.key = key;
+            this.token = token;
+        }
+
         @Override
-        public void onRemoval(Object key, Token transaction, RemovalCause cause) {
-            if (cause == RemovalCause.EXPLICIT) {
-                Agent.LOG.log(Level.FINEST, "{2}: Key {0} with transaction {1} removed from cache.",
-                        key, transaction, cause);
-            } else {
-                // timeout, size
+        public void run() {
+            if (PENDING_ACTIVITIES.remove(key, this)) {
                 Agent.LOG.log(Level.FINE,
-                        "{2}: The registered async activity with async context {0} has timed out for transaction {1} and been removed from the cache.",
-                        key, transaction, cause);
+                        "The registered async activity with async context {0} has timed out for transaction {1} and been removed from the cache.",
+                        key, token);
             }
         }
-    };
 
-    /*
-     * Async registrations JVM-wide are recorded here. References to this object must be locked by locking the object
-     * itself. This lock is "inner" to the instance lock, i.e. caller should always hold the instance lock before
-     * locking this collection.
-     */
-    private static final Cache<Object, Token> PENDING_ACTIVITIES = makeCache(removalListener);
-
-    // Return a Cache that maps asynchronous context keys to their transactions.
-    // The implementation class is threadsafe.
-    private static final Cache<Object, Token> makeCache(RemovalListener<Object, Token> removalListener) {
-        // default set to 3 minutes (180), must match the behavior in TimedTokenSet: expireAfterAccess with same timeout
-        long timeoutSec = ServiceFactory.getConfigService().getDefaultAgentConfig().getTokenTimeoutInSec();
-        long timeOutMilli = TimeConversion.convertToMilliWithLowerBound(timeoutSec, TimeUnit.SECONDS, 250L);
-
-        return Caffeine.newBuilder()
-                .expireAfterWrite(timeOutMilli, TimeUnit.MILLISECONDS)
-                .removalListener(removalListener)
-                .initialCapacity(8)
-                .executor(Runnable::run)
-                .build();
+        void cancel() {
+            TimingWheel.Timeout scheduled = timeout;
+            if (scheduled != null) {
+                scheduled.cancel();
+            }
+        }
     }
 
+    /**
+     * Nothing to do, keys are timed out by the timing wheel of the ExpirationService.
+     */
     protected void cleanUpPendingTransactions() {
-        PENDING_ACTIVITIES.cleanUp();
         Agent.LOG.log(Level.FINER, "Cleaning up the pending activities cache.");
     }
 
@@ -100,7 +109,13 @@ public class AsyncTransactionService extends AbstractService implements HarvestL
      * @param tx The transaction associated with the key.
      */
     public boolean putIfAbsent(Object key, Token tx) {
-        return PENDING_ACTIVITIES.asMap().putIfAbsent(key, tx) == null;
+        PendingActivity pendingActivity = new PendingActivity(key, tx);
+        if (PENDING_ACTIVITIES.putIfAbsent(key, pendingActivity) != null) {
+            return false;
+        }
+        pendingActivity.timeout = ServiceFactory.getExpirationService().scheduleTokenTimeout(pendingActivity,
+                timeOutMilli, TimeUnit.MILLISECONDS);
+        return true;
     }
 
     /*
@@ -117,15 +132,19 @@ public class AsyncTransactionService extends AbstractService implements HarvestL
      * @return The transaction associated with the key.
      */
     public Token extractIfPresent(Object key) {
-        return PENDING_ACTIVITIES.asMap().remove(key);
+        PendingActivity pendingActivity = PENDING_ACTIVITIES.remove(key);
+        if (pendingActivity == null) {
+            return null;
+        }
+        pendingActivity.cancel();
+        Agent.LOG.log(Level.FINEST, "Key {0} with transaction {1} removed from cache.", key, pendingActivity.token);
+        return pendingActivity.token;
     }
 
     /*
-     * We need a thread timeout the async keys. The expired async keys can not be timed out in the putIfAbsent or
-     * extractIfPresent methods because then a deadlock can potentially occur between the transaction lock and the
-     * pending activities lock.
-     *
-     * This does result in a slight delay to the expiration of keys. However, we are okay with this for the time being.
+     * The expired async keys can not be timed out in the putIfAbsent or extractIfPresent methods because then a
+     * deadlock can potentially occur between the transaction lock and the pending activities lock. They are timed out
+     * by the timing wheel of the ExpirationService instead, so there is nothing left to do here.
      *
      * @see com.newrelic.agent.HarvestListener#beforeHarvest(java.lang.String, com.newrelic.agent.stats.StatsEngine)
      */
@@ -181,7 +200,7 @@ public class AsyncTransactionService extends AbstractService implements HarvestL
 
     // only call in tests - size of the PENDING_ACTIVITIES cache
     protected int cacheSizeForTesting() {
-        return PENDING_ACTIVITIES.asMap().size();
+        return PENDING_ACTIVITIES.size();
     }
 
     @Override
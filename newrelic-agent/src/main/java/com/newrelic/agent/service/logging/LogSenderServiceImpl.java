@@ -309,7 +309,13 @@ public class LogSenderServiceImpl extends AbstractService implements LogSenderSe
         }
 
         DistributedSamplingPriorityQueue<LogEvent> eventList = getReservoir(appName);
-        eventList.add(createValidatedEvent(attributes));
+        float priority = DistributedTraceServiceImpl.nextTruncatedFloat();
+        if (priority < eventList.getAdmissionThreshold()) {
+            // The reservoir is full and this event wouldn't make it in, so lets prevent some object allocations
+            eventList.incrementNumberOfTries();
+            return;
+        }
+        eventList.add(createValidatedEvent(attributes, priority));
         Agent.LOG.finest(MessageFormat.format("Added event of type {0}", LOG_EVENT_TYPE));
     }
 
@@ -473,12 +479,22 @@ public class LogSenderServiceImpl extends AbstractService implements LogSenderSe
      * @return LogEvent instance
      */
     private static LogEvent createValidatedEvent(Map<String, ?> attributes) {
+        return createValidatedEvent(attributes, DistributedTraceServiceImpl.nextTruncatedFloat());
+    }
+
+    /**
+     * Create a validated LogEvent
+     * @param attributes Map of attributes to create a LogEvent from
+     * @param priority sampling priority of the LogEvent
+     * @return LogEvent instance
+     */
+    private static LogEvent createValidatedEvent(Map<String, ?> attributes, float priority) {
         Map<String, String> logEventLinkingMetadata = AgentLinkingMetadata.getLogEventLinkingMetadata(TraceMetadataImpl.INSTANCE,
                 ServiceFactory.getConfigService(), ServiceFactory.getRPMService());
         // Initialize new logEventAttributes map with agent linking metadata
         Map<String, Object> logEventAttributes = new HashMap<>(logEventLinkingMetadata);
 
-        LogEvent event = new LogEvent(logEventAttributes, DistributedTraceServiceImpl.nextTruncatedFloat());
+        LogEvent event = new LogEvent(logEventAttributes, priority);
 
         // Now add the attributes from the argument map to the event using an AttributeSender.
         // An AttributeSender is the way to reuse all the existing attribute validations. We
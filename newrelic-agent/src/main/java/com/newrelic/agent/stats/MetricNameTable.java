@@ -0,0 +1,101 @@
+/*
+ *
+ *  * Copyright 2020 New Relic Corporation. All rights reserved.
+ *  * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+
+package com.newrelic.agent.stats;
+
+import com.newrelic.agent.Agent;
+import com.newrelic.agent.util.InsertOnlyArray;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+/**
+ * Interns metric names into dense int ids so that stats can be stored in primitive arrays indexed by id instead of in
+ * maps keyed by the full metric name. Ids are never reused or removed, so the table is bounded. Once it is full,
+ * {@link #getId(String)} returns {@link #NOT_INTERNED} and callers must fall back to keying by name.
+ *
+ * The table is shared by every stats engine of the agent and lives as long as the JVM. Reaching the limit loses no
+ * data: {@link SimpleStatsEngine} records names that were not interned into its String-keyed map, as it did before the
+ * table existed, so only the allocation savings are lost for those names. An application whose metric names keep
+ * changing (an unnormalized URL in a metric name, for example) ends up recording all new names that way, and logs it
+ * once at FINE.
+ *
+ * This class is thread-safe.
+ */
+final class MetricNameTable {
+
+    static final int NOT_INTERNED = -1;
+
+    static final int DEFAULT_MAX_SIZE = 20000;
+
+    private static final MetricNameTable INSTANCE = new MetricNameTable(DEFAULT_MAX_SIZE);
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>(StatsEngineImpl.DEFAULT_CAPACITY * 8);
+    private final InsertOnlyArray<String> names = new InsertOnlyArray<>(StatsEngineImpl.DEFAULT_CAPACITY * 8);
+    private final int maxSize;
+
+    // guarded by this
+    private int size = 0;
+    // set once the table is full, so that names that can no longer be interned don't contend on the lock
+    private volatile boolean full = false;
+
+    MetricNameTable(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    static MetricNameTable getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the id of the metric name, or {@link #NOT_INTERNED} if the table is full
+     */
+    int getId(String metricName) {
+        Integer id = ids.get(metricName);
+        if (id != null) {
+            return id;
+        }
+        if (full) {
+            return NOT_INTERNED;
+        }
+        return intern(metricName);
+    }
+
+    /**
+     * @return the id of the metric name, or {@link #NOT_INTERNED} if it has not been interned. Never interns the name.
+     */
+    int findId(String metricName) {
+        Integer id = ids.get(metricName);
+        return id == null ? NOT_INTERNED : id;
+    }
+
+    String getName(int id) {
+        return names.get(id);
+    }
+
+    private synchronized int intern(String metricName) {
+        Integer id = ids.get(metricName);
+        if (id != null) {
+            return id;
+        }
+        if (size >= maxSize) {
+            if (!full) {
+                full = true;
+                Agent.LOG.log(Level.FINE, "The metric name table is full, {0} and later metric names are recorded by name",
+                        metricName);
+            }
+            return NOT_INTERNED;
+        }
+        // the name must be in the array before its id is published to other threads
+        int newId = names.add(metricName);
+        ids.put(metricName, newId);
+        size++;
+        return newId;
+    }
+
+}
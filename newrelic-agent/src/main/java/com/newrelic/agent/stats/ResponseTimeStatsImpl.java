@@ -128,20 +128,28 @@ public class ResponseTimeStatsImpl extends AbstractStats implements ResponseTime
     public final void merge(StatsBase statsObj) {
         if (statsObj instanceof ResponseTimeStatsImpl) {
             ResponseTimeStatsImpl stats = (ResponseTimeStatsImpl) statsObj;
-            if (stats.count > 0) {
-                if (count > 0) {
-                    minValue = Math.min(minValue, stats.minValue);
-                } else {
-                    minValue = stats.minValue;
-                }
-            }
-            count += stats.count;
-            total += stats.total;
-            totalExclusive += stats.totalExclusive;
+            merge(stats.count, stats.total, stats.totalExclusive, stats.minValue, stats.maxValue, stats.sumOfSquares);
+        }
+    }
 
-            maxValue = Math.max(maxValue, stats.maxValue);
-            sumOfSquares += stats.sumOfSquares;
+    /**
+     * Merge raw values, all times in nanoseconds. Used to merge rows of a {@link ResponseTimeStatsTable}.
+     */
+    void merge(int otherCount, long otherTotal, long otherTotalExclusive, long otherMinValue, long otherMaxValue,
+            double otherSumOfSquares) {
+        if (otherCount > 0) {
+            if (count > 0) {
+                minValue = Math.min(minValue, otherMinValue);
+            } else {
+                minValue = otherMinValue;
+            }
         }
+        count += otherCount;
+        total += otherTotal;
+        totalExclusive += otherTotalExclusive;
+
+        maxValue = Math.max(maxValue, otherMaxValue);
+        sumOfSquares += otherSumOfSquares;
     }
 
     @Override
@@ -0,0 +1,214 @@
+/*
+ *
+ *  * Copyright 2020 New Relic Corporation. All rights reserved.
+ *  * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+
+package com.newrelic.agent.stats;
+
+import java.util.Arrays;
+
+/**
+ * Response time stats stored in parallel primitive arrays, one row per interned metric name (see
+ * {@link MetricNameTable}). Recording and merging only walk arrays, so no per-metric stats objects are allocated until
+ * the rows are converted with {@link #toStats(int)}.
+ *
+ * All times are in nanoseconds, like {@link ResponseTimeStatsImpl}.
+ *
+ * This class is not thread-safe.
+ */
+final class ResponseTimeStatsTable {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] metricIds;
+    private int[] counts;
+    private long[] totals;
+    private long[] totalExclusives;
+    private long[] minValues;
+    private long[] maxValues;
+    private double[] sumsOfSquares;
+    private int size = 0;
+
+    /**
+     * Open addressing hash index from metric id to row. Each slot holds row + 1 so that zero marks an empty slot. The
+     * length is always a power of two and at least twice the row capacity.
+     */
+    private int[] index;
+
+    ResponseTimeStatsTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    ResponseTimeStatsTable(int capacity) {
+        allocate(Math.max(capacity, 1));
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int getMetricId(int row) {
+        return metricIds[row];
+    }
+
+    void recordResponseTimeInNanos(int metricId, long responseTime, long exclusiveTime) {
+        int row = getOrCreateRow(metricId);
+        if (counts[row] > 0) {
+            minValues[row] = Math.min(responseTime, minValues[row]);
+        } else {
+            minValues[row] = responseTime;
+        }
+        counts[row]++;
+        totals[row] += responseTime;
+        totalExclusives[row] += exclusiveTime;
+        maxValues[row] = Math.max(responseTime, maxValues[row]);
+        double responseTimeAsDouble = responseTime;
+        sumsOfSquares[row] += responseTimeAsDouble * responseTimeAsDouble;
+    }
+
+    void merge(ResponseTimeStatsTable other) {
+        for (int otherRow = 0; otherRow < other.size; otherRow++) {
+            if (!other.hasData(otherRow)) {
+                continue;
+            }
+            int otherCount = other.counts[otherRow];
+            int row = getOrCreateRow(other.metricIds[otherRow]);
+            if (otherCount > 0) {
+                if (counts[row] > 0) {
+                    minValues[row] = Math.min(minValues[row], other.minValues[otherRow]);
+                } else {
+                    minValues[row] = other.minValues[otherRow];
+                }
+            }
+            counts[row] += otherCount;
+            totals[row] += other.totals[otherRow];
+            totalExclusives[row] += other.totalExclusives[otherRow];
+            maxValues[row] = Math.max(maxValues[row], other.maxValues[otherRow]);
+            sumsOfSquares[row] += other.sumsOfSquares[otherRow];
+        }
+    }
+
+    /**
+     * @return the row of the metric, or -1 if nothing has been recorded for it
+     */
+    int getRow(int metricId) {
+        int mask = index.length - 1;
+        int slot = mix(metricId) & mask;
+        while (index[slot] != 0) {
+            int row = index[slot] - 1;
+            if (metricIds[row] == metricId) {
+                return row;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * @return false if the row was reset with {@link #resetRow(int)} and nothing has been recorded since
+     */
+    boolean hasData(int row) {
+        return counts[row] > 0 || totals[row] > 0 || totalExclusives[row] > 0;
+    }
+
+    /**
+     * Add the values of the row to the stats object without allocating.
+     */
+    void mergeInto(int row, ResponseTimeStatsImpl stats) {
+        stats.merge(counts[row], totals[row], totalExclusives[row], minValues[row], maxValues[row], sumsOfSquares[row]);
+    }
+
+    /**
+     * Zero the row. The row keeps its metric id, so recording into it again does not touch the index.
+     */
+    void resetRow(int row) {
+        counts[row] = 0;
+        totals[row] = 0;
+        totalExclusives[row] = 0;
+        minValues[row] = 0;
+        maxValues[row] = 0;
+        sumsOfSquares[row] = 0;
+    }
+
+    /**
+     * @return a new stats object holding the values of the row
+     */
+    ResponseTimeStatsImpl toStats(int row) {
+        ResponseTimeStatsImpl stats = new ResponseTimeStatsImpl();
+        mergeInto(row, stats);
+        return stats;
+    }
+
+    void clear() {
+        Arrays.fill(index, 0);
+        size = 0;
+    }
+
+    private int getOrCreateRow(int metricId) {
+        int mask = index.length - 1;
+        int slot = mix(metricId) & mask;
+        while (index[slot] != 0) {
+            int row = index[slot] - 1;
+            if (metricIds[row] == metricId) {
+                return row;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (size == metricIds.length) {
+            grow();
+            return getOrCreateRow(metricId);
+        }
+
+        int row = size++;
+        metricIds[row] = metricId;
+        resetRow(row);
+        index[slot] = row + 1;
+        return row;
+    }
+
+    private void allocate(int capacity) {
+        metricIds = new int[capacity];
+        counts = new int[capacity];
+        totals = new long[capacity];
+        totalExclusives = new long[capacity];
+        minValues = new long[capacity];
+        maxValues = new long[capacity];
+        sumsOfSquares = new double[capacity];
+        index = new int[Integer.highestOneBit(capacity) << 2];
+    }
+
+    private void grow() {
+        int capacity = metricIds.length << 1;
+        metricIds = Arrays.copyOf(metricIds, capacity);
+        counts = Arrays.copyOf(counts, capacity);
+        totals = Arrays.copyOf(totals, capacity);
+        totalExclusives = Arrays.copyOf(totalExclusives, capacity);
+        minValues = Arrays.copyOf(minValues, capacity);
+        maxValues = Arrays.copyOf(maxValues, capacity);
+        sumsOfSquares = Arrays.copyOf(sumsOfSquares, capacity);
+
+        index = new int[Integer.highestOneBit(capacity) << 2];
+        int mask = index.length - 1;
+        for (int row = 0; row < size; row++) {
+            int slot = mix(metricIds[row]) & mask;
+            while (index[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            index[slot] = row + 1;
+        }
+    }
+
+    private static int mix(int metricId) {
+        // ids are dense, spread them so that neighbouring ids don't cluster
+        int h = metricId * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+}
@@ -7,6 +7,7 @@
 
 package com.newrelic.agent.stats;
 
+import com.newrelic.agent.Agent;
 import com.newrelic.agent.MetricData;
 import com.newrelic.agent.MetricNames;
 import com.newrelic.agent.database.DatastoreMetrics;
@@ -22,10 +23,18 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
 
 /**
  * A class for recording metric stats.
  *
+ * Response times recorded with {@link #recordResponseTimeInNanos(String, long, long)} are kept in a
+ * {@link ResponseTimeStatsTable} keyed by interned metric name ids, so recording and merging them does not create stats
+ * objects. The table is only folded into the stats map by {@link #getStatsMap()} and {@link #getMetricData}, which are
+ * used at harvest. Point lookups such as {@link #getOrCreateResponseTimeStats(String)} and {@link #containsMetric(String)}
+ * read the metric's row directly.
+ *
  * This class is thread-safe.
  */
 public class SimpleStatsEngine {
@@ -34,8 +43,16 @@ public class SimpleStatsEngine {
 
     public static final int DEFAULT_CAPACITY = StatsEngineImpl.DEFAULT_SCOPED_CAPACITY;
 
+    // orders the locks of two engines that are merged into each other
+    private static final AtomicLong NEXT_ENGINE_ID = new AtomicLong();
+
     private final Map<String, StatsBase> stats;
 
+    private final long engineId = NEXT_ENGINE_ID.getAndIncrement();
+
+    // guarded by this, created on first use
+    private ResponseTimeStatsTable responseTimeStatsTable;
+
     public SimpleStatsEngine() {
         this(DEFAULT_CAPACITY);
     }
@@ -44,10 +61,31 @@ public class SimpleStatsEngine {
         stats = new ConcurrentHashMap<>(capacity);
     }
 
+    /**
+     * @return the stats map, after folding the response time table into it. This walks every recorded metric, so use
+     * {@link #containsMetric(String)} or the getters to look up a single metric.
+     */
     public Map<String, StatsBase> getStatsMap() {
+        mergeResponseTimeStatsTable();
         return stats;
     }
 
+    /**
+     * @return true if anything has been recorded for the metric
+     */
+    public boolean containsMetric(String metricName) {
+        if (stats.containsKey(metricName)) {
+            return true;
+        }
+        int metricId = MetricNameTable.getInstance().findId(metricName);
+        if (metricId == MetricNameTable.NOT_INTERNED) {
+            return false;
+        }
+        synchronized (this) {
+            return responseTimeStatsTable != null && responseTimeStatsTable.getRow(metricId) >= 0;
+        }
+    }
+
     public Stats getStats(String metricName) {
         if (metricName == null) {
             throw new RuntimeException("Cannot get a stat for a null metric");
@@ -56,6 +94,7 @@ public class SimpleStatsEngine {
         if (s == null) {
             s = new StatsImpl();
             stats.put(metricName, s);
+            drainResponseTimes(metricName, s);
         }
         if (s instanceof Stats) {
             return (Stats) s;
@@ -74,6 +113,7 @@ public class SimpleStatsEngine {
             s = new ResponseTimeStatsImpl();
             stats.put(metric, s);
         }
+        drainResponseTimes(metric, s);
         if (s instanceof ResponseTimeStats) {
             return (ResponseTimeStats) s;
         } else {
@@ -82,10 +122,43 @@ public class SimpleStatsEngine {
         }
     }
 
+    /**
+     * Record a response time without looking up or creating a stats object for the metric. This is equivalent to
+     * {@code getOrCreateResponseTimeStats(metricName).recordResponseTimeInNanos(responseTime, exclusiveTime)}, except
+     * that a metric already bound to another stats type is not detected here: its response times are dropped and counted
+     * when they are read.
+     */
+    public void recordResponseTimeInNanos(String metricName, long responseTime, long exclusiveTime) {
+        if (metricName == null) {
+            throw new RuntimeException("Cannot record a stat for a null metric");
+        }
+        int metricId = MetricNameTable.getInstance().getId(metricName);
+        if (metricId == MetricNameTable.NOT_INTERNED) {
+            getOrCreateResponseTimeStats(metricName).recordResponseTimeInNanos(responseTime, exclusiveTime);
+            return;
+        }
+        synchronized (this) {
+            if (responseTimeStatsTable == null) {
+                responseTimeStatsTable = new ResponseTimeStatsTable();
+            }
+            responseTimeStatsTable.recordResponseTimeInNanos(metricId, responseTime, exclusiveTime);
+        }
+    }
+
     public void recordEmptyStats(String metricName) {
         if (metricName == null) {
             throw new RuntimeException("Cannot record a stat for a null metric");
         }
+        int metricId = MetricNameTable.getInstance().findId(metricName);
+        synchronized (this) {
+            // the empty stats replace whatever was recorded, like they replace the map entry
+            if (metricId != MetricNameTable.NOT_INTERNED && responseTimeStatsTable != null) {
+                int row = responseTimeStatsTable.getRow(metricId);
+                if (row >= 0) {
+                    responseTimeStatsTable.resetRow(row);
+                }
+            }
+        }
         stats.put(metricName, AbstractStats.EMPTY_STATS);
     }
 
@@ -97,6 +170,7 @@ public class SimpleStatsEngine {
         if (s == null) {
             s = new ApdexStatsImpl();
             stats.put(metricName, s);
+            drainResponseTimes(metricName, s);
         }
         if (s instanceof ApdexStats) {
             return (ApdexStats) s;
@@ -114,6 +188,7 @@ public class SimpleStatsEngine {
         if (s == null) {
             s = new DataUsageStatsImpl();
             stats.put(metricName, s);
+            drainResponseTimes(metricName, s);
         }
         if (s instanceof DataUsageStats) {
             return (DataUsageStats) s;
@@ -124,6 +199,21 @@ public class SimpleStatsEngine {
     }
 
     public void mergeStats(SimpleStatsEngine other) {
+        if (other != this) {
+            // both locks are held while the rows are merged, always taken in engine id order
+            SimpleStatsEngine first = engineId < other.engineId ? this : other;
+            SimpleStatsEngine second = first == this ? other : this;
+            synchronized (first) {
+                synchronized (second) {
+                    if (other.responseTimeStatsTable != null && !other.responseTimeStatsTable.isEmpty()) {
+                        if (responseTimeStatsTable == null) {
+                            responseTimeStatsTable = new ResponseTimeStatsTable(other.responseTimeStatsTable.size());
+                        }
+                        responseTimeStatsTable.merge(other.responseTimeStatsTable);
+                    }
+                }
+            }
+        }
         for (Entry<String, StatsBase> entry : other.stats.entrySet()) {
             StatsBase ourStats = stats.get(entry.getKey());
             StatsBase otherStats = entry.getValue();
@@ -136,11 +226,109 @@ public class SimpleStatsEngine {
     }
 
     public void clear() {
+        synchronized (this) {
+            if (responseTimeStatsTable != null) {
+                responseTimeStatsTable.clear();
+            }
+        }
         stats.clear();
     }
 
     public int getSize() {
-        return stats.size();
+        int size = stats.size();
+        synchronized (this) {
+            if (responseTimeStatsTable != null) {
+                MetricNameTable metricNameTable = MetricNameTable.getInstance();
+                for (int row = 0; row < responseTimeStatsTable.size(); row++) {
+                    if (responseTimeStatsTable.hasData(row)
+                            && !stats.containsKey(metricNameTable.getName(responseTimeStatsTable.getMetricId(row)))) {
+                        size++;
+                    }
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return an upper bound of {@link #getSize()} that can be computed without folding the response time table into
+     * the stats map. Use it to size collections.
+     */
+    int getEstimatedSize() {
+        synchronized (this) {
+            return stats.size() + (responseTimeStatsTable == null ? 0 : responseTimeStatsTable.size());
+        }
+    }
+
+    private synchronized void mergeResponseTimeStatsTable() {
+        if (responseTimeStatsTable == null || responseTimeStatsTable.isEmpty()) {
+            return;
+        }
+        MetricNameTable metricNameTable = MetricNameTable.getInstance();
+        int dropped = 0;
+        for (int row = 0; row < responseTimeStatsTable.size(); row++) {
+            if (!responseTimeStatsTable.hasData(row)) {
+                continue;
+            }
+            String metricName = metricNameTable.getName(responseTimeStatsTable.getMetricId(row));
+            StatsBase s = stats.get(metricName);
+            if (s == null) {
+                stats.put(metricName, responseTimeStatsTable.toStats(row));
+            } else if (s instanceof ResponseTimeStatsImpl) {
+                responseTimeStatsTable.mergeInto(row, (ResponseTimeStatsImpl) s);
+            } else {
+                logDroppedResponseTimes(metricName, s);
+                dropped++;
+            }
+        }
+        responseTimeStatsTable.clear();
+        countDroppedResponseTimes(dropped);
+    }
+
+    /**
+     * Move the response times recorded in the table for one metric into its stats object, so that a point lookup sees
+     * them without folding the whole table.
+     */
+    private void drainResponseTimes(String metricName, StatsBase s) {
+        int metricId = MetricNameTable.getInstance().findId(metricName);
+        if (metricId == MetricNameTable.NOT_INTERNED) {
+            return;
+        }
+        synchronized (this) {
+            if (responseTimeStatsTable == null) {
+                return;
+            }
+            int row = responseTimeStatsTable.getRow(metricId);
+            if (row < 0 || !responseTimeStatsTable.hasData(row)) {
+                return;
+            }
+            if (s instanceof ResponseTimeStatsImpl) {
+                responseTimeStatsTable.mergeInto(row, (ResponseTimeStatsImpl) s);
+            } else {
+                logDroppedResponseTimes(metricName, s);
+                countDroppedResponseTimes(1);
+            }
+            responseTimeStatsTable.resetRow(row);
+        }
+    }
+
+    private void logDroppedResponseTimes(String metricName, StatsBase s) {
+        // the metric was bound to another stats type while response times were recorded for it
+        Agent.LOG.log(Level.FINE, "Dropping response time for {0}, the stats object is of type {1}", metricName,
+                s.getClass().getName());
+    }
+
+    private void countDroppedResponseTimes(int dropped) {
+        if (dropped > 0) {
+            StatsBase s = stats.get(MetricNames.SUPPORTABILITY_METRIC_DROPPED_RESPONSE_TIMES);
+            if (s == null) {
+                s = new StatsImpl();
+                stats.put(MetricNames.SUPPORTABILITY_METRIC_DROPPED_RESPONSE_TIMES, s);
+            }
+            if (s instanceof Stats) {
+                ((Stats) s).incrementCallCount(dropped);
+            }
+        }
     }
 
     /**
@@ -151,6 +339,7 @@ public class SimpleStatsEngine {
      * @return The list of metric data generated from the internal stats object.
      */
     public List<MetricData> getMetricData(Normalizer metricNormalizer, String scope) {
+        mergeResponseTimeStatsTable();
         List<MetricData> result = new ArrayList<>(stats.size() + 1); // +1 for Java/other
         boolean isTrimStats = ServiceFactory.getConfigService().getDefaultAgentConfig().isTrimStats();
 
@@ -224,7 +413,11 @@ public class SimpleStatsEngine {
 
     @Override
     public String toString() {
-        return "SimpleStatsEngine [stats=" + stats + "]";
+        int responseTimeRows;
+        synchronized (this) {
+            responseTimeRows = responseTimeStatsTable == null ? 0 : responseTimeStatsTable.size();
+        }
+        return "SimpleStatsEngine [stats=" + stats + ", responseTimeRows=" + responseTimeRows + "]";
     }
 
 }
@@ -147,9 +147,9 @@ public class StatsEngineImpl implements StatsEngine {
      */
     @Override
     public int getSize() {
-        int size = unscopedStats.getStatsMap().size();
+        int size = unscopedStats.getSize();
         for (SimpleStatsEngine engine : scopedStats.values()) {
-            size += engine.getStatsMap().size();
+            size += engine.getSize();
         }
         return size;
     }
@@ -166,7 +166,7 @@ public class StatsEngineImpl implements StatsEngine {
         for (Entry<String, SimpleStatsEngine> entry : other.scopedStats.entrySet()) {
             SimpleStatsEngine scopedStatsEngine = scopedStats.get(entry.getKey());
             if (scopedStatsEngine == null) {
-                scopedStatsEngine = new SimpleStatsEngine(entry.getValue().getSize());
+                scopedStatsEngine = new SimpleStatsEngine(entry.getValue().getEstimatedSize());
                 scopedStats.put(entry.getKey(), scopedStatsEngine);
             }
             scopedStatsEngine.mergeStats(entry.getValue());
@@ -181,7 +181,7 @@ public class StatsEngineImpl implements StatsEngine {
         }
         SimpleStatsEngine scopedStatsEngine = scopedStats.get(resolvedScope);
         if (scopedStatsEngine == null) {
-            scopedStatsEngine = new SimpleStatsEngine(txStats.getScopedStats().getSize());
+            scopedStatsEngine = new SimpleStatsEngine(txStats.getScopedStats().getEstimatedSize());
             scopedStats.put(resolvedScope, scopedStatsEngine);
         }
         scopedStatsEngine.mergeStats(txStats.getScopedStats());
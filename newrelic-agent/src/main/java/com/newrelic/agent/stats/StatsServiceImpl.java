@@ -8,20 +8,28 @@
 package com.newrelic.agent.stats;
 
 import com.newrelic.agent.Agent;
+import com.newrelic.agent.config.AgentConfig;
 import com.newrelic.agent.service.AbstractService;
 import com.newrelic.agent.service.ServiceFactory;
 import com.newrelic.agent.service.StatsServiceMetricAggregator;
 import com.newrelic.api.agent.MetricAggregator;
 
+import java.lang.ref.WeakReference;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
 
 /**
  * A class to record and harvest metric data.
@@ -29,15 +37,22 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  * This class is thread-safe.
  */
 public class StatsServiceImpl extends AbstractService implements StatsService {
+
     private final MetricAggregator metricAggregator = new StatsServiceMetricAggregator(this);
 
     private final ConcurrentMap<String, StatsEngineQueue> statsEngineQueues = new ConcurrentHashMap<>();
     private volatile StatsEngineQueue defaultStatsEngineQueue;
     private final String defaultAppName;
+    private final boolean stripedAggregation;
 
     public StatsServiceImpl() {
         super(StatsService.class.getSimpleName());
-        defaultAppName = ServiceFactory.getConfigService().getDefaultAgentConfig().getApplicationName();
+        AgentConfig config = ServiceFactory.getConfigService().getDefaultAgentConfig();
+        defaultAppName = config.getApplicationName();
+        stripedAggregation = config.getStatsServiceConfig().isStripedAggregationEnabled();
+        if (stripedAggregation) {
+            Agent.LOG.log(Level.FINE, "Stats service is using thread-striped metric aggregation");
+        }
         defaultStatsEngineQueue = createStatsEngineQueue();
     }
 
@@ -78,6 +93,10 @@ public class StatsServiceImpl extends AbstractService implements StatsService {
 
     private StatsEngineQueue replaceStatsEngineQueue(String appName) {
         StatsEngineQueue oldStatsEngineQueue = getOrCreateStatsEngineQueue(appName);
+        if (stripedAggregation) {
+            // striped queues swap their stats engines in place
+            return oldStatsEngineQueue;
+        }
         StatsEngineQueue newStatsEngineQueue = createStatsEngineQueue();
         if (oldStatsEngineQueue == defaultStatsEngineQueue) {
             defaultStatsEngineQueue = newStatsEngineQueue;
@@ -105,10 +124,46 @@ public class StatsServiceImpl extends AbstractService implements StatsService {
     }
 
     private StatsEngineQueue createStatsEngineQueue() {
-        return new StatsEngineQueue();
+        return stripedAggregation ? new StripedStatsEngineQueue() : new PooledStatsEngineQueue();
+    }
+
+    /**
+     * Holds the stats engines that accumulate metric data for one application between two harvests. A pooled queue is
+     * harvested exactly once and is replaced by a new queue when that happens, while a striped queue is harvested in
+     * place.
+     */
+    private interface StatsEngineQueue {
+
+        /**
+         * Apply the work to one of the stats engines of this queue.
+         *
+         * @return false if this queue has already been harvested and the work must be applied to its replacement
+         */
+        boolean doStatsWork(StatsWork work);
+
+        StatsEngine getStatsEngineForHarvest();
+
+    }
+
+    private static StatsEngine createStatsEngine() {
+        return new StatsEngineImpl();
     }
 
-    private static class StatsEngineQueue {
+    private static void applyStatsWork(StatsEngine statsEngine, StatsWork work) {
+        try {
+            work.doWork(statsEngine);
+        } catch (Exception e) {
+            String msg = MessageFormat.format("Exception doing stats work: {0}", e);
+            Agent.LOG.warning(msg);
+        }
+    }
+
+    /**
+     * Pools stats engines in a queue. A recording thread borrows an engine from the pool (or creates one if the pool
+     * is empty) and returns it when its work is done. Harvesting takes a write lock, so recording threads that race
+     * with a harvest retry against the replacement queue.
+     */
+    private static class PooledStatsEngineQueue implements StatsEngineQueue {
 
         private final Lock readLock;
         private final Lock writeLock;
@@ -117,12 +172,13 @@ public class StatsServiceImpl extends AbstractService implements StatsService {
         // reference is guarded by readLock + writeLock
         private ConcurrentLinkedQueue<StatsEngine> statsEngineQueue = new ConcurrentLinkedQueue<>();
 
-        private StatsEngineQueue() {
+        private PooledStatsEngineQueue() {
             ReadWriteLock lock = new ReentrantReadWriteLock();
             readLock = lock.readLock();
             writeLock = lock.writeLock();
         }
 
+        @Override
         public boolean doStatsWork(StatsWork work) {
             if (readLock.tryLock()) {
                 try {
@@ -150,7 +206,7 @@ public class StatsServiceImpl extends AbstractService implements StatsService {
                     statsEngine = createStatsEngine();
                     statsEngineCount.incrementAndGet();
                 }
-                work.doWork(statsEngine);
+                applyStatsWork(statsEngine, work);
             } catch (Exception e) {
                 String msg = MessageFormat.format("Exception doing stats work: {0}", e);
                 Agent.LOG.warning(msg);
@@ -170,6 +226,7 @@ public class StatsServiceImpl extends AbstractService implements StatsService {
             }
         }
 
+        @Override
         public StatsEngine getStatsEngineForHarvest() {
             final Queue<StatsEngine> statsEngineQueue;
             writeLock.lock();
@@ -209,9 +266,120 @@ public class StatsServiceImpl extends AbstractService implements StatsService {
 
             return harvestStatsEngine;
         }
+    }
+
+    /**
+     * Gives every recording thread its own stats engine, so recording never takes a lock and never waits on another
+     * recording thread.
+     *
+     * Unlike the pooled queue, a striped queue lives as long as the service and is not replaced when it is harvested.
+     * Each stripe swaps in a new stats engine at the harvest instead, so the thread local holding a thread's stripe
+     * is created once per application rather than once per harvest.
+     *
+     * A thread announces that it is recording by raising the busy flag of its stripe and only then reads the stripe's
+     * stats engine. The harvester swaps the stats engine first and only then waits for the busy flag to drop. Since
+     * both sides write their own volatile before reading the other's, either the thread records into the new engine,
+     * or the harvester sees the thread busy and waits for it to finish before merging the old engine.
+     */
+    private static class StripedStatsEngineQueue implements StatsEngineQueue {
+
+        // the harvester spins briefly, then parks for increasing periods up to MAX_PARK_NANOS
+        private static final int MAX_SPINS = 64;
+        private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+        // an engine that is still in use after this long is merged at the next harvest instead
+        private static final long MAX_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+        private final Queue<Stripe> stripes = new ConcurrentLinkedQueue<>();
+        private final ThreadLocal<Stripe> threadStripe = new ThreadLocal<Stripe>() {
+            @Override
+            protected Stripe initialValue() {
+                Stripe stripe = new Stripe(Thread.currentThread());
+                stripes.add(stripe);
+                return stripe;
+            }
+        };
+
+        @Override
+        public boolean doStatsWork(StatsWork work) {
+            Stripe stripe = threadStripe.get();
+            stripe.busy = true;
+            try {
+                applyStatsWork(stripe.statsEngine, work);
+                return true;
+            } finally {
+                stripe.busy = false;
+            }
+        }
+
+        @Override
+        public synchronized StatsEngine getStatsEngineForHarvest() {
+            StatsEngine harvestStatsEngine = createStatsEngine();
+            for (Iterator<Stripe> iterator = stripes.iterator(); iterator.hasNext(); ) {
+                Stripe stripe = iterator.next();
+                // a thread that is no longer alive can't record, so its stripe is harvested one last time and dropped
+                boolean ownerAlive = stripe.isOwnerAlive();
+                if (ownerAlive) {
+                    stripe.pending.add(stripe.statsEngine);
+                    stripe.statsEngine = createStatsEngine();
+                    if (!awaitIdle(stripe)) {
+                        continue;
+                    }
+                } else {
+                    iterator.remove();
+                    stripe.pending.add(stripe.statsEngine);
+                    stripe.statsEngine = null;
+                }
+                for (StatsEngine statsEngine : stripe.pending) {
+                    harvestStatsEngine.mergeStats(statsEngine);
+                }
+                stripe.pending.clear();
+            }
+            return harvestStatsEngine;
+        }
+
+        /**
+         * Wait for the owner of the stripe to finish its current unit of work.
+         *
+         * @return false if the owner is still busy, because it was descheduled in the middle of recording
+         */
+        private static boolean awaitIdle(Stripe stripe) {
+            long parkNanos = 1000;
+            long deadline = System.nanoTime() + MAX_WAIT_NANOS;
+            for (int spins = 0; stripe.busy; spins++) {
+                if (spins < MAX_SPINS) {
+                    Thread.yield();
+                } else if (System.nanoTime() - deadline >= 0) {
+                    Agent.LOG.log(Level.FINEST, "Stats engine still in use, merging it at the next harvest");
+                    return false;
+                } else {
+                    LockSupport.parkNanos(parkNanos);
+                    parkNanos = Math.min(parkNanos << 1, MAX_PARK_NANOS);
+                }
+            }
+            return true;
+        }
+
+        private static class Stripe {
+
+            private final WeakReference<Thread> owner;
+
+            // written by the harvester, read by the owning thread while it is busy
+            private volatile StatsEngine statsEngine = createStatsEngine();
+
+            private volatile boolean busy = false;
+
+            // engines swapped out of the stripe that haven't been merged yet, only touched by the harvester
+            private final List<StatsEngine> pending = new ArrayList<>(1);
+
+            Stripe(Thread owner) {
+                this.owner = new WeakReference<>(owner);
+            }
+
+            boolean isOwnerAlive() {
+                Thread thread = owner.get();
+                return thread != null && thread.isAlive();
+            }
 
-        private StatsEngine createStatsEngine() {
-            return new StatsEngineImpl();
         }
     }
 
@@ -30,7 +30,7 @@ public class TransactionStats {
     }
 
     public int getSize() {
-        return unscopedStats.getStatsMap().size() + scopedStats.getStatsMap().size();
+        return unscopedStats.getSize() + scopedStats.getSize();
     }
 
     @Override
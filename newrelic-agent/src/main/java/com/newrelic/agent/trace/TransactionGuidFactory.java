@@ -14,21 +14,47 @@ public class TransactionGuidFactory {
     private TransactionGuidFactory() {
     }
 
+    private static final char[] HEX_CHARS = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f' };
+
     public static String generate16CharGuid() {
+        return toGuid(nextGuidBits());
+    }
+
+    /**
+     * A trace id, which is two guids long.
+     */
+    public static String generate32CharGuid() {
+        char[] result = new char[32];
+        writeGuid(ThreadLocalRandom.current().nextLong(), result, 0);
+        writeGuid(ThreadLocalRandom.current().nextLong(), result, 16);
+        return new String(result);
+    }
+
+    /**
+     * The random bits of a guid. Keeping these instead of the guid defers creating the string until it is needed, see
+     * {@link #toGuid(long)}.
+     */
+    public static long nextGuidBits() {
+        return ThreadLocalRandom.current().nextLong();
+    }
+
+    public static String toGuid(long guidBits) {
+        char[] result = new char[16];
+        writeGuid(guidBits, result, 0);
+        return new String(result);
+    }
+
+    private static void writeGuid(long random, char[] result, int offset) {
         // Tests with JMH showed that this implementation is 11x faster than the previous implementation:
         // return new BigInteger(64, randomHolder.get()).toString(16)
         // and about 1.2x faster than the obvious alternative implementation:
         // return Long.toHexString(Math.abs(randomHolder.get().nextLong()))
         // In addition, this one returns 16 useful digits, while the obvious one returns slightly fewer.
         // Note that the digits are generated in "reverse order", which is perfectly fine here.
-        final char[] hexchars = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f' };
-        long random = ThreadLocalRandom.current().nextLong();
-        char[] result = new char[16];
         for (int i = 0; i < 16; ++i) {
-            result[i] = hexchars[(int) (random & 0xF)];
+            result[offset + i] = HEX_CHARS[(int) (random & 0xF)];
             random >>= 4;
         }
-        return new String(result);
     }
 
 }
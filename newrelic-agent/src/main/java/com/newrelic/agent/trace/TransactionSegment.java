@@ -86,7 +86,7 @@ public class TransactionSegment implements JSONStreamAware {
         parentStackTrace = getParentStackTrace(tracer);
     }
 
-    private List<StackTraceElement> getParentStackTrace(Tracer tracer) {
+    static List<StackTraceElement> getParentStackTrace(Tracer tracer) {
         if (tracer.getParentTracer() != null) {
             return (List<StackTraceElement>) tracer.getParentTracer().getAgentAttribute(
                     DefaultTracer.BACKTRACE_PARAMETER_NAME);
@@ -94,7 +94,7 @@ public class TransactionSegment implements JSONStreamAware {
         return null;
     }
 
-    private Map<String, Object> getTracerAttributes(Tracer tracer) {
+    static Map<String, Object> getTracerAttributes(Tracer tracer) {
         if (tracer instanceof SqlTracerExplainInfo) {
             Object sql = ((SqlTracerExplainInfo) tracer).getSql();
             if (sql != null) {
@@ -134,7 +134,7 @@ public class TransactionSegment implements JSONStreamAware {
         return Collections.unmodifiableMap(tracerAttributes);
     }
 
-    private static String getUri(Tracer tracer) {
+    static String getUri(Tracer tracer) {
         boolean excludeRequestUri = ServiceFactory.getConfigService().getDefaultAgentConfig().getExternalTracerConfig().excludeRequestUri();
         if (excludeRequestUri) {
             return null;
@@ -206,9 +206,22 @@ public class TransactionSegment implements JSONStreamAware {
 
     @Override
     public void writeJSONString(Writer writer) throws IOException {
+        final Map<String, ?> filteredAtts = getSegmentParameters(appName, ttConfig, sqlObfuscator, tracerAttributes,
+                parentStackTrace, callCount, uri);
+
+        JSONArray.writeJSONString(Arrays.asList(entryTimestamp, exitTimestamp, metricName, filteredAtts, children,
+                classMethodSignature.getClassName(), classMethodSignature.getMethodName()), writer);
+
+    }
+
+    /**
+     * Get the filtered parameters that are sent with a segment, with its stack trace and sql processed.
+     */
+    static Map<String, ?> getSegmentParameters(String appName, TransactionTracerConfig ttConfig, SqlObfuscator sqlObfuscator,
+            Map<String, Object> tracerAttributes, List<StackTraceElement> parentStackTrace, int callCount, String uri) {
         final Map<String, Object> params = new HashMap<>(tracerAttributes);
-        processStackTraces(params);
-        processSqlParams(params);
+        processStackTraces(params, parentStackTrace);
+        processSqlParams(params, sqlObfuscator, ttConfig);
 
         if (callCount > 1) {
             params.put("call_count", callCount);
@@ -218,15 +231,11 @@ public class TransactionSegment implements JSONStreamAware {
             params.put(URL_PARAMETER_NAME, uri);
         }
 
-        final Map<String, ?> filteredAtts = ServiceFactory.getAttributesService().filterTransactionSegmentAttributes(appName, params);
-
-        JSONArray.writeJSONString(Arrays.asList(entryTimestamp, exitTimestamp, metricName, filteredAtts, children,
-                classMethodSignature.getClassName(), classMethodSignature.getMethodName()), writer);
-
+        return ServiceFactory.getAttributesService().filterTransactionSegmentAttributes(appName, params);
     }
 
     @SuppressWarnings("unchecked")
-    private void processSqlParams(Map<String, Object> params) {
+    private static void processSqlParams(Map<String, Object> params, SqlObfuscator sqlObfuscator, TransactionTracerConfig ttConfig) {
 
         Object sqlObj = params.remove(SqlTracer.SQL_PARAMETER_NAME);
         if (sqlObj == null) {
@@ -262,7 +271,7 @@ public class TransactionSegment implements JSONStreamAware {
                 : SqlTracer.SQL_PARAMETER_NAME, sql);
     }
 
-    private void processStackTraces(Map<String, Object> params) {
+    private static void processStackTraces(Map<String, Object> params, List<StackTraceElement> parentStackTrace) {
         // add stack trace if present
         List<StackTraceElement> backtrace = (List<StackTraceElement>) params.remove(DefaultTracer.BACKTRACE_PARAMETER_NAME);
         if (backtrace != null) {
@@ -0,0 +1,245 @@
+/*
+ *
+ *  * Copyright 2020 New Relic Corporation. All rights reserved.
+ *  * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+
+package com.newrelic.agent.trace;
+
+import com.newrelic.agent.config.TransactionTracerConfig;
+import com.newrelic.agent.database.SqlObfuscator;
+import com.newrelic.agent.service.ServiceFactory;
+import com.newrelic.agent.tracers.ClassMethodSignature;
+import com.newrelic.agent.tracers.Tracer;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONStreamAware;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The segments of a transaction trace kept in parallel arrays rather than as a tree of {@link TransactionSegment}s.
+ *
+ * Segments are stored depth first, so the descendants of a segment are the segments that follow it up to the end of
+ * its subtree. A segment refers to its tracer for its attributes instead of copying them, and each distinct metric
+ * name is stored once. Segment 0 is the ROOT segment, and segment 1 is the segment of the root tracer.
+ *
+ * The table writes the same JSON as the equivalent tree of {@link TransactionSegment}s, so the tree only needs to be
+ * built by callers of {@link #toTransactionSegment()}.
+ */
+final class TransactionSegmentTable implements JSONStreamAware {
+
+    static final String HAS_ASYNC_CHILD_ATT = "async_wait";
+    private static final String ROOT_METRIC_NAME = "ROOT";
+    private static final int NONE = -1;
+
+    private final TransactionTracerConfig ttConfig;
+    private final String appName;
+    private final SqlObfuscator sqlObfuscator;
+    private final long startTime;
+    private final boolean excludeUri;
+
+    private final Tracer[] tracers;
+    private final long[] entryTimestamps;
+    private final long[] exitTimestamps;
+    private final int[] parents;
+    private final int[] subtreeEnds;
+    private final int[] nameIds;
+    private final List<String> names = new ArrayList<>();
+    private int size;
+
+    /**
+     * @param startTime the start time of the root tracer in milliseconds, which segment times are relative to
+     * @param tracers the finished tracers of the transaction
+     */
+    TransactionSegmentTable(TransactionTracerConfig ttConfig, String appName, SqlObfuscator sqlObfuscator, long startTime,
+            Tracer rootTracer, Collection<Tracer> tracers) {
+        this.ttConfig = ttConfig;
+        this.appName = appName;
+        this.sqlObfuscator = sqlObfuscator;
+        this.startTime = startTime;
+        this.excludeUri = ServiceFactory.getConfigService().getDefaultAgentConfig().getExternalTracerConfig().excludeRequestUri();
+
+        Tracer[] all = tracers == null ? new Tracer[0] : tracers.toArray(new Tracer[0]);
+        // the root tracer may not be in the list, so it gets the last index if it isn't
+        Map<Tracer, Integer> indexes = new IdentityHashMap<>(all.length + 1);
+        for (int i = 0; i < all.length; i++) {
+            indexes.put(all[i], i);
+        }
+        Integer rootIndex = indexes.get(rootTracer);
+        if (rootIndex == null) {
+            rootIndex = all.length;
+            indexes.put(rootTracer, rootIndex);
+        }
+
+        // link the children of each tracer in the order of the tracer list
+        int[] firstChildren = new int[all.length + 1];
+        int[] lastChildren = new int[all.length + 1];
+        int[] nextSiblings = new int[all.length + 1];
+        Arrays.fill(firstChildren, NONE);
+        Arrays.fill(nextSiblings, NONE);
+        for (int i = 0; i < all.length; i++) {
+            Integer parent = indexes.get(getParentSegment(all[i]));
+            if (parent == null) {
+                continue;
+            }
+            if (firstChildren[parent] == NONE) {
+                firstChildren[parent] = i;
+            } else {
+                nextSiblings[lastChildren[parent]] = i;
+            }
+            lastChildren[parent] = i;
+        }
+
+        // each tracer is a segment at most once, plus the ROOT segment
+        int capacity = all.length + 2;
+        this.tracers = new Tracer[capacity];
+        this.entryTimestamps = new long[capacity];
+        this.exitTimestamps = new long[capacity];
+        this.parents = new int[capacity];
+        this.subtreeEnds = new int[capacity];
+        this.nameIds = new int[capacity];
+
+        Map<String, Integer> nameIndexes = new HashMap<>();
+        int root = addSegment(rootTracer, ROOT_METRIC_NAME, NONE, nameIndexes);
+        addSegments(rootTracer, rootIndex, root, all, firstChildren, nextSiblings, nameIndexes);
+        subtreeEnds[root] = size;
+    }
+
+    /**
+     * Returns the closest ancestor of the tracer that is a transaction segment, or null if there isn't one. The
+     * ancestor is marked as having an async child if the tracer is one.
+     */
+    static Tracer getParentSegment(Tracer tracer) {
+        Tracer parentTracer = tracer.getParentTracer();
+        while (null != parentTracer && !parentTracer.isTransactionSegment()) {
+            parentTracer = parentTracer.getParentTracer();
+        }
+        if (tracer.getAgentAttribute("async_context") != null && parentTracer != null) {
+            parentTracer.setAgentAttribute(HAS_ASYNC_CHILD_ATT, Boolean.TRUE);
+        }
+        return parentTracer;
+    }
+
+    private void addSegments(Tracer tracer, int index, int parent, Tracer[] all, int[] firstChildren, int[] nextSiblings,
+            Map<String, Integer> nameIndexes) {
+        int segment = addSegment(tracer, TransactionSegment.getMetricName(tracer), parent, nameIndexes);
+        for (int child = firstChildren[index]; child != NONE; child = nextSiblings[child]) {
+            if (all[child].getTransactionSegmentName() != null) {
+                addSegments(all[child], child, segment, all, firstChildren, nextSiblings, nameIndexes);
+            }
+        }
+        subtreeEnds[segment] = size;
+    }
+
+    private int addSegment(Tracer tracer, String metricName, int parent, Map<String, Integer> nameIndexes) {
+        // sets the sql and exclusive duration attributes on the tracer
+        TransactionSegment.getTracerAttributes(tracer);
+
+        Integer nameId = nameIndexes.get(metricName);
+        if (nameId == null) {
+            nameId = names.size();
+            names.add(metricName);
+            nameIndexes.put(metricName, nameId);
+        }
+
+        int segment = size++;
+        tracers[segment] = tracer;
+        entryTimestamps[segment] = tracer.getStartTimeInMilliseconds() - startTime;
+        exitTimestamps[segment] = tracer.getEndTimeInMilliseconds() - startTime;
+        parents[segment] = parent;
+        nameIds[segment] = nameId;
+        return segment;
+    }
+
+    /**
+     * The ROOT segment reports the transaction duration instead of the response time.
+     */
+    void setRootExitTimestamp(long duration) {
+        exitTimestamps[0] = duration;
+    }
+
+    int size() {
+        return size;
+    }
+
+    Tracer getTracer(int segment) {
+        return tracers[segment];
+    }
+
+    String getMetricName(int segment) {
+        return names.get(nameIds[segment]);
+    }
+
+    int getParent(int segment) {
+        return parents[segment];
+    }
+
+    /**
+     * Build the tree of {@link TransactionSegment}s for the table.
+     *
+     * @return the ROOT segment
+     */
+    TransactionSegment toTransactionSegment() {
+        TransactionSegment[] segments = new TransactionSegment[size];
+        for (int i = 0; i < size; i++) {
+            segments[i] = new TransactionSegment(ttConfig, appName, sqlObfuscator, startTime, tracers[i], null);
+            if (parents[i] != NONE) {
+                segments[parents[i]].addChild(segments[i]);
+            }
+        }
+        segments[0].setMetricName(ROOT_METRIC_NAME);
+        segments[0].resetExitTimeStampInMs(exitTimestamps[0]);
+        return segments[0];
+    }
+
+    @Override
+    public void writeJSONString(Writer writer) throws IOException {
+        writeSegment(0, writer);
+    }
+
+    private void writeSegment(int segment, Writer writer) throws IOException {
+        Tracer tracer = tracers[segment];
+        String uri = excludeUri ? null : tracer.getTransactionSegmentUri();
+        Map<String, ?> filteredAtts = TransactionSegment.getSegmentParameters(appName, ttConfig, sqlObfuscator,
+                tracer.getAgentAttributes(), TransactionSegment.getParentStackTrace(tracer), 1, uri);
+        ClassMethodSignature classMethodSignature = tracer.getClassMethodSignature();
+
+        JSONArray.writeJSONString(Arrays.asList(entryTimestamps[segment], exitTimestamps[segment], getMetricName(segment),
+                filteredAtts, new Children(segment), classMethodSignature.getClassName(),
+                classMethodSignature.getMethodName()), writer);
+    }
+
+    /**
+     * Writes the children of a segment as a JSON array.
+     */
+    private final class Children implements JSONStreamAware {
+
+        private final int segment;
+
+        Children(int segment) {
+            this.segment = segment;
+        }
+
+        @Override
+        public void writeJSONString(Writer writer) throws IOException {
+            writer.write('[');
+            for (int child = segment + 1; child < subtreeEnds[segment]; child = subtreeEnds[child]) {
+                if (child != segment + 1) {
+                    writer.write(',');
+                }
+                writeSegment(child, writer);
+            }
+            writer.write(']');
+        }
+    }
+
+}
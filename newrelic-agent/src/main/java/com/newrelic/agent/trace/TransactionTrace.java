@@ -15,7 +15,6 @@ import com.newrelic.agent.attributes.AttributesUtils;
 import com.newrelic.agent.bridge.datastore.ConnectionFactory;
 import com.newrelic.agent.bridge.datastore.DatabaseVendor;
 import com.newrelic.agent.config.AgentConfigImpl;
-import com.newrelic.agent.config.TransactionTracerConfig;
 import com.newrelic.agent.database.DatabaseService;
 import com.newrelic.agent.database.ExplainPlanExecutor;
 import com.newrelic.agent.database.SqlObfuscator;
@@ -45,9 +44,8 @@ import java.util.zip.Deflater;
 
 public class TransactionTrace implements Comparable<TransactionTrace>, JSONStreamAware {
 
-    private static final String HAS_ASYNC_CHILD_ATT = "async_wait";
-
-    private final TransactionSegment rootSegment;
+    private final TransactionSegmentTable segments;
+    private TransactionSegment rootSegment;
     private final List<TransactionSegment> sqlSegments;
     private final Map<ConnectionFactory, List<ExplainPlanExecutor>> sqlTracers;
     private final long duration;
@@ -58,7 +56,6 @@ public class TransactionTrace implements Comparable<TransactionTrace>, JSONStrea
     private final Map<String, Object> agentAttributes;
     private final Map<String, Object> intrinsicAttributes;
     private final long rootTracerStartTime;
-    private Map<Tracer, Collection<Tracer>> children;
     private final String guid;
     private final Map<String, Map<String, String>> prefixedAttributes;
     private String syntheticsResourceId;
@@ -67,7 +64,6 @@ public class TransactionTrace implements Comparable<TransactionTrace>, JSONStrea
     private TransactionTrace(TransactionData transactionData, SqlObfuscator sqlObfuscator) {
         this.applicationName = transactionData.getApplicationName();
 
-        children = buildChildren(transactionData.getTracers());
         sqlTracers = new HashMap<>();
         Tracer tracer = transactionData.getRootTracer();
         userAttributes = new HashMap<>();
@@ -98,18 +94,19 @@ public class TransactionTrace implements Comparable<TransactionTrace>, JSONStrea
 
         this.rootMetricName = transactionData.getBlameOrRootMetricName();
         this.guid = transactionData.getGuid();
-        final String applicationName = transactionData.getApplicationName();
-        rootSegment = new TransactionSegment(transactionData.getTransactionTracerConfig(), applicationName, sqlObfuscator, rootTracerStartTime,
-                tracer, createTransactionSegment(transactionData.getTransactionTracerConfig(), sqlObfuscator, tracer, null));
-        rootSegment.setMetricName("ROOT");
+        // the segments are kept as a table and only turned into a tree of TransactionSegments if one is asked for
+        segments = new TransactionSegmentTable(transactionData.getTransactionTracerConfig(), applicationName, sqlObfuscator,
+                rootTracerStartTime, tracer, transactionData.getTracers());
+        // segment 0 is the ROOT segment, which has the same tracer as segment 1
+        for (int i = 1; i < segments.size(); i++) {
+            processSqlTracer(segments.getTracer(i));
+        }
         // use the rootTraceStartTime instead of txDur from transaction time as that was giving us a rounding error
         long txDurMs = Math.max(0, transactionData.getTransactionTime().getEndTimeInMilliseconds() - rootTracerStartTime);
         // the root segment should report the transaction duration instead of the response time
-        rootSegment.resetExitTimeStampInMs(txDurMs);
+        segments.setRootExitTimestamp(txDurMs);
         duration = transactionData.getTransactionTime().getResponseTimeInMilliseconds();
 
-        children.clear();
-        children = null;
         this.syntheticsResourceId = null;
     }
 
@@ -150,13 +147,7 @@ public class TransactionTrace implements Comparable<TransactionTrace>, JSONStrea
         }
         Map<Tracer, Collection<Tracer>> children = new HashMap<>();
         for (Tracer tracer : tracers) {
-            Tracer parentTracer = tracer.getParentTracer();
-            while (null != parentTracer && !parentTracer.isTransactionSegment()) {
-                parentTracer = parentTracer.getParentTracer();
-            }
-            if (tracer.getAgentAttribute("async_context") != null && parentTracer != null) {
-                parentTracer.setAgentAttribute(HAS_ASYNC_CHILD_ATT, Boolean.TRUE);
-            }
+            Tracer parentTracer = TransactionSegmentTable.getParentSegment(tracer);
             Collection<Tracer> kids = children.get(parentTracer);
             if (kids == null) {
                 kids = new ArrayList<>(parentTracer == null ? 1 : Math.max(1, parentTracer.getChildCount()));
@@ -184,35 +175,17 @@ public class TransactionTrace implements Comparable<TransactionTrace>, JSONStrea
         return new TransactionTrace(transactionData, sqlObfuscator);
     }
 
+    /**
+     * Get the tree of segments of the trace. The tree is built on the first call, the trace itself is serialized
+     * without it.
+     */
     public TransactionSegment getRootSegment() {
+        if (rootSegment == null) {
+            rootSegment = segments.toTransactionSegment();
+        }
         return rootSegment;
     }
 
-    private TransactionSegment createTransactionSegment(TransactionTracerConfig ttConfig, SqlObfuscator sqlObfuscator,
-            Tracer tracer, TransactionSegment lastSibling) {
-        TransactionSegment segment = tracer.getTransactionSegment(ttConfig, sqlObfuscator, rootTracerStartTime, lastSibling);
-        processSqlTracer(tracer);
-        Collection<Tracer> children = this.children.get(tracer);
-        if (children != null) {
-            TransactionSegment lastKid = null;
-            for (Tracer child : children) {
-                if (child.getTransactionSegmentName() != null) {
-                    TransactionSegment childSegment = createTransactionSegment(ttConfig, sqlObfuscator, child, lastKid);
-                    if (childSegment != lastKid) {
-                        /*
-                         * We used to check the childSegment's metric name for null and remove it if the name was null.
-                         * After reading the code and writing a test, I do not think it is possible to have a null
-                         * metric name. The transaction segment code sets it to the tracer class if it is null. I have
-                         * no clue why we would ever want to send up a segment with the tracer class as the name.
-                         */
-                        segment.addChild(childSegment);
-                        lastKid = childSegment;
-                    }
-                }
-            }
-        }
-        return segment;
-    }
 
     public Map<ConnectionFactory, List<ExplainPlanExecutor>> getExplainPlanExecutors() {
         return Collections.unmodifiableMap(sqlTracers);
@@ -319,7 +292,7 @@ public class TransactionTrace implements Comparable<TransactionTrace>, JSONStrea
         final boolean forcePersist = false;
         final Object xraySessionId = null;
 
-        List<Object> data = Arrays.asList(startTime, Collections.EMPTY_MAP, Collections.EMPTY_MAP, rootSegment, getAttributes());
+        List<Object> data = Arrays.asList(startTime, Collections.EMPTY_MAP, Collections.EMPTY_MAP, segments, getAttributes());
 
         if (null == syntheticsResourceId) {
             JSONArray.writeJSONString(Arrays.asList(startTime, duration, rootMetricName, requestUri,
@@ -20,7 +20,6 @@ import com.newrelic.agent.config.TransactionTracerConfig;
 import com.newrelic.agent.database.DatastoreMetrics;
 import com.newrelic.agent.database.SqlObfuscator;
 import com.newrelic.agent.service.ServiceFactory;
-import com.newrelic.agent.stats.ResponseTimeStats;
 import com.newrelic.agent.stats.TransactionStats;
 import com.newrelic.agent.trace.TransactionGuidFactory;
 import com.newrelic.agent.trace.TransactionSegment;
@@ -75,6 +74,8 @@ public class DefaultTracer extends AbstractTracer {
     private long duration;
     private long exclusiveDuration;
     private Tracer parentTracer;
+    private final long guidBits;
+    // created on first use, most tracers never need their guid
     private String guid;
 
     private final ClassMethodSignature classMethodSignature;
@@ -146,7 +147,7 @@ public class DefaultTracer extends AbstractTracer {
         }
 
         this.tracerFlags = (byte) tracerFlags;
-        this.guid = TransactionGuidFactory.generate16CharGuid();
+        this.guidBits = TransactionGuidFactory.nextGuidBits();
     }
 
     public DefaultTracer(TransactionActivity txa, ClassMethodSignature sig, Object object,
@@ -170,6 +171,12 @@ public class DefaultTracer extends AbstractTracer {
 
     @Override
     public String getGuid() {
+        String guid = this.guid;
+        if (guid == null) {
+            // racing threads create equal strings, so it doesn't matter whose is kept
+            guid = TransactionGuidFactory.toGuid(guidBits);
+            this.guid = guid;
+        }
         return guid;
     }
 
@@ -479,8 +486,7 @@ public class DefaultTracer extends AbstractTracer {
             String metricName = getMetricName();
             if (metricName != null) {
                 // record the scoped metrics
-                ResponseTimeStats stats = transactionStats.getScopedStats().getOrCreateResponseTimeStats(metricName);
-                stats.recordResponseTimeInNanos(getDuration(), getExclusiveDuration());
+                transactionStats.getScopedStats().recordResponseTimeInNanos(metricName, getDuration(), getExclusiveDuration());
 
                 // there is now an unscoped metric for every scoped metric
                 // the unscoped metric is created in the StatsEngineImpl
@@ -488,14 +494,12 @@ public class DefaultTracer extends AbstractTracer {
             }
             if (getRollupMetricNames() != null) {
                 for (String name : getRollupMetricNames()) {
-                    ResponseTimeStats stats = transactionStats.getUnscopedStats().getOrCreateResponseTimeStats(name);
-                    stats.recordResponseTimeInNanos(getDuration(), getExclusiveDuration());
+                    transactionStats.getUnscopedStats().recordResponseTimeInNanos(name, getDuration(), getExclusiveDuration());
                 }
             }
             if (getExclusiveRollupMetricNames() != null) {
                 for (String name : getExclusiveRollupMetricNames()) {
-                    ResponseTimeStats stats = transactionStats.getUnscopedStats().getOrCreateResponseTimeStats(name);
-                    stats.recordResponseTimeInNanos(getExclusiveDuration(), getExclusiveDuration());
+                    transactionStats.getUnscopedStats().recordResponseTimeInNanos(name, getExclusiveDuration(), getExclusiveDuration());
                 }
             }
             doRecordMetrics(transactionStats);
@@ -70,7 +70,8 @@ public class UltraLightTracer implements Tracer {
         //this call makes sure that this tracer is popped off the stack
         txa.tracerFinished(this, opcode);
         //record the stats
-        txa.getTransactionStats().getScopedStats().getOrCreateResponseTimeStats(segmentName).recordResponseTimeInNanos(getDuration());
+        long duration = getDuration();
+        txa.getTransactionStats().getScopedStats().recordResponseTimeInNanos(segmentName, duration, duration);
         //make sure to let the parent know we're done
         parentTracer.childTracerFinished(this);
     }
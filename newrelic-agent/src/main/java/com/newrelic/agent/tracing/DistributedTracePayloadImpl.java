@@ -12,9 +12,9 @@ import com.newrelic.agent.bridge.AgentBridge;
 import com.newrelic.agent.bridge.DistributedTracePayload;
 import com.newrelic.agent.service.ServiceFactory;
 import org.apache.commons.codec.binary.Base64;
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
 
+import java.util.Arrays;
+import java.util.Objects;
 import java.util.logging.Level;
 
 import static com.newrelic.agent.tracing.DistributedTraceUtil.*;
@@ -22,6 +22,12 @@ import static com.newrelic.agent.tracing.DistributedTraceUtil.*;
 public class DistributedTracePayloadImpl implements DistributedTracePayload {
     private static final Base64 base64 = new Base64();
 
+    /**
+     * The version, parent type, account id, trust key and application id only change when the agent reconnects, so
+     * the part of the payload made of them is only serialized and encoded once.
+     */
+    private static volatile PayloadPrefix payloadPrefix;
+
     public final long timestamp;
     public final String parentType;
     public final String accountId;
@@ -72,49 +78,113 @@ public class DistributedTracePayloadImpl implements DistributedTracePayload {
     public String getTransactionId() { return txnId; }
 
     @Override
-    @SuppressWarnings("unchecked")
     public String text() {
         DistributedTraceService distributedTraceService = ServiceFactory.getDistributedTraceService();
+        PayloadPrefix prefix = getPrefix(distributedTraceService);
+        return appendPayloadSuffix(new StringBuilder(prefix.json.length() + 128).append(prefix.json)).toString();
+    }
 
-        JSONObject payload = new JSONObject();
-
-        JSONArray catVersion = new JSONArray();
-        catVersion.add(distributedTraceService.getMajorSupportedCatVersion());
-        catVersion.add(distributedTraceService.getMinorSupportedCatVersion());
-        payload.put(VERSION, catVersion); // version [major, minor]
-
-        JSONObject data = new JSONObject();
-
-        data.put(TIMESTAMP, timestamp);
-        data.put(PARENT_TYPE, parentType);
-        data.put(ACCOUNT_ID, accountId);
+    @Override
+    public String httpSafe() {
+        DistributedTraceService distributedTraceService = ServiceFactory.getDistributedTraceService();
+        PayloadPrefix prefix = getPrefix(distributedTraceService);
+        // base64 encodes groups of 3 bytes, so the encoded prefix can be reused as long as the rest starts on a group
+        byte[] suffix = appendPayloadSuffix(new StringBuilder(128)).toString().getBytes(Charsets.UTF_8);
+        byte[] unencoded = new byte[prefix.unencodedBytes.length + suffix.length];
+        System.arraycopy(prefix.unencodedBytes, 0, unencoded, 0, prefix.unencodedBytes.length);
+        System.arraycopy(suffix, 0, unencoded, prefix.unencodedBytes.length, suffix.length);
+        return prefix.encoded + base64.encodeAsString(unencoded);
+    }
 
-        if (!accountId.equals(trustKey)) {
-            data.put(TRUSTED_ACCOUNT_KEY, trustKey);
+    private PayloadPrefix getPrefix(DistributedTraceService distributedTraceService) {
+        int majorVersion = distributedTraceService.getMajorSupportedCatVersion();
+        int minorVersion = distributedTraceService.getMinorSupportedCatVersion();
+        PayloadPrefix prefix = payloadPrefix;
+        if (prefix == null || !prefix.matches(majorVersion, minorVersion, parentType, accountId, trustKey, applicationId)) {
+            prefix = new PayloadPrefix(majorVersion, minorVersion, parentType, accountId, trustKey, applicationId);
+            payloadPrefix = prefix;
         }
+        return prefix;
+    }
 
-        data.put(APPLICATION_ID, applicationId);
-
+    /**
+     * Appends the fields that change from payload to payload and closes the JSON object started by the prefix.
+     */
+    private StringBuilder appendPayloadSuffix(StringBuilder json) {
         if (guid != null) {
             // span events is enabled
-            data.put(GUID, guid);
+            appendField(json, GUID, guid);
         }
-
-        data.put(TRACE_ID, traceId);
-        data.put(PRIORITY, priority);
-        data.put(SAMPLED, sampled.booleanValue());
-
+        appendField(json, TRACE_ID, traceId);
+        if (priority == null || priority.isNaN() || priority.isInfinite()) {
+            appendFieldName(json, PRIORITY).append("null");
+        } else {
+            appendFieldName(json, PRIORITY).append(priority.floatValue());
+        }
+        appendFieldName(json, SAMPLED).append(sampled.booleanValue());
+        appendFieldName(json, TIMESTAMP).append(timestamp);
         if (txnId != null) {
-            data.put(TX, txnId);
+            appendField(json, TX, txnId);
         }
+        return json.append("}}");
+    }
 
-        payload.put(DATA, data);
-        return payload.toJSONString();
+    private static StringBuilder appendFieldName(StringBuilder json, String name) {
+        return json.append(",\"").append(name).append("\":");
     }
 
-    @Override
-    public String httpSafe() {
-        return base64.encodeAsString(text().getBytes(Charsets.UTF_8));
+    private static void appendField(StringBuilder json, String name, String value) {
+        appendString(appendFieldName(json, name), value);
+    }
+
+    /**
+     * Appends the value as a JSON string, escaped the same way as {@link org.json.simple.JSONValue#escape(String)}.
+     */
+    private static void appendString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            switch (ch) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\b':
+                    json.append("\\b");
+                    break;
+                case '\f':
+                    json.append("\\f");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                case '/':
+                    json.append("\\/");
+                    break;
+                default:
+                    if (ch <= '\u001F' || (ch >= '\u007F' && ch <= '\u009F') || (ch >= '\u2000' && ch <= '\u20FF')) {
+                        json.append("\\u");
+                        for (int shift = 12; shift >= 0; shift -= 4) {
+                            json.append(Character.toUpperCase(Character.forDigit((ch >> shift) & 0xf, 16)));
+                        }
+                    } else {
+                        json.append(ch);
+                    }
+            }
+        }
+        json.append('"');
     }
 
     @Override
@@ -132,4 +202,60 @@ public class DistributedTracePayloadImpl implements DistributedTracePayload {
                 ", priority=" + priority +
                 '}';
     }
+
+    /**
+     * The start of the payload up to and including the application id, as JSON and as base64.
+     */
+    private static final class PayloadPrefix {
+        private final int majorVersion;
+        private final int minorVersion;
+        private final String parentType;
+        private final String accountId;
+        private final String trustKey;
+        private final String applicationId;
+
+        private final String json;
+        /**
+         * The base64 of the bytes of the JSON that fill complete groups of 3 bytes.
+         */
+        private final String encoded;
+        /**
+         * The remaining bytes of the JSON, which have to be encoded together with the rest of the payload.
+         */
+        private final byte[] unencodedBytes;
+
+        private PayloadPrefix(int majorVersion, int minorVersion, String parentType, String accountId, String trustKey,
+                String applicationId) {
+            this.majorVersion = majorVersion;
+            this.minorVersion = minorVersion;
+            this.parentType = parentType;
+            this.accountId = accountId;
+            this.trustKey = trustKey;
+            this.applicationId = applicationId;
+
+            // version [major, minor]
+            StringBuilder json = new StringBuilder(128).append("{\"").append(VERSION).append("\":[")
+                    .append(majorVersion).append(',').append(minorVersion).append("],\"").append(DATA).append("\":{\"")
+                    .append(PARENT_TYPE).append("\":");
+            appendString(json, parentType);
+            appendField(json, ACCOUNT_ID, accountId);
+            if (!accountId.equals(trustKey)) {
+                appendField(json, TRUSTED_ACCOUNT_KEY, trustKey);
+            }
+            appendField(json, APPLICATION_ID, applicationId);
+            this.json = json.toString();
+
+            byte[] bytes = this.json.getBytes(Charsets.UTF_8);
+            int encodedLength = bytes.length - bytes.length % 3;
+            this.encoded = base64.encodeAsString(Arrays.copyOf(bytes, encodedLength));
+            this.unencodedBytes = Arrays.copyOfRange(bytes, encodedLength, bytes.length);
+        }
+
+        private boolean matches(int majorVersion, int minorVersion, String parentType, String accountId, String trustKey,
+                String applicationId) {
+            return this.majorVersion == majorVersion && this.minorVersion == minorVersion
+                    && Objects.equals(this.parentType, parentType) && this.accountId.equals(accountId)
+                    && Objects.equals(this.trustKey, trustKey) && Objects.equals(this.applicationId, applicationId);
+        }
+    }
 }
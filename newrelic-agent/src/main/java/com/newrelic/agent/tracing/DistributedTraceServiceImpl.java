@@ -31,8 +31,6 @@ import com.newrelic.agent.tracers.AbstractTracer;
 import com.newrelic.agent.tracers.Tracer;
 import com.newrelic.api.agent.DistributedTracePayload;
 
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
 import java.text.MessageFormat;
 import java.util.HashMap;
 import java.util.Map;
@@ -55,22 +53,8 @@ public class DistributedTraceServiceImpl extends AbstractService implements Dist
 
     private DistributedTracingConfig distributedTraceConfig;
 
-    // Instantiate a new DecimalFormat instance as it is not thread safe:
-    // http://jonamiller.com/2015/12/21/decimalformat-is-not-thread-safe/
-    private static final ThreadLocal<DecimalFormat> FORMATTER =
-            new ThreadLocal<DecimalFormat>() {
-                @Override
-                protected DecimalFormat initialValue() {
-                    DecimalFormat format = new DecimalFormat();
-                    DecimalFormatSymbols symbols = format.getDecimalFormatSymbols();
-                    if (symbols.getDecimalSeparator() == ',') {
-                        format.applyLocalizedPattern("#,######");
-                    } else {
-                        format.applyPattern("#.######");
-                    }
-                    return format;
-                }
-            };
+    private static final int PRIORITY_RANDOM_BITS = 24;
+    private static final long PRIORITY_SCALE = 1_000_000L;
 
     public DistributedTraceServiceImpl() {
         super(DistributedTraceServiceImpl.class.getSimpleName());
@@ -280,14 +264,28 @@ public class DistributedTraceServiceImpl extends AbstractService implements Dist
         }
     }
 
+    /**
+     * A random priority in [0, 1] with at most 6 decimal places.
+     */
     public static float nextTruncatedFloat() {
-        float next = 0.0f;
-        try {
-            next = Float.parseFloat(FORMATTER.get().format(ThreadLocalRandom.current().nextFloat()).replace(',', '.'));
-        } catch (NumberFormatException e) {
-            Agent.LOG.log(Level.WARNING, "Unable to create priority value", e);
+        // the same 24 random bits ThreadLocalRandom.nextFloat() uses
+        return toTruncatedFloat(ThreadLocalRandom.current().nextInt() >>> (Integer.SIZE - PRIORITY_RANDOM_BITS));
+    }
+
+    /**
+     * Rounds randomBits / 2^24 half even to 6 decimal places, the same as formatting it with the pattern "#.######" and
+     * parsing it back, but with integer arithmetic only.
+     */
+    static float toTruncatedFloat(int randomBits) {
+        long scaled = randomBits * PRIORITY_SCALE;
+        long rounded = scaled >>> PRIORITY_RANDOM_BITS;
+        long remainder = scaled & ((1L << PRIORITY_RANDOM_BITS) - 1);
+        long half = 1L << (PRIORITY_RANDOM_BITS - 1);
+        if (remainder > half || (remainder == half && (rounded & 1) == 1)) {
+            rounded++;
         }
-        return next;
+        // rounded / 10^6 is never close enough to a float rounding boundary for the double division to round differently
+        return (float) (rounded / (double) PRIORITY_SCALE);
     }
 
     private void recordMetrics(TransactionData transactionData, TransactionStats transactionStats) {
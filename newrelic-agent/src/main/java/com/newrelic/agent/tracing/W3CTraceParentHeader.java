@@ -7,7 +7,6 @@
 
 package com.newrelic.agent.tracing;
 
-import com.google.common.base.Strings;
 import com.newrelic.agent.trace.TransactionGuidFactory;
 
 import java.util.Locale;
@@ -17,6 +16,16 @@ public class W3CTraceParentHeader {
     static final String W3C_VERSION = "00";
     static final String W3C_TRACE_PARENT_DELIMITER = "-";
 
+    /**
+     * Headers are written into a per-thread buffer so that creating one only allocates the resulting string.
+     */
+    private static final ThreadLocal<char[]> HEADER_BUFFER = new ThreadLocal<char[]>() {
+        @Override
+        protected char[] initialValue() {
+            return new char[W3CTraceParentValidator.HEADER_LENGTH];
+        }
+    };
+
     public static String create(SpanProxy proxy, String traceId, String guid, boolean sampled) {
         W3CTraceParent existingW3cTraceParent = proxy.getInitiatingW3CTraceParent();
         if (existingW3cTraceParent == null) {
@@ -30,29 +39,48 @@ public class W3CTraceParentHeader {
     private static String createNewHeader(SpanProxy proxy, String traceId, String guid, boolean sampled) {
         String parentId = guid == null ? TransactionGuidFactory.generate16CharGuid() : guid;
         proxy.setInitiatingW3CTraceParent(new W3CTraceParent(W3C_VERSION, traceId, null, (sampled ? 1 : 0)));
-        String w3cTraceId = maybePad(maybeLower(traceId));
-        return createHeader(sampled, parentId, w3cTraceId);
+        return createHeader(sampled, parentId, maybeLower(traceId), true);
     }
 
-    private static String createHeader(boolean sampled, String parentId, String w3cTraceId) {
-        return W3C_VERSION + W3C_TRACE_PARENT_DELIMITER + w3cTraceId + W3C_TRACE_PARENT_DELIMITER + parentId + W3C_TRACE_PARENT_DELIMITER
-                + sampledToFlags(sampled);
-    }
+    private static String createHeader(boolean sampled, String parentId, String w3cTraceId, boolean padTraceId) {
+        int padding = padTraceId ? Math.max(0, W3CTraceParentValidator.TRACE_ID_LENGTH - w3cTraceId.length()) : 0;
+        int length = W3C_VERSION.length() + padding + w3cTraceId.length() + parentId.length() + 5;
+        char[] buffer = HEADER_BUFFER.get();
+        if (buffer.length < length) {
+            buffer = new char[length];
+            HEADER_BUFFER.set(buffer);
+        }
 
-    private static String maybeLower(String traceId) {
-        return traceId.toLowerCase(Locale.ROOT);
+        int position = 0;
+        W3C_VERSION.getChars(0, W3C_VERSION.length(), buffer, position);
+        position += W3C_VERSION.length();
+        buffer[position++] = '-';
+        for (int i = 0; i < padding; i++) {
+            buffer[position++] = '0';
+        }
+        w3cTraceId.getChars(0, w3cTraceId.length(), buffer, position);
+        position += w3cTraceId.length();
+        buffer[position++] = '-';
+        parentId.getChars(0, parentId.length(), buffer, position);
+        position += parentId.length();
+        buffer[position++] = '-';
+        buffer[position++] = '0';
+        buffer[position++] = sampled ? '1' : '0';
+        return new String(buffer, 0, position);
     }
 
-    private static String maybePad(String txnId) {
-        return Strings.padStart(txnId, 32, '0');
+    private static String maybeLower(String traceId) {
+        for (int i = 0; i < traceId.length(); i++) {
+            char c = traceId.charAt(i);
+            if (c >= 'A' && c <= 'Z' || c > 0x7f) {
+                return traceId.toLowerCase(Locale.ROOT);
+            }
+        }
+        return traceId;
     }
 
     private static String forwardHeader(W3CTraceParent existingW3cTraceParent, String guid, boolean sampled) {
         String parentId = guid == null ? TransactionGuidFactory.generate16CharGuid() : guid;
-        return createHeader(sampled, parentId, existingW3cTraceParent.getTraceId());
-    }
-
-    private static String sampledToFlags(boolean sampled) {
-        return sampled ? "01" : "00";
+        return createHeader(sampled, parentId, existingW3cTraceParent.getTraceId(), false);
     }
 }
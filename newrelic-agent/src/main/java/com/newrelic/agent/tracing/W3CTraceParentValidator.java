@@ -9,18 +9,18 @@ package com.newrelic.agent.tracing;
 
 import com.google.common.annotations.VisibleForTesting;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 import static com.newrelic.agent.tracing.W3CTraceParentHeader.W3C_VERSION;
-import static java.util.regex.Pattern.compile;
 
+/**
+ * Validates the fields of a traceparent header. The checks work on index ranges of the header so that a header can be
+ * validated before any of its fields are copied out of it.
+ */
 public class W3CTraceParentValidator {
 
     private static final String INVALID_VERSION = "ff";
-    private static final String INVALID_TRACE_ID = "00000000000000000000000000000000"; // 32 characters
-    private static final String INVALID_PARENT_ID = "0000000000000000"; // 16 characters
-    private static final Pattern HEXADECIMAL_PATTERN = compile("\\p{XDigit}+");
+    static final int HEADER_LENGTH = 55;
+    static final int TRACE_ID_LENGTH = 32;
+    static final int PARENT_ID_LENGTH = 16;
 
     private final String traceParentHeader;
     private final String version;
@@ -40,16 +40,8 @@ public class W3CTraceParentValidator {
         return isValidVersion() && isValidTraceId() && isValidParentId() && isValidFlags();
     }
 
-    /**
-     * Version can only be 2 hexadecimal characters, `ff` is not allowed and if it matches our expected version the length must be 55 characters
-     */
     boolean isValidVersion() {
-        return version.length() == 2 && isHexadecimal(version.charAt(0)) && isHexadecimal(version.charAt(1)) && !version.equals(INVALID_VERSION) &&
-                !(version.equals(W3C_VERSION) && traceParentHeaderLengthIsInvalid());
-    }
-
-    private boolean traceParentHeaderLengthIsInvalid() {
-        return traceParentHeader.length() != 55;
+        return isValidVersion(version, 0, version.length(), traceParentHeader.length());
     }
 
     boolean isHexadecimal(char character) {
@@ -57,29 +49,98 @@ public class W3CTraceParentValidator {
     }
 
     boolean isHexadecimal(String input) {
-        final Matcher matcher = HEXADECIMAL_PATTERN.matcher(input);
-        return matcher.matches();
+        return isHexadecimal(input, 0, input.length());
+    }
+
+    boolean isValidTraceId() {
+        return isValidId(traceId, 0, traceId.length(), TRACE_ID_LENGTH);
+    }
+
+    boolean isValidParentId() {
+        return isValidId(parentId, 0, parentId.length(), PARENT_ID_LENGTH);
+    }
+
+    boolean isValidFlags() {
+        return isValidFlags(flags, 0, flags.length());
     }
 
     /**
-     * TraceId must be 32 characters, not all zeros and must be hexadecimal
+     * Validate the fields of a traceparent header in place. Each field is given by the index of its first character
+     * and the index after its last character: the version starts at 0 and the other fields one after the end of the
+     * previous field.
      */
-    boolean isValidTraceId() {
-        return traceId.length() == 32 && !traceId.equals(INVALID_TRACE_ID) && isHexadecimal(traceId);
+    static boolean isValid(CharSequence header, int versionEnd, int traceIdEnd, int parentIdEnd, int flagsEnd) {
+        return isValidVersion(header, 0, versionEnd, header.length())
+                && isValidId(header, versionEnd + 1, traceIdEnd, TRACE_ID_LENGTH)
+                && isValidId(header, traceIdEnd + 1, parentIdEnd, PARENT_ID_LENGTH)
+                && isValidFlags(header, parentIdEnd + 1, flagsEnd);
     }
 
     /**
-     * ParentId must be 16 characters, not all zeros and must be hexadecimal
+     * Version can only be 2 hexadecimal characters, `ff` is not allowed and if it matches our expected version the length must be 55 characters
      */
-    boolean isValidParentId() {
-        return parentId.length() == 16 && !parentId.equals(INVALID_PARENT_ID) && isHexadecimal(parentId);
+    private static boolean isValidVersion(CharSequence input, int start, int end, int headerLength) {
+        if (end - start != 2) {
+            return false;
+        }
+        char first = input.charAt(start);
+        char second = input.charAt(start + 1);
+        if (Character.digit(first, 16) == -1 || Character.digit(second, 16) == -1 || (first == INVALID_VERSION.charAt(0) && second == INVALID_VERSION.charAt(1))) {
+            return false;
+        }
+        boolean isW3CVersion = first == W3C_VERSION.charAt(0) && second == W3C_VERSION.charAt(1);
+        return !(isW3CVersion && headerLength != HEADER_LENGTH);
+    }
+
+    /**
+     * TraceId and parentId must have the expected length, not be all zeros and must be hexadecimal
+     */
+    private static boolean isValidId(CharSequence input, int start, int end, int length) {
+        if (end - start != length || !isHexadecimal(input, start, end)) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (input.charAt(i) != '0') {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
      * Flags must be 2 characters and must be hexadecimal
      */
-    boolean isValidFlags() {
-        return flags.length() == 2 && isHexadecimal(flags);
+    private static boolean isValidFlags(CharSequence input, int start, int end) {
+        return end - start == 2 && isHexadecimal(input, start, end);
+    }
+
+    /**
+     * Whether the range is not empty and only contains the ASCII hexadecimal digits [0-9a-fA-F].
+     */
+    static boolean isHexadecimal(CharSequence input, int start, int end) {
+        if (start >= end) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (hexValue(input.charAt(i)) == -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The value of an ASCII hexadecimal digit, or -1.
+     */
+    static int hexValue(char character) {
+        if (character >= '0' && character <= '9') {
+            return character - '0';
+        } else if (character >= 'a' && character <= 'f') {
+            return character - 'a' + 10;
+        } else if (character >= 'A' && character <= 'F') {
+            return character - 'A' + 10;
+        }
+        return -1;
     }
 
     static Builder forHeader(String traceParentHeader) {
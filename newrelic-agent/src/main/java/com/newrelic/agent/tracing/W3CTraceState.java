@@ -7,7 +7,6 @@
 
 package com.newrelic.agent.tracing;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
@@ -35,9 +34,10 @@ public class W3CTraceState {
 
     W3CTraceState(List<String> traceStateHeaders, List<String> vendorStates, boolean containsNrData, int version, String trustKey, ParentType parentType,
             String accountId, String applicationId, String guid, String txnId, Sampled sampled, Float priority, long timestamp) {
-        this.traceStateHeaders = new ArrayList<>(traceStateHeaders);
+        // the lists are owned by the parser and never modified after this, so they are wrapped rather than copied
+        this.traceStateHeaders = Collections.unmodifiableList(traceStateHeaders);
         this.containsNrData = containsNrData;
-        this.vendorStates = new ArrayList<>(vendorStates);
+        this.vendorStates = Collections.unmodifiableList(vendorStates);
         this.version = version;
         this.trustKey = trustKey;
         this.parentType = parentType;
@@ -59,7 +59,7 @@ public class W3CTraceState {
     }
 
     public List<String> getVendorStates() {
-        return Collections.unmodifiableList(vendorStates);
+        return vendorStates;
     }
 
     public int getVersion() {
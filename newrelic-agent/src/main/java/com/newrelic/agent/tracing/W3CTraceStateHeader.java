@@ -7,22 +7,26 @@
 
 package com.newrelic.agent.tracing;
 
-import com.google.common.base.Joiner;
 import com.newrelic.agent.trace.TransactionGuidFactory;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.Objects;
 
 public class W3CTraceStateHeader {
     private static final String NR_HEADER_VERSION = "0";
     static final String NR_TRACE_STATE_DELIMITER = "-";
-    private static final Joiner NR_TRACE_STATE_JOINER = Joiner.on(NR_TRACE_STATE_DELIMITER);
     private static final String MULTI_TENANT_DELIMITER = "@";
-    private static final String TENANT_IDENTIFIER = "[a-z0-9][_0-9a-z\\-*/]{0,240}";
-    private static final String MULTI_TENANT_VENDOR_IDENTIFIER = "[a-z][_0-9a-z\\-*/]{0,13}";
-    static final String MULTI_TENANT_VENDOR_STATE_KEY = TENANT_IDENTIFIER + MULTI_TENANT_DELIMITER + MULTI_TENANT_VENDOR_IDENTIFIER;
     static final String VENDOR_STATE_KEY_VALUE_DELIMITER = "=";
     static final String NR_VENDOR = MULTI_TENANT_DELIMITER + "nr" + VENDOR_STATE_KEY_VALUE_DELIMITER;
+    private static final int PRIORITY_SCALE = 6;
+    private static final long PRIORITY_UNSCALE = 1_000_000L;
+
+    /**
+     * The trust key, version, parent type, account id and application id only change when the agent reconnects, so the
+     * part of the header made of them is only built once.
+     */
+    private static volatile EntryPrefix entryPrefix;
 
     private final boolean spanEventsEnabled;
     private final boolean transactionEventsEnabled;
@@ -38,11 +42,10 @@ public class W3CTraceStateHeader {
         if (traceState == null) {
             return createTraceStateHeader(outboundPayload, NR_HEADER_VERSION);
         }
-        String traceStateHeader = createTraceStateHeader(outboundPayload);
-        return Joiner.on(W3CTraceStateSupport.W3C_TRACE_STATE_VENDOR_DELIMITER).join(
-                traceStateHeader,
-                W3CTraceStateSupport.concatenateVendorStates(W3CTraceStateSupport.truncateVendorStates(traceState.getVendorStates()))
-        );
+        StringBuilder header = appendTraceStateHeader(new StringBuilder(256), outboundPayload, NR_HEADER_VERSION);
+        header.append(W3CTraceStateSupport.W3C_TRACE_STATE_VENDOR_DELIMITER);
+        W3CTraceStateSupport.appendVendorStates(header, W3CTraceStateSupport.truncateVendorStates(traceState.getVendorStates()));
+        return header.toString();
     }
 
     String createTraceStateHeader(DistributedTracePayloadImpl payload) {
@@ -50,22 +53,64 @@ public class W3CTraceStateHeader {
     }
 
     String createTraceStateHeader(DistributedTracePayloadImpl payload, String version) {
-        String spanId = getSpanId(payload);
-        String transactionId = getTransactionId(payload);
-        String priority = BigDecimal.valueOf(payload.priority)
-                .setScale(6, RoundingMode.HALF_UP)
-                .toString()
-                .replaceFirst("(^.*\\.[1-9]+)0+", "$1");
-        return NR_TRACE_STATE_JOINER.join(
-                payload.trustKey + NR_VENDOR + version,
-                ParentType.App.value,
-                payload.accountId,
-                payload.applicationId,
-                spanId,
-                transactionId,
-                payload.sampled.booleanValue() ? 1 : 0,
-                priority,
-                payload.timestamp);
+        return appendTraceStateHeader(new StringBuilder(128), payload, version).toString();
+    }
+
+    private StringBuilder appendTraceStateHeader(StringBuilder header, DistributedTracePayloadImpl payload, String version) {
+        header.append(getEntryPrefix(payload, version))
+                .append(getSpanId(payload)).append(NR_TRACE_STATE_DELIMITER)
+                .append(getTransactionId(payload)).append(NR_TRACE_STATE_DELIMITER)
+                .append(payload.sampled.booleanValue() ? '1' : '0').append(NR_TRACE_STATE_DELIMITER);
+        appendPriority(header, payload.priority);
+        return header.append(NR_TRACE_STATE_DELIMITER).append(payload.timestamp);
+    }
+
+    private static String getEntryPrefix(DistributedTracePayloadImpl payload, String version) {
+        EntryPrefix prefix = entryPrefix;
+        if (prefix == null || !prefix.matches(payload.trustKey, version, payload.accountId, payload.applicationId)) {
+            prefix = new EntryPrefix(payload.trustKey, version, payload.accountId, payload.applicationId);
+            entryPrefix = prefix;
+        }
+        return prefix.value;
+    }
+
+    /**
+     * Appends the priority rounded half up to six decimal places. The output is the same as that of formatting it with
+     * {@link BigDecimal} and removing the first run of zeros that follows the leading non-zero decimals, which is what
+     * this header has always contained, e.g. 0.5 is written as 0.5 but 0.05 as 0.050000.
+     */
+    static void appendPriority(StringBuilder header, Float priority) {
+        double value = priority;
+        double scaled = value * PRIORITY_UNSCALE;
+        if (!(value >= 0 && value < PRIORITY_UNSCALE) || Math.abs(scaled - Math.floor(scaled) - 0.5) < 0.001) {
+            // out of range, or so close to a tie that the rounding error of the multiplication could decide it
+            header.append(BigDecimal.valueOf(value)
+                    .setScale(PRIORITY_SCALE, RoundingMode.HALF_UP)
+                    .toString()
+                    .replaceFirst("(^.*\\.[1-9]+)0+", "$1"));
+            return;
+        }
+
+        long rounded = Math.round(scaled);
+        header.append(rounded / PRIORITY_UNSCALE).append('.');
+        int decimalsStart = header.length();
+        long decimals = rounded % PRIORITY_UNSCALE;
+        for (long divisor = PRIORITY_UNSCALE / 10; divisor > 0; divisor /= 10) {
+            header.append((char) ('0' + (decimals / divisor) % 10));
+        }
+
+        int zerosStart = decimalsStart;
+        while (zerosStart < header.length() && header.charAt(zerosStart) != '0') {
+            zerosStart++;
+        }
+        if (zerosStart == decimalsStart || zerosStart == header.length()) {
+            return;
+        }
+        int zerosEnd = zerosStart;
+        while (zerosEnd < header.length() && header.charAt(zerosEnd) == '0') {
+            zerosEnd++;
+        }
+        header.delete(zerosStart, zerosEnd);
     }
 
     private String getTransactionId(DistributedTracePayloadImpl payload) {
@@ -81,4 +126,29 @@ public class W3CTraceStateHeader {
         }
         return "";
     }
+
+    /**
+     * The NR entry up to and including the delimiter after the application id, e.g. "trustKey@nr=0-0-accountId-appId-"
+     */
+    private static final class EntryPrefix {
+        private final String trustKey;
+        private final String version;
+        private final String accountId;
+        private final String applicationId;
+        private final String value;
+
+        private EntryPrefix(String trustKey, String version, String accountId, String applicationId) {
+            this.trustKey = trustKey;
+            this.version = version;
+            this.accountId = accountId;
+            this.applicationId = applicationId;
+            this.value = trustKey + NR_VENDOR + version + NR_TRACE_STATE_DELIMITER + ParentType.App.value + NR_TRACE_STATE_DELIMITER
+                    + accountId + NR_TRACE_STATE_DELIMITER + applicationId + NR_TRACE_STATE_DELIMITER;
+        }
+
+        private boolean matches(String trustKey, String version, String accountId, String applicationId) {
+            return Objects.equals(this.trustKey, trustKey) && this.version.equals(version)
+                    && Objects.equals(this.accountId, accountId) && Objects.equals(this.applicationId, applicationId);
+        }
+    }
 }
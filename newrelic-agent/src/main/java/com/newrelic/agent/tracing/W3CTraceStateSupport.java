@@ -7,7 +7,6 @@
 
 package com.newrelic.agent.tracing;
 
-import com.google.common.base.Joiner;
 import com.newrelic.agent.MetricNames;
 import com.newrelic.agent.service.ServiceFactory;
 import com.newrelic.api.agent.NewRelic;
@@ -16,35 +15,25 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
-import java.util.regex.Pattern;
 
-import static com.newrelic.agent.tracing.W3CTraceStateHeader.MULTI_TENANT_VENDOR_STATE_KEY;
 import static com.newrelic.agent.tracing.W3CTraceStateHeader.NR_TRACE_STATE_DELIMITER;
 import static com.newrelic.agent.tracing.W3CTraceStateHeader.NR_VENDOR;
 import static com.newrelic.agent.tracing.W3CTraceStateHeader.VENDOR_STATE_KEY_VALUE_DELIMITER;
 
 public class W3CTraceStateSupport {
     // Reference: https://w3c.github.io/trace-context/#key
-    private static final String SINGLE_TENANT_VENDOR_STATE_KEY = "[a-z][_0-9a-z\\-*/]{0,255}";
-
-    private static final String VENDOR_STATE_KEY = "(" + SINGLE_TENANT_VENDOR_STATE_KEY + "|" + MULTI_TENANT_VENDOR_STATE_KEY + ")";
+    private static final int MAX_SINGLE_TENANT_KEY_LENGTH = 256;
+    private static final int MAX_TENANT_ID_LENGTH = 241;
+    private static final int MAX_MULTI_TENANT_VENDOR_LENGTH = 14;
 
     // Reference: https://w3c.github.io/trace-context/#value
-    private static final String VENDOR_STATE_VALUE = "[\\x20-\\x2b\\x2d-\\x3c\\x3e-\\x7e]{0,255}[\\x21-\\x2b\\x2d-\\x3c\\x3e-\\x7e]";
-
-    private static final Pattern VENDOR_STATE_PATTERN = Pattern.compile(
-            "^"
-                    + VENDOR_STATE_KEY
-                    + VENDOR_STATE_KEY_VALUE_DELIMITER
-                    + VENDOR_STATE_VALUE
-                    + "$"
-    );
+    private static final int MAX_VALUE_LENGTH = 256;
 
     static final int NR_HEADER_VERSION_INT = 0;
     public static final String W3C_TRACE_STATE_VENDOR_DELIMITER = ",";
+    private static final char VENDOR_DELIMITER = ',';
     private static final int MAX_VENDOR_STATE_SIZE = 31;
     private static final int LONG_VENDOR_STATE_SIZE = 128;
 
@@ -68,8 +57,8 @@ public class W3CTraceStateSupport {
             return traceState;
         }
 
-        String[] trustKeyAndFields = nrState.split(NR_VENDOR);
-        if (trustKeyAndFields.length != 2) {
+        String[] trustKeyAndFields = splitNrState(nrState);
+        if (trustKeyAndFields == null) {
             // NR state header must have a key and a value separated by an "=" and the key ending in "@nr"
             NewRelic.incrementCounter(MetricNames.SUPPORTABILITY_TRACE_CONTEXT_INVALID_NR_ENTRY);
             return traceState;
@@ -198,68 +187,181 @@ public class W3CTraceStateSupport {
     }
 
     private static VendorStateResult flattenVendorStatesAndExtractNrState(List<String> traceStateHeaders, String agentTrustKey) {
-        List<String> vendorStates = new LinkedList<>();
+        List<String> vendorStates = new ArrayList<>();
         String nrState = null;
         for (String header : traceStateHeaders) {
-            String[] splitVendors = header.split(W3C_TRACE_STATE_VENDOR_DELIMITER);
-            for (String vendor : splitVendors) {
-                String trimmedVendor = vendor.trim();
-                if (trimmedVendor.isEmpty()) {
+            int start = 0;
+            while (start <= header.length()) {
+                int end = header.indexOf(VENDOR_DELIMITER, start);
+                if (end == -1) {
+                    end = header.length();
+                }
+                String vendor = trimmedSubstring(header, start, end);
+                start = end + 1;
+                if (vendor == null) {
                     continue;
                 }
-                if (trimmedVendor.contains(NR_VENDOR)) {
+                if (vendor.contains(NR_VENDOR)) {
                     // Pull out and remove the NR vendor state from the list of states if the trust key matches
-                    if (trimmedVendor.startsWith(agentTrustKey + NR_VENDOR)) {
-                        nrState = trimmedVendor;
+                    if (vendor.startsWith(agentTrustKey) && vendor.startsWith(NR_VENDOR, agentTrustKey.length())) {
+                        nrState = vendor;
                         continue;
                     }
                 }
-                vendorStates.add(trimmedVendor);
+                vendorStates.add(vendor);
             }
         }
 
-        List<String> vendorKeys = vendorStatesToVendorKeys(vendorStates);
-        if (containsDuplicates(vendorKeys) || anyVendorStateIsInvalid(vendorStates)) {
+        if (uniqueVendorKeys(vendorStates) == null || anyVendorStateIsInvalid(vendorStates)) {
             return new VendorStateResult(Collections.<String>emptyList(), nrState);
         }
 
         return new VendorStateResult(vendorStates, nrState);
     }
 
+    /**
+     * The substring with leading and trailing whitespace removed, as {@link String#trim()} would, or <code>null</code> if
+     * nothing is left.
+     */
+    private static String trimmedSubstring(String value, int start, int end) {
+        while (start < end && value.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return start == end ? null : value.substring(start, end);
+    }
+
+    /**
+     * Split the NR entry into the trust key and the NR fields the way splitting on {@link W3CTraceStateHeader#NR_VENDOR}
+     * would, or return <code>null</code> if that doesn't result in exactly two parts.
+     */
+    private static String[] splitNrState(String nrState) {
+        int delimiter = nrState.indexOf(NR_VENDOR);
+        if (delimiter == -1) {
+            return null;
+        }
+        int fieldsStart = delimiter + NR_VENDOR.length();
+        // split drops trailing empty parts
+        int fieldsEnd = nrState.length();
+        while (fieldsEnd - NR_VENDOR.length() >= fieldsStart && nrState.startsWith(NR_VENDOR, fieldsEnd - NR_VENDOR.length())) {
+            fieldsEnd -= NR_VENDOR.length();
+        }
+        int nextDelimiter = nrState.indexOf(NR_VENDOR, fieldsStart);
+        if (fieldsEnd == fieldsStart || (nextDelimiter != -1 && nextDelimiter < fieldsEnd)) {
+            return null;
+        }
+        return new String[] { nrState.substring(0, delimiter), nrState.substring(fieldsStart, fieldsEnd) };
+    }
+
     static String concatenateVendorStates(List<String> vendorStates) {
-        return Joiner.on(W3C_TRACE_STATE_VENDOR_DELIMITER).join(vendorStates);
+        StringBuilder concatenated = new StringBuilder();
+        appendVendorStates(concatenated, vendorStates);
+        return concatenated.toString();
+    }
+
+    static void appendVendorStates(StringBuilder builder, List<String> vendorStates) {
+        for (int i = 0; i < vendorStates.size(); i++) {
+            if (i > 0) {
+                builder.append(VENDOR_DELIMITER);
+            }
+            builder.append(vendorStates.get(i));
+        }
     }
 
     public static Set<String> buildVendorKeys(W3CTraceState state) {
         List<String> vendorStates = state.getVendorStates();
-        List<String> vendorKeys = vendorStatesToVendorKeys(vendorStates);
-        if (containsDuplicates(vendorKeys) || anyVendorStateIsInvalid(vendorStates)) {
+        Set<String> vendorKeys = uniqueVendorKeys(vendorStates);
+        if (vendorKeys == null || anyVendorStateIsInvalid(vendorStates)) {
             return Collections.emptySet();
         }
-        return new LinkedHashSet<>(vendorKeys);
+        return vendorKeys;
     }
 
-    private static List<String> vendorStatesToVendorKeys(List<String> vendorStates) {
-        List<String> vendorKeys = new LinkedList<>();
+    /**
+     * The keys of the vendor states in order, or <code>null</code> if a key occurs more than once.
+     */
+    private static Set<String> uniqueVendorKeys(List<String> vendorStates) {
+        Set<String> vendorKeys = new LinkedHashSet<>();
         for (String vendorState : vendorStates) {
-            String vendorKey = vendorState.split(VENDOR_STATE_KEY_VALUE_DELIMITER)[0];
-            vendorKeys.add(vendorKey);
+            int delimiter = vendorState.indexOf(VENDOR_STATE_KEY_VALUE_DELIMITER);
+            String vendorKey = delimiter == -1 ? vendorState : vendorState.substring(0, delimiter);
+            if (!vendorKeys.add(vendorKey)) {
+                return null;
+            }
         }
         return vendorKeys;
     }
 
-    private static boolean containsDuplicates(List<String> list) {
-        Set<String> set = new HashSet<>(list);
-        return set.size() != list.size();
-    }
-
     private static boolean anyVendorStateIsInvalid(List<String> vendorStates) {
         for (String vendorState : vendorStates) {
-            if (!VENDOR_STATE_PATTERN.matcher(vendorState).matches()) {
+            if (!isValidVendorState(vendorState)) {
                 return true;
             }
         }
         return false;
     }
 
+    /**
+     * Whether the vendor state is a key, an "=" and a value as defined by https://w3c.github.io/trace-context/#list
+     */
+    static boolean isValidVendorState(CharSequence vendorState) {
+        int length = vendorState.length();
+        int keyEnd = 0;
+        while (keyEnd < length && vendorState.charAt(keyEnd) != '=') {
+            keyEnd++;
+        }
+        return keyEnd < length && isValidKey(vendorState, 0, keyEnd) && isValidValue(vendorState, keyEnd + 1, length);
+    }
+
+    /**
+     * A key is either a single tenant key, [a-z][_0-9a-z\-*&#47;]{0,255}, or a multi tenant key,
+     * [a-z0-9][_0-9a-z\-*&#47;]{0,240}@[a-z][_0-9a-z\-*&#47;]{0,13}
+     */
+    private static boolean isValidKey(CharSequence key, int start, int end) {
+        int tenantEnd = start;
+        while (tenantEnd < end && key.charAt(tenantEnd) != '@') {
+            tenantEnd++;
+        }
+        if (tenantEnd == end) {
+            return end - start <= MAX_SINGLE_TENANT_KEY_LENGTH && isKeyIdentifier(key, start, end, false);
+        }
+        return tenantEnd - start <= MAX_TENANT_ID_LENGTH && isKeyIdentifier(key, start, tenantEnd, true)
+                && end - tenantEnd - 1 <= MAX_MULTI_TENANT_VENDOR_LENGTH && isKeyIdentifier(key, tenantEnd + 1, end, false);
+    }
+
+    private static boolean isKeyIdentifier(CharSequence key, int start, int end, boolean mayStartWithDigit) {
+        if (start >= end) {
+            return false;
+        }
+        char first = key.charAt(start);
+        if (!(first >= 'a' && first <= 'z') && !(mayStartWithDigit && first >= '0' && first <= '9')) {
+            return false;
+        }
+        for (int i = start + 1; i < end; i++) {
+            char c = key.charAt(i);
+            if (!(c >= 'a' && c <= 'z') && !(c >= '0' && c <= '9') && c != '_' && c != '-' && c != '*' && c != '/') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A value is up to 256 printable ASCII characters other than "," and "=", and doesn't end with a space.
+     */
+    private static boolean isValidValue(CharSequence value, int start, int end) {
+        if (start >= end || end - start > MAX_VALUE_LENGTH || value.charAt(end - 1) == ' ') {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < 0x20 || c > 0x7e || c == ',' || c == '=') {
+                return false;
+            }
+        }
+        return true;
+    }
+
 }
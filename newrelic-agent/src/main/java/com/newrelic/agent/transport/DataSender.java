@@ -61,9 +61,12 @@ public interface DataSender {
      * @param beginTimeMillis the last time metric data was sent to New Relic
      * @param endTimeMillis the time now
      * @param metricData the metric data to send
+     * @return the metric ids New Relic assigned in the metric_data response, each a list of the JSON metric name and
+     * the id. The ids are only valid for the current agent run. Implementations that don't read the response return an
+     * empty list.
      * @throws Exception if there is a problem sending the metric data
      */
-    void sendMetricData(long beginTimeMillis, long endTimeMillis, List<MetricData> metricData) throws Exception;
+    List<List<?>> sendMetricData(long beginTimeMillis, long endTimeMillis, List<MetricData> metricData) throws Exception;
 
     /**
      * Send thread profiles to New Relic.
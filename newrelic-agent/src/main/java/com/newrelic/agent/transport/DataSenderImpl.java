@@ -38,7 +38,7 @@ import org.json.simple.JSONValue;
 import org.json.simple.parser.JSONParser;
 
 import javax.net.ssl.SSLHandshakeException;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
@@ -56,10 +56,12 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.zip.Deflater;
-import java.util.zip.DeflaterOutputStream;
-import java.util.zip.GZIPOutputStream;
 
 /**
  * A class for sending and receiving New Relic data.
@@ -83,6 +85,7 @@ public class DataSenderImpl implements DataSender {
     private static final Object NO_AGENT_RUN_ID = null;
     private static final String NULL_RESPONSE = "null";
     private static final int COMPRESSION_LEVEL = Deflater.DEFAULT_COMPRESSION;
+    private static final int WRITER_BUFFER_SIZE = 8192;
     private static final String REDIRECT_HOST = "redirect_host";
     private static final String SECURITY_POLICIES = "security_policies";
     private static final String MAX_PAYLOAD_SIZE_IN_BYTES = "max_payload_size_in_bytes";
@@ -122,6 +125,9 @@ public class DataSenderImpl implements DataSender {
     private volatile int maxPayloadSizeInBytes = DEFAULT_MAX_PAYLOAD_SIZE_IN_BYTES;
     private volatile Map<String, String> requestMetadata;
     private volatile Map<String, String> metadata;
+    // one request in flight per endpoint so that the payloads of an endpoint reach the collector in the order they are sent
+    private final ConcurrentMap<String, Lock> endpointLocks = new ConcurrentHashMap<>();
+
     public DataSenderImpl(
             DataSenderConfig config,
             HttpClientWrapper httpClientWrapper,
@@ -393,10 +399,11 @@ public class DataSenderImpl implements DataSender {
     }
 
     @Override
-    public void sendMetricData(long beginTimeMillis, long endTimeMillis, List<MetricData> metricData) throws Exception {
+    @SuppressWarnings("unchecked")
+    public List<List<?>> sendMetricData(long beginTimeMillis, long endTimeMillis, List<MetricData> metricData) throws Exception {
         Object runId = agentRunId;
         if (runId == NO_AGENT_RUN_ID || metricData.isEmpty()) {
-            return;
+            return Collections.emptyList();
         }
 
         InitialSizedJsonArray params = new InitialSizedJsonArray(4);
@@ -405,7 +412,11 @@ public class DataSenderImpl implements DataSender {
         params.add(endTimeMillis / 1000);
         params.add(metricData);
 
-        invokeRunId(CollectorMethods.METRIC_DATA, compressedEncoding, runId, params);
+        Object response = invokeRunId(CollectorMethods.METRIC_DATA, compressedEncoding, runId, params);
+        if (response instanceof List) {
+            return (List<List<?>>) response;
+        }
+        return Collections.emptyList();
     }
 
     @Override
@@ -518,7 +529,29 @@ public class DataSenderImpl implements DataSender {
 
     private Object invokeRunId(String method, String encoding, Object runId, JSONStreamAware params) throws Exception {
         String uri = MessageFormat.format(agentRunIdUriPattern, method, runId.toString());
-        return invoke(redirectHost, method, encoding, uri, params);
+        Lock endpointLock = getEndpointLock(method);
+        endpointLock.lock();
+        try {
+            return invoke(redirectHost, method, encoding, uri, params);
+        } finally {
+            endpointLock.unlock();
+        }
+    }
+
+    /**
+     * Requests to different endpoints may be sent in parallel when the agent has more than one upload connection. The
+     * lock of an endpoint is fair, so requests waiting for the endpoint are sent in the order they arrived.
+     */
+    private Lock getEndpointLock(String method) {
+        Lock lock = endpointLocks.get(method);
+        if (lock == null) {
+            Lock newLock = new ReentrantLock(true);
+            lock = endpointLocks.putIfAbsent(method, newLock);
+            if (lock == null) {
+                lock = newLock;
+            }
+        }
+        return lock;
     }
 
     private Object invokeNoRunId(String host, String method, String encoding, JSONStreamAware params) throws Exception {
@@ -567,69 +600,73 @@ public class DataSenderImpl implements DataSender {
      * matched/parsed has been deprecated.
      */
     private ReadResult connectAndSend(String host, String method, String encoding, String uri, JSONStreamAware params) throws Exception {
-        byte[] data = writeData(encoding, params);
-
         /*
          * We don't enforce max_payload_size_in_bytes for error_data (aka error traces). Instead, we halve the
          * payload and try again. See RPMService sendErrorData
          */
-        if (data.length > maxPayloadSizeInBytes && !method.equals(CollectorMethods.ERROR_DATA)) {
-            ServiceFactory.getStatsService().doStatsWork(StatsWorks.getIncrementCounterWork(
-                    MessageFormat.format(MetricNames.SUPPORTABILITY_PAYLOAD_SIZE_EXCEEDS_MAX, method), 1), MetricNames.SUPPORTABILITY_PAYLOAD_SIZE_EXCEEDS_MAX);
-            String msg = MessageFormat.format("Payload of size {0} exceeded maximum size {1} for {2} method ",
-                    data.length, maxPayloadSizeInBytes, method);
-            logger.log(Level.WARNING, msg);
-            throw new MaxPayloadException(msg);
-        }
+        int limit = method.equals(CollectorMethods.ERROR_DATA) ? Integer.MAX_VALUE : maxPayloadSizeInBytes;
+        PayloadOutputStream payload = PayloadOutputStream.acquire(limit);
+        try {
+            long payloadBytesSent;
+            try {
+                payloadBytesSent = writeData(encoding, params, payload);
+            } catch (PayloadOutputStream.LimitExceededException e) {
+                ServiceFactory.getStatsService().doStatsWork(StatsWorks.getIncrementCounterWork(
+                        MessageFormat.format(MetricNames.SUPPORTABILITY_PAYLOAD_SIZE_EXCEEDS_MAX, method), 1), MetricNames.SUPPORTABILITY_PAYLOAD_SIZE_EXCEEDS_MAX);
+                String msg = MessageFormat.format("Payload of size {0} exceeded maximum size {1} for {2} method ",
+                        e.getSize(), maxPayloadSizeInBytes, method);
+                logger.log(Level.WARNING, msg);
+                throw new MaxPayloadException(msg);
+            }
 
-        final URL url = new URL(PROTOCOL, host, port, uri);
-        HttpClientWrapper.Request request = createRequest(method, encoding, url, data);
+            final URL url = new URL(PROTOCOL, host, port, uri);
+            HttpClientWrapper.Request request = createRequest(method, encoding, url, payload);
 
-        httpClientWrapper.captureSupportabilityMetrics(ServiceFactory.getStatsService(), host);
+            httpClientWrapper.captureSupportabilityMetrics(ServiceFactory.getStatsService(), host);
 
-        ReadResult result = httpClientWrapper.execute(request, new TimingEventHandler(method, ServiceFactory.getStatsService()));
+            ReadResult result = httpClientWrapper.execute(request, new TimingEventHandler(method, ServiceFactory.getStatsService()));
 
-        String payloadJsonSent = DataSenderWriter.toJSONString(params);
+            if (auditMode && methodShouldBeAudited(method)) {
+                String msg = MessageFormat.format("Sent JSON({0}) to: {1}, with payload: {2}", method, url, DataSenderWriter.toJSONString(params));
+                logger.info(msg);
+            }
 
-        if (auditMode && methodShouldBeAudited(method)) {
-            String msg = MessageFormat.format("Sent JSON({0}) to: {1}, with payload: {2}", method, url, payloadJsonSent);
-            logger.info(msg);
-        }
+            // Create supportability metric for all response codes
+            ServiceFactory.getStatsService().doStatsWork(StatsWorks.getIncrementCounterWork(
+                    MessageFormat.format(MetricNames.SUPPORTABILITY_HTTP_CODE, result.getStatusCode()), 1), MetricNames.SUPPORTABILITY_HTTP_CODE);
 
-        // Create supportability metric for all response codes
-        ServiceFactory.getStatsService().doStatsWork(StatsWorks.getIncrementCounterWork(
-                MessageFormat.format(MetricNames.SUPPORTABILITY_HTTP_CODE, result.getStatusCode()), 1), MetricNames.SUPPORTABILITY_HTTP_CODE);
+            if (result.getStatusCode() != HttpResponseCode.OK && result.getStatusCode() != HttpResponseCode.ACCEPTED) {
+                throwExceptionFromStatusCode(method, result, payload.size(), request);
+            }
 
-        if (result.getStatusCode() != HttpResponseCode.OK && result.getStatusCode() != HttpResponseCode.ACCEPTED) {
-            throwExceptionFromStatusCode(method, result, data, request);
-        }
+            String payloadJsonReceived = result.getResponseBody();
 
-        String payloadJsonReceived = result.getResponseBody();
+            // received successful 2xx response
+            if (auditMode && methodShouldBeAudited(method)) {
+                logger.info(MessageFormat.format("Received JSON({0}): {1}", method, payloadJsonReceived));
+            }
 
-        // received successful 2xx response
-        if (auditMode && methodShouldBeAudited(method)) {
-            logger.info(MessageFormat.format("Received JSON({0}): {1}", method, payloadJsonReceived));
-        }
+            recordDataUsageMetrics(method, payloadBytesSent, payloadJsonReceived);
 
-        recordDataUsageMetrics(method, payloadJsonSent, payloadJsonReceived);
+            if (dataSenderListener != null) {
+                dataSenderListener.dataSent(method, encoding, uri, payload.toByteArray());
+            }
 
-        if (dataSenderListener != null) {
-            dataSenderListener.dataSent(method, encoding, uri, data);
+            return result;
+        } finally {
+            payload.release();
         }
-
-        return result;
     }
 
     /**
      * Record metrics tracking amount of bytes sent and received for each agent endpoint payload
      *
      * @param method method for the agent endpoint
-     * @param payloadJsonSent JSON String of the payload that was sent
+     * @param payloadBytesSent size of the uncompressed JSON payload that was sent
      * @param payloadJsonReceived JSON String of the payload that was received
      */
-    private void recordDataUsageMetrics(String method, String payloadJsonSent, String payloadJsonReceived) {
-        int payloadBytesSent = payloadJsonSent.getBytes().length;
-        int payloadBytesReceived = payloadJsonReceived.getBytes().length;
+    private void recordDataUsageMetrics(String method, long payloadBytesSent, String payloadJsonReceived) {
+        int payloadBytesReceived = payloadJsonReceived.getBytes(StandardCharsets.UTF_8).length;
 
         // COLLECTOR is always the destination for data reported via DataSenderImpl.
         // OTLP as a destination is not currently supported by the Java agent.
@@ -646,7 +683,7 @@ public class DataSenderImpl implements DataSender {
                         MetricNames.SUPPORTABILITY_DATA_USAGE_DESTINATION_ENDPOINT_OUTPUT_BYTES + " " + COLLECTOR);
     }
 
-    private void throwExceptionFromStatusCode(String method, ReadResult result, byte[] data, HttpClientWrapper.Request request)
+    private void throwExceptionFromStatusCode(String method, ReadResult result, int payloadSize, HttpClientWrapper.Request request)
             throws HttpError, LicenseException, ForceRestartException, ForceDisconnectException {
         // Comply with spec and send supportability metric only for error responses
         ServiceFactory.getStatsService().doStatsWork(StatsWorks.getIncrementCounterWork(
@@ -660,9 +697,9 @@ public class DataSenderImpl implements DataSender {
                 // agent receives a 407 response due to a misconfigured proxy (not from NR backend), throw exception
                 final String authField = result.getProxyAuthenticateHeader();
                 if (authField != null) {
-                    throw new HttpError("Proxy Authentication Mechanism Failed: " + authField, result.getStatusCode(), data.length);
+                    throw new HttpError("Proxy Authentication Mechanism Failed: " + authField, result.getStatusCode(), payloadSize);
                 } else {
-                    throw new HttpError("Proxy Authentication Mechanism Failed: " + "null Proxy-Authenticate header", result.getStatusCode(), data.length);
+                    throw new HttpError("Proxy Authentication Mechanism Failed: " + "null Proxy-Authenticate header", result.getStatusCode(), payloadSize);
                 }
             case HttpResponseCode.UNAUTHORIZED:
                 // received 401 Unauthorized, throw exception instead of parsing LicenseException from 200 response body
@@ -676,7 +713,7 @@ public class DataSenderImpl implements DataSender {
             default:
                 // response is bad (neither 200 nor 202), throw generic HttpError exception
                 logger.log(Level.FINER, "Connection http status code: {0}", result.getStatusCode());
-                throw HttpError.create(result.getStatusCode(), request.getURL().getHost(), data.length);
+                throw HttpError.create(result.getStatusCode(), request.getURL().getHost(), payloadSize);
         }
     }
 
@@ -736,7 +773,7 @@ public class DataSenderImpl implements DataSender {
         }
     }
 
-    private HttpClientWrapper.Request createRequest(String method, String encoding, URL url, byte[] data) {
+    private HttpClientWrapper.Request createRequest(String method, String encoding, URL url, PayloadOutputStream payload) {
         final boolean isConnectOrPreconnect = method.equals(CollectorMethods.CONNECT) || method.equals(CollectorMethods.PRECONNECT);
         final Map<String, String> requestMetadata = (this.requestMetadata != null && !isConnectOrPreconnect)
                 ? this.requestMetadata
@@ -746,27 +783,28 @@ public class DataSenderImpl implements DataSender {
                 .setURL(url)
                 .setVerb(putForDataSend ? HttpClientWrapper.Verb.PUT : HttpClientWrapper.Verb.POST)
                 .setEncoding(encoding)
-                .setData(data)
+                .setData(payload.getBuffer(), payload.size())
                 .setRequestMetadata(requestMetadata);
     }
 
-    private byte[] writeData(String encoding, JSONStreamAware params) throws IOException {
-        ByteArrayOutputStream outStream = new ByteArrayOutputStream();
-        try (
-                OutputStream os = getOutputStream(outStream, encoding);
-                Writer out = new OutputStreamWriter(os, StandardCharsets.UTF_8);
-        ) {
+    /**
+     * Serializes the params straight into the (compressed) payload buffer.
+     *
+     * @return the size of the uncompressed JSON in bytes
+     */
+    private long writeData(String encoding, JSONStreamAware params, PayloadOutputStream payload) throws IOException {
+        PayloadOutputStream.CountingOutputStream counter = new PayloadOutputStream.CountingOutputStream(getOutputStream(payload, encoding));
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(counter, StandardCharsets.UTF_8), WRITER_BUFFER_SIZE)) {
             JSONValue.writeJSONString(params, out);
-            out.flush();
         }
-        return outStream.toByteArray();
+        return counter.getCount();
     }
 
-    private OutputStream getOutputStream(OutputStream out, String encoding) throws IOException {
+    private OutputStream getOutputStream(PayloadOutputStream out, String encoding) throws IOException {
         if (DEFLATE_ENCODING.equals(encoding)) {
-            return new DeflaterOutputStream(out, new Deflater(COMPRESSION_LEVEL));
+            return out.deflating(COMPRESSION_LEVEL);
         } else if (GZIP_ENCODING.equals(encoding)) {
-            return new GZIPOutputStream(out);
+            return out.gzipping(COMPRESSION_LEVEL);
         } else {
             return out;
         }
@@ -69,12 +69,24 @@ public interface HttpClientWrapper {
             return this;
         }
 
+        /**
+         * @return the buffer holding the request body. Only the first {@link #getDataLength()} bytes are part of it.
+         */
         public byte[] getData() {
             return data;
         }
 
+        public int getDataLength() {
+            return dataLength;
+        }
+
         public Request setData(byte[] data) {
+            return setData(data, data.length);
+        }
+
+        public Request setData(byte[] data, int length) {
             this.data = data;
+            this.dataLength = length;
             return this;
         }
 
@@ -91,6 +103,7 @@ public interface HttpClientWrapper {
         private Verb verb;
         private String encoding;
         private byte[] data;
+        private int dataLength;
         private Map<String, String> requestMetadata;
     }
 }
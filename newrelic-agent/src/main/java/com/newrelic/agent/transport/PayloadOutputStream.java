@@ -0,0 +1,239 @@
+/*
+ *
+ *  * Copyright 2020 New Relic Corporation. All rights reserved.
+ *  * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+
+package com.newrelic.agent.transport;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * The buffer a collector payload is serialized and compressed into. Each thread reuses one buffer, and one deflater,
+ * across payloads so that sending a payload doesn't allocate and copy several full-size byte arrays. The buffer is
+ * handed to the http client as-is together with its {@link #size()}.
+ *
+ * Writing fails with {@link LimitExceededException} as soon as the compressed payload grows past the limit, so an
+ * oversized payload is not serialized to the end.
+ *
+ * This class is not thread-safe.
+ */
+class PayloadOutputStream extends OutputStream {
+
+    private static final int INITIAL_CAPACITY = 8192;
+    private static final int DEFLATER_BUFFER_SIZE = 8192;
+
+    /**
+     * Buffers that grew past this size are not kept for the next payload.
+     */
+    private static final int MAX_RETAINED_CAPACITY = 4 * 1024 * 1024;
+
+    private static final ThreadLocal<PayloadOutputStream> BUFFERS = new ThreadLocal<PayloadOutputStream>() {
+        @Override
+        protected PayloadOutputStream initialValue() {
+            return new PayloadOutputStream();
+        }
+    };
+
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int size;
+    private int limit;
+    private Deflater deflater;
+    private int deflaterLevel;
+    private boolean deflaterNoWrap;
+
+    private PayloadOutputStream() {
+    }
+
+    /**
+     * @param limit the maximum number of bytes that can be written
+     * @return the empty buffer of the current thread. Call {@link #release()} when the payload has been sent.
+     */
+    static PayloadOutputStream acquire(int limit) {
+        PayloadOutputStream out = BUFFERS.get();
+        out.size = 0;
+        out.limit = limit;
+        return out;
+    }
+
+    /**
+     * Drops the buffer if it is too large to be worth keeping around until the next harvest.
+     */
+    void release() {
+        if (buffer.length > MAX_RETAINED_CAPACITY) {
+            buffer = new byte[INITIAL_CAPACITY];
+        }
+        size = 0;
+    }
+
+    byte[] getBuffer() {
+        return buffer;
+    }
+
+    int size() {
+        return size;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureCapacity(size + 1);
+        buffer[size++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureCapacity(size + len);
+        System.arraycopy(b, off, buffer, size, len);
+        size += len;
+    }
+
+    /**
+     * @return a stream that deflates into this buffer. Closing it does not release the deflater.
+     */
+    OutputStream deflating(int level) {
+        return new DeflaterOutputStream(this, getDeflater(level, false), DEFLATER_BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                finish();
+            }
+        };
+    }
+
+    /**
+     * @return a stream that writes gzip format into this buffer. Closing it does not release the deflater.
+     */
+    OutputStream gzipping(int level) throws IOException {
+        return new GzipOutputStream(this, getDeflater(level, true));
+    }
+
+    private Deflater getDeflater(int level, boolean noWrap) {
+        if (deflater == null || deflaterLevel != level || deflaterNoWrap != noWrap) {
+            if (deflater != null) {
+                deflater.end();
+            }
+            deflater = new Deflater(level, noWrap);
+            deflaterLevel = level;
+            deflaterNoWrap = noWrap;
+        } else {
+            deflater.reset();
+        }
+        return deflater;
+    }
+
+    private void ensureCapacity(int minCapacity) throws LimitExceededException {
+        if (minCapacity > limit) {
+            throw new LimitExceededException(minCapacity);
+        }
+        if (minCapacity > buffer.length) {
+            int newCapacity = Math.max(buffer.length << 1, minCapacity);
+            buffer = Arrays.copyOf(buffer, Math.min(newCapacity, limit));
+        }
+    }
+
+    /**
+     * Thrown when the payload exceeds the limit of the buffer.
+     */
+    static class LimitExceededException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int size;
+
+        LimitExceededException(int size) {
+            super("Payload exceeded " + size + " bytes");
+            this.size = size;
+        }
+
+        /**
+         * @return the size the payload had reached when it was aborted
+         */
+        int getSize() {
+            return size;
+        }
+    }
+
+    /**
+     * Counts the bytes written through it, before they are compressed.
+     */
+    static class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * Writes the gzip format (RFC 1952) around a raw deflate stream produced by a reusable deflater.
+     */
+    private static class GzipOutputStream extends DeflaterOutputStream {
+
+        private static final byte[] HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+
+        private final CRC32 crc = new CRC32();
+        private boolean finished;
+
+        GzipOutputStream(OutputStream out, Deflater deflater) throws IOException {
+            super(out, deflater, DEFLATER_BUFFER_SIZE);
+            out.write(HEADER);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            super.write(b, off, len);
+            crc.update(b, off, len);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            super.finish();
+            writeInt((int) crc.getValue());
+            writeInt(def.getTotalIn());
+            finished = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+        }
+
+        private void writeInt(int value) throws IOException {
+            out.write(value & 0xff);
+            out.write((value >> 8) & 0xff);
+            out.write((value >> 16) & 0xff);
+            out.write((value >> 24) & 0xff);
+        }
+    }
+
+}
@@ -59,9 +59,10 @@ public class ApacheHttpClientWrapper implements HttpClientWrapper {
     private final PoolingHttpClientConnectionManager connectionManager;
     private final CloseableHttpClient httpClient;
 
-    public ApacheHttpClientWrapper(ApacheProxyManager proxyManager, SSLContext sslContext, int defaultTimeoutInMillis) {
+    public ApacheHttpClientWrapper(ApacheProxyManager proxyManager, SSLContext sslContext, int defaultTimeoutInMillis,
+            int maxConnections) {
         this.proxyManager = proxyManager;
-        this.connectionManager = createHttpClientConnectionManager(sslContext);
+        this.connectionManager = createHttpClientConnectionManager(sslContext, maxConnections);
         this.httpClient = createHttpClient(defaultTimeoutInMillis);
     }
 
@@ -78,7 +79,7 @@ public class ApacheHttpClientWrapper implements HttpClientWrapper {
         return MessageFormat.format("NewRelic-JavaAgent/{0} (java {1} {2})", Agent.getVersion(), javaVersion, arch);
     }
 
-    private static PoolingHttpClientConnectionManager createHttpClientConnectionManager(SSLContext sslContext) {
+    private static PoolingHttpClientConnectionManager createHttpClientConnectionManager(SSLContext sslContext, int maxConnections) {
         // Using the pooling manager here for thread safety.
         PoolingHttpClientConnectionManager httpClientConnectionManager = new PoolingHttpClientConnectionManager(
                 RegistryBuilder.<ConnectionSocketFactory>create()
@@ -87,10 +88,12 @@ public class ApacheHttpClientWrapper implements HttpClientWrapper {
                                 new SSLConnectionSocketFactory(sslContext) : SSLConnectionSocketFactory.getSocketFactory())
                         .build());
 
-        // We only allow one connection at a time to the backend.
-        // Anymore and the the agent hangs during the initial request to the connect endpoint.
-        httpClientConnectionManager.setMaxTotal(1);
-        httpClientConnectionManager.setDefaultMaxPerRoute(1);
+        // Every request goes to the same collector host, so the route limit is the total limit. Preconnect and connect
+        // are only sent by the thread connecting the RPMService, and DataSenderImpl sends one request at a time per
+        // endpoint, so additional connections are only used by different endpoints uploading in parallel.
+        int connections = Math.max(1, maxConnections);
+        httpClientConnectionManager.setMaxTotal(connections);
+        httpClientConnectionManager.setDefaultMaxPerRoute(connections);
 
         return httpClientConnectionManager;
     }
@@ -191,7 +194,7 @@ public class ApacheHttpClientWrapper implements HttpClientWrapper {
         requestBuilder
                 .setUri(request.getURL().toURI())
                 .setHeader(new BasicHeader("CONTENT-ENCODING", request.getEncoding()))
-                .setEntity(new ByteArrayEntity(request.getData()));
+                .setEntity(new ByteArrayEntity(request.getData(), 0, request.getDataLength()));
 
         for (Map.Entry<String, String> entry : request.getRequestMetadata().entrySet()) {
             requestBuilder.addHeader(entry.getKey(), entry.getValue());
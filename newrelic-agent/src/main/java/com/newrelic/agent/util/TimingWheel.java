@@ -0,0 +1,314 @@
+/*
+ *
+ *  * Copyright 2020 New Relic Corporation. All rights reserved.
+ *  * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+
+package com.newrelic.agent.util;
+
+import com.newrelic.agent.Agent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.logging.Level;
+
+/**
+ * A hierarchical timing wheel. Scheduling, refreshing and cancelling a timeout are constant time, no matter how many
+ * timeouts are pending, which makes it suitable for the large number of short lived timeouts that async tokens need.
+ *
+ * The wheel has {@link #LEVELS} levels of {@link #BUCKETS} buckets. A timeout is kept in the lowest level whose
+ * buckets are wide enough to reach its deadline, and moves down a level each time the ticker reaches the bucket it is
+ * in. A single thread advances the wheel once per tick and hands expired timeouts to the callback executor, so
+ * timeouts fire at most one tick late and never early. The thread waits without ticking while no timeouts are pending.
+ *
+ * This class is thread-safe.
+ */
+public class TimingWheel {
+
+    private static final int BUCKET_BITS = 6;
+    private static final int BUCKETS = 1 << BUCKET_BITS;
+    private static final int BUCKET_MASK = BUCKETS - 1;
+    private static final int LEVELS = 4;
+
+    private final long tickNanos;
+    private final long origin = System.nanoTime();
+    private final ThreadFactory threadFactory;
+    private final Executor callbackExecutor;
+    private final AtomicBoolean started = new AtomicBoolean(false);
+
+    // guarded by this
+    private final Timeout[][] buckets = new Timeout[LEVELS][BUCKETS];
+    // guarded by this
+    private long currentTick;
+    // guarded by this, the number of timeouts in the buckets
+    private int pending;
+
+    private volatile Thread ticker;
+
+    /**
+     * @param tick the resolution of the wheel
+     * @param unit the unit of tick
+     * @param threadFactory creates the thread that advances the wheel. The thread is started when the first timeout
+     *                      is scheduled.
+     * @param callbackExecutor runs the tasks of expired timeouts
+     */
+    public TimingWheel(long tick, TimeUnit unit, ThreadFactory threadFactory, Executor callbackExecutor) {
+        this.tickNanos = Math.max(1, unit.toNanos(tick));
+        this.threadFactory = threadFactory;
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    /**
+     * Schedule the task to run after the delay, unless the returned timeout is cancelled first.
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        Timeout timeout = new Timeout(task, unit.toNanos(delay));
+        timeout.deadline = System.nanoTime() + timeout.delayNanos;
+        synchronized (this) {
+            if (pending++ == 0) {
+                // nothing was ticking, so catch up without walking the empty buckets and wake the ticker
+                currentTick = Math.max(currentTick, (System.nanoTime() - origin) / tickNanos);
+                notifyAll();
+            }
+            place(timeout, currentTick + 1);
+        }
+        if (!started.get() && started.compareAndSet(false, true)) {
+            Thread thread = threadFactory.newThread(new Runnable() {
+                @Override
+                public void run() {
+                    runTicker();
+                }
+            });
+            ticker = thread;
+            thread.start();
+        }
+        return timeout;
+    }
+
+    /**
+     * Stops the thread that advances the wheel. Pending timeouts will not fire.
+     */
+    public void stop() {
+        started.set(true);
+        Thread thread = ticker;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void runTicker() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                long nextTickTime;
+                synchronized (this) {
+                    while (pending == 0) {
+                        wait();
+                    }
+                    nextTickTime = origin + (currentTick + 1) * tickNanos;
+                }
+                long sleepNanos = nextTickTime - System.nanoTime();
+                if (sleepNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                }
+                fire(advance(System.nanoTime()));
+            }
+        } catch (InterruptedException e) {
+            // stopped
+        }
+    }
+
+    /**
+     * Advance the wheel to the specified time.
+     *
+     * @return the timeouts that expired
+     */
+    synchronized List<Timeout> advance(long now) {
+        List<Timeout> expired = null;
+        long targetTick = (now - origin) / tickNanos;
+        if (pending == 0) {
+            currentTick = Math.max(currentTick, targetTick);
+            return null;
+        }
+        while (currentTick < targetTick) {
+            currentTick++;
+            // move the timeouts of the higher level buckets that are now within reach of a lower level down
+            for (int level = 1; level < LEVELS && (currentTick & ((1L << (level * BUCKET_BITS)) - 1)) == 0; level++) {
+                Timeout timeout = detach(level, (int) (currentTick >>> (level * BUCKET_BITS)) & BUCKET_MASK);
+                while (timeout != null) {
+                    Timeout next = timeout.next;
+                    if (timeout.state == Timeout.PENDING) {
+                        // a timeout due this tick goes into the level 0 bucket that is processed below
+                        place(timeout, currentTick);
+                    } else {
+                        pending--;
+                    }
+                    timeout = next;
+                }
+            }
+
+            Timeout timeout = detach(0, (int) currentTick & BUCKET_MASK);
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (deadlineTick(timeout) > currentTick && timeout.state == Timeout.PENDING) {
+                    // refreshed since it was placed, a refresh only ever postpones the deadline
+                    place(timeout, currentTick + 1);
+                } else {
+                    pending--;
+                    if (deadlineTick(timeout) <= currentTick && STATE.compareAndSet(timeout, Timeout.PENDING, Timeout.EXPIRED)) {
+                        if (expired == null) {
+                            expired = new ArrayList<>();
+                        }
+                        expired.add(timeout);
+                    }
+                }
+                timeout = next;
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * @return the number of timeouts that have neither expired nor been removed after their cancellation
+     */
+    synchronized int pendingCount() {
+        return pending;
+    }
+
+    private void fire(List<Timeout> expired) {
+        if (expired == null) {
+            return;
+        }
+        for (Timeout timeout : expired) {
+            try {
+                callbackExecutor.execute(timeout.task);
+            } catch (RejectedExecutionException e) {
+                Agent.LOG.log(Level.FINEST, "Unable to run expired timeout {0}: {1}", timeout.task, e);
+            }
+        }
+    }
+
+    private long deadlineTick(Timeout timeout) {
+        // round up so that the deadline has passed once its tick has
+        return (timeout.deadline - origin + tickNanos - 1) / tickNanos;
+    }
+
+    // must hold the lock
+    private void place(Timeout timeout, long minTick) {
+        long deadlineTick = Math.max(deadlineTick(timeout), minTick);
+        // the level is the highest bucket group in which the deadline differs from the current tick
+        long diff = deadlineTick ^ currentTick;
+        int level = (63 - Long.numberOfLeadingZeros(diff)) / BUCKET_BITS;
+        if (level >= LEVELS) {
+            // the top level wraps around, so it can still hold deadlines up to BUCKETS - 1 of its buckets away
+            level = LEVELS - 1;
+            long farthestBucket = (currentTick >>> (level * BUCKET_BITS)) + BUCKETS - 1;
+            if ((deadlineTick >>> (level * BUCKET_BITS)) > farthestBucket) {
+                // beyond the range of the wheel, park it in the farthest bucket and place it again from there
+                deadlineTick = farthestBucket << (level * BUCKET_BITS);
+            }
+        }
+        int index = (int) (deadlineTick >>> (level * BUCKET_BITS)) & BUCKET_MASK;
+
+        Timeout head = buckets[level][index];
+        timeout.prev = null;
+        timeout.next = head;
+        if (head != null) {
+            head.prev = timeout;
+        }
+        buckets[level][index] = timeout;
+        timeout.level = level;
+        timeout.index = index;
+    }
+
+    // must hold the lock
+    private Timeout detach(int level, int index) {
+        Timeout head = buckets[level][index];
+        buckets[level][index] = null;
+        for (Timeout timeout = head; timeout != null; timeout = timeout.next) {
+            timeout.level = -1;
+        }
+        return head;
+    }
+
+    // must hold the lock
+    private void unlink(Timeout timeout) {
+        if (timeout.level < 0) {
+            return;
+        }
+        pending--;
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            buckets[timeout.level][timeout.index] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.level = -1;
+    }
+
+    /**
+     * A scheduled task.
+     */
+    public final class Timeout {
+
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Runnable task;
+        private final long delayNanos;
+        private volatile long deadline;
+        // not private so that the field updater can access it
+        volatile int state = PENDING;
+
+        // guarded by the wheel
+        private Timeout prev;
+        private Timeout next;
+        private int level = -1;
+        private int index;
+
+        private Timeout(Runnable task, long delayNanos) {
+            this.task = task;
+            this.delayNanos = delayNanos;
+        }
+
+        /**
+         * Postpone the timeout to the full delay from now. This does not take the lock of the wheel.
+         */
+        public void refresh() {
+            deadline = System.nanoTime() + delayNanos;
+        }
+
+        /**
+         * Cancel the timeout.
+         *
+         * @return true if the timeout was pending, false if it already expired or was cancelled
+         */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+                return false;
+            }
+            synchronized (TimingWheel.this) {
+                unlink(this);
+            }
+            return true;
+        }
+
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+    }
+
+    private static final AtomicIntegerFieldUpdater<Timeout> STATE = AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+}
@@ -93,7 +93,8 @@ public class MockDataSender implements DataSender {
     }
 
     @Override
-    public void sendMetricData(long beginTimeMillis, long endTimeMillis, List<MetricData> metricData) throws Exception {
+    public List<List<?>> sendMetricData(long beginTimeMillis, long endTimeMillis, List<MetricData> metricData) throws Exception {
+        return Collections.emptyList();
     }
 
     @Override
@@ -25,7 +25,9 @@ import com.newrelic.agent.errors.ErrorMessageReplacer;
 import com.newrelic.agent.errors.ErrorServiceImpl;
 import com.newrelic.agent.errors.ThrowableError;
 import com.newrelic.agent.metric.MetricName;
+import com.newrelic.agent.model.AnalyticsEvent;
 import com.newrelic.agent.model.LogEvent;
+import com.newrelic.agent.model.SpanEvent;
 import com.newrelic.agent.normalization.NormalizationRule;
 import com.newrelic.agent.normalization.NormalizationRuleFactory;
 import com.newrelic.agent.profile.IProfile;
@@ -38,6 +40,7 @@ import com.newrelic.agent.rpm.RPMConnectionService;
 import com.newrelic.agent.rpm.RPMConnectionServiceImpl;
 import com.newrelic.agent.service.ServiceFactory;
 import com.newrelic.agent.service.analytics.SpanEventsServiceImpl;
+import com.newrelic.agent.service.analytics.TransactionEvent;
 import com.newrelic.agent.service.analytics.TransactionDataToDistributedTraceIntrinsics;
 import com.newrelic.agent.service.analytics.TransactionEventsService;
 import com.newrelic.agent.sql.SqlTraceService;
@@ -63,6 +66,8 @@ import com.newrelic.agent.transport.DataSenderWriter;
 import com.newrelic.agent.transport.HttpError;
 import com.newrelic.agent.transport.IDataSenderFactory;
 import com.newrelic.agent.utilization.UtilizationService;
+import org.json.simple.JSONObject;
+import org.json.simple.JSONStreamAware;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Ignore;
@@ -81,7 +86,12 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -483,6 +493,101 @@ public class RPMServiceTest {
         svc.shutdown();
     }
 
+    @Test(timeout = 30000)
+    public void testConcurrentForceRestartReconnectsOnce() throws Exception {
+        Map<String, Object> config = createStagingMap(true, false);
+        createServiceManager(config);
+
+        final AtomicInteger connects = new AtomicInteger();
+        final AtomicInteger shutdowns = new AtomicInteger();
+        final AtomicInteger rejections = new AtomicInteger();
+        // both uploads are rejected before either of them gets to reconnect
+        final CyclicBarrier rejected = new CyclicBarrier(2);
+
+        IDataSenderFactory dataSenderFactory = new IDataSenderFactory() {
+            @Override
+            public DataSender create(DataSenderConfig config) {
+                return createMockDataSender(config);
+            }
+
+            @Override
+            public DataSender create(DataSenderConfig config, DataSenderListener dataSenderListener) {
+                return createMockDataSender(config);
+            }
+
+            private MockDataSender createMockDataSender(DataSenderConfig config) {
+                return new MockDataSender(config) {
+                    @Override
+                    public Map<String, Object> connect(Map<String, Object> startupOptions) throws Exception {
+                        connects.incrementAndGet();
+                        return super.connect(startupOptions);
+                    }
+
+                    @Override
+                    public void shutdown(long timeMillis) throws Exception {
+                        shutdowns.incrementAndGet();
+                        super.shutdown(timeMillis);
+                    }
+
+                    @Override
+                    public void sendSpanEvents(int reservoirSize, int eventsSeen, Collection<SpanEvent> events) throws Exception {
+                        rejectFirstUploads();
+                    }
+
+                    @Override
+                    public <T extends AnalyticsEvent & JSONStreamAware> void sendAnalyticsEvents(int reservoirSize, int eventsSeen,
+                            Collection<T> events) throws Exception {
+                        rejectFirstUploads();
+                    }
+
+                    private void rejectFirstUploads() throws Exception {
+                        if (rejections.getAndIncrement() < 2) {
+                            rejected.await(10, TimeUnit.SECONDS);
+                            throw new ForceRestartException("restart");
+                        }
+                    }
+                };
+            }
+        };
+        DataSenderFactory.setDataSenderFactory(dataSenderFactory);
+
+        List<String> appNames = singletonList("MyApplication");
+        final RPMService svc = new RPMService(appNames, null, null, Collections.<AgentConnectionEstablishedListener>emptyList());
+        svc.launch();
+        long firstConnection = svc.getConnectionTimestamp();
+
+        ExecutorService uploads = Executors.newFixedThreadPool(2);
+        try {
+            Future<Void> spans = uploads.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    svc.sendSpanEvents(10, 1, Collections.<SpanEvent>emptyList());
+                    return null;
+                }
+            });
+            Future<Void> transactions = uploads.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    svc.sendAnalyticsEvents(10, 1, Collections.<TransactionEvent>emptyList());
+                    return null;
+                }
+            });
+            spans.get();
+            transactions.get();
+        } finally {
+            uploads.shutdownNow();
+        }
+
+        // one connect for the first run and one for the restart, and both uploads were retried on the new run
+        assertEquals(2, connects.get());
+        assertEquals(1, shutdowns.get());
+        assertEquals(4, rejections.get());
+        assertTrue(svc.isConnected());
+        assertNotEquals(firstConnection, svc.getConnectionTimestamp());
+
+        svc.shutdown();
+    }
+
     @Test(timeout = 30000)
     public void harvest() throws Exception {
         Map<String, Object> config = createStagingMap(true, false);
@@ -525,6 +630,88 @@ public class RPMServiceTest {
         }
     }
 
+    @Test(timeout = 30000)
+    public void metricIdsAreNotSentByDefault() throws Exception {
+        Map<String, Object> config = createStagingMap(false, false);
+        createServiceManager(config);
+        doMetricIds(false);
+    }
+
+    @Test(timeout = 30000)
+    public void metricIdsAreSentUntilReconnect() throws Exception {
+        Map<String, Object> config = createStagingMap(false, false);
+        config.put(AgentConfigImpl.SEND_METRIC_IDS, true);
+        createServiceManager(config);
+        doMetricIds(true);
+    }
+
+    private void doMetricIds(boolean sendMetricIds) throws Exception {
+        final List<List<MetricData>> posts = new ArrayList<>();
+        IDataSenderFactory dataSenderFactory = new IDataSenderFactory() {
+            @Override
+            public DataSender create(DataSenderConfig config) {
+                return createMockDataSender(config);
+            }
+
+            @Override
+            public DataSender create(DataSenderConfig config, DataSenderListener dataSenderListener) {
+                return createMockDataSender(config);
+            }
+
+            private MockDataSender createMockDataSender(DataSenderConfig config) {
+                return new MockDataSender(config) {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public List<List<?>> sendMetricData(long beginTimeMillis, long endTimeMillis, List<MetricData> metricData) {
+                        synchronized (posts) {
+                            posts.add(metricData);
+                        }
+                        JSONObject metricName = new JSONObject();
+                        metricName.put("name", "Custom/foo");
+                        return Collections.<List<?>>singletonList(Arrays.asList(metricName, 7));
+                    }
+                };
+            }
+        };
+        DataSenderFactory.setDataSenderFactory(dataSenderFactory);
+
+        List<String> appNames = singletonList("MyApplication");
+        RPMService svc = new RPMService(appNames, null, null, Collections.<AgentConnectionEstablishedListener>emptyList());
+        svc.launch();
+        try {
+            svc.harvest(createMetricIdStatsEngine());
+            svc.harvest(createMetricIdStatsEngine());
+            svc.reconnect();
+            svc.launch();
+            svc.harvest(createMetricIdStatsEngine());
+        } finally {
+            svc.shutdown();
+        }
+
+        synchronized (posts) {
+            assertEquals(3, posts.size());
+            assertNull(getMetricId(posts.get(0), "Custom/foo"));
+            assertEquals(sendMetricIds ? Integer.valueOf(7) : null, getMetricId(posts.get(1), "Custom/foo"));
+            // the ids of the previous run are never reused after a reconnect
+            assertNull(getMetricId(posts.get(2), "Custom/foo"));
+        }
+    }
+
+    private StatsEngine createMetricIdStatsEngine() {
+        StatsEngine statsEngine = new StatsEngineImpl();
+        statsEngine.getResponseTimeStats("Custom/foo").recordResponseTime(5, TimeUnit.MILLISECONDS);
+        return statsEngine;
+    }
+
+    private Integer getMetricId(List<MetricData> metricData, String name) {
+        for (MetricData data : metricData) {
+            if (name.equals(data.getMetricName().getName())) {
+                return data.getMetricId();
+            }
+        }
+        throw new AssertionError("No metric data for " + name);
+    }
+
     @Test(timeout = 30000)
     public void testTransactionTraces() throws Exception {
         Map<String, Object> config = createStagingMap(false, false);
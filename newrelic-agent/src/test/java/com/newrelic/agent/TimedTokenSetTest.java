@@ -0,0 +1,68 @@
+/*
+ *
+ *  * Copyright 2020 New Relic Corporation. All rights reserved.
+ *  * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+
+package com.newrelic.agent;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+public class TimedTokenSetTest {
+
+    private ExpirationService expirationService;
+
+    @Before
+    public void before() {
+        expirationService = new ExpirationService();
+    }
+
+    @After
+    public void after() throws Exception {
+        expirationService.doStop();
+    }
+
+    @Test(timeout = 10000)
+    public void putAgainReplacesTheTimeout() throws InterruptedException {
+        TimedTokenSet tokens = new TimedTokenSet(1, TimeUnit.SECONDS, expirationService);
+        TokenImpl token = mock(TokenImpl.class, RETURNS_DEEP_STUBS);
+
+        tokens.put(token);
+        Thread.sleep(600);
+        tokens.put(token);
+        // past the first time out, but not the second
+        Thread.sleep(600);
+        Assert.assertEquals(0, tokens.timedOutCount());
+        verify(token, never()).markExpired();
+
+        verify(token, timeout(5000)).markExpired();
+        Assert.assertEquals(1, tokens.timedOutCount());
+    }
+
+    @Test(timeout = 10000)
+    public void removedTokenDoesNotTimeOut() throws InterruptedException {
+        TimedTokenSet tokens = new TimedTokenSet(250, TimeUnit.MILLISECONDS, expirationService);
+        TokenImpl token = mock(TokenImpl.class, RETURNS_DEEP_STUBS);
+
+        tokens.put(token);
+        Assert.assertTrue(tokens.remove(token));
+        Assert.assertFalse(tokens.remove(token));
+        verify(token, timeout(5000)).markExpired();
+
+        Thread.sleep(500);
+        Assert.assertEquals(0, tokens.timedOutCount());
+    }
+
+}
@@ -561,6 +561,41 @@ public class AgentConfigImplTest {
         assertEquals(expected, config.getTransactionSizeLimit());
     }
 
+    @Test
+    public void getUploadConnections() {
+        Map<String, Object> localMap = new HashMap<>();
+        localMap.put(AgentConfigImpl.UPLOAD_CONNECTIONS, 4);
+        AgentConfig config = AgentConfigImpl.createAgentConfig(localMap);
+
+        assertEquals(4, config.getUploadConnections());
+    }
+
+    @Test
+    public void getUploadConnectionsDefault() {
+        AgentConfig config = AgentConfigImpl.createAgentConfig(new HashMap<String, Object>());
+        assertEquals(AgentConfigImpl.DEFAULT_UPLOAD_CONNECTIONS, config.getUploadConnections());
+
+        Map<String, Object> localMap = new HashMap<>();
+        localMap.put(AgentConfigImpl.UPLOAD_CONNECTIONS, 0);
+        config = AgentConfigImpl.createAgentConfig(localMap);
+        assertEquals(1, config.getUploadConnections());
+    }
+
+    @Test
+    public void isSendMetricIds() {
+        Map<String, Object> localMap = new HashMap<>();
+        localMap.put(AgentConfigImpl.SEND_METRIC_IDS, true);
+        AgentConfig config = AgentConfigImpl.createAgentConfig(localMap);
+
+        assertTrue(config.isSendMetricIds());
+    }
+
+    @Test
+    public void isSendMetricIdsDefault() {
+        AgentConfig config = AgentConfigImpl.createAgentConfig(new HashMap<String, Object>());
+        assertEquals(AgentConfigImpl.DEFAULT_SEND_METRIC_IDS, config.isSendMetricIds());
+    }
+
     @Test
     public void isEnableAutoAppNaming() {
         Map<String, Object> localMap = new HashMap<>();
@@ -0,0 +1,67 @@
+/*
+ *
+ *  * Copyright 2020 New Relic Corporation. All rights reserved.
+ *  * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+
+package com.newrelic.agent.config;
+
+import com.newrelic.agent.bridge.ConfigHandle;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ConfigHandlesTest {
+
+    @Test
+    public void testHandlesResolveTheDefaultConfig() {
+        ConfigService configService = mock(ConfigService.class);
+        when(configService.getDefaultAgentConfig()).thenReturn(createConfig(true));
+        ConfigHandles target = new ConfigHandles(configService);
+        verify(configService).addIAgentConfigListener(target);
+
+        ConfigHandle<Boolean> enabled = target.getConfigHandle("scala.callbackrunnable.enabled", false);
+        ConfigHandle<Integer> unset = target.getConfigHandle("scala.unset", 7);
+        assertEquals(Boolean.TRUE, enabled.get());
+        assertEquals(Integer.valueOf(7), unset.get());
+
+        assertSame(enabled, target.getConfigHandle("scala.callbackrunnable.enabled", false));
+        assertNotSame(enabled, target.getConfigHandle("scala.callbackrunnable.enabled", true));
+    }
+
+    @Test
+    public void testHandlesAreRefreshedWhenTheConfigChanges() {
+        ConfigService configService = mock(ConfigService.class);
+        AgentConfig disabled = createConfig(false);
+        when(configService.getDefaultAgentConfig()).thenReturn(disabled);
+        ConfigHandles target = new ConfigHandles(configService);
+
+        ConfigHandle<Boolean> enabled = target.getConfigHandle("scala.callbackrunnable.enabled", false);
+        assertEquals(Boolean.FALSE, enabled.get());
+
+        AgentConfig changed = createConfig(true);
+        when(configService.getDefaultAgentConfig()).thenReturn(changed);
+        target.configChanged("Unit Test", changed);
+        assertEquals(Boolean.TRUE, enabled.get());
+    }
+
+    private static AgentConfig createConfig(boolean callbackRunnableEnabled) {
+        Map<String, Object> callbackRunnable = new HashMap<>();
+        callbackRunnable.put("enabled", callbackRunnableEnabled);
+        Map<String, Object> scala = new HashMap<>();
+        scala.put("callbackrunnable", callbackRunnable);
+        Map<String, Object> settings = new HashMap<>();
+        settings.put("scala", scala);
+        return AgentConfigImpl.createAgentConfig(settings);
+    }
+
+}
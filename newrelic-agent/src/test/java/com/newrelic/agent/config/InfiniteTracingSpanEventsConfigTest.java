@@ -46,6 +46,28 @@ public class InfiniteTracingSpanEventsConfigTest {
         assertEquals(InfiniteTracingSpanEventsConfig.DEFAULT_SPAN_EVENTS_QUEUE_SIZE, config.getQueueSize());
     }
 
+    @Test
+    public void testBatchSizeAndLingerShouldBeDefault() {
+        InfiniteTracingSpanEventsConfig config = new InfiniteTracingSpanEventsConfig(localProps, "parent_root.");
+        assertEquals(InfiniteTracingSpanEventsConfig.DEFAULT_SPAN_EVENTS_BATCH_SIZE, config.getBatchSize());
+        assertEquals(InfiniteTracingSpanEventsConfig.DEFAULT_SPAN_EVENTS_LINGER_MS, config.getLingerMs());
+        assertEquals(InfiniteTracingSpanEventsConfig.DEFAULT_SPAN_EVENTS_OVERFLOW_BUFFER_BYTES, config.getOverflowBufferBytes());
+        assertEquals(InfiniteTracingSpanEventsConfig.DEFAULT_SPAN_EVENTS_STREAMS, config.getStreams());
+    }
+
+    @Test
+    public void testBatchSizeAndLinger() {
+        localProps.put(InfiniteTracingSpanEventsConfig.BATCH_SIZE, 500);
+        localProps.put(InfiniteTracingSpanEventsConfig.LINGER_MS, 20);
+        localProps.put(InfiniteTracingSpanEventsConfig.OVERFLOW_BUFFER_BYTES, 1048576);
+        localProps.put(InfiniteTracingSpanEventsConfig.STREAMS, 4);
+        InfiniteTracingSpanEventsConfig config = new InfiniteTracingSpanEventsConfig(localProps, "parent_root.");
+        assertEquals(500, config.getBatchSize());
+        assertEquals(20, config.getLingerMs());
+        assertEquals(1048576, config.getOverflowBufferBytes());
+        assertEquals(4, config.getStreams());
+    }
+
     @Test
     public void usesParentRootForNestedConfig() {
         SystemPropertyFactory.setSystemPropertyProvider(new SystemPropertyProvider(
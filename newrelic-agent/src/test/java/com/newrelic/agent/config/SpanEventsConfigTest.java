@@ -77,6 +77,17 @@ public class SpanEventsConfigTest {
                 10000, config.getMaxSamplesStored());
     }
 
+    @Test
+    public void buildOnTracerFinishIsOffByDefault() {
+        SpanEventsConfig config = new SpanEventsConfig(new HashMap<String, Object>(), true);
+        assertFalse(config.isBuildOnTracerFinish());
+
+        Map<String, Object> localSettings = new HashMap<>();
+        localSettings.put("build_on_tracer_finish", true);
+        config = new SpanEventsConfig(localSettings, true);
+        assertTrue(config.isBuildOnTracerFinish());
+    }
+
     private void setMaxSamplesViaSystemProp(int customMaxSamples) {
         Map<String, String> properties = new HashMap<>();
         String key = SYSTEM_PROPERTY_ROOT + MAX_SPAN_EVENTS_PER_HARVEST;
@@ -0,0 +1,67 @@
+/*
+ *
+ *  * Copyright 2020 New Relic Corporation. All rights reserved.
+ *  * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+
+package com.newrelic.agent.config;
+
+import com.newrelic.agent.Mocks;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class StatsServiceConfigImplTest {
+
+    @After
+    public void after() {
+        SystemPropertyFactory.setSystemPropertyProvider(new SystemPropertyProvider());
+    }
+
+    @Test
+    public void isStripedAggregationEnabledDefault() throws Exception {
+        StatsServiceConfig config = new StatsServiceConfigImpl(new HashMap<String, Object>());
+
+        Assert.assertEquals(StatsServiceConfigImpl.DEFAULT_STRIPED_AGGREGATION_ENABLED, config.isStripedAggregationEnabled());
+    }
+
+    @Test
+    public void isStripedAggregationEnabled() throws Exception {
+        Map<String, Object> localMap = new HashMap<>();
+        Map<String, Object> nestedMap = new HashMap<>();
+        localMap.put(StatsServiceConfigImpl.STRIPED_AGGREGATION, nestedMap);
+        nestedMap.put(StatsServiceConfigImpl.ENABLED, !StatsServiceConfigImpl.DEFAULT_STRIPED_AGGREGATION_ENABLED);
+        StatsServiceConfig config = new StatsServiceConfigImpl(localMap);
+
+        Assert.assertEquals(!StatsServiceConfigImpl.DEFAULT_STRIPED_AGGREGATION_ENABLED, config.isStripedAggregationEnabled());
+    }
+
+    @Test
+    public void isStripedAggregationEnabledSystemProperty() throws Exception {
+        Map<String, String> properties = new HashMap<>();
+        String key = StatsServiceConfigImpl.PROPERTY_ROOT + StatsServiceConfigImpl.STRIPED_AGGREGATION + StatsServiceConfigImpl.DOT
+                + StatsServiceConfigImpl.ENABLED;
+        properties.put(key, String.valueOf(!StatsServiceConfigImpl.DEFAULT_STRIPED_AGGREGATION_ENABLED));
+        Mocks.createSystemPropertyProvider(properties);
+        StatsServiceConfig config = new StatsServiceConfigImpl(new HashMap<String, Object>());
+
+        Assert.assertEquals(!StatsServiceConfigImpl.DEFAULT_STRIPED_AGGREGATION_ENABLED, config.isStripedAggregationEnabled());
+    }
+
+    @Test
+    public void agentConfigReadsStatsService() throws Exception {
+        Map<String, Object> localMap = new HashMap<>();
+        Map<String, Object> statsServiceMap = new HashMap<>();
+        Map<String, Object> nestedMap = new HashMap<>();
+        localMap.put(StatsServiceConfigImpl.PROPERTY_NAME, statsServiceMap);
+        statsServiceMap.put(StatsServiceConfigImpl.STRIPED_AGGREGATION, nestedMap);
+        nestedMap.put(StatsServiceConfigImpl.ENABLED, true);
+        AgentConfig config = AgentConfigImpl.createAgentConfig(localMap);
+
+        Assert.assertTrue(config.getStatsServiceConfig().isStripedAggregationEnabled());
+    }
+}
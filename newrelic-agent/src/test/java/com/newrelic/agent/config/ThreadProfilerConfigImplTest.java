@@ -75,6 +75,16 @@ public class ThreadProfilerConfigImplTest {
         ThreadProfilerConfig config = ThreadProfilerConfigImpl.createThreadProfilerConfig(localSettings);
 
         Assert.assertEquals(ThreadProfilerConfigImpl.DEFAULT_ENABLED, config.isEnabled());
+        Assert.assertEquals(ThreadProfilerConfigImpl.DEFAULT_JFR_SAMPLING, config.isJfrSamplingEnabled());
+    }
+
+    @Test
+    public void isJfrSamplingEnabled() throws Exception {
+        Map<String, Object> localSettings = new HashMap<>();
+        localSettings.put(ThreadProfilerConfigImpl.JFR_SAMPLING, !ThreadProfilerConfigImpl.DEFAULT_JFR_SAMPLING);
+        ThreadProfilerConfig config = ThreadProfilerConfigImpl.createThreadProfilerConfig(localSettings);
+
+        Assert.assertEquals(!ThreadProfilerConfigImpl.DEFAULT_JFR_SAMPLING, config.isJfrSamplingEnabled());
     }
 
 }
@@ -0,0 +1,84 @@
+/*
+ *
+ *  * Copyright 2020 New Relic Corporation. All rights reserved.
+ *  * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+
+package com.newrelic.agent.jmx;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class MBeanQueryCacheTest {
+
+    private MBeanServer server;
+    private ObjectName pattern;
+
+    @Before
+    public void setup() throws Exception {
+        server = spy(MBeanServerFactory.newMBeanServer());
+        pattern = new ObjectName("Test:type=Counter,*");
+        server.registerMBean(new Counter(), new ObjectName("Test:type=Counter,name=first"));
+    }
+
+    @Test
+    public void testQueriesAreCached() throws Exception {
+        MBeanQueryCache target = new MBeanQueryCache(server);
+        assertEquals(1, target.queryMBeans(pattern).size());
+        assertEquals(1, target.queryMBeans(pattern).size());
+
+        // MBeans that don't match the pattern don't affect it
+        server.registerMBean(new Counter(), new ObjectName("Other:type=Counter,name=first"));
+        assertEquals(1, target.queryMBeans(pattern).size());
+        verify(server, times(1)).queryMBeans(any(ObjectName.class), isNull());
+    }
+
+    @Test
+    public void testQueriesAreRefreshedWhenMBeansChange() throws Exception {
+        MBeanQueryCache target = new MBeanQueryCache(server);
+        assertEquals(1, target.queryMBeans(pattern).size());
+
+        ObjectName second = new ObjectName("Test:type=Counter,name=second");
+        server.registerMBean(new Counter(), second);
+        assertEquals(2, target.queryMBeans(pattern).size());
+
+        server.unregisterMBean(second);
+        assertEquals(1, target.queryMBeans(pattern).size());
+        verify(server, times(3)).queryMBeans(any(ObjectName.class), isNull());
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        MBeanQueryCache target = new MBeanQueryCache(server);
+        target.queryMBeans(pattern);
+        target.close();
+
+        // no longer listening, but it still answers queries
+        server.registerMBean(new Counter(), new ObjectName("Test:type=Counter,name=second"));
+        assertEquals(2, target.queryMBeans(pattern).size());
+    }
+
+    public interface CounterMBean {
+        int getCount();
+    }
+
+    public static class Counter implements CounterMBean {
+        @Override
+        public int getCount() {
+            return 1;
+        }
+    }
+
+}
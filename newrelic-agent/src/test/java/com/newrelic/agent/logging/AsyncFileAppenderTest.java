@@ -0,0 +1,97 @@
+/*
+ *
+ *  * Copyright 2020 New Relic Corporation. All rights reserved.
+ *  * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+
+package com.newrelic.agent.logging;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncFileAppenderTest {
+
+    @Test
+    public void testRingBufferIsFirstInFirstOut() {
+        AsyncFileAppender.RingBuffer<String> buffer = new AsyncFileAppender.RingBuffer<>(4);
+        assertTrue(buffer.isEmpty());
+        assertNull(buffer.poll());
+
+        // go around the ring a few times
+        for (int i = 0; i < 10; i++) {
+            assertTrue(buffer.offer("a" + i));
+            assertTrue(buffer.offer("b" + i));
+            assertFalse(buffer.isEmpty());
+            assertEquals("a" + i, buffer.poll());
+            assertEquals("b" + i, buffer.poll());
+            assertTrue(buffer.isEmpty());
+        }
+    }
+
+    @Test
+    public void testRingBufferRejectsWhenFull() {
+        // the capacity is rounded up to a power of two
+        AsyncFileAppender.RingBuffer<Integer> buffer = new AsyncFileAppender.RingBuffer<>(3);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+
+        assertEquals(Integer.valueOf(0), buffer.poll());
+        assertTrue(buffer.offer(4));
+        assertFalse(buffer.offer(5));
+    }
+
+    @Test(timeout = 30000)
+    public void testRingBufferWithConcurrentProducers() throws InterruptedException {
+        final AsyncFileAppender.RingBuffer<Integer> buffer = new AsyncFileAppender.RingBuffer<>(64);
+        final int producers = 4;
+        final int perProducer = 100000;
+        final AtomicInteger dropped = new AtomicInteger();
+
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            threads[p] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < perProducer; i++) {
+                        if (!buffer.offer(producer * perProducer + i)) {
+                            dropped.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            threads[p].start();
+        }
+
+        int[] last = { -1, -1, -1, -1 };
+        int received = 0;
+        boolean producing = true;
+        while (producing || !buffer.isEmpty()) {
+            Integer value = buffer.poll();
+            if (value == null) {
+                producing = false;
+                for (Thread thread : threads) {
+                    producing |= thread.isAlive();
+                }
+                continue;
+            }
+            int producer = value / perProducer;
+            // each producer's values come out in the order they went in
+            assertTrue(value % perProducer > last[producer]);
+            last[producer] = value % perProducer;
+            received++;
+        }
+
+        assertEquals(producers * perProducer, received + dropped.get());
+    }
+
+}
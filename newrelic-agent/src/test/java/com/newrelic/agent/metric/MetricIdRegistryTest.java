@@ -74,7 +74,30 @@ public class MetricIdRegistryTest {
         MetricName metricName = MetricName.create(String.valueOf(MetricIdRegistry.METRIC_LIMIT));
         int metricId = MetricIdRegistry.METRIC_LIMIT;
         registry.setMetricId(metricName, metricId);
-        Assert.assertEquals(1, registry.getSize());
+        Assert.assertEquals(MetricIdRegistry.METRIC_LIMIT, registry.getSize());
+        Assert.assertEquals(1, registry.getAndResetEvictionCount());
+        Assert.assertEquals(0, registry.getAndResetEvictionCount());
+        Assert.assertNull(registry.getMetricId(MetricName.create("0")));
+        Assert.assertEquals(metricId, registry.getMetricId(metricName).intValue());
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() {
+        MetricIdRegistry registry = new MetricIdRegistry(2);
+        MetricName metricName1 = MetricName.create("Test1");
+        MetricName metricName2 = MetricName.create("Test2");
+        MetricName metricName3 = MetricName.create("Test3");
+        registry.setMetricId(metricName1, 1);
+        registry.setMetricId(metricName2, 2);
+        // touch the older id so that the second one is the least recently used
+        Assert.assertEquals(1, registry.getMetricId(metricName1).intValue());
+        registry.setMetricId(metricName3, 3);
+
+        Assert.assertEquals(2, registry.getSize());
+        Assert.assertEquals(1, registry.getMetricId(metricName1).intValue());
+        Assert.assertNull(registry.getMetricId(metricName2));
+        Assert.assertEquals(3, registry.getMetricId(metricName3).intValue());
+        Assert.assertEquals(1, registry.getAndResetEvictionCount());
     }
 
 }
@@ -93,6 +93,84 @@ public class NormalizerTest {
         Assert.assertNull(normalizer.normalize(null));
     }
 
+    @Test
+    public void requiredPrefix() {
+        Assert.assertEquals("WebTransaction/Servlet/", NormalizationRule.getRequiredPrefix("^WebTransaction/Servlet/(.*)$"));
+        Assert.assertEquals("artists/az", NormalizationRule.getRequiredPrefix("^artists/az/?(.*)"));
+        Assert.assertEquals("en", NormalizationRule.getRequiredPrefix("^en.*"));
+        Assert.assertNull(NormalizationRule.getRequiredPrefix("WebTransaction/Servlet/(.*)$"));
+        Assert.assertNull(NormalizationRule.getRequiredPrefix("^(Apdex|WebTransaction)/(.*)$"));
+        Assert.assertNull(NormalizationRule.getRequiredPrefix("^Web|^Other"));
+        Assert.assertNull(NormalizationRule.getRequiredPrefix("^a?"));
+        Assert.assertNull(NormalizationRule.getRequiredPrefix("^[a-z]+"));
+    }
+
+    @SuppressWarnings({ "unchecked", "serial" })
+    @Test
+    public void combinedEntireNameRules() {
+        final JSONArray rulesData = new JSONArray();
+        rulesData.addAll(Arrays.asList(new JSONObject() {
+            {
+                put("match_expression", "^artists/az/(.*)/(.*)$");
+                put("replacement", "artists/az/*/\\1");
+                put("eval_order", 10);
+            }
+        }, new JSONObject() {
+            {
+                put("match_expression", "^([^/]*)/betting/([A-Z]*)([^/]*)/.*$");
+                put("replacement", "\\1/betting/\\2\\3/*");
+                put("eval_order", 20);
+            }
+        }, new JSONObject() {
+            {
+                put("match_expression", "[0-9]+");
+                put("replacement", "*");
+                put("eval_order", 30);
+                put("each_segment", true);
+            }
+        }));
+        List<NormalizationRule> rules = NormalizationRuleFactory.getMetricNameRules(APP_NAME, rulesData);
+        Normalizer normalizer = new NormalizerImpl(APP_NAME, rules);
+        Assert.assertEquals("artists/az/*/Africa", normalizer.normalize("ARTISTS/az/Africa/Toto"));
+        Assert.assertEquals("en/betting/Football/*", normalizer.normalize("en/betting/Football/USA/MLS"));
+        // only the segment rule matches
+        Assert.assertEquals("en/results/*", normalizer.normalize("en/results/2020"));
+        String metric = "en/results/Football";
+        Assert.assertSame(metric, normalizer.normalize(metric));
+    }
+
+    @SuppressWarnings({ "unchecked", "serial" })
+    @Test
+    public void cachedNames() {
+        final JSONArray rulesData = new JSONArray();
+        rulesData.addAll(Arrays.asList(new JSONObject() {
+            {
+                put("match_expression", "^CUSTOM/(.*)/betting/.*$");
+                put("replacement", "\\1/betting/*");
+                put("eval_order", 1);
+            }
+        }, new JSONObject() {
+            {
+                put("match_expression", "^CUSTOM/ignored/.*$");
+                put("ignore", true);
+                put("eval_order", 2);
+            }
+        }));
+        List<NormalizationRule> rules = NormalizationRuleFactory.getMetricNameRules(APP_NAME, rulesData);
+        Normalizer normalizer = NormalizerFactory.createMetricNormalizer(APP_NAME, rules);
+        Assert.assertTrue(normalizer instanceof CachingNormalizer);
+        for (int i = 0; i < 2; i++) {
+            Assert.assertEquals("ru/betting/*", normalizer.normalize("CUSTOM/ru/betting/Motorsport"));
+            Assert.assertNull(normalizer.normalize("CUSTOM/ignored/Motorsport"));
+            String metric = new String("CUSTOM/ru/results/Motorsport");
+            Assert.assertSame(metric, normalizer.normalize(metric));
+        }
+        Assert.assertNull(normalizer.normalize(null));
+
+        Normalizer noRules = NormalizerFactory.createMetricNormalizer(APP_NAME, Collections.<NormalizationRule> emptyList());
+        Assert.assertFalse(noRules instanceof CachingNormalizer);
+    }
+
     @SuppressWarnings({ "unchecked", "serial" })
     // @Test
     public void performance() {
@@ -0,0 +1,142 @@
+/*
+ *
+ *  * Copyright 2020 New Relic Corporation. All rights reserved.
+ *  * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+
+package com.newrelic.agent.profile;
+
+import com.newrelic.agent.MockServiceManager;
+import com.newrelic.agent.ThreadService;
+import com.newrelic.agent.config.AgentConfig;
+import com.newrelic.agent.config.AgentConfigImpl;
+import com.newrelic.agent.config.ConfigService;
+import com.newrelic.agent.config.ConfigServiceFactory;
+import com.newrelic.agent.service.ServiceFactory;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class JfrProfileSamplerTest {
+
+    private static final StackTraceElement[] STACK_TRACE = new StackTraceElement[] {
+            new StackTraceElement("com.example.Worker", "work", "Worker.java", 42),
+            new StackTraceElement("com.example.Worker", "run", "Worker.java", 20),
+            new StackTraceElement("java.lang.Thread", "run", "Thread.java", 748) };
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        MockServiceManager serviceManager = new MockServiceManager();
+        ServiceFactory.setServiceManager(serviceManager);
+        serviceManager.start();
+
+        serviceManager.setThreadService(new ThreadService());
+
+        Map<String, Object> map = new HashMap<>();
+        AgentConfig agentConfig = AgentConfigImpl.createAgentConfig(map);
+        ConfigService configService = ConfigServiceFactory.createConfigService(agentConfig, map);
+        serviceManager.setConfigService(configService);
+    }
+
+    @Test
+    public void testSamplesAreAddedToProfiles() {
+        ProfilerParameters parameters = new ProfilerParameters(0L, 100L, 1000L, false, false, false, null, null);
+        IProfile profile = mock(IProfile.class);
+        when(profile.getProfilerParameters()).thenReturn(parameters);
+        List<IProfile> profiles = Collections.singletonList(profile);
+        JfrStackTraceSampler jfrSampler = new StartedJfrStackTraceSampler();
+        JfrProfileSampler sampler = new JfrProfileSampler(jfrSampler);
+        sampler.start(parameters);
+
+        jfrSampler.addSample(new JfrStackTraceSampler.Sample(1L, "worker", true, STACK_TRACE));
+        jfrSampler.addSample(new JfrStackTraceSampler.Sample(2L, "worker", false, STACK_TRACE));
+        sampler.sampleStackTraces(profiles);
+        // nothing new was sampled
+        sampler.sampleStackTraces(profiles);
+
+        verify(profile, times(2)).beforeSampling();
+        verify(profile).addStackTrace(1L, true, ThreadType.BasicThreadType.OTHER, STACK_TRACE);
+        verify(profile).addStackTrace(2L, false, ThreadType.BasicThreadType.OTHER, STACK_TRACE);
+        Assert.assertNull(jfrSampler.poll());
+    }
+
+    @Test
+    public void testRunnablesOnly() {
+        ProfilerParameters parameters = new ProfilerParameters(0L, 100L, 1000L, true, false, false, null, null);
+        IProfile profile = mock(IProfile.class);
+        when(profile.getProfilerParameters()).thenReturn(parameters);
+        JfrStackTraceSampler jfrSampler = new StartedJfrStackTraceSampler();
+        JfrProfileSampler sampler = new JfrProfileSampler(jfrSampler);
+        sampler.start(parameters);
+
+        jfrSampler.addSample(new JfrStackTraceSampler.Sample(1L, "worker", true, STACK_TRACE));
+        jfrSampler.addSample(new JfrStackTraceSampler.Sample(2L, "worker", false, STACK_TRACE));
+        sampler.sampleStackTraces(Collections.singletonList(profile));
+
+        verify(profile).addStackTrace(1L, true, ThreadType.BasicThreadType.OTHER, STACK_TRACE);
+        verify(profile, never()).addStackTrace(2L, false, ThreadType.BasicThreadType.OTHER, STACK_TRACE);
+    }
+
+    @Test
+    public void testSamplesAllThreadsIfTheStreamDoesNotStart() {
+        ProfilerParameters parameters = new ProfilerParameters(0L, 100L, 1000L, false, false, false, null, null);
+        IProfile profile = new Profile(parameters);
+        JfrProfileSampler sampler = new JfrProfileSampler(new JfrStackTraceSampler() {
+            @Override
+            boolean startStream(long periodInMillis, boolean nativeSamples) {
+                return false;
+            }
+        });
+        sampler.start(parameters);
+        sampler.sampleStackTraces(Collections.singletonList(profile));
+
+        Assert.assertEquals(1, profile.getSampleCount());
+        Assert.assertTrue(profile.getProfileTree(ThreadType.BasicThreadType.OTHER).getRootCount() > 0);
+    }
+
+    @Test
+    public void testQueuedSamplesAreBounded() {
+        JfrStackTraceSampler jfrSampler = new StartedJfrStackTraceSampler();
+        Assert.assertTrue(jfrSampler.start(100L, true));
+        int maxQueuedSamples = JfrStackTraceSampler.getMaxQueuedSamples(100L, true,
+                ManagementFactory.getThreadMXBean().getThreadCount());
+        for (int i = 0; i <= maxQueuedSamples; i++) {
+            jfrSampler.addSample(new JfrStackTraceSampler.Sample(i, "worker", true, STACK_TRACE));
+        }
+
+        int polled = 0;
+        while (jfrSampler.poll() != null) {
+            polled++;
+        }
+        Assert.assertEquals(maxQueuedSamples, polled);
+    }
+
+    @Test
+    public void testMaxQueuedSamples() {
+        // 5 java and 1 native sample per period for 10 seconds
+        Assert.assertEquals(606, JfrStackTraceSampler.getMaxQueuedSamples(100L, true, 200));
+        Assert.assertEquals(505, JfrStackTraceSampler.getMaxQueuedSamples(100L, false, 200));
+        Assert.assertEquals(JfrStackTraceSampler.MIN_QUEUED_SAMPLES, JfrStackTraceSampler.getMaxQueuedSamples(1000L, true, 2));
+    }
+
+    private static class StartedJfrStackTraceSampler extends JfrStackTraceSampler {
+        @Override
+        boolean startStream(long periodInMillis, boolean nativeSamples) {
+            return true;
+        }
+    }
+
+}
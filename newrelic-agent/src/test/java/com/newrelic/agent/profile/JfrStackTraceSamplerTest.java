@@ -0,0 +1,62 @@
+/*
+ *
+ *  * Copyright 2020 New Relic Corporation. All rights reserved.
+ *  * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+
+package com.newrelic.agent.profile;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+public class JfrStackTraceSamplerTest {
+
+    private static volatile long sink;
+
+    @Test(timeout = 60000)
+    public void testSamplesFromRecordingStream() {
+        Assume.assumeTrue(JfrStackTraceSampler.isSupported());
+
+        JfrStackTraceSampler sampler = new JfrStackTraceSampler();
+        Assert.assertTrue(sampler.start(10L, true));
+        try {
+            long threadId = Thread.currentThread().getId();
+            JfrStackTraceSampler.Sample sample = null;
+            while (sample == null) {
+                // stay in Java code so that JFR takes execution samples of this thread
+                spin();
+                for (JfrStackTraceSampler.Sample polled = sampler.poll(); polled != null; polled = sampler.poll()) {
+                    if (polled.getThreadId() == threadId && polled.isRunnable()) {
+                        sample = polled;
+                    }
+                }
+            }
+
+            Assert.assertEquals(Thread.currentThread().getName(), sample.getThreadName());
+            boolean foundTestFrame = false;
+            for (StackTraceElement element : sample.getStackTrace()) {
+                Assert.assertNotNull(element.getClassName());
+                Assert.assertNotNull(element.getMethodName());
+                if (JfrStackTraceSamplerTest.class.getName().equals(element.getClassName())) {
+                    foundTestFrame = true;
+                }
+            }
+            Assert.assertTrue(foundTestFrame);
+        } finally {
+            sampler.stop();
+        }
+        Assert.assertNull(sampler.poll());
+    }
+
+    private static void spin() {
+        long end = System.nanoTime() + 50000000L;
+        long value = sink;
+        while (System.nanoTime() < end) {
+            value = value * 31 + 17;
+        }
+        sink = value;
+    }
+
+}
@@ -191,6 +191,104 @@ public class DistributedSamplingPriorityQueueTest {
         final DistributedSamplingPriorityQueue<SpanEvent> sizeZeroQueue = new DistributedSamplingPriorityQueue<>(0);
         addSpanEvents(33, sizeZeroQueue);
         assertEquals(0, sizeZeroQueue.size());
+        assertEquals(Float.POSITIVE_INFINITY, sizeZeroQueue.getAdmissionThreshold(), 0.0f);
+    }
+
+    @Test
+    public void concurrentAddsKeepTopPriorities() throws Exception {
+        final int threads = 8;
+        final int perThread = 5000;
+        final DistributedSamplingPriorityQueue<SimplePriorityAware> target = new DistributedSamplingPriorityQueue<>(100, 0, 10,
+                SimplePriorityAware.COMPARATOR);
+
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int offset = t;
+            Thread producer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < perThread; i++) {
+                        // distinct priorities across all threads
+                        target.add(new SimplePriorityAware(true, (i * threads + offset) / 1000f));
+                    }
+                }
+            });
+            producers.add(producer);
+            producer.start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        assertEquals(threads * perThread, target.getNumberOfTries());
+        assertEquals(100, target.size());
+        assertTrue(target.isFull());
+
+        List<SimplePriorityAware> elements = target.asList();
+        assertEquals(100, elements.size());
+        for (int i = 0; i < elements.size(); i++) {
+            float expected = (threads * perThread - 1 - i) / 1000f;
+            assertEquals(expected, elements.get(i).getPriority(), 0.0f);
+        }
+        assertEquals(elements.get(0), target.peek());
+    }
+
+    @Test
+    public void rejectsBelowThresholdOnceFull() {
+        DistributedSamplingPriorityQueue<SimplePriorityAware> target = new DistributedSamplingPriorityQueue<>(2, 0, 10,
+                SimplePriorityAware.COMPARATOR);
+        assertEquals(Float.NEGATIVE_INFINITY, target.getAdmissionThreshold(), 0.0f);
+        assertTrue(target.add(new SimplePriorityAware(true, 1.5f)));
+        assertTrue(target.add(new SimplePriorityAware(true, 0.5f)));
+        assertTrue(target.isFull());
+        assertEquals(0.5f, target.getAdmissionThreshold(), 0.0f);
+
+        assertFalse(target.add(new SimplePriorityAware(true, 0.4f)));
+        assertTrue(target.add(new SimplePriorityAware(true, 0.6f)));
+        assertEquals(3, target.getDecided());
+        assertEquals(1, target.getSampled());
+        assertEquals(4, target.getNumberOfTries());
+
+        assertEquals(1.5f, target.poll().getPriority(), 0.0f);
+        // there is room again after polling
+        assertTrue(target.add(new SimplePriorityAware(false, 0.1f)));
+        assertEquals(2, target.size());
+
+        target.clear();
+        assertEquals(0, target.size());
+        assertNull(target.peek());
+    }
+
+    @Test
+    public void minPriorityIsThePublishedThreshold() {
+        DistributedSamplingPriorityQueue<SimplePriorityAware> target = new DistributedSamplingPriorityQueue<>(3, 0, 10,
+                SimplePriorityAware.COMPARATOR);
+        target.add(new SimplePriorityAware(false, 0.9f));
+        target.add(new SimplePriorityAware(false, 0.2f));
+        assertFalse(target.isFull());
+        assertEquals(0.0f, target.getMinPriority(), 0.0f);
+
+        target.add(new SimplePriorityAware(false, 0.5f));
+        assertTrue(target.isFull());
+        assertEquals(0.2f, target.getMinPriority(), 0.0f);
+        target.add(new SimplePriorityAware(false, 0.7f));
+        assertEquals(0.5f, target.getMinPriority(), 0.0f);
+        assertEquals(target.getAdmissionThreshold(), target.getMinPriority(), 0.0f);
+    }
+
+    @Test
+    public void singleProducerFillsTheWholeReservoir() {
+        DistributedSamplingPriorityQueue<SimplePriorityAware> target = new DistributedSamplingPriorityQueue<>(1000, 0, 10,
+                SimplePriorityAware.COMPARATOR);
+        for (int i = 0; i < 5000; i++) {
+            target.add(new SimplePriorityAware(false, i / 1000f));
+        }
+
+        List<SimplePriorityAware> elements = target.asList();
+        assertEquals(1000, elements.size());
+        assertEquals(4.999f, elements.get(0).getPriority(), 0.0f);
+        assertEquals(4.0f, elements.get(999).getPriority(), 0.0f);
+        assertEquals(4.0f, target.getMinPriority(), 0.0f);
     }
 
     private void addSpanEvents(int numberToAdd, DistributedSamplingPriorityQueue<SpanEvent> queue) {
@@ -32,6 +32,8 @@ import java.util.Map;
 
 import static com.newrelic.agent.config.SpanEventsConfig.SERVER_SPAN_HARVEST_CONFIG;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.Mockito.*;
@@ -114,6 +116,84 @@ public class SpanEventsServiceTest {
         assertEquals(1, reservoir.getSampled());
     }
 
+    @Test
+    public void testSpanBuiltOnTracerFinish() {
+        SpanEventsServiceImpl spanEventsService = buildSpansOnTracerFinish();
+
+        Transaction transaction = mock(Transaction.class);
+        when(transaction.sampled()).thenReturn(true);
+        when(transaction.getPriority()).thenReturn(1.5f);
+        when(transaction.getApplicationName()).thenReturn(APP_NAME);
+        TransactionActivity activity = spy(new MockTransactionActivity());
+        doReturn(transaction).when(activity).getTransaction();
+
+        Tracer tracer = mock(Tracer.class);
+        when(tracer.isTransactionSegment()).thenReturn(true);
+        when(tracer.getGuid()).thenReturn("child");
+        when(tracer.getTransactionSegmentName()).thenReturn("Custom/child");
+        when(tracer.getTransactionActivity()).thenReturn(activity);
+        when(tracer.getAgentAttributes()).thenReturn(Collections.<String, Object>emptyMap());
+        when(tracer.getCustomAttributes()).thenReturn(Collections.<String, Object>singletonMap("builtOnFinish", true));
+
+        spanEventsService.tracerFinished(activity, tracer);
+        // attributes added after the tracer finished don't make it into its span event
+        when(tracer.getCustomAttributes()).thenReturn(Collections.<String, Object>emptyMap());
+
+        TransactionData transactionData = new TransactionDataTestBuilder(
+                APP_NAME,
+                ServiceFactory.getConfigService().getDefaultAgentConfig(),
+                new MockDispatcherTracer())
+                .setTracers(Collections.singletonList(tracer))
+                .build();
+        Transaction mockTransaction = transactionData.getTransaction();
+        when(mockTransaction.sampled()).thenReturn(true);
+        when(mockTransaction.getPriority()).thenReturn(1.5f);
+
+        spanEventsService.dispatcherTransactionFinished(transactionData, new TransactionStats());
+
+        SamplingPriorityQueue<SpanEvent> reservoir = spanEventsService.getOrCreateDistributedSamplingReservoir(APP_NAME);
+        SpanEvent child = null;
+        for (SpanEvent spanEvent : reservoir.asList()) {
+            if ("child".equals(spanEvent.getGuid())) {
+                child = spanEvent;
+            }
+        }
+        assertNotNull(child);
+        assertEquals(true, child.getUserAttributes().get("builtOnFinish"));
+        assertEquals(transactionData.getGuid(), child.getTransactionId());
+        assertEquals(1.5f, child.getPriority(), 0.0f);
+    }
+
+    @Test
+    public void testSpanNotBuiltOnTracerFinishForUnsampledTransaction() {
+        Transaction transaction = mock(Transaction.class);
+        when(transaction.sampled()).thenReturn(false);
+        TransactionActivity activity = spy(new MockTransactionActivity());
+        doReturn(transaction).when(activity).getTransaction();
+        Tracer tracer = mock(Tracer.class);
+        when(tracer.getAgentAttributes()).thenReturn(Collections.<String, Object>emptyMap());
+
+        SpanEventsServiceImpl spanEventsService = buildSpansOnTracerFinish();
+        spanEventsService.tracerFinished(activity, tracer);
+
+        assertNull(activity.getFinishedSpan(tracer));
+    }
+
+    private SpanEventsServiceImpl buildSpansOnTracerFinish() {
+        Map<String, Object> spanEventsSettings = new HashMap<>();
+        spanEventsSettings.put("collect_span_events", true);
+        spanEventsSettings.put("build_on_tracer_finish", true);
+        Map<String, Object> localSettings = new HashMap<>();
+        localSettings.put(AgentConfigImpl.APP_NAME, APP_NAME);
+        localSettings.put("distributed_tracing", Collections.singletonMap("enabled", true));
+        localSettings.put("span_events", spanEventsSettings);
+        AgentConfig agentConfig = AgentHelper.createAgentConfig(true, localSettings, new HashMap<String, Object>());
+
+        SpanEventsServiceImpl spanEventsService = (SpanEventsServiceImpl) ServiceFactory.getSpanEventService();
+        spanEventsService.configChanged(APP_NAME, agentConfig);
+        return spanEventsService;
+    }
+
     @Test
     public void testMaxSamplesStored() {
         SpanEventsService spanEventsService = serviceManager.getSpanEventsService();
@@ -50,6 +50,7 @@ import static com.newrelic.agent.attributes.AttributeNames.REQUEST_URI;
 import static com.newrelic.agent.attributes.AttributeNames.REQUEST_USER_AGENT_PARAMETER_NAME;
 import static com.newrelic.agent.attributes.AttributeNames.RESPONSE_CONTENT_TYPE_PARAMETER_NAME;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
@@ -57,6 +58,8 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class TracerToSpanEventTest {
@@ -185,6 +188,25 @@ public class TracerToSpanEventTest {
         assertEquals(expectedSpanEvent, spanEvent);
     }
 
+    @Test
+    public void testSharedTransactionSpanContext() {
+        // setup
+        SpanEvent expectedSpanEvent = buildExpectedSpanEvent();
+
+        TracerToSpanEvent testClass = new TracerToSpanEvent(errorBuilderMap, new AttributeFilter.PassEverythingAttributeFilter(), timestampProvider,
+                environmentService, transactionDataToDistributedTraceIntrinsics, spanErrorBuilder);
+
+        // execution
+        TracerToSpanEvent.TransactionSpanContext context = testClass.createTransactionSpanContext(txnData);
+        SpanEvent first = testClass.createSpanEvent(tracer, txnData, context, txnStats, true, false);
+        SpanEvent second = testClass.createSpanEvent(tracer, txnData, context, txnStats, true, false);
+
+        // assertions
+        assertEquals(expectedSpanEvent, first);
+        assertEquals(expectedSpanEvent, second);
+        verify(spanProxy, times(1)).getOrCreateTraceId();
+    }
+
     @Test
     public void testParentIdFromParentSpan() {
         // setup
@@ -210,6 +232,62 @@ public class TracerToSpanEventTest {
         assertEquals(expectedSpanEvent, spanEvent);
     }
 
+    @Test
+    public void testTracerSpanMatchesSpanBuiltAtTransactionFinish() {
+        // setup
+        Tracer parentTracer = mock(Tracer.class);
+        when(parentTracer.getGuid()).thenReturn("98765");
+        when(parentTracer.isTransactionSegment()).thenReturn(true);
+        when(spanErrorBuilder.buildSpanError(tracer, false, responseStatus, statusMessage, throwable)).thenReturn(spanError);
+        when(tracer.getParentTracer()).thenReturn(parentTracer);
+        when(tracer.getGuid()).thenReturn("4321");
+        when(tracer.getTransactionSegmentName()).thenReturn("Custom/child");
+        tracerUserAttributes.put("color", "blue");
+
+        TracerToSpanEvent testClass = new TracerToSpanEvent(errorBuilderMap, new AttributeFilter.PassEverythingAttributeFilter(), timestampProvider,
+                environmentService, transactionDataToDistributedTraceIntrinsics, spanErrorBuilder);
+
+        // execution
+        TracerToSpanEvent.TracerSpan span = testClass.createTracerSpan(tracer, appName);
+        TracerToSpanEvent.TransactionSpanContext context = testClass.createTransactionSpanContext(txnData);
+        SpanEvent expectedSpanEvent = testClass.createSpanEvent(tracer, txnData, context, txnStats, false, false);
+
+        // assertions
+        assertEquals(expectedSpanEvent, testClass.createSpanEvent(span, txnData, context, false));
+    }
+
+    @Test
+    public void testTracerSpanParentIdFromDTPayload() {
+        // setup
+        String parentGuid = "98765";
+        DistributedTracePayloadImpl dtPayload = mock(DistributedTracePayloadImpl.class);
+        when(dtPayload.getGuid()).thenReturn(parentGuid);
+        when(txnData.getInboundDistributedTracePayload()).thenReturn(dtPayload);
+        when(spanErrorBuilder.buildSpanError(tracer, false, responseStatus, statusMessage, throwable)).thenReturn(spanError);
+
+        TracerToSpanEvent testClass = new TracerToSpanEvent(errorBuilderMap, new AttributeFilter.PassEverythingAttributeFilter(), timestampProvider,
+                environmentService, transactionDataToDistributedTraceIntrinsics, spanErrorBuilder);
+
+        // execution
+        TracerToSpanEvent.TracerSpan span = testClass.createTracerSpan(tracer, appName);
+        SpanEvent spanEvent = testClass.createSpanEvent(span, txnData, testClass.createTransactionSpanContext(txnData), false);
+
+        // assertions
+        assertEquals(parentGuid, spanEvent.getParentId());
+        assertEquals(traceId, spanEvent.getTraceId());
+        assertEquals(priority, spanEvent.getPriority(), 0.0f);
+    }
+
+    @Test
+    public void testTracerSpanIsRebuiltAfterAppNameChange() {
+        TracerToSpanEvent testClass = new TracerToSpanEvent(errorBuilderMap, new AttributeFilter.PassEverythingAttributeFilter(), timestampProvider,
+                environmentService, transactionDataToDistributedTraceIntrinsics, spanErrorBuilder);
+
+        TracerToSpanEvent.TracerSpan span = testClass.createTracerSpan(tracer, "otherAppName");
+
+        assertNull(testClass.createSpanEvent(span, txnData, testClass.createTransactionSpanContext(txnData), false));
+    }
+
     @Test
     public void testParentIdFromDTPayload() {
         // setup
@@ -317,7 +395,7 @@ public class TracerToSpanEventTest {
 
         when(txnData.getAgentAttributes()).thenReturn(transactionAgentAttributes);
         when(environment.getAgentIdentity()).thenReturn(new AgentIdentity("dispatcher", "1.2.3", port, "myInstance"));
-        when(txnStats.getUnscopedStats().getStatsMap().containsKey(QUEUE_TIME)).thenReturn(true);
+        when(txnStats.getUnscopedStats().containsMetric(QUEUE_TIME)).thenReturn(true);
         when(txnStats.getUnscopedStats().getOrCreateResponseTimeStats(QUEUE_TIME).getTotal()).thenReturn(queueDuration);
 
         TracerToSpanEvent testClass = new TracerToSpanEvent(errorBuilderMap, new AttributeFilter.PassEverythingAttributeFilter(), timestampProvider,
@@ -14,8 +14,10 @@ import com.newrelic.agent.config.ApplicationLoggingForwardingConfig;
 import com.newrelic.agent.config.ApplicationLoggingLocalDecoratingConfig;
 import com.newrelic.agent.config.ApplicationLoggingMetricsConfig;
 import com.newrelic.agent.config.ConfigService;
+import com.newrelic.agent.model.LogEvent;
 import com.newrelic.agent.service.ServiceFactory;
 import com.newrelic.agent.service.ServiceManager;
+import com.newrelic.agent.service.analytics.DistributedSamplingPriorityQueue;
 import com.newrelic.agent.stats.StatsService;
 import org.junit.Test;
 import org.mockito.Mockito;
@@ -25,6 +27,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -199,6 +202,24 @@ public class LogSenderServiceImplTest {
     }
 
 
+    @Test
+    public void testFullReservoirCountsSkippedEvents() throws Exception {
+        LogSenderServiceImpl logSenderService = createService();
+        logSenderService.clearReservoir();
+        logSenderService.setMaxSamplesStored(5);
+
+        for (int i = 0; i < 100; i++) {
+            logSenderService.recordLogEvent(ImmutableMap.of("field", "value" + i));
+        }
+
+        DistributedSamplingPriorityQueue<LogEvent> reservoir = logSenderService.getReservoir(appName);
+        assertEquals(5, reservoir.size());
+        assertEquals(100, reservoir.getNumberOfTries());
+        for (LogEvent event : reservoir.asList()) {
+            assertTrue(event.getPriority() >= reservoir.getAdmissionThreshold());
+        }
+    }
+
     private static Map<String, Object> createConfig() {
         return createConfig(null, null, null);
     }
@@ -0,0 +1,182 @@
+/*
+ *
+ *  * Copyright 2020 New Relic Corporation. All rights reserved.
+ *  * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+
+package com.newrelic.agent.stats;
+
+import com.newrelic.agent.MetricNames;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ResponseTimeStatsTableTest {
+
+    @Test
+    public void recordMatchesResponseTimeStats() {
+        ResponseTimeStatsTable table = new ResponseTimeStatsTable(1);
+        ResponseTimeStatsImpl expected = new ResponseTimeStatsImpl();
+        long[] durations = { 5000, 1000, 9000, 3000 };
+        for (long duration : durations) {
+            table.recordResponseTimeInNanos(7, duration, duration / 2);
+            expected.recordResponseTimeInNanos(duration, duration / 2);
+        }
+
+        Assert.assertEquals(1, table.size());
+        Assert.assertEquals(7, table.getMetricId(0));
+        assertStatsEquals(expected, table.toStats(0));
+    }
+
+    @Test
+    public void mergeAndGrow() {
+        ResponseTimeStatsTable table = new ResponseTimeStatsTable(2);
+        ResponseTimeStatsTable other = new ResponseTimeStatsTable(2);
+        for (int metricId = 0; metricId < 100; metricId++) {
+            table.recordResponseTimeInNanos(metricId, 10, 10);
+            other.recordResponseTimeInNanos(metricId * 2, 30, 20);
+        }
+        table.merge(other);
+
+        // ids 0..99 from table plus the odd multiples of two from 100 to 198 from other
+        Assert.assertEquals(150, table.size());
+        for (int row = 0; row < table.size(); row++) {
+            int metricId = table.getMetricId(row);
+            ResponseTimeStatsImpl stats = table.toStats(row);
+            if (metricId < 100 && metricId % 2 == 0) {
+                Assert.assertEquals(2, stats.getCallCount());
+                Assert.assertEquals(40e-9f, stats.getTotal(), 1e-12f);
+                Assert.assertEquals(30e-9f, stats.getTotalExclusiveTime(), 1e-12f);
+                Assert.assertEquals(10e-9f, stats.getMinCallTime(), 1e-12f);
+                Assert.assertEquals(30e-9f, stats.getMaxCallTime(), 1e-12f);
+            } else {
+                Assert.assertEquals(1, stats.getCallCount());
+            }
+        }
+
+        table.clear();
+        Assert.assertTrue(table.isEmpty());
+    }
+
+    @Test
+    public void simpleStatsEngineFoldsTableIntoMap() {
+        SimpleStatsEngine engine = new SimpleStatsEngine();
+        engine.getOrCreateResponseTimeStats("Custom/foo").recordResponseTimeInNanos(1000, 1000);
+        engine.recordResponseTimeInNanos("Custom/foo", 3000, 2000);
+        engine.recordResponseTimeInNanos("Custom/bar", 2000, 2000);
+
+        SimpleStatsEngine other = new SimpleStatsEngine();
+        other.recordResponseTimeInNanos("Custom/bar", 4000, 4000);
+        engine.mergeStats(other);
+
+        Assert.assertEquals(2, engine.getSize());
+        ResponseTimeStats foo = engine.getOrCreateResponseTimeStats("Custom/foo");
+        Assert.assertEquals(2, foo.getCallCount());
+        Assert.assertEquals(4000e-9f, foo.getTotal(), 1e-12f);
+        Assert.assertEquals(3000e-9f, foo.getTotalExclusiveTime(), 1e-12f);
+        ResponseTimeStats bar = (ResponseTimeStats) engine.getStatsMap().get("Custom/bar");
+        Assert.assertEquals(2, bar.getCallCount());
+        Assert.assertEquals(2000e-9f, bar.getMinCallTime(), 1e-12f);
+        Assert.assertEquals(4000e-9f, bar.getMaxCallTime(), 1e-12f);
+    }
+
+    @Test
+    public void recordResponseTimeForOtherStatsTypeIsDropped() {
+        SimpleStatsEngine engine = new SimpleStatsEngine();
+        engine.getStats("Custom/count").incrementCallCount();
+        engine.recordResponseTimeInNanos("Custom/count", 1000, 1000);
+
+        Assert.assertEquals(1, engine.getSize());
+        Assert.assertEquals(1, ((Stats) engine.getStatsMap().get("Custom/count")).getCallCount());
+        Assert.assertEquals(1, engine.getStats(MetricNames.SUPPORTABILITY_METRIC_DROPPED_RESPONSE_TIMES).getCallCount());
+    }
+
+    @Test
+    public void bindingAnotherStatsTypeDropsRecordedResponseTimes() {
+        SimpleStatsEngine engine = new SimpleStatsEngine();
+        engine.recordResponseTimeInNanos("Custom/timed", 1000, 1000);
+        engine.getApdexStats("Custom/timed");
+
+        Assert.assertEquals(1, engine.getStats(MetricNames.SUPPORTABILITY_METRIC_DROPPED_RESPONSE_TIMES).getCallCount());
+        Assert.assertEquals(2, engine.getSize());
+    }
+
+    @Test
+    public void pointLookupsReadOnlyTheirRow() {
+        SimpleStatsEngine engine = new SimpleStatsEngine();
+        engine.recordResponseTimeInNanos("Custom/foo", 1000, 1000);
+        engine.recordResponseTimeInNanos("Custom/bar", 2000, 2000);
+
+        Assert.assertTrue(engine.containsMetric("Custom/foo"));
+        Assert.assertFalse(engine.containsMetric("Custom/baz"));
+        Assert.assertEquals(2, engine.getSize());
+
+        ResponseTimeStats foo = engine.getOrCreateResponseTimeStats("Custom/foo");
+        Assert.assertEquals(1, foo.getCallCount());
+        engine.recordResponseTimeInNanos("Custom/foo", 3000, 3000);
+        Assert.assertEquals(1, foo.getCallCount());
+        Assert.assertEquals(2, engine.getOrCreateResponseTimeStats("Custom/foo").getCallCount());
+
+        // bar is still only in the table: one map entry plus the rows of foo and bar
+        Assert.assertEquals(3, engine.getEstimatedSize());
+        Assert.assertEquals(2, engine.getSize());
+        Assert.assertEquals(1, ((ResponseTimeStats) engine.getStatsMap().get("Custom/bar")).getCallCount());
+    }
+
+    @Test
+    public void recordEmptyStatsReplacesRecordedResponseTimes() {
+        SimpleStatsEngine engine = new SimpleStatsEngine();
+        engine.recordResponseTimeInNanos("Custom/empty", 1000, 1000);
+        engine.recordEmptyStats("Custom/empty");
+
+        Assert.assertEquals(1, engine.getSize());
+        Assert.assertSame(AbstractStats.EMPTY_STATS, engine.getStatsMap().get("Custom/empty"));
+        Assert.assertNull(engine.getStatsMap().get(MetricNames.SUPPORTABILITY_METRIC_DROPPED_RESPONSE_TIMES));
+    }
+
+    @Test
+    public void droppedResponseTimesAreCounted() {
+        SimpleStatsEngine engine = new SimpleStatsEngine();
+        engine.getStats("Custom/count").incrementCallCount();
+        SimpleStatsEngine other = new SimpleStatsEngine();
+        other.recordResponseTimeInNanos("Custom/count", 1000, 1000);
+        engine.mergeStats(other);
+        // the conflict is found when the table is folded at harvest
+        engine.getStatsMap();
+
+        Assert.assertEquals(1, engine.getStats("Custom/count").getCallCount());
+        Assert.assertEquals(1, engine.getStats(MetricNames.SUPPORTABILITY_METRIC_DROPPED_RESPONSE_TIMES).getCallCount());
+    }
+
+    @Test(timeout = 30000)
+    public void mergeIntoEachOther() throws Exception {
+        final SimpleStatsEngine first = new SimpleStatsEngine();
+        final SimpleStatsEngine second = new SimpleStatsEngine();
+        first.recordResponseTimeInNanos("Custom/foo", 1000, 1000);
+        second.recordResponseTimeInNanos("Custom/bar", 1000, 1000);
+
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 10000; i++) {
+                    second.mergeStats(first);
+                }
+            }
+        });
+        thread.start();
+        for (int i = 0; i < 10000; i++) {
+            first.mergeStats(second);
+        }
+        thread.join();
+    }
+
+    private static void assertStatsEquals(ResponseTimeStatsImpl expected, ResponseTimeStatsImpl actual) {
+        Assert.assertEquals(expected.getCallCount(), actual.getCallCount());
+        Assert.assertEquals(expected.getTotal(), actual.getTotal(), 0);
+        Assert.assertEquals(expected.getTotalExclusiveTime(), actual.getTotalExclusiveTime(), 0);
+        Assert.assertEquals(expected.getMinCallTime(), actual.getMinCallTime(), 0);
+        Assert.assertEquals(expected.getMaxCallTime(), actual.getMaxCallTime(), 0);
+        Assert.assertEquals(expected.getSumOfSquares(), actual.getSumOfSquares(), 0);
+    }
+
+}
@@ -23,6 +23,8 @@ import org.junit.Test;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 
 public class StatsServiceTest {
@@ -215,6 +217,118 @@ public class StatsServiceTest {
         Assert.assertEquals(300f, harvestStatsEngine.getStats("Test1").getTotal(), 0);
     }
 
+    @Test
+    public void doStatsWorkStriped() throws Exception {
+        serviceManager.stop();
+        Map<String, Object> configMap = createStagingMap();
+        Map<String, Object> stripedConfig = new HashMap<>();
+        stripedConfig.put("enabled", true);
+        Map<String, Object> statsServiceConfig = new HashMap<>();
+        statsServiceConfig.put("striped_aggregation", stripedConfig);
+        configMap.put("stats_service", statsServiceConfig);
+        serviceManager = createServiceManager(configMap);
+
+        String appName = serviceManager.getConfigService().getDefaultAgentConfig().getApplicationName();
+        StatsService statsService = serviceManager.getStatsService();
+        statsService.doStatsWork(new RecordMetric("Test1", 100f), "statsWorkTest");
+        statsService.doStatsWork(new RecordMetric("Test1", 200f), "statsWorkTest");
+        StatsEngine harvestStatsEngine = statsService.getStatsEngineForHarvest(appName);
+        Assert.assertEquals(1, harvestStatsEngine.getSize());
+        Assert.assertEquals(2, harvestStatsEngine.getStats("Test1").getCallCount());
+        Assert.assertEquals(300f, harvestStatsEngine.getStats("Test1").getTotal(), 0);
+
+        statsService.doStatsWork(new RecordMetric("Test1", 400f), "statsWorkTest");
+        harvestStatsEngine = statsService.getStatsEngineForHarvest(appName);
+        Assert.assertEquals(1, harvestStatsEngine.getStats("Test1").getCallCount());
+        Assert.assertEquals(400f, harvestStatsEngine.getStats("Test1").getTotal(), 0);
+    }
+
+    @Test
+    public void doStatsWorkStripedConcurrentHarvest() throws Exception {
+        serviceManager.stop();
+        Map<String, Object> configMap = createStagingMap();
+        Map<String, Object> stripedConfig = new HashMap<>();
+        stripedConfig.put("enabled", true);
+        Map<String, Object> statsServiceConfig = new HashMap<>();
+        statsServiceConfig.put("striped_aggregation", stripedConfig);
+        configMap.put("stats_service", statsServiceConfig);
+        serviceManager = createServiceManager(configMap);
+
+        final String appName = serviceManager.getConfigService().getDefaultAgentConfig().getApplicationName();
+        final StatsService statsService = serviceManager.getStatsService();
+        final int threadCount = 8;
+        final int workPerThread = 10000;
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int j = 0; j < workPerThread; j++) {
+                            statsService.doStatsWork(new RecordMetric("Test1", 1f), "statsWorkTest");
+                        }
+                    } catch (InterruptedException e) {
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        // harvest repeatedly while the threads record, no data point may be lost or counted twice
+        List<StatsEngine> harvests = new ArrayList<>();
+        start.countDown();
+        while (done.getCount() > 0) {
+            harvests.add(statsService.getStatsEngineForHarvest(appName));
+        }
+        done.await();
+        harvests.add(statsService.getStatsEngineForHarvest(appName));
+
+        long callCount = 0;
+        for (StatsEngine harvest : harvests) {
+            callCount += harvest.getStats("Test1").getCallCount();
+        }
+        Assert.assertEquals(threadCount * workPerThread, callCount);
+    }
+
+    @Test
+    public void doStatsWorkStripedThreadExits() throws Exception {
+        serviceManager.stop();
+        Map<String, Object> configMap = createStagingMap();
+        Map<String, Object> stripedConfig = new HashMap<>();
+        stripedConfig.put("enabled", true);
+        Map<String, Object> statsServiceConfig = new HashMap<>();
+        statsServiceConfig.put("striped_aggregation", stripedConfig);
+        configMap.put("stats_service", statsServiceConfig);
+        serviceManager = createServiceManager(configMap);
+
+        String appName = serviceManager.getConfigService().getDefaultAgentConfig().getApplicationName();
+        final StatsService statsService = serviceManager.getStatsService();
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                statsService.doStatsWork(new RecordMetric("Test1", 100f), "statsWorkTest");
+            }
+        });
+        thread.start();
+        thread.join();
+
+        // the stripe of a thread that has exited is harvested once and then dropped
+        StatsEngine harvestStatsEngine = statsService.getStatsEngineForHarvest(appName);
+        Assert.assertEquals(1, harvestStatsEngine.getStats("Test1").getCallCount());
+        harvestStatsEngine = statsService.getStatsEngineForHarvest(appName);
+        Assert.assertEquals(0, harvestStatsEngine.getSize());
+
+        statsService.doStatsWork(new RecordMetric("Test1", 200f), "statsWorkTest");
+        harvestStatsEngine = statsService.getStatsEngineForHarvest(appName);
+        Assert.assertEquals(1, harvestStatsEngine.getStats("Test1").getCallCount());
+        Assert.assertEquals(200f, harvestStatsEngine.getStats("Test1").getTotal(), 0);
+    }
+
     private static class MergeStatsWork implements StatsWork {
 
         private final String appName;
@@ -45,4 +45,12 @@ public class TransactionGuidFactoryTest {
             someGuids.add(guidString);
         }
     }
+
+    @Test
+    public void testGuidFromBits() {
+        // the lowest 4 bits are the first digit
+        Assert.assertEquals("fedcba9876543210", TransactionGuidFactory.toGuid(0x0123456789abcdefL));
+        Assert.assertEquals(16, TransactionGuidFactory.toGuid(TransactionGuidFactory.nextGuidBits()).length());
+        Assert.assertEquals(32, TransactionGuidFactory.generate32CharGuid().length());
+    }
 }
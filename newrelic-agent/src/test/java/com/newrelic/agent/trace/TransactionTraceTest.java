@@ -915,6 +915,56 @@ public class TransactionTraceTest {
         verifyAllTraceSegmentsHaveExecContext(rootSeg);
     }
 
+    @Test
+    public void testSegmentTableMatchesSegmentTree() throws Exception {
+        setUp(false, true, false);
+        Transaction tx = Transaction.getTransaction();
+        Tracer rootTracer = new OtherRootTracer(tx, new ClassMethodSignature("Test", "root", "()V"), this,
+                new OtherTransSimpleMetricNameFormat("myMetricName"));
+        DefaultTracer tracer1 = new DefaultTracer(tx, new ClassMethodSignature("Test", "dude", "()V"), this);
+        DefaultTracer tracer2 = new DefaultTracer(tx, new ClassMethodSignature("Test", "dude", "()V"), this);
+        DefaultTracer tracer3 = new DefaultTracer(tx, new ClassMethodSignature("Test", "dude3", "()V"), this);
+
+        tx.getTransactionActivity().tracerStarted(rootTracer);
+        tx.getTransactionActivity().tracerStarted(tracer1);
+        tracer1.finish(0, null);
+        tx.getTransactionActivity().tracerStarted(tracer2);
+        tx.getTransactionActivity().tracerStarted(tracer3);
+        tracer3.finish(0, null);
+        tracer2.finish(0, null);
+        rootTracer.finish(0, null);
+
+        TransactionData transactionData = new TransactionDataTestBuilder("dude", iAgentConfig, rootTracer)
+                .setStartTime(System.currentTimeMillis())
+                .setRequestUri("/dude")
+                .setFrontendMetricName("Frontend/dude")
+                .setTracers(Arrays.asList(rootTracer, tracer1, tracer2, tracer3))
+                .build();
+
+        TransactionTrace trace = TransactionTrace.getTransactionTrace(transactionData,
+                SqlObfuscator.getDefaultSqlObfuscator());
+        JSONArray jsonArray = (JSONArray) AgentHelper.serializeJSON(trace);
+        JSONArray tableRoot = (JSONArray) ((JSONArray) decodeTransactionTraceData(jsonArray.get(4))).get(3);
+
+        TransactionSegment rootSegment = trace.getRootSegment();
+        Assert.assertEquals("ROOT", rootSegment.getMetricName());
+        Writer treeWriter = new StringWriter();
+        rootSegment.writeJSONString(treeWriter);
+        Assert.assertEquals(JSONValue.parse(treeWriter.toString()), tableRoot);
+
+        // ROOT -> root tracer -> (tracer1, tracer2 -> tracer3)
+        Assert.assertEquals("ROOT", tableRoot.get(2));
+        JSONArray rootTracerSegment = (JSONArray) ((JSONArray) tableRoot.get(4)).get(0);
+        Assert.assertEquals("Test", rootTracerSegment.get(5));
+        Assert.assertEquals("root", rootTracerSegment.get(6));
+        JSONArray children = (JSONArray) rootTracerSegment.get(4);
+        Assert.assertEquals(2, children.size());
+        Assert.assertEquals("dude", ((JSONArray) children.get(0)).get(6));
+        JSONArray grandchildren = (JSONArray) ((JSONArray) children.get(1)).get(4);
+        Assert.assertEquals(1, grandchildren.size());
+        Assert.assertEquals("dude3", ((JSONArray) grandchildren.get(0)).get(6));
+    }
+
     private void verifyAllTraceSegmentsHaveExecContext(JSONArray root) {
         JSONObject params = (JSONObject) root.get(3);
         Assert.assertNotNull(params);
@@ -8,8 +8,14 @@
 package com.newrelic.agent.tracing;
 
 import com.newrelic.agent.Transaction;
+import org.apache.commons.codec.binary.Base64;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
 import static org.junit.Assert.*;
 
 public class DistributedTracePayloadImplTest extends BaseDistributedTraceTest {
@@ -53,4 +59,32 @@ public class DistributedTracePayloadImplTest extends BaseDistributedTraceTest {
         assertEquals(0.5f, payload.priority,0.0001);
     }
 
+    @Test
+    public void testTextAndHttpSafe() throws Exception {
+        createDistributedTraceService("accountId", "trustKey", "appID", 0, 2);
+
+        DistributedTracePayloadImpl payload = new DistributedTracePayloadImpl(1234L, "App", "accountId", "trustKey", "appID", "guid",
+                "traceId", "tx\"id/", 0.789f, Sampled.SAMPLED_YES);
+        JSONObject json = (JSONObject) new JSONParser().parse(payload.text());
+        assertEquals(Arrays.asList(0L, 2L), json.get("v"));
+        JSONObject data = (JSONObject) json.get("d");
+        assertEquals("App", data.get("ty"));
+        assertEquals("accountId", data.get("ac"));
+        assertEquals("trustKey", data.get("tk"));
+        assertEquals("appID", data.get("ap"));
+        assertEquals("guid", data.get("id"));
+        assertEquals("traceId", data.get("tr"));
+        assertEquals("tx\"id/", data.get("tx"));
+        assertEquals(0.789, (Double) data.get("pr"), 0.0001);
+        assertEquals(true, data.get("sa"));
+        assertEquals(1234L, data.get("ti"));
+
+        // the encoded prefix is reused, so check payloads whose prefix ends at every offset within a base64 group
+        for (String applicationId : Arrays.asList("a", "ab", "abc")) {
+            payload = new DistributedTracePayloadImpl(1234L, "App", "accountId", "accountId", applicationId, null,
+                    "traceId", null, 0.5f, Sampled.SAMPLED_NO);
+            assertEquals(Base64.encodeBase64String(payload.text().getBytes(StandardCharsets.UTF_8)), payload.httpSafe());
+        }
+    }
+
 }
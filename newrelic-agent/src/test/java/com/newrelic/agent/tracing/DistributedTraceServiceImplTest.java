@@ -51,6 +51,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.text.DecimalFormat;
 import java.text.MessageFormat;
 import java.util.Collections;
 import java.util.HashMap;
@@ -465,6 +466,31 @@ public class DistributedTraceServiceImplTest {
         nextFloat();
     }
 
+    @Test
+    public void testTruncatedFloatMatchesDecimalFormat() {
+        // how priorities used to be generated, see nextTruncatedFloat()
+        DecimalFormat format = new DecimalFormat();
+        if (format.getDecimalFormatSymbols().getDecimalSeparator() == ',') {
+            format.applyLocalizedPattern("#,######");
+        } else {
+            format.applyPattern("#.######");
+        }
+
+        // 2^17 / 2^24 = 0.0078125 is a tie that rounds down to an even last digit, values near 2^24 round up to 1
+        int[] edgeCases = { 0, 1, 1 << 17, 3 << 17, (1 << 24) - 8, (1 << 24) - 1 };
+        for (int randomBits : edgeCases) {
+            assertTruncatedFloat(format, randomBits);
+        }
+        for (int randomBits = 0; randomBits < 1 << 24; randomBits += 61) {
+            assertTruncatedFloat(format, randomBits);
+        }
+    }
+
+    private static void assertTruncatedFloat(DecimalFormat format, int randomBits) {
+        float expected = Float.parseFloat(format.format(randomBits * 0x1.0p-24f).replace(',', '.'));
+        assertEquals(Float.floatToIntBits(expected), Float.floatToIntBits(DistributedTraceServiceImpl.toTruncatedFloat(randomBits)));
+    }
+
     private void nextFloat() {
         try {
             DistributedTraceServiceImpl.nextTruncatedFloat();
@@ -126,4 +126,26 @@ public class W3CTraceParentHeaderTest extends BaseDistributedTraceTest {
         W3CTraceParent header = W3CTraceParentParser.parseHeader("03-12345678123456781234564781245678-12342BAD3441234-01");
         assertNull(header);
     }
+
+    @Test
+    public void testParseLargerVersionWithExtraFields() {
+        W3CTraceParent expected = new W3CTraceParent("03", "12345678123456781234567812345678", "1234123412341234", 171);
+        W3CTraceParent result = W3CTraceParentParser.parseHeader("03-12345678123456781234567812345678-1234123412341234-aB-future");
+        assertEquals(expected, result);
+    }
+
+    @Test
+    public void testParseMissingFlags() {
+        assertNull(W3CTraceParentParser.parseHeader("00-12345678123456781234567812345678-1234123412341234-"));
+        assertNull(W3CTraceParentParser.parseHeader("00-12345678123456781234567812345678-1234123412341234--01"));
+    }
+
+    @Test
+    public void testCreateHeaderKeepsForwardedTraceId() {
+        Transaction transaction = Transaction.getTransaction(true);
+        SpanProxy spanProxy = transaction.getSpanProxy();
+        spanProxy.setInitiatingW3CTraceParent(new W3CTraceParent("00", "12345678123456781234567812345678", "1234123412341234", 1));
+        String traceParentHeader = W3CTraceParentHeader.create(spanProxy, "ignored", "4321432143214321", true);
+        assertEquals("00-12345678123456781234567812345678-4321432143214321-01", traceParentHeader);
+    }
 }
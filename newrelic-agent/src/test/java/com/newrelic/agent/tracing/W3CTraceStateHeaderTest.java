@@ -77,4 +77,20 @@ public class W3CTraceStateHeaderTest extends BaseDistributedTraceTest {
                         "broop", "traceId", "txnid", 0.0000000000000000001f, Sampled.SAMPLED_NO), "0");
         assertEquals("trustKey@nr=0-0-accountId-appId-broop-txnid-0-0.000000-1234", traceStateHeader);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testPriorityFormatting() {
+        assertPriority("0.5", 0.5f);
+        assertPriority("1.123457", 1.1234567f);
+        assertPriority("1.050000", 1.05f);
+        assertPriority("1.12300", 1.1203f);
+        assertPriority("0.000000", 0f);
+        assertPriority("1.000000", 1f);
+    }
+
+    private static void assertPriority(String expected, float priority) {
+        StringBuilder header = new StringBuilder();
+        W3CTraceStateHeader.appendPriority(header, priority);
+        assertEquals(expected, header.toString());
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ *
+ *  * Copyright 2020 New Relic Corporation. All rights reserved.
+ *  * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+
+package com.newrelic.agent.transport;
+
+import com.newrelic.agent.logging.IAgentLogger;
+import com.newrelic.agent.transport.apache.ApacheHttpClientWrapper;
+import com.newrelic.agent.transport.apache.ApacheProxyManager;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Sends requests to a local stub collector.
+ */
+public class ApacheHttpClientWrapperTest {
+
+    private static final String RESPONSE = "{\"return_value\":[]}";
+
+    private HttpServer collector;
+    private ExecutorService collectorExecutor;
+    private ExecutorService senders;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private volatile CountDownLatch requestsInFlight;
+
+    @Before
+    public void before() throws IOException {
+        collector = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        collectorExecutor = Executors.newCachedThreadPool();
+        collector.setExecutor(collectorExecutor);
+        collector.createContext("/agent_listener", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                handleRequest(exchange);
+            }
+        });
+        collector.start();
+        senders = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void after() {
+        senders.shutdownNow();
+        collector.stop(0);
+        collectorExecutor.shutdownNow();
+    }
+
+    @Test(timeout = 30000)
+    public void testRequestsShareOneConnection() throws Exception {
+        requestsInFlight = new CountDownLatch(0);
+        ApacheHttpClientWrapper target = createWrapper(1);
+
+        List<ReadResult> results = sendInParallel(target, 4);
+
+        for (ReadResult result : results) {
+            assertEquals(200, result.getStatusCode());
+            assertEquals(RESPONSE, result.getResponseBody());
+        }
+        assertEquals(1, maxInFlight.get());
+    }
+
+    @Test(timeout = 30000)
+    public void testRequestsUseParallelConnections() throws Exception {
+        // the collector doesn't respond until both requests have arrived
+        requestsInFlight = new CountDownLatch(2);
+        ApacheHttpClientWrapper target = createWrapper(2);
+
+        List<ReadResult> results = sendInParallel(target, 2);
+
+        for (ReadResult result : results) {
+            assertEquals(200, result.getStatusCode());
+            assertEquals(RESPONSE, result.getResponseBody());
+        }
+        assertEquals(2, maxInFlight.get());
+    }
+
+    private void handleRequest(HttpExchange exchange) throws IOException {
+        int current = inFlight.incrementAndGet();
+        try {
+            int max = maxInFlight.get();
+            while (current > max && !maxInFlight.compareAndSet(max, current)) {
+                max = maxInFlight.get();
+            }
+            try (InputStream in = exchange.getRequestBody()) {
+                while (in.read() != -1) {
+                }
+            }
+
+            CountDownLatch latch = requestsInFlight;
+            latch.countDown();
+            try {
+                latch.await(10, TimeUnit.SECONDS);
+                // give any other request the chance to arrive while this one is in flight
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            byte[] body = RESPONSE.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private ApacheHttpClientWrapper createWrapper(int maxConnections) {
+        ApacheProxyManager proxyManager = new ApacheProxyManager(null, null, null, null, null, mock(IAgentLogger.class));
+        return new ApacheHttpClientWrapper(proxyManager, null, 10000, maxConnections);
+    }
+
+    private List<ReadResult> sendInParallel(final ApacheHttpClientWrapper target, int requests) throws Exception {
+        final URL url = new URL("http", InetAddress.getLoopbackAddress().getHostAddress(),
+                collector.getAddress().getPort(), "/agent_listener/invoke_raw_method?method=metric_data");
+        List<Future<ReadResult>> futures = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            futures.add(senders.submit(new Callable<ReadResult>() {
+                @Override
+                public ReadResult call() throws Exception {
+                    return target.execute(new HttpClientWrapper.Request()
+                            .setURL(url)
+                            .setVerb(HttpClientWrapper.Verb.POST)
+                            .setEncoding("identity")
+                            .setData("[]".getBytes(StandardCharsets.UTF_8))
+                            .setRequestMetadata(Collections.<String, String>emptyMap()), null);
+                }
+            }));
+        }
+
+        List<ReadResult> results = new ArrayList<>();
+        for (Future<ReadResult> future : futures) {
+            results.add(future.get(20, TimeUnit.SECONDS));
+        }
+        return results;
+    }
+
+}
@@ -52,7 +52,7 @@ abstract class ConnectCycleSuccessBaseClientWrapper implements HttpClientWrapper
         Object postedData;
         try {
             Reader reader = new InputStreamReader(
-                    new GZIPInputStream(new ByteArrayInputStream(request.getData())),
+                    new GZIPInputStream(new ByteArrayInputStream(request.getData(), 0, request.getDataLength())),
                     StandardCharsets.UTF_8
             );
 
@@ -55,7 +55,14 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.newrelic.agent.MetricNames.SUPPORTABILITY_AGENT_ENDPOINT_HTTP_ERROR;
 import static org.junit.Assert.assertEquals;
@@ -542,6 +549,107 @@ public class DataSenderImplTest {
         assertMetricWasRecorded(SUPPORTABILITY_METRIC_SPAN_DATA);
     }
 
+    @Test(timeout = 30000)
+    public void testRequestsToOneEndpointAreSentOneAtATime() throws Exception {
+        AgentConfig config = AgentConfigImpl.createAgentConfig(configMap());
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        HttpClientWrapper wrapper = new HttpClientWrapper() {
+            @Override
+            public ReadResult execute(Request request, ExecuteEventHandler eventHandler) throws Exception {
+                int current = inFlight.incrementAndGet();
+                try {
+                    int max = maxInFlight.get();
+                    while (current > max && !maxInFlight.compareAndSet(max, current)) {
+                        max = maxInFlight.get();
+                    }
+                    Thread.sleep(20);
+                    return ReadResult.create(HttpResponseCode.OK, "{\"return_value\":[]}", null);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }
+
+            @Override
+            public void captureSupportabilityMetrics(StatsService statsService, String requestHost) {
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        };
+
+        final DataSenderImpl target = new DataSenderImpl(config, wrapper, null, logger, ServiceFactory.getConfigService());
+        target.setAgentRunId("agent run id");
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(new Callable<Object>() {
+                    @Override
+                    public Object call() throws Exception {
+                        return target.sendMetricData(System.currentTimeMillis() - 5000, System.currentTimeMillis(), createMetricData(5));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(20, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, maxInFlight.get());
+    }
+
+    @Test(timeout = 30000)
+    public void testRequestsToDifferentEndpointsAreSentInParallel() throws Exception {
+        AgentConfig config = AgentConfigImpl.createAgentConfig(configMap());
+        final CountDownLatch requestsInFlight = new CountDownLatch(2);
+        HttpClientWrapper wrapper = new HttpClientWrapper() {
+            @Override
+            public ReadResult execute(Request request, ExecuteEventHandler eventHandler) throws Exception {
+                requestsInFlight.countDown();
+                if (!requestsInFlight.await(10, TimeUnit.SECONDS)) {
+                    throw new Exception("The other request was not sent while this one was in flight");
+                }
+                return ReadResult.create(HttpResponseCode.OK, "{\"return_value\":[]}", null);
+            }
+
+            @Override
+            public void captureSupportabilityMetrics(StatsService statsService, String requestHost) {
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        };
+
+        final DataSenderImpl target = new DataSenderImpl(config, wrapper, null, logger, ServiceFactory.getConfigService());
+        target.setAgentRunId("agent run id");
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> metricData = executor.submit(new Callable<Object>() {
+                @Override
+                public Object call() throws Exception {
+                    return target.sendMetricData(System.currentTimeMillis() - 5000, System.currentTimeMillis(), createMetricData(5));
+                }
+            });
+            Future<?> agentCommands = executor.submit(new Callable<Object>() {
+                @Override
+                public Object call() throws Exception {
+                    return target.getAgentCommands();
+                }
+            });
+            metricData.get(20, TimeUnit.SECONDS);
+            agentCommands.get(20, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     private HttpClientWrapper getProxyAuthenticateFailingWrapper(String proxyAuthenticateHeader) {
         return getHttpClientWrapper(ReadResult.create(
                 HttpResponseCode.PROXY_AUTHENTICATION_REQUIRED,
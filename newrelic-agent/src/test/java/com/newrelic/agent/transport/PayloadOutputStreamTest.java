@@ -0,0 +1,105 @@
+/*
+ *
+ *  * Copyright 2020 New Relic Corporation. All rights reserved.
+ *  * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+
+package com.newrelic.agent.transport;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+public class PayloadOutputStreamTest {
+
+    private static final String PAYLOAD = createPayload();
+
+    @Test
+    public void gzipRoundTripWithReusedDeflater() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            PayloadOutputStream payload = PayloadOutputStream.acquire(Integer.MAX_VALUE);
+            try {
+                write(payload.gzipping(Deflater.DEFAULT_COMPRESSION));
+                InputStream in = new GZIPInputStream(new ByteArrayInputStream(payload.getBuffer(), 0, payload.size()));
+                Assert.assertEquals(PAYLOAD, read(in));
+            } finally {
+                payload.release();
+            }
+        }
+    }
+
+    @Test
+    public void deflateRoundTripWithReusedDeflater() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            PayloadOutputStream payload = PayloadOutputStream.acquire(Integer.MAX_VALUE);
+            try {
+                write(payload.deflating(Deflater.DEFAULT_COMPRESSION));
+                InputStream in = new InflaterInputStream(new ByteArrayInputStream(payload.getBuffer(), 0, payload.size()));
+                Assert.assertEquals(PAYLOAD, read(in));
+            } finally {
+                payload.release();
+            }
+        }
+    }
+
+    @Test
+    public void countUncompressedBytes() throws Exception {
+        PayloadOutputStream payload = PayloadOutputStream.acquire(Integer.MAX_VALUE);
+        try {
+            PayloadOutputStream.CountingOutputStream counter = new PayloadOutputStream.CountingOutputStream(
+                    payload.gzipping(Deflater.DEFAULT_COMPRESSION));
+            write(counter);
+            Assert.assertEquals(PAYLOAD.getBytes(StandardCharsets.UTF_8).length, counter.getCount());
+            Assert.assertTrue(payload.size() < counter.getCount());
+        } finally {
+            payload.release();
+        }
+    }
+
+    @Test(expected = PayloadOutputStream.LimitExceededException.class)
+    public void abortWhenLimitExceeded() throws Exception {
+        PayloadOutputStream payload = PayloadOutputStream.acquire(100);
+        try {
+            write(payload);
+        } finally {
+            payload.release();
+        }
+    }
+
+    private static void write(OutputStream out) throws IOException {
+        try (Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            writer.write(PAYLOAD);
+        }
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static String createPayload() {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < 20000; i++) {
+            builder.append("[\"Custom/metric/").append(i).append("\",[1,1.0,1.0,1.0,1.0,1.0]],");
+        }
+        return builder.append("[]]").toString();
+    }
+
+}
@@ -0,0 +1,182 @@
+/*
+ *
+ *  * Copyright 2020 New Relic Corporation. All rights reserved.
+ *  * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+
+package com.newrelic.agent.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class TimingWheelTest {
+
+    private static final long TICK_MILLIS = 10;
+
+    /**
+     * The tests advance the wheel by hand, so the ticker thread must never run.
+     */
+    private static final ThreadFactory NO_TICKER = new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            return new Thread();
+        }
+    };
+
+    private static final Executor INLINE = Runnable::run;
+
+    private static final Runnable NOOP = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+
+    @Test
+    public void expiresAfterDelay() {
+        TimingWheel wheel = new TimingWheel(TICK_MILLIS, TimeUnit.MILLISECONDS, NO_TICKER, INLINE);
+        long start = System.nanoTime();
+        TimingWheel.Timeout timeout = wheel.schedule(NOOP, 250, TimeUnit.MILLISECONDS);
+
+        Assert.assertNull(wheel.advance(start + TimeUnit.MILLISECONDS.toNanos(240)));
+        Assert.assertFalse(timeout.isExpired());
+        assertExpired(wheel.advance(start + TimeUnit.MILLISECONDS.toNanos(250 + 2 * TICK_MILLIS)), timeout);
+    }
+
+    @Test
+    public void refreshPostponesExpiration() throws InterruptedException {
+        TimingWheel wheel = new TimingWheel(TICK_MILLIS, TimeUnit.MILLISECONDS, NO_TICKER, INLINE);
+        TimingWheel.Timeout timeout = wheel.schedule(NOOP, 250, TimeUnit.MILLISECONDS);
+
+        Thread.sleep(50);
+        long refreshed = System.nanoTime();
+        timeout.refresh();
+
+        Assert.assertNull(wheel.advance(refreshed + TimeUnit.MILLISECONDS.toNanos(240)));
+        Assert.assertFalse(timeout.isExpired());
+        assertExpired(wheel.advance(refreshed + TimeUnit.MILLISECONDS.toNanos(250 + 2 * TICK_MILLIS)), timeout);
+    }
+
+    @Test
+    public void cancelledTimeoutDoesNotExpire() {
+        TimingWheel wheel = new TimingWheel(TICK_MILLIS, TimeUnit.MILLISECONDS, NO_TICKER, INLINE);
+        long start = System.nanoTime();
+        TimingWheel.Timeout cancelled = wheel.schedule(NOOP, 250, TimeUnit.MILLISECONDS);
+        TimingWheel.Timeout other = wheel.schedule(NOOP, 250, TimeUnit.MILLISECONDS);
+
+        Assert.assertTrue(cancelled.cancel());
+        Assert.assertFalse(cancelled.cancel());
+        assertExpired(wheel.advance(start + TimeUnit.SECONDS.toNanos(1)), other);
+        Assert.assertFalse(cancelled.isExpired());
+        Assert.assertFalse(other.cancel());
+    }
+
+    @Test
+    public void longDelaysCascadeThroughLevels() {
+        TimingWheel wheel = new TimingWheel(TICK_MILLIS, TimeUnit.MILLISECONDS, NO_TICKER, INLINE);
+        long start = System.nanoTime();
+        long[] delays = { 1, 700, 50_000, 3_000_000, TimeUnit.HOURS.toMillis(60) };
+        List<TimingWheel.Timeout> timeouts = new ArrayList<>();
+        for (long delay : delays) {
+            timeouts.add(wheel.schedule(NOOP, delay, TimeUnit.MILLISECONDS));
+        }
+
+        for (int i = 0; i < delays.length; i++) {
+            Assert.assertNull(wheel.advance(start + TimeUnit.MILLISECONDS.toNanos(delays[i] - TICK_MILLIS)));
+            assertExpired(wheel.advance(start + TimeUnit.MILLISECONDS.toNanos(delays[i] + 2 * TICK_MILLIS)),
+                    timeouts.get(i));
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void tickerRunsExpiredTasks() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(100);
+        TimingWheel wheel = new TimingWheel(TICK_MILLIS, TimeUnit.MILLISECONDS, Executors.defaultThreadFactory(),
+                Executors.newFixedThreadPool(2));
+        try {
+            for (int i = 0; i < 100; i++) {
+                wheel.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        latch.countDown();
+                    }
+                }, i, TimeUnit.MILLISECONDS);
+            }
+            latch.await();
+        } finally {
+            wheel.stop();
+        }
+    }
+
+    @Test
+    public void pendingCountsScheduledTimeouts() {
+        TimingWheel wheel = new TimingWheel(TICK_MILLIS, TimeUnit.MILLISECONDS, NO_TICKER, INLINE);
+        long start = System.nanoTime();
+        TimingWheel.Timeout cancelled = wheel.schedule(NOOP, 250, TimeUnit.MILLISECONDS);
+        wheel.schedule(NOOP, 250, TimeUnit.MILLISECONDS);
+        Assert.assertEquals(2, wheel.pendingCount());
+
+        cancelled.cancel();
+        Assert.assertEquals(1, wheel.pendingCount());
+        Assert.assertNotNull(wheel.advance(start + TimeUnit.SECONDS.toNanos(1)));
+        Assert.assertEquals(0, wheel.pendingCount());
+    }
+
+    @Test(timeout = 10000)
+    public void tickerWaitsWhileNothingIsPending() throws InterruptedException {
+        final AtomicReference<Thread> ticker = new AtomicReference<>();
+        ThreadFactory threadFactory = new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r);
+                thread.setDaemon(true);
+                ticker.set(thread);
+                return thread;
+            }
+        };
+        TimingWheel wheel = new TimingWheel(TICK_MILLIS, TimeUnit.MILLISECONDS, threadFactory, INLINE);
+        try {
+            final CountDownLatch first = new CountDownLatch(1);
+            wheel.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    first.countDown();
+                }
+            }, 1, TimeUnit.MILLISECONDS);
+            first.await();
+
+            // an empty wheel doesn't tick, the ticker waits until the next timeout is scheduled
+            while (ticker.get().getState() != Thread.State.WAITING) {
+                Thread.sleep(TICK_MILLIS);
+            }
+
+            final CountDownLatch second = new CountDownLatch(1);
+            wheel.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    second.countDown();
+                }
+            }, 1, TimeUnit.MILLISECONDS);
+            second.await();
+        } finally {
+            wheel.stop();
+        }
+    }
+
+    private static void assertExpired(List<TimingWheel.Timeout> expired, TimingWheel.Timeout timeout) {
+        Assert.assertNotNull(expired);
+        Assert.assertEquals(1, expired.size());
+        Assert.assertSame(timeout, expired.get(0));
+        Assert.assertTrue(timeout.isExpired());
+    }
+
+}
@@ -154,6 +154,17 @@ public class CachedWeavePackage extends WeavePackage {
         return new HashSet<>(classRequiredAnnotations);
     }
 
+    @Override
+    public Set<String> getMatchClassNames() {
+        return new HashSet<>(weaveClasses);
+    }
+
+    @Override
+    public Set<String> getRequiredInterfaceAnnotationClasses() {
+        // the manifest doesn't say which of the class annotations are interface annotations
+        return classRequiredAnnotations == null ? Collections.<String>emptySet() : new HashSet<>(classRequiredAnnotations);
+    }
+
     @Override
     public Set<String> getAllRequiredMethodAnnotationClasses() {
         return new HashSet<>(methodRequiredAnnotations);
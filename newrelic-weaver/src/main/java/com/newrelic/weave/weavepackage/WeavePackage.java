@@ -459,6 +459,22 @@ public class WeavePackage {
         return allMethodAnnotationWeaves.keySet();
     }
 
+    /**
+     * Names of the classes this package weaves, which a class must be named after, extend or implement to match.
+     */
+    public Set<String> getMatchClassNames() {
+        Set<String> matchClassNames = new HashSet<>(exactWeaves.keySet());
+        matchClassNames.addAll(baseWeaves.keySet());
+        return matchClassNames;
+    }
+
+    /**
+     * The annotations that match a class when they are present on one of the interfaces it implements.
+     */
+    public Set<String> getRequiredInterfaceAnnotationClasses() {
+        return baseAnnotationWeaves.keySet();
+    }
+
     // package private for testing
     Map<String,ClassNode> getAllClassAnnotationWeaves() {
         return allClassAnnotationWeaves;
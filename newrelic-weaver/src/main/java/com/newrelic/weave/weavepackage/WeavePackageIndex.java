@@ -0,0 +1,131 @@
+/*
+ *
+ *  * Copyright 2020 New Relic Corporation. All rights reserved.
+ *  * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+
+package com.newrelic.weave.weavepackage;
+
+import com.google.common.collect.Sets;
+import com.newrelic.weave.utils.ClassCache;
+import com.newrelic.weave.utils.ClassInformation;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An inverted index from the names a {@link WeavePackage} can match on to the packages, so that a class is only checked
+ * against the packages that could match it instead of against every registered package.
+ *
+ * The index is conservative: every package whose {@link WeavePackage#hasMatcher} returns true for a class is among the
+ * candidates for that class, but candidates still have to be checked with {@link WeavePackage#hasMatcher}.
+ *
+ * This class is thread safe.
+ */
+class WeavePackageIndex {
+
+    private final ConcurrentMap<String, Set<WeavePackage>> byClassName = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<WeavePackage>> byClassAnnotation = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<WeavePackage>> byInterfaceAnnotation = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<WeavePackage>> byMethodAnnotation = new ConcurrentHashMap<>();
+
+    void add(WeavePackage weavePackage) {
+        add(byClassName, weavePackage.getMatchClassNames(), weavePackage);
+        add(byClassAnnotation, weavePackage.getAllRequiredAnnotationClasses(), weavePackage);
+        add(byInterfaceAnnotation, weavePackage.getRequiredInterfaceAnnotationClasses(), weavePackage);
+        add(byMethodAnnotation, weavePackage.getAllRequiredMethodAnnotationClasses(), weavePackage);
+    }
+
+    void remove(WeavePackage weavePackage) {
+        remove(byClassName, weavePackage);
+        remove(byClassAnnotation, weavePackage);
+        remove(byInterfaceAnnotation, weavePackage);
+        remove(byMethodAnnotation, weavePackage);
+    }
+
+    /**
+     * Find the packages that could match the specified class.
+     *
+     * @param className name of the class
+     * @param superNames all super class names of the class
+     * @param interfaceNames all interface names of the class
+     * @param classAnnotations annotations on the class
+     * @param methodAnnotations annotations on methods of the class
+     * @param classCache {@link ClassCache} used to resolve the annotations of the interfaces
+     * @return candidate packages
+     */
+    Set<WeavePackage> getCandidates(String className, String[] superNames, String[] interfaceNames,
+            Set<String> classAnnotations, Set<String> methodAnnotations, ClassCache classCache) throws IOException {
+        Set<WeavePackage> candidates = null;
+        candidates = collect(byClassName, className, candidates);
+        for (String superName : superNames) {
+            candidates = collect(byClassName, superName, candidates);
+        }
+        for (String interfaceName : interfaceNames) {
+            candidates = collect(byClassName, interfaceName, candidates);
+        }
+        if (!byClassAnnotation.isEmpty()) {
+            for (String classAnnotation : classAnnotations) {
+                candidates = collect(byClassAnnotation, classAnnotation, candidates);
+            }
+        }
+        if (!byMethodAnnotation.isEmpty()) {
+            for (String methodAnnotation : methodAnnotations) {
+                candidates = collect(byMethodAnnotation, methodAnnotation, candidates);
+            }
+        }
+        if (!byInterfaceAnnotation.isEmpty()) {
+            for (String interfaceName : interfaceNames) {
+                ClassInformation classInformation = classCache.getClassInformation(interfaceName);
+                if (classInformation != null) {
+                    for (String interfaceAnnotation : classInformation.classAnnotationNames) {
+                        candidates = collect(byInterfaceAnnotation, interfaceAnnotation, candidates);
+                    }
+                }
+            }
+        }
+        return candidates == null ? Collections.<WeavePackage>emptySet() : candidates;
+    }
+
+    private static Set<WeavePackage> collect(ConcurrentMap<String, Set<WeavePackage>> index, String key,
+            Set<WeavePackage> candidates) {
+        Set<WeavePackage> packages = index.get(key);
+        if (packages == null || packages.isEmpty()) {
+            return candidates;
+        }
+        if (candidates == null) {
+            candidates = new HashSet<>();
+        }
+        candidates.addAll(packages);
+        return candidates;
+    }
+
+    private static void add(ConcurrentMap<String, Set<WeavePackage>> index, Collection<String> keys,
+            WeavePackage weavePackage) {
+        for (String key : keys) {
+            Set<WeavePackage> packages = index.get(key);
+            if (packages == null) {
+                Set<WeavePackage> newPackages = Sets.newConcurrentHashSet();
+                packages = index.putIfAbsent(key, newPackages);
+                if (packages == null) {
+                    packages = newPackages;
+                }
+            }
+            packages.add(weavePackage);
+        }
+    }
+
+    private static void remove(ConcurrentMap<String, Set<WeavePackage>> index, WeavePackage weavePackage) {
+        // deregistering is rare, so don't rely on the package reporting the same keys it was added with
+        for (Set<WeavePackage> packages : index.values()) {
+            packages.remove(weavePackage);
+        }
+    }
+
+}
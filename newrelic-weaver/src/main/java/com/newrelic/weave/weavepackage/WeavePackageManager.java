@@ -44,6 +44,11 @@ public class WeavePackageManager {
      */
     private final ConcurrentMap<String, WeavePackage> weavePackages = new ConcurrentHashMap<>();
 
+    /**
+     * Index of the registered packages by the names they can match on.
+     */
+    private final WeavePackageIndex weavePackageIndex = new WeavePackageIndex();
+
     /**
      * The set of @Weave and reference classes in all registered weave packages (used as an optimization)
      */
@@ -71,6 +76,7 @@ public class WeavePackageManager {
     private final int maxPreValidatedClassLoaders;
     private final boolean preValidateWeavePackages;
     private final boolean preMatchWeaveMethods;
+    private final WeaveValidationCache validationCache;
 
     /**
      * Stores the a PackageValidationResult for the current thread. This exists to work around an issue where a `defineClass()` call
@@ -117,11 +123,26 @@ public class WeavePackageManager {
      */
     public WeavePackageManager(WeavePackageLifetimeListener listener, Instrumentation instrumentation,
             int maxPreValidatedClassLoaders, boolean preValidateWeavePackages, boolean preMatchWeaveMethods) {
+        this(listener, instrumentation, maxPreValidatedClassLoaders, preValidateWeavePackages, preMatchWeaveMethods, null);
+    }
+
+    /**
+     * Create a manager with the specified listener and {@link Instrumentation} instance that remembers failed
+     * validations across restarts.
+     *
+     * @param listener callback interface that's invoked when packages are registered, deregistered, or validated
+     * @param instrumentation {@link Instrumentation} instance
+     * @param validationCache persistent cache of failed validations, or <code>null</code> to always validate
+     */
+    public WeavePackageManager(WeavePackageLifetimeListener listener, Instrumentation instrumentation,
+            int maxPreValidatedClassLoaders, boolean preValidateWeavePackages, boolean preMatchWeaveMethods,
+            WeaveValidationCache validationCache) {
         this.packageListener = listener;
         this.instrumentation = instrumentation;
         this.maxPreValidatedClassLoaders = maxPreValidatedClassLoaders;
         this.preValidateWeavePackages = preValidateWeavePackages;
         this.preMatchWeaveMethods = preMatchWeaveMethods;
+        this.validationCache = validationCache;
     }
 
     /**
@@ -151,6 +172,7 @@ public class WeavePackageManager {
     public void register(WeavePackage weavePackage) {
         if (null != weavePackage && (!weavePackages.containsKey(weavePackage.getName())) && (weavePackages.putIfAbsent(
                 weavePackage.getName(), weavePackage) == null)) {
+            weavePackageIndex.add(weavePackage);
             methodSignatures.addAll(weavePackage.getMethodSignatures());
             requiredClasses.addAll(weavePackage.getRequiredClasses());
             requiredAnnotationClasses.addAll(weavePackage.getAllRequiredAnnotationClasses());
@@ -177,6 +199,7 @@ public class WeavePackageManager {
         }
         WeavePackage remove = weavePackages.remove(weavePackage.getName());
         if (null != remove) {
+            weavePackageIndex.remove(remove);
             optimizedWeavePackages.invalidateAll();
             requiredClasses.removeAll(remove.getRequiredClasses());
             // Rebuild method signatures from weavePackages map
@@ -274,7 +297,13 @@ public class WeavePackageManager {
             classloaderWeavePackages = weavePackages;
         }
 
-        for (WeavePackage weavePackage : classloaderWeavePackages.values()) {
+        Set<WeavePackage> candidates = weavePackageIndex.getCandidates(className, superNames, interfaceNames,
+                classAnnotations, methodAnnotations, cache);
+        for (WeavePackage weavePackage : candidates) {
+            if (classloaderWeavePackages.get(weavePackage.getName()) != weavePackage) {
+                // not registered anymore, or can't match classes of this classloader
+                continue;
+            }
             if (weavePackage.hasMatcher(className, superNames, interfaceNames, classAnnotations, methodAnnotations, cache)) {
                 PackageValidationResult successfulValidation = this.getSuccessfulValidation(className, superNames[0], interfaceNames, classloader, cache,
                         weavePackage);
@@ -504,6 +533,11 @@ public class WeavePackageManager {
         try {
             // this is the first time we've validated this package against this classloader.
             if (!hasValidated(classloader, weavePackage)) {
+                // failed on a previous start against the same classloader contents, no need to load the package again
+                if (validationCache != null && validationCache.isKnownInvalid(classloader, weavePackage)) {
+                    return false;
+                }
+
                 PackageValidationResult verificationResult = weavePackage.validate(cache);
                 currentValidationResult.set(verificationResult);
 
@@ -512,6 +546,9 @@ public class WeavePackageManager {
                 }
                 if ((classloader == BootstrapLoader.PLACEHOLDER && !this.canWeaveBootstrapClassLoader())
                         || (!verificationResult.succeeded())) {
+                    if (validationCache != null && !verificationResult.succeeded()) {
+                        validationCache.recordInvalid(classloader, weavePackage);
+                    }
                     ConcurrentMap<WeavePackage, PackageValidationResult> result = invalidPackages.asMap().putIfAbsent(
                             classloader, new ConcurrentHashMap<WeavePackage, PackageValidationResult>());
                     if (result == null) {
@@ -0,0 +1,393 @@
+/*
+ *
+ *  * Copyright 2020 New Relic Corporation. All rights reserved.
+ *  * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+
+package com.newrelic.weave.weavepackage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.collect.Sets;
+import com.newrelic.weave.utils.BootstrapLoader;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remembers, across JVM restarts, which weave packages failed to validate against which classloaders so that the
+ * packages don't have to be loaded and validated again on the next start.
+ *
+ * Outcomes are stored in a directory per namespace (the agent version), in one file per classloader. Directories of
+ * other namespaces are deleted when the cache is opened. A classloader is identified by the JDK, the jar files appended
+ * to the bootstrap and system class path, and the jar files of it and all of its parents, including their sizes and
+ * modification times. A weave package is identified by its name, version and source jar. Changing any of these looks
+ * up a different entry, so stale outcomes are never used. Classloaders that load from directories or from anything
+ * other than local jars can't be identified this way and are not cached, and neither are the bootstrap and platform
+ * classloaders.
+ *
+ * Only failed validations are stored. A successful validation has to run on every start anyway because it generates
+ * the utility classes that are appended to the classloader.
+ *
+ * This class is thread safe.
+ */
+public class WeaveValidationCache {
+
+    private static final String FILE_HEADER = "# weave validation cache v1";
+    private static final String FILE_SUFFIX = ".invalid";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String NOT_CACHEABLE = "";
+    private static final String MANIFEST = "META-INF/MANIFEST.MF";
+
+    private final Path directory;
+
+    /**
+     * classloader -> fingerprint of the classloader, or {@link #NOT_CACHEABLE}
+     */
+    private final Cache<ClassLoader, String> fingerprints = Caffeine.newBuilder().weakKeys().executor(Runnable::run).build();
+
+    /**
+     * fingerprint -> keys of the weave packages that failed to validate
+     */
+    private final ConcurrentMap<String, Set<String>> invalidPackages = new ConcurrentHashMap<>();
+
+    /**
+     * weave package -> key of the weave package, or {@link #NOT_CACHEABLE}
+     */
+    private final ConcurrentMap<WeavePackage, String> packageKeys = new ConcurrentHashMap<>();
+
+    /**
+     * @param directory root directory of the cache, created if it doesn't exist
+     * @param namespace identifies the weaver that produced the outcomes, e.g. the agent version
+     */
+    public WeaveValidationCache(File directory, String namespace) {
+        this.directory = directory.toPath().resolve(sanitize(namespace));
+        prune(directory.toPath(), this.directory);
+    }
+
+    /**
+     * Deletes the directories that other namespaces left in the root directory. Only directories that hold nothing but
+     * cache files are touched, in case the root directory is shared with something else.
+     */
+    private static void prune(Path root, Path current) {
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        try (DirectoryStream<Path> namespaces = Files.newDirectoryStream(root)) {
+            for (Path namespace : namespaces) {
+                if (!namespace.equals(current) && Files.isDirectory(namespace) && isCacheDirectory(namespace)) {
+                    try (DirectoryStream<Path> files = Files.newDirectoryStream(namespace)) {
+                        for (Path file : files) {
+                            Files.deleteIfExists(file);
+                        }
+                    }
+                    Files.deleteIfExists(namespace);
+                }
+            }
+        } catch (IOException ignored) {
+            // a directory left behind only wastes space
+        }
+    }
+
+    private static boolean isCacheDirectory(Path namespace) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(namespace)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (!Files.isRegularFile(file) || !(name.endsWith(FILE_SUFFIX) || name.endsWith(TEMP_SUFFIX))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether the weave package is known to have failed validation against the classloader on a previous start.
+     */
+    boolean isKnownInvalid(ClassLoader classloader, WeavePackage weavePackage) {
+        String packageKey = getPackageKey(weavePackage);
+        if (packageKey.isEmpty()) {
+            return false;
+        }
+        String fingerprint = getFingerprint(classloader);
+        if (fingerprint.isEmpty()) {
+            return false;
+        }
+        return getInvalidPackages(fingerprint).contains(packageKey);
+    }
+
+    /**
+     * Record that the weave package failed validation against the classloader.
+     */
+    void recordInvalid(ClassLoader classloader, WeavePackage weavePackage) {
+        String packageKey = getPackageKey(weavePackage);
+        if (packageKey.isEmpty()) {
+            return;
+        }
+        String fingerprint = getFingerprint(classloader);
+        if (fingerprint.isEmpty()) {
+            return;
+        }
+        Set<String> packages = getInvalidPackages(fingerprint);
+        if (packages.add(packageKey)) {
+            write(fingerprint, packages);
+        }
+    }
+
+    private Set<String> getInvalidPackages(String fingerprint) {
+        Set<String> packages = invalidPackages.get(fingerprint);
+        if (packages == null) {
+            Set<String> newPackages = read(fingerprint);
+            packages = invalidPackages.putIfAbsent(fingerprint, newPackages);
+            if (packages == null) {
+                packages = newPackages;
+            }
+        }
+        return packages;
+    }
+
+    private Set<String> read(String fingerprint) {
+        Set<String> packages = Sets.newConcurrentHashSet();
+        Path file = directory.resolve(fingerprint + FILE_SUFFIX);
+        if (Files.isRegularFile(file)) {
+            try {
+                List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+                // a file from another format version is ignored and overwritten on the next write
+                if (!lines.isEmpty() && FILE_HEADER.equals(lines.get(0))) {
+                    packages.addAll(lines.subList(1, lines.size()));
+                }
+            } catch (IOException ignored) {
+            }
+        }
+        return packages;
+    }
+
+    private void write(String fingerprint, Set<String> packages) {
+        // rewrite the whole file and move it into place so that a concurrent reader never sees a partial file
+        synchronized (packages) {
+            List<String> lines = new ArrayList<>(packages.size() + 1);
+            lines.add(FILE_HEADER);
+            lines.addAll(packages);
+            try {
+                Files.createDirectories(directory);
+                Path temp = Files.createTempFile(directory, fingerprint, TEMP_SUFFIX);
+                try {
+                    Files.write(temp, lines, StandardCharsets.UTF_8);
+                    Path file = directory.resolve(fingerprint + FILE_SUFFIX);
+                    try {
+                        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (AtomicMoveNotSupportedException e) {
+                        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+            } catch (IOException ignored) {
+                // the cache is an optimization only, the package will be validated again on the next start
+            }
+        }
+    }
+
+    private String getPackageKey(WeavePackage weavePackage) {
+        String packageKey = packageKeys.get(weavePackage);
+        if (packageKey == null) {
+            WeavePackageConfig config = weavePackage.getConfig();
+            String source = describe(config.getSource());
+            packageKey = source == null ? NOT_CACHEABLE : config.getName() + '|' + config.getVersion() + '|' + source.trim();
+            packageKeys.put(weavePackage, packageKey);
+        }
+        return packageKey;
+    }
+
+    private String getFingerprint(ClassLoader classloader) {
+        String fingerprint = fingerprints.getIfPresent(classloader);
+        if (fingerprint == null) {
+            String description = describe(classloader);
+            fingerprint = description == null ? NOT_CACHEABLE : sha256(description);
+            fingerprints.put(classloader, fingerprint);
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Describes everything a validation against the classloader can see, or returns <code>null</code> if that can't be
+     * done reliably.
+     */
+    static String describe(ClassLoader classloader) {
+        ClassLoader systemClassLoader = ClassLoader.getSystemClassLoader();
+        ClassLoader platformClassLoader = systemClassLoader == null ? null : systemClassLoader.getParent();
+        // jars can be appended to these at any time, and the weaver itself appends its utility classes to the bootstrap
+        if (classloader == null || classloader == BootstrapLoader.PLACEHOLDER || classloader == platformClassLoader) {
+            return null;
+        }
+
+        StringBuilder description = new StringBuilder();
+        description.append(System.getProperty("java.home")).append('|')
+                .append(System.getProperty("java.version")).append('|')
+                .append(System.getProperty("sun.boot.class.path")).append('|')
+                .append(System.getProperty("java.ext.dirs")).append('\n');
+        // -Xbootclasspath/a on Java 9+
+        String bootClassPathAppend = System.getProperty("jdk.boot.class.path.append", "");
+        for (String entry : bootClassPathAppend.split(File.pathSeparator)) {
+            if (!entry.isEmpty() && !describeFile(new File(entry), description)) {
+                return null;
+            }
+        }
+        String appendedJars = AppendedJars.DESCRIPTION;
+        if (appendedJars == null) {
+            return null;
+        }
+        description.append(appendedJars);
+
+        for (ClassLoader loader = classloader; loader != null && loader != BootstrapLoader.PLACEHOLDER
+                && loader != platformClassLoader; loader = loader.getParent()) {
+            description.append(loader.getClass().getName()).append('\n');
+            if (loader == systemClassLoader) {
+                String classPath = System.getProperty("java.class.path", "");
+                for (String entry : classPath.split(File.pathSeparator)) {
+                    if (!entry.isEmpty() && !describeFile(new File(entry), description)) {
+                        return null;
+                    }
+                }
+            } else if (loader instanceof URLClassLoader) {
+                for (URL url : ((URLClassLoader) loader).getURLs()) {
+                    String source = describe(url.toString());
+                    if (source == null) {
+                        return null;
+                    }
+                    description.append(source);
+                }
+            } else {
+                return null;
+            }
+        }
+        return description.toString();
+    }
+
+    /**
+     * Describes the jars that the system classloader and its parents search, which includes the jars appended through
+     * {@link java.lang.instrument.Instrumentation#appendToBootstrapClassLoaderSearch} and
+     * {@link java.lang.instrument.Instrumentation#appendToSystemClassLoaderSearch}. Neither shows up in a system
+     * property on Java 9+, so the jars are found through their manifests. Jars in the agent's temp directory are skipped
+     * because the agent writes its own jars there under a new name on every start.
+     *
+     * @return the description, or <code>null</code> if one of the jars can't be described
+     */
+    private static String describeAppendedJars(ClassLoader systemClassLoader) {
+        StringBuilder description = new StringBuilder();
+        if (systemClassLoader == null) {
+            return description.toString();
+        }
+        String tempDir = getTempDir().getAbsolutePath() + File.separator;
+        try {
+            Enumeration<URL> manifests = systemClassLoader.getResources(MANIFEST);
+            while (manifests.hasMoreElements()) {
+                String url = manifests.nextElement().toString();
+                if (url.startsWith("jrt:")) {
+                    // part of the JDK
+                    continue;
+                }
+                String source = describe(url);
+                if (source == null) {
+                    return null;
+                }
+                if (!source.startsWith(tempDir)) {
+                    description.append(source);
+                }
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        return description.toString();
+    }
+
+    /**
+     * The appended jars are set up when the JVM and the agent start and don't change afterwards, so they are scanned
+     * once, on first use, instead of for every classloader.
+     */
+    private static final class AppendedJars {
+        static final String DESCRIPTION = describeAppendedJars(ClassLoader.getSystemClassLoader());
+    }
+
+    private static File getTempDir() {
+        String tempDir = System.getProperty("newrelic.tempdir");
+        if (tempDir != null && new File(tempDir).exists()) {
+            return new File(tempDir);
+        }
+        return new File(System.getProperty("java.io.tmpdir"));
+    }
+
+    /**
+     * Describes the jar file the url points into, or returns <code>null</code> if it isn't a local jar file.
+     */
+    static String describe(String url) {
+        if (url == null) {
+            return null;
+        }
+        // jar:file:/app.jar!/BOOT-INF/lib/lib.jar!/ changes whenever the outermost jar does
+        if (url.startsWith("jar:")) {
+            int separator = url.indexOf("!/");
+            url = separator == -1 ? url.substring(4) : url.substring(4, separator);
+        }
+        if (!url.startsWith("file:")) {
+            return null;
+        }
+        File file;
+        try {
+            file = new File(new URL(url).toURI());
+        } catch (Exception e) {
+            return null;
+        }
+        StringBuilder description = new StringBuilder();
+        return describeFile(file, description) ? description.toString() : null;
+    }
+
+    private static boolean describeFile(File file, StringBuilder description) {
+        if (file.isFile()) {
+            description.append(file.getAbsolutePath()).append('|')
+                    .append(file.length()).append('|')
+                    .append(file.lastModified()).append('\n');
+            return true;
+        } else if (!file.exists()) {
+            description.append(file.getAbsolutePath()).append("|missing\n");
+            return true;
+        }
+        // the modification time of a directory doesn't change when a class inside it does
+        return false;
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return NOT_CACHEABLE;
+        }
+    }
+
+    private static String sanitize(String namespace) {
+        return namespace == null ? "unknown" : namespace.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+}
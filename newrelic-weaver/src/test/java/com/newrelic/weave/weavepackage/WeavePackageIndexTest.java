@@ -0,0 +1,80 @@
+/*
+ *
+ *  * Copyright 2020 New Relic Corporation. All rights reserved.
+ *  * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+
+package com.newrelic.weave.weavepackage;
+
+import com.google.common.collect.ImmutableSet;
+import com.newrelic.weave.WeaveTestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+public class WeavePackageIndexTest {
+
+    private static final String[] NONE = new String[0];
+    private static final Set<String> NO_ANNOTATIONS = Collections.emptySet();
+
+    @Test
+    public void testClassNameCandidates() throws IOException {
+        List<byte[]> weaveBytes = new ArrayList<>();
+        weaveBytes.add(WeaveTestUtils.getClassBytes("com.newrelic.weave.weavepackage.testclasses.MyWeaveExact"));
+        weaveBytes.add(WeaveTestUtils.getClassBytes("com.newrelic.weave.weavepackage.testclasses.MyWeaveBase"));
+        weaveBytes.add(WeaveTestUtils.getClassBytes("com.newrelic.weave.weavepackage.testclasses.MyWeaveInterface"));
+        WeavePackage weavePackage = new WeavePackage(WeavePackageConfig.builder().name("weave_index").source(
+                "com.newrelic.weave.weavepackage.testclasses").build(), weaveBytes);
+        Assert.assertEquals(3, weavePackage.getMatchClassNames().size());
+
+        WeavePackageIndex index = new WeavePackageIndex();
+        index.add(weavePackage);
+
+        for (String matchClassName : weavePackage.getMatchClassNames()) {
+            Assert.assertTrue(index.getCandidates(matchClassName, NONE, NONE, NO_ANNOTATIONS, NO_ANNOTATIONS, null)
+                    .contains(weavePackage));
+            Assert.assertTrue(index.getCandidates("some/Subclass", new String[] { matchClassName }, NONE, NO_ANNOTATIONS,
+                    NO_ANNOTATIONS, null).contains(weavePackage));
+            Assert.assertTrue(index.getCandidates("some/Impl", NONE, new String[] { matchClassName }, NO_ANNOTATIONS,
+                    NO_ANNOTATIONS, null).contains(weavePackage));
+        }
+        Assert.assertTrue(index.getCandidates("some/Other", new String[] { "java/lang/Object" }, NONE, NO_ANNOTATIONS,
+                NO_ANNOTATIONS, null).isEmpty());
+
+        index.remove(weavePackage);
+        for (String matchClassName : weavePackage.getMatchClassNames()) {
+            Assert.assertTrue(index.getCandidates(matchClassName, NONE, NONE, NO_ANNOTATIONS, NO_ANNOTATIONS, null).isEmpty());
+        }
+    }
+
+    @Test
+    public void testAnnotationCandidates() throws IOException {
+        CachedWeavePackage classAnnotationPackage = new CachedWeavePackage(new URL("http://does.not.exist"),
+                WeavePackageConfig.builder().name("class_annotation").source("source").build(), ImmutableSet.of("somemethod"),
+                Collections.<String>emptySet(), Collections.<String>emptySet(), null, ImmutableSet.of("Lcom/example/Path;"),
+                Collections.<String>emptySet());
+        CachedWeavePackage methodAnnotationPackage = new CachedWeavePackage(new URL("http://does.not.exist"),
+                WeavePackageConfig.builder().name("method_annotation").source("source").build(), ImmutableSet.of("somemethod"),
+                Collections.<String>emptySet(), Collections.<String>emptySet(), null, Collections.<String>emptySet(),
+                ImmutableSet.of("Lcom/example/Trace;"));
+
+        WeavePackageIndex index = new WeavePackageIndex();
+        index.add(classAnnotationPackage);
+        index.add(methodAnnotationPackage);
+
+        Assert.assertEquals(Collections.singleton(classAnnotationPackage), index.getCandidates("some/Resource", NONE, NONE,
+                ImmutableSet.of("Lcom/example/Path;"), NO_ANNOTATIONS, null));
+        Assert.assertEquals(Collections.singleton(methodAnnotationPackage), index.getCandidates("some/Traced", NONE, NONE,
+                NO_ANNOTATIONS, ImmutableSet.of("Lcom/example/Trace;"), null));
+        Assert.assertTrue(index.getCandidates("some/Plain", NONE, NONE, ImmutableSet.of("Lcom/example/Other;"), NO_ANNOTATIONS,
+                null).isEmpty());
+    }
+
+}
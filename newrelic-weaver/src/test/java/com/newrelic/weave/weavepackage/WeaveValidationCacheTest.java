@@ -0,0 +1,147 @@
+/*
+ *
+ *  * Copyright 2020 New Relic Corporation. All rights reserved.
+ *  * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+
+package com.newrelic.weave.weavepackage;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Collections;
+
+public class WeaveValidationCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testInvalidPackagesSurviveRestart() throws Exception {
+        File cacheDir = folder.newFolder("cache");
+        File appJar = createJar("app.jar", "app");
+        WeavePackage weavePackage = createWeavePackage(createJar("module.jar", "module"));
+
+        try (URLClassLoader classloader = new URLClassLoader(new URL[] { appJar.toURI().toURL() }, null)) {
+            WeaveValidationCache cache = new WeaveValidationCache(cacheDir, "1.0");
+            Assert.assertFalse(cache.isKnownInvalid(classloader, weavePackage));
+            cache.recordInvalid(classloader, weavePackage);
+            Assert.assertTrue(cache.isKnownInvalid(classloader, weavePackage));
+        }
+
+        try (URLClassLoader classloader = new URLClassLoader(new URL[] { appJar.toURI().toURL() }, null)) {
+            Assert.assertTrue(new WeaveValidationCache(cacheDir, "1.0").isKnownInvalid(classloader, weavePackage));
+            Assert.assertFalse(new WeaveValidationCache(cacheDir, "1.1").isKnownInvalid(classloader, weavePackage));
+        }
+    }
+
+    @Test
+    public void testChangedJarInvalidatesEntry() throws Exception {
+        File cacheDir = folder.newFolder("cache");
+        File appJar = createJar("app.jar", "app");
+        WeavePackage weavePackage = createWeavePackage(createJar("module.jar", "module"));
+
+        try (URLClassLoader classloader = new URLClassLoader(new URL[] { appJar.toURI().toURL() }, null)) {
+            new WeaveValidationCache(cacheDir, "1.0").recordInvalid(classloader, weavePackage);
+        }
+
+        Files.write(appJar.toPath(), "upgraded app".getBytes());
+        try (URLClassLoader classloader = new URLClassLoader(new URL[] { appJar.toURI().toURL() }, null)) {
+            Assert.assertFalse(new WeaveValidationCache(cacheDir, "1.0").isKnownInvalid(classloader, weavePackage));
+        }
+    }
+
+    @Test
+    public void testDirectoryClassLoaderIsNotCached() throws Exception {
+        File cacheDir = folder.newFolder("cache");
+        File classesDir = folder.newFolder("classes");
+        WeavePackage weavePackage = createWeavePackage(createJar("module.jar", "module"));
+
+        try (URLClassLoader classloader = new URLClassLoader(new URL[] { classesDir.toURI().toURL() }, null)) {
+            WeaveValidationCache cache = new WeaveValidationCache(cacheDir, "1.0");
+            cache.recordInvalid(classloader, weavePackage);
+            Assert.assertFalse(cache.isKnownInvalid(classloader, weavePackage));
+        }
+        Assert.assertFalse(new File(cacheDir, "1.0").exists());
+    }
+
+    @Test
+    public void testNestedJarUrlDescribesOuterJar() throws Exception {
+        File appJar = createJar("app.jar", "app");
+        String nested = "jar:" + appJar.toURI().toURL() + "!/BOOT-INF/lib/lib.jar!/";
+        String description = WeaveValidationCache.describe(nested);
+        Assert.assertNotNull(description);
+        Assert.assertTrue(description.startsWith(appJar.getAbsolutePath()));
+        Assert.assertNull(WeaveValidationCache.describe("http://example.com/lib.jar"));
+    }
+
+    @Test
+    public void testBootstrapAndPlatformClassLoadersAreNotCached() {
+        Assert.assertNull(WeaveValidationCache.describe((ClassLoader) null));
+        Assert.assertNull(WeaveValidationCache.describe(ClassLoader.getSystemClassLoader().getParent()));
+    }
+
+    @Test
+    public void testChangedBootClassPathAppendChangesFingerprint() throws Exception {
+        File appJar = createJar("app.jar", "app");
+        File bootJar = createJar("boot.jar", "boot");
+        String previous = System.getProperty("jdk.boot.class.path.append");
+        try (URLClassLoader classloader = new URLClassLoader(new URL[] { appJar.toURI().toURL() }, null)) {
+            System.setProperty("jdk.boot.class.path.append", bootJar.getAbsolutePath());
+            String description = WeaveValidationCache.describe(classloader);
+            Assert.assertNotNull(description);
+            Assert.assertTrue(description.contains(bootJar.getAbsolutePath()));
+
+            Files.write(bootJar.toPath(), "upgraded boot".getBytes());
+            Assert.assertNotEquals(description, WeaveValidationCache.describe(classloader));
+        } finally {
+            if (previous == null) {
+                System.clearProperty("jdk.boot.class.path.append");
+            } else {
+                System.setProperty("jdk.boot.class.path.append", previous);
+            }
+        }
+    }
+
+    @Test
+    public void testOtherNamespacesArePruned() throws Exception {
+        File cacheDir = folder.newFolder("cache");
+        File oldNamespace = new File(cacheDir, "0.9");
+        Assert.assertTrue(oldNamespace.mkdirs());
+        Files.write(new File(oldNamespace, "abc.invalid").toPath(), "# weave validation cache v1".getBytes());
+        File unrelated = new File(cacheDir, "unrelated");
+        Assert.assertTrue(unrelated.mkdirs());
+        Files.write(new File(unrelated, "notes.txt").toPath(), "keep".getBytes());
+        File appJar = createJar("app.jar", "app");
+        WeavePackage weavePackage = createWeavePackage(createJar("module.jar", "module"));
+
+        try (URLClassLoader classloader = new URLClassLoader(new URL[] { appJar.toURI().toURL() }, null)) {
+            new WeaveValidationCache(cacheDir, "1.0").recordInvalid(classloader, weavePackage);
+        }
+        new WeaveValidationCache(cacheDir, "1.0");
+
+        Assert.assertFalse(oldNamespace.exists());
+        Assert.assertTrue(unrelated.exists());
+        Assert.assertTrue(new File(cacheDir, "1.0").isDirectory());
+    }
+
+    private File createJar(String name, String contents) throws Exception {
+        File jar = folder.newFile(name);
+        Files.write(jar.toPath(), contents.getBytes());
+        return jar;
+    }
+
+    private static WeavePackage createWeavePackage(File source) throws Exception {
+        WeavePackageConfig config = WeavePackageConfig.builder().name("weave_validation_cache").version(1.0f)
+                .source(source.toURI().toURL().toString()).build();
+        return new WeavePackage(config, Collections.<byte[]>emptyList());
+    }
+
+}